@@ -0,0 +1,146 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// Bridge to the calculator classes. They live in the unnamed package, which code in a named
+// package (and JMH refuses to generate benchmarks outside one) cannot import. The handles are
+// static final constants, so the JIT folds them into direct calls and the bridge costs nothing
+// in the measured numbers.
+final class Engine {
+    static final MethodHandle NEW_POSITION_RESULT;
+    static final MethodHandle NEW_PROFIT_RESULT;
+    static final MethodHandle ORDER_LADDER;
+    static final MethodHandle SIZE;
+    static final MethodHandle NEW_INSTRUMENT;
+    static final MethodHandle DEFAULT_CURVE;
+    static final MethodHandle SIZE_ROUNDED;
+    static final MethodHandle CALCULATE_PROFIT;
+    static final MethodHandle FORMAT_POSITION;
+    static final MethodHandle FORMAT_PROFIT;
+    static final MethodHandle NEW_MONTE_CARLO_RESULT;
+    static final MethodHandle SIMULATE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ClassLoader loader = Engine.class.getClassLoader();
+            Class<?> positionResult = Class.forName("PositionResult", true, loader);
+            Class<?> profitResult = Class.forName("ProfitResult", true, loader);
+            Class<?> sizingEngine = Class.forName("PositionSizingEngine", true, loader);
+            Class<?> profitEngine = Class.forName("ProfitEngine", true, loader);
+            Class<?> instrumentSpec = Class.forName("InstrumentSpec", true, loader);
+            Class<?> weightCurve = Class.forName("WeightCurve", true, loader);
+            Class<?> monteCarloResult = Class.forName("MonteCarloResult", true, loader);
+            Class<?> monteCarloEngine = Class.forName("MonteCarloEngine", true, loader);
+            Class<?> positionPanel = Class.forName("PositionCalculatorPanel", false, loader);
+            Class<?> profitPanel = Class.forName("ProfitCalculatorPanel", false, loader);
+
+            NEW_POSITION_RESULT = lookup.findConstructor(positionResult, MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class));
+            NEW_PROFIT_RESULT = lookup.findConstructor(profitResult, MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class));
+            ORDER_LADDER = lookup.findStatic(sizingEngine, "orderLadder",
+                    MethodType.methodType(int.class, double[].class, int.class, double.class));
+            SIZE = lookup.findStatic(sizingEngine, "size",
+                    MethodType.methodType(int.class, double[].class, int.class, int.class, double.class,
+                            double.class, double.class, positionResult))
+                    .asType(MethodType.methodType(int.class, double[].class, int.class, int.class, double.class,
+                            double.class, double.class, Object.class));
+            NEW_INSTRUMENT = lookup.findConstructor(instrumentSpec,
+                    MethodType.methodType(void.class, double.class, double.class, double.class))
+                    .asType(MethodType.methodType(Object.class, double.class, double.class, double.class));
+            DEFAULT_CURVE = lookup.findStatic(sizingEngine, "defaultCurve", MethodType.methodType(weightCurve, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class));
+            SIZE_ROUNDED = lookup.findStatic(sizingEngine, "size",
+                    MethodType.methodType(int.class, double[].class, int.class, int.class, weightCurve, double.class,
+                            double.class, double.class, instrumentSpec, positionResult))
+                    .asType(MethodType.methodType(int.class, double[].class, int.class, int.class, Object.class,
+                            double.class, double.class, double.class, Object.class, Object.class));
+            CALCULATE_PROFIT = lookup.findStatic(profitEngine, "calculate",
+                    MethodType.methodType(void.class, positionResult, double[].class, double[].class,
+                            boolean[].class, int.class, double.class, profitResult))
+                    .asType(MethodType.methodType(void.class, Object.class, double[].class, double[].class,
+                            boolean[].class, int.class, double.class, Object.class));
+            FORMAT_POSITION = privateLookup(positionPanel, lookup).findStatic(positionPanel, "formatResult",
+                    MethodType.methodType(String.class, positionResult))
+                    .asType(MethodType.methodType(String.class, Object.class));
+            FORMAT_PROFIT = privateLookup(profitPanel, lookup).findStatic(profitPanel, "formatResult",
+                    MethodType.methodType(String.class, positionResult, profitResult))
+                    .asType(MethodType.methodType(String.class, Object.class, Object.class));
+            NEW_MONTE_CARLO_RESULT = lookup.findConstructor(monteCarloResult, MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class));
+            SIMULATE = lookup.findStatic(monteCarloEngine, "simulate",
+                    MethodType.methodType(void.class, positionResult, double[].class, double[].class, double[].class,
+                            int.class, double.class, double.class, long.class, long.class, monteCarloResult))
+                    .asType(MethodType.methodType(void.class, Object.class, double[].class, double[].class,
+                            double[].class, int.class, double.class, double.class, long.class, long.class,
+                            Object.class));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private Engine() { }
+
+    // The report formatters are package-private in the GUI panels.
+    private static MethodHandles.Lookup privateLookup(Class<?> target, MethodHandles.Lookup lookup)
+            throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(target, lookup);
+    }
+
+    static Object newPositionResult(int capacity) throws Throwable {
+        return (Object) NEW_POSITION_RESULT.invokeExact(capacity);
+    }
+
+    static Object newProfitResult(int capacity) throws Throwable {
+        return (Object) NEW_PROFIT_RESULT.invokeExact(capacity);
+    }
+
+    static int orderLadder(double[] prices, int n, double stopLoss) throws Throwable {
+        return (int) ORDER_LADDER.invokeExact(prices, n, stopLoss);
+    }
+
+    static int size(double[] entries, int n, int entryType, double stopLoss, double balance,
+                    double riskPercent, Object out) throws Throwable {
+        return (int) SIZE.invokeExact(entries, n, entryType, stopLoss, balance, riskPercent, out);
+    }
+
+    static Object newInstrument(double tickSize, double lotSize, double minNotional) throws Throwable {
+        return (Object) NEW_INSTRUMENT.invokeExact(tickSize, lotSize, minNotional);
+    }
+
+    static Object defaultCurve(int entryType) throws Throwable {
+        return (Object) DEFAULT_CURVE.invokeExact(entryType);
+    }
+
+    // Sizing rounded to an instrument's tick, lot and minimum notional.
+    static int size(double[] entries, int n, int entryType, Object curve, double stopLoss, double balance,
+                    double riskPercent, Object instrument, Object out) throws Throwable {
+        return (int) SIZE_ROUNDED.invokeExact(entries, n, entryType, curve, stopLoss, balance, riskPercent,
+                instrument, out);
+    }
+
+    static void calculateProfit(Object sizing, double[] tpPrices, double[] tpPcts, boolean[] tpTriggered,
+                                int tpCount, double closePrice, Object out) throws Throwable {
+        CALCULATE_PROFIT.invokeExact(sizing, tpPrices, tpPcts, tpTriggered, tpCount, closePrice, out);
+    }
+
+    static String formatPosition(Object result) throws Throwable {
+        return (String) FORMAT_POSITION.invokeExact(result);
+    }
+
+    static String formatProfit(Object sizing, Object profit) throws Throwable {
+        return (String) FORMAT_PROFIT.invokeExact(sizing, profit);
+    }
+
+    static Object newMonteCarloResult(int capacity) throws Throwable {
+        return (Object) NEW_MONTE_CARLO_RESULT.invokeExact(capacity);
+    }
+
+    static void simulate(Object sizing, double[] tpPrices, double[] tpPcts, double[] tpHitProbs, int tpCount,
+                         double stopHitProb, double closePrice, long paths, long seed, Object out) throws Throwable {
+        SIMULATE.invokeExact(sizing, tpPrices, tpPcts, tpHitProbs, tpCount, stopHitProb, closePrice, paths, seed, out);
+    }
+}
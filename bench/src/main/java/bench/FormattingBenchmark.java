@@ -0,0 +1,62 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Report building on its own: the results are computed once in setup, so only the text
+// formatting that feeds resultsArea is measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormattingBenchmark {
+    // 0 = Single Entry, 1 = Equal-Sized DCA, 2 = Exponential Entries.
+    @Param({"0", "1", "2"})
+    public int entryType;
+
+    @Param({"0", "5"})
+    public int tpCount;
+
+    private Object sizing;
+    private Object profit;
+
+    @Setup
+    public void setUp() throws Throwable {
+        double[] entries = entryType == 0 ? new double[]{100.0} : new double[]{100.0, 95.0, 90.0};
+        double[] tpPrices = new double[tpCount];
+        double[] tpPcts = new double[tpCount];
+        boolean[] tpTriggered = new boolean[tpCount];
+        for (int i = 0; i < tpCount; i++) {
+            tpPrices[i] = 110.0 + 10.0 * i;
+            tpPcts[i] = 100.0 / (tpCount + 1);
+            tpTriggered[i] = i % 2 == 0;
+        }
+        sizing = Engine.newPositionResult(entries.length);
+        profit = Engine.newProfitResult(Math.max(tpCount, 1));
+        Engine.size(entries, entries.length, entryType, 80.0, 10_000.0, 1.0, sizing);
+        Engine.calculateProfit(sizing, tpPrices, tpPcts, tpTriggered, tpCount, 105.0, profit);
+    }
+
+    @Benchmark
+    public String formatPosition() throws Throwable {
+        return Engine.formatPosition(sizing);
+    }
+
+    @Benchmark
+    public String formatProfit() throws Throwable {
+        return Engine.formatProfit(sizing, profit);
+    }
+}
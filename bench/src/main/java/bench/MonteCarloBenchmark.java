@@ -0,0 +1,51 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The Profit Calculator's Simulate button: a full fork/join Monte Carlo run over a 5-TP ladder.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MonteCarloBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    public long paths;
+
+    private double[] tpPrices;
+    private double[] tpPcts;
+    private double[] tpHitProbs;
+    private Object sizing;
+    private Object result;
+    private long seed;
+
+    @Setup
+    public void setUp() throws Throwable {
+        double[] entries = {100.0, 95.0, 90.0};
+        sizing = Engine.newPositionResult(entries.length);
+        Engine.size(entries, entries.length, 2, 80.0, 10_000.0, 1.0, sizing);
+        tpPrices = new double[]{110.0, 120.0, 130.0, 140.0, 150.0};
+        tpPcts = new double[]{20.0, 20.0, 20.0, 20.0, 10.0};
+        tpHitProbs = new double[]{0.7, 0.6, 0.5, 0.4, 0.3};
+        result = Engine.newMonteCarloResult(12);
+    }
+
+    @Benchmark
+    public Object simulate() throws Throwable {
+        Engine.simulate(sizing, tpPrices, tpPcts, tpHitProbs, tpPrices.length, 0.6, Double.NaN, paths, seed++, result);
+        return result;
+    }
+}
@@ -0,0 +1,62 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The math behind PositionCalculatorPanel.calculatePosition: order the ladder, then size it.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PositionSizingBenchmark {
+    // 0 = Single Entry, 1 = Equal-Sized DCA, 2 = Exponential Entries.
+    @Param({"0", "1", "2"})
+    public int entryType;
+
+    // Plain doubles, or rounded to a 0.01 tick and 0.001 lot in Fixed.
+    @Param({"false", "true"})
+    public boolean instrument;
+
+    private double[] typed;
+    private double[] ladder;
+    private int count;
+    private Object result;
+    private Object curve;
+    private Object spec;
+
+    @Setup
+    public void setUp() throws Throwable {
+        // Entered out of order, as users tend to, so the ordering step does real work.
+        typed = entryType == 0 ? new double[]{100.0} : new double[]{95.0, 100.0, 90.0};
+        count = typed.length;
+        ladder = new double[count];
+        result = Engine.newPositionResult(count);
+        curve = Engine.defaultCurve(entryType);
+        spec = instrument ? Engine.newInstrument(0.01, 0.001, 10.0) : null;
+    }
+
+    @Benchmark
+    public Object calculatePosition() throws Throwable {
+        System.arraycopy(typed, 0, ladder, 0, count);
+        Engine.orderLadder(ladder, count, 80.0);
+        if (spec == null) {
+            Engine.size(ladder, count, entryType, 80.0, 10_000.0, 1.0, result);
+        } else {
+            Engine.size(ladder, count, entryType, curve, 80.0, 10_000.0, 1.0, spec, result);
+        }
+        return result;
+    }
+}
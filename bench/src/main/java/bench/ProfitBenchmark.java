@@ -0,0 +1,73 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The math behind ProfitCalculatorPanel.calculateProfit: size the triggered entries, then
+// evaluate the take-profit ladder against them.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProfitBenchmark {
+    // 0 = Single Entry, 1 = Equal-Sized DCA, 2 = Exponential Entries.
+    @Param({"0", "1", "2"})
+    public int entryType;
+
+    @Param({"0", "1", "2", "3", "4", "5"})
+    public int tpCount;
+
+    // Plain doubles, or rounded to a 0.01 tick and 0.001 lot in Fixed.
+    @Param({"false", "true"})
+    public boolean instrument;
+
+    private double[] entries;
+    private double[] tpPrices;
+    private double[] tpPcts;
+    private boolean[] tpTriggered;
+    private Object sizing;
+    private Object profit;
+    private Object curve;
+    private Object spec;
+
+    @Setup
+    public void setUp() throws Throwable {
+        entries = entryType == 0 ? new double[]{100.0} : new double[]{100.0, 95.0, 90.0};
+        tpPrices = new double[tpCount];
+        tpPcts = new double[tpCount];
+        tpTriggered = new boolean[tpCount];
+        for (int i = 0; i < tpCount; i++) {
+            tpPrices[i] = 110.0 + 10.0 * i;
+            tpPcts[i] = 100.0 / (tpCount + 1);
+            tpTriggered[i] = i % 2 == 0;
+        }
+        sizing = Engine.newPositionResult(entries.length);
+        profit = Engine.newProfitResult(Math.max(tpCount, 1));
+        curve = Engine.defaultCurve(entryType);
+        spec = instrument ? Engine.newInstrument(0.01, 0.001, 10.0) : null;
+    }
+
+    @Benchmark
+    public Object calculateProfit() throws Throwable {
+        if (spec == null) {
+            Engine.size(entries, entries.length, entryType, 80.0, 10_000.0, 1.0, sizing);
+        } else {
+            Engine.size(entries, entries.length, entryType, curve, 80.0, 10_000.0, 1.0, spec, sizing);
+        }
+        Engine.calculateProfit(sizing, tpPrices, tpPcts, tpTriggered, tpCount, 105.0, profit);
+        return profit;
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Managed accounts that one trade is copied to, for FanOutEngine. Kept as parallel arrays
+// (struct of arrays) so the sizing pass reads balances and risk % straight through memory
+// without touching an object per account.
+//
+// The file has one account per line: id,balance[,risk %]. A blank or missing risk % takes the
+// fan-out's default. Header, '#' and malformed lines are skipped.
+public class AccountTable {
+    public int count;
+    public String[] ids = new String[0];
+    public double[] balances = new double[0];
+    // NaN where the account uses the default risk %.
+    public double[] riskPcts = new double[0];
+    public long skippedLines;
+
+    public void ensureCapacity(int n) {
+        if (balances.length < n) {
+            int cap = Math.max(n, balances.length * 2);
+            ids = Arrays.copyOf(ids, cap);
+            balances = Arrays.copyOf(balances, cap);
+            riskPcts = Arrays.copyOf(riskPcts, cap);
+        }
+    }
+
+    public void add(String id, double balance, double riskPct) {
+        ensureCapacity(count + 1);
+        ids[count] = id;
+        balances[count] = balance;
+        riskPcts[count] = riskPct;
+        count++;
+    }
+
+    public static AccountTable load(Path file) throws IOException {
+        AccountTable table = new AccountTable();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file.getFileName() + " is too large for an accounts file.");
+            }
+            MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int limit = (int) size;
+            // About 24 bytes per account; saves regrowing the arrays while loading.
+            table.ensureCapacity(Math.max(16, limit / 24));
+            int lineStart = 0;
+            for (int i = 0; i <= limit; i++) {
+                if (i == limit || buf.get(i) == '\n') {
+                    table.parseLine(buf, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+        } catch (IOException ex) {
+            if (!Files.exists(file)) {
+                throw new IOException(file.getFileName() + " does not exist.");
+            }
+            throw ex;
+        }
+        return table;
+    }
+
+    private void parseLine(MappedByteBuffer buf, int from, int to) {
+        if (to > from && buf.get(to - 1) == '\r') {
+            to--;
+        }
+        if (from >= to) {
+            return;
+        }
+        if (buf.get(from) == '#') {
+            skippedLines++;
+            return;
+        }
+        int first = from;
+        while (first < to && buf.get(first) != ',') {
+            first++;
+        }
+        int second = first + 1;
+        while (second < to && buf.get(second) != ',') {
+            second++;
+        }
+        double balance = first < to ? AsciiNumbers.parseDouble(buf, first + 1, Math.min(second, to)) : Double.NaN;
+        double risk = second < to ? AsciiNumbers.parseDouble(buf, second + 1, to) : Double.NaN;
+        if (!(balance > 0)) {
+            // Headers land here too, as their balance column is not a number.
+            skippedLines++;
+            return;
+        }
+        byte[] id = new byte[first - from];
+        for (int i = 0; i < id.length; i++) {
+            id[i] = buf.get(from + i);
+        }
+        add(new String(id, StandardCharsets.UTF_8).trim(), balance, risk);
+    }
+}
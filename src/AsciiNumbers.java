@@ -0,0 +1,256 @@
+import java.nio.ByteBuffer;
+
+// Parses and prints decimal numbers straight from/to ASCII bytes so bulk I/O does not have to
+// materialise a String per field; only the rare number too long for the exact fast path does.
+public final class AsciiNumbers {
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long[] LONG_POW10 = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L
+    };
+
+    // The most putLong can write: Long.MIN_VALUE.
+    public static final int MAX_LONG_LENGTH = 20;
+    // Integer digits of Double.MAX_VALUE, which putFixed writes in full.
+    private static final int MAX_DOUBLE_DIGITS = 309;
+
+    private AsciiNumbers() { }
+
+    // Parses buf[from, to) as a decimal number with optional sign, fraction and exponent.
+    // Surrounding spaces are ignored; anything else malformed yields NaN. The result is the
+    // correctly rounded double, as from Double.parseDouble: a mantissa of up to 15 digits with a
+    // power of ten within 1e22 takes one exact division or multiplication; anything longer or
+    // larger is copied out and left to the JDK, since scaling in double would round twice.
+    public static double parseDouble(ByteBuffer buf, int from, int to) {
+        while (from < to && buf.get(from) == ' ') {
+            from++;
+        }
+        while (to > from && buf.get(to - 1) == ' ') {
+            to--;
+        }
+        if (from >= to) {
+            return Double.NaN;
+        }
+        int i = from;
+        boolean negative = false;
+        byte c = buf.get(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exp10 = 0;
+        int digits = 0;
+        boolean exact = true;
+        boolean seenDot = false;
+        for (; i < to; i++) {
+            c = buf.get(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa < (1L << 53) / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (seenDot) {
+                        exp10--;
+                    }
+                } else {
+                    exact = false;
+                }
+                digits++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (i < to) {
+            c = buf.get(i);
+            if (c != 'e' && c != 'E') {
+                return Double.NaN;
+            }
+            i++;
+            boolean expNegative = false;
+            if (i < to && (buf.get(i) == '-' || buf.get(i) == '+')) {
+                expNegative = buf.get(i) == '-';
+                i++;
+            }
+            if (i >= to) {
+                return Double.NaN;
+            }
+            int e = 0;
+            for (; i < to; i++) {
+                c = buf.get(i);
+                if (c < '0' || c > '9') {
+                    return Double.NaN;
+                }
+                if (e < 10000) {
+                    e = e * 10 + (c - '0');
+                }
+            }
+            exp10 += expNegative ? -e : e;
+        }
+        if (!exact || exp10 < -22 || exp10 > 22) {
+            char[] chars = new char[to - from];
+            for (int k = 0; k < chars.length; k++) {
+                chars[k] = (char) buf.get(from + k);
+            }
+            return Double.parseDouble(new String(chars));
+        }
+        // Both the mantissa and the power of ten are exact doubles, so one rounding step.
+        double value = exp10 < 0 ? mantissa / POW10[-exp10] : mantissa * POW10[exp10];
+        return negative ? -value : value;
+    }
+
+    // Parses chars[from, to) as typed into a text field: a decimal number with optional sign,
+    // fraction and exponent, surrounding whitespace ignored; NaN when blank or malformed. Rounds
+    // like the bulk parser above, and likewise only hands the JDK numbers whose syntax is
+    // already known to be valid, so nothing is ever thrown.
+    public static double parseDouble(char[] chars, int from, int to) {
+        while (from < to && Character.isWhitespace(chars[from])) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(chars[to - 1])) {
+            to--;
+        }
+        int i = from;
+        boolean negative = false;
+        if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int exp10 = 0;
+        int digits = 0;
+        boolean exact = true;
+        boolean seenDot = false;
+        for (; i < to; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                if (mantissa < (1L << 53) / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (seenDot) {
+                        exp10--;
+                    }
+                } else {
+                    exact = false;
+                }
+                digits++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+        if (i < to) {
+            if (chars[i] != 'e' && chars[i] != 'E') {
+                return Double.NaN;
+            }
+            i++;
+            boolean expNegative = false;
+            if (i < to && (chars[i] == '-' || chars[i] == '+')) {
+                expNegative = chars[i] == '-';
+                i++;
+            }
+            if (i >= to) {
+                return Double.NaN;
+            }
+            int e = 0;
+            for (; i < to; i++) {
+                char c = chars[i];
+                if (c < '0' || c > '9') {
+                    return Double.NaN;
+                }
+                if (e < 10000) {
+                    e = e * 10 + (c - '0');
+                }
+            }
+            exp10 += expNegative ? -e : e;
+        }
+        if (!exact || exp10 < -22 || exp10 > 22) {
+            return Double.parseDouble(new String(chars, from, to - from));
+        }
+        // Both the mantissa and the power of ten are exact doubles, so one rounding step.
+        double value = exp10 < 0 ? mantissa / POW10[-exp10] : mantissa * POW10[exp10];
+        return negative ? -value : value;
+    }
+
+    // Appends v rounded to the given number of decimals (at most 8) in plain notation.
+    public static void putFixed(ByteBuffer out, double v, int decimals) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            putAscii(out, Double.isNaN(v) ? "NaN" : (v > 0 ? "Infinity" : "-Infinity"));
+            return;
+        }
+        long scale = LONG_POW10[decimals];
+        double scaled = Math.abs(v) * scale;
+        if (scaled >= 9.0e18) {
+            // Too large for the fast path; rare enough to go through the JDK.
+            putAscii(out, String.format("%." + decimals + "f", v));
+            return;
+        }
+        long units = Math.round(scaled);
+        if (v < 0 && units != 0) {
+            out.put((byte) '-');
+        }
+        // Write right to left straight into place: fraction digits, the point, then the integer part.
+        int intDigits = digitCount(units / scale);
+        int length = intDigits + (decimals > 0 ? decimals + 1 : 0);
+        int start = out.position();
+        int pos = start + length - 1;
+        for (int d = 0; d < decimals; d++) {
+            out.put(pos--, (byte) ('0' + units % 10));
+            units /= 10;
+        }
+        if (decimals > 0) {
+            out.put(pos--, (byte) '.');
+        }
+        do {
+            out.put(pos--, (byte) ('0' + units % 10));
+            units /= 10;
+        } while (units > 0);
+        out.position(start + length);
+    }
+
+    // The most putFixed can write with this many decimals: -Double.MAX_VALUE, its point and decimals.
+    public static int maxFixedLength(int decimals) {
+        return 1 + MAX_DOUBLE_DIGITS + (decimals > 0 ? 1 + decimals : 0);
+    }
+
+    public static void putLong(ByteBuffer out, long v) {
+        if (v < 0) {
+            out.put((byte) '-');
+            if (v == Long.MIN_VALUE) {
+                putAscii(out, "9223372036854775808");
+                return;
+            }
+            v = -v;
+        }
+        int start = out.position();
+        int length = digitCount(v);
+        for (int pos = start + length - 1; pos >= start; pos--) {
+            out.put(pos, (byte) ('0' + v % 10));
+            v /= 10;
+        }
+        out.position(start + length);
+    }
+
+    private static int digitCount(long v) {
+        int n = 1;
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    public static void putAscii(ByteBuffer out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            out.put((byte) s.charAt(i));
+        }
+    }
+}
@@ -0,0 +1,282 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Price history in a columnar binary file, read through memory-mapped windows.
+//
+// Layout (big-endian): int magic 'PSCB', short version, short reserved, long bar count, then
+// one column after another: time (long), open, high, low, close (double), each count values
+// long. Replaying only touches the window of each column it is walking, so files of tens of
+// millions of bars never end up on the heap.
+//
+// CSV files (time,open,high,low,close or time,price for ticks; header and '#' lines skipped)
+// are converted once into a sibling ".bars" file, which is reused while it is newer than the CSV.
+// Times are kept as numbers (e.g. epoch milliseconds); a non-numeric time becomes the row number.
+public class BarFile implements Closeable {
+    private static final int MAGIC = 0x50534342; // "PSCB"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    public static final int WINDOW_BARS = 1 << 20;
+    private static final long CSV_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long count;
+    private long windowStart = -1;
+    private int windowBars;
+    private MappedByteBuffer times;
+    private MappedByteBuffer opens;
+    private MappedByteBuffer highs;
+    private MappedByteBuffer lows;
+    private MappedByteBuffer closes;
+
+    private BarFile(FileChannel channel, long count) {
+        this.channel = channel;
+        this.count = count;
+    }
+
+    // Opens a .bars file, or a CSV file after converting it if needed.
+    public static BarFile open(Path path) throws IOException {
+        if (!isBarsFile(path)) {
+            Path bars = path.resolveSibling(path.getFileName() + ".bars");
+            if (!Files.exists(bars) || Files.getLastModifiedTime(bars).compareTo(Files.getLastModifiedTime(path)) < 0) {
+                convertCsv(path, bars);
+            }
+            path = bars;
+        }
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && ch.read(header) >= 0) { }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException(path.getFileName() + " is not a bar file.");
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported bar file version " + version + ".");
+            }
+            header.getShort();
+            long count = header.getLong();
+            if (ch.size() < HEADER_SIZE + count * 40) {
+                throw new IOException(path.getFileName() + " is truncated.");
+            }
+            return new BarFile(ch, count);
+        } catch (IOException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    private static boolean isBarsFile(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && ch.read(magic) >= 0) { }
+            return magic.position() == 4 && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    // Index of the first bar at or after time, found by binary search on the time column
+    // (which must be in time order); count() if every bar is earlier.
+    public long findTime(long time) throws IOException {
+        ByteBuffer value = ByteBuffer.allocate(8);
+        long lo = 0;
+        long hi = count;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            value.clear();
+            while (value.hasRemaining() && channel.read(value, HEADER_SIZE + mid * 8 + value.position()) >= 0) { }
+            if (value.getLong(0) < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Maps the bars starting at first and returns how many are available through the *At
+    // accessors (index 0 is bar first), at most WINDOW_BARS.
+    public int window(long first) throws IOException {
+        if (first != windowStart) {
+            windowStart = first;
+            windowBars = (int) Math.min(WINDOW_BARS, count - first);
+            long bytes = (long) windowBars * 8;
+            times = map(0, first, bytes);
+            opens = map(1, first, bytes);
+            highs = map(2, first, bytes);
+            lows = map(3, first, bytes);
+            closes = map(4, first, bytes);
+        }
+        return windowBars;
+    }
+
+    private MappedByteBuffer map(int column, long first, long bytes) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + (column * count + first) * 8, bytes);
+    }
+
+    public long timeAt(int i) {
+        return times.getLong(i * 8);
+    }
+
+    public double openAt(int i) {
+        return opens.getDouble(i * 8);
+    }
+
+    public double highAt(int i) {
+        return highs.getDouble(i * 8);
+    }
+
+    public double lowAt(int i) {
+        return lows.getDouble(i * 8);
+    }
+
+    public double closeAt(int i) {
+        return closes.getDouble(i * 8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        times = opens = highs = lows = closes = null;
+        channel.close();
+    }
+
+    // Streams the CSV into five temporary column files and then joins them behind a header,
+    // so the conversion needs one small buffer per column whatever the file size.
+    public static long convertCsv(Path csv, Path bars) throws IOException {
+        Path[] columnFiles = new Path[5];
+        FileChannel[] columns = new FileChannel[5];
+        ByteBuffer[] buffers = new ByteBuffer[5];
+        long rows = 0;
+        try {
+            for (int c = 0; c < 5; c++) {
+                columnFiles[c] = Files.createTempFile(bars.toAbsolutePath().getParent(), "column", ".tmp");
+                columns[c] = FileChannel.open(columnFiles[c], StandardOpenOption.WRITE);
+                buffers[c] = ByteBuffer.allocateDirect(256 * 1024);
+            }
+            double[] fields = new double[5];
+            try (FileChannel in = FileChannel.open(csv, StandardOpenOption.READ)) {
+                long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    long length = Math.min(CSV_WINDOW_SIZE, size - position);
+                    MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    boolean last = position + length == size;
+                    int lineStart = 0;
+                    int limit = (int) length;
+                    for (int i = 0; i <= limit; i++) {
+                        boolean end = i == limit;
+                        if (end && !last) {
+                            break;
+                        }
+                        if (!end && window.get(i) != '\n') {
+                            continue;
+                        }
+                        if (parseRow(window, lineStart, i, fields)) {
+                            long time = Double.isNaN(fields[0]) ? rows : (long) fields[0];
+                            append(columns[0], buffers[0]).putLong(time);
+                            for (int c = 1; c < 5; c++) {
+                                append(columns[c], buffers[c]).putDouble(fields[c]);
+                            }
+                            rows++;
+                        }
+                        lineStart = i + 1;
+                    }
+                    if (lineStart == 0 && !last) {
+                        throw new IOException("A line in " + csv.getFileName() + " is longer than " + CSV_WINDOW_SIZE + " bytes.");
+                    }
+                    position += Math.min(lineStart, limit);
+                }
+            }
+            for (int c = 0; c < 5; c++) {
+                drain(columns[c], buffers[c]);
+                columns[c].close();
+            }
+
+            Path tmp = bars.resolveSibling(bars.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(rows).flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                for (int c = 0; c < 5; c++) {
+                    try (FileChannel column = FileChannel.open(columnFiles[c], StandardOpenOption.READ)) {
+                        long done = 0;
+                        long total = column.size();
+                        while (done < total) {
+                            done += column.transferTo(done, total - done, out);
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, bars, StandardCopyOption.REPLACE_EXISTING);
+            return rows;
+        } finally {
+            for (int c = 0; c < 5; c++) {
+                if (columns[c] != null && columns[c].isOpen()) {
+                    columns[c].close();
+                }
+                if (columnFiles[c] != null) {
+                    Files.deleteIfExists(columnFiles[c]);
+                }
+            }
+        }
+    }
+
+    // Fills fields with time, open, high, low, close. A two-column tick row uses its price for
+    // all four. Returns false for blank, comment, header and malformed lines.
+    private static boolean parseRow(ByteBuffer buf, int from, int to, double[] fields) {
+        if (to > from && buf.get(to - 1) == '\r') {
+            to--;
+        }
+        if (from >= to || buf.get(from) == '#') {
+            return false;
+        }
+        int field = 0;
+        int fieldStart = from;
+        for (int i = from; i <= to && field < 5; i++) {
+            if (i < to && buf.get(i) != ',') {
+                continue;
+            }
+            fields[field++] = AsciiNumbers.parseDouble(buf, fieldStart, i);
+            fieldStart = i + 1;
+        }
+        if (field == 2) {
+            fields[2] = fields[3] = fields[4] = fields[1];
+        } else if (field != 5) {
+            return false;
+        }
+        for (int c = 1; c < 5; c++) {
+            if (Double.isNaN(fields[c])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ByteBuffer append(FileChannel ch, ByteBuffer buf) throws IOException {
+        if (buf.remaining() < 8) {
+            drain(ch, buf);
+        }
+        return buf;
+    }
+
+    private static void drain(FileChannel ch, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+    }
+}
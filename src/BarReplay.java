@@ -0,0 +1,207 @@
+import java.io.IOException;
+
+// Walks a BarFile in time order and decides what happened to a trade: which entries filled,
+// which take-profits were hit and whether the stop was taken first.
+//
+// Entries are resting limit orders (a long's fill when price trades down to them, a short's when
+// it trades up to them); an entry already through the first price fills at once. The stop and the
+// TPs only count once something has filled, and the first TP hit cancels entries still waiting.
+// Within a bar the usual OHLC assumption is made: price goes open, low, high, close on an up bar
+// and open, high, low, close otherwise, so a bar that spans both the stop and a TP is decided by
+// its direction. A tick file is just bars whose four prices are equal.
+//
+// A live price feed drives the same rules one price at a time: start() and then tick() for
+// each trade price as it arrives.
+public final class BarReplay {
+    private final double[] entries;
+    private final int entryCount;
+    private final double stopLoss;
+    private final double[] tpPrices;
+    private final int tpCount;
+    private final double tpPctTotal;
+    private final boolean isLong;
+    private final ReplayResult out;
+    private boolean anyFilled;
+    private boolean entriesCancelled;
+    private int tpsHit;
+    private boolean done;
+    private long time;
+    private double price = Double.NaN;
+    // Bumped on every fill, TP hit and stop, so a live caller can tell when to re-size.
+    private int events;
+
+    private BarReplay(double[] entries, int entryCount, double stopLoss, double[] tpPrices, double[] tpPcts,
+                      int tpCount, boolean isLong, ReplayResult out) {
+        this.entries = entries;
+        this.entryCount = entryCount;
+        this.stopLoss = stopLoss;
+        this.tpPrices = tpPrices;
+        this.tpCount = tpCount;
+        double total = 0.0;
+        for (int i = 0; i < tpCount; i++) {
+            if (!Double.isNaN(tpPrices[i])) {
+                total += tpPcts[i];
+            }
+        }
+        this.tpPctTotal = total;
+        this.isLong = isLong;
+        this.out = out;
+    }
+
+    // Entry and TP prices may contain NaN for blank rows; those never trigger. Bars before
+    // fromTime are skipped. Returns a PositionSizingEngine status code (also left in out.status).
+    public static int replay(BarFile bars, double[] entries, int entryCount, double stopLoss,
+                             double[] tpPrices, double[] tpPcts, int tpCount, long fromTime,
+                             ReplayResult out) throws IOException {
+        BarReplay replay = start(entries, entryCount, stopLoss, tpPrices, tpPcts, tpCount, out);
+        if (replay != null) {
+            replay.run(bars, fromTime);
+        }
+        return out.status;
+    }
+
+    // A replay to be fed with tick(); null, with the reason in out.status, when the entries and
+    // stop do not make a trade. The arrays are used as they are, not copied.
+    public static BarReplay start(double[] entries, int entryCount, double stopLoss, double[] tpPrices,
+                                  double[] tpPcts, int tpCount, ReplayResult out) {
+        out.reset(entryCount, tpCount);
+        boolean above = false;
+        boolean below = false;
+        for (int i = 0; i < entryCount; i++) {
+            if (entries[i] > stopLoss) {
+                above = true;
+            } else if (entries[i] <= stopLoss) {
+                below = true;
+            }
+        }
+        if (!above && !below) {
+            out.status = PositionSizingEngine.ERR_NO_ENTRIES;
+            return null;
+        }
+        if (above && below) {
+            out.status = PositionSizingEngine.ERR_MIXED_SIDES;
+            return null;
+        }
+        out.isLong = above;
+        return new BarReplay(entries, entryCount, stopLoss, tpPrices, tpPcts, tpCount, above, out);
+    }
+
+    // The next traded price. Returns false once the trade is over (stopped, or closed by TPs).
+    public boolean tick(long tickTime, double tickPrice) {
+        if (done) {
+            return false;
+        }
+        time = tickTime;
+        if (Double.isNaN(price)) {
+            out.firstTime = time;
+            // Entries already through the first price fill straight away.
+            price = isLong ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        }
+        move(price, tickPrice);
+        price = tickPrice;
+        out.barsRead++;
+        out.lastTime = time;
+        out.lastPrice = tickPrice;
+        return !done;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public int events() {
+        return events;
+    }
+
+    private void run(BarFile bars, long fromTime) throws IOException {
+        long first = fromTime == Long.MIN_VALUE ? 0 : bars.findTime(fromTime);
+        long total = bars.count();
+        for (long start = first; start < total && !done; ) {
+            int n = bars.window(start);
+            for (int i = 0; i < n && !done; i++) {
+                time = bars.timeAt(i);
+                double open = bars.openAt(i);
+                double high = bars.highAt(i);
+                double low = bars.lowAt(i);
+                double close = bars.closeAt(i);
+                if (Double.isNaN(price)) {
+                    out.firstTime = time;
+                    // Entries already through the opening price fill straight away.
+                    price = isLong ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+                }
+                move(price, open);
+                if (close >= open) {
+                    move(open, low);
+                    move(low, high);
+                    move(high, close);
+                } else {
+                    move(open, high);
+                    move(high, low);
+                    move(low, close);
+                }
+                price = close;
+                out.barsRead++;
+                out.lastTime = time;
+                out.lastPrice = close;
+            }
+            start += n;
+        }
+    }
+
+    // Price moves monotonically from a to b; everything it passes through happens in price order.
+    private void move(double a, double b) {
+        if (done || a == b) {
+            return;
+        }
+        boolean adverse = isLong ? b < a : b > a;
+        if (adverse) {
+            // Towards the stop: resting entries fill first (they sit between price and stop),
+            // then the stop itself.
+            if (!entriesCancelled) {
+                for (int i = 0; i < entryCount; i++) {
+                    double e = entries[i];
+                    if (!out.entryFilled[i] && crossed(e, a, b)) {
+                        out.entryFilled[i] = true;
+                        out.entryTimes[i] = time;
+                        anyFilled = true;
+                        events++;
+                    }
+                }
+            }
+            if (anyFilled && crossed(stopLoss, a, b)) {
+                out.stopped = true;
+                out.stopTime = time;
+                done = true;
+                events++;
+            }
+        } else if (anyFilled) {
+            for (int i = 0; i < tpCount; i++) {
+                if (!out.tpHit[i] && crossed(tpPrices[i], a, b)) {
+                    out.tpHit[i] = true;
+                    out.tpTimes[i] = time;
+                    entriesCancelled = true;
+                    tpsHit++;
+                    events++;
+                }
+            }
+            if (tpsHit > 0 && tpPctTotal >= 100.0 && allTpsHit()) {
+                out.closedByTps = true;
+                done = true;
+            }
+        }
+    }
+
+    private boolean allTpsHit() {
+        for (int i = 0; i < tpCount; i++) {
+            if (!out.tpHit[i] && !Double.isNaN(tpPrices[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // True when price p lies on the move from a (exclusive) to b (inclusive).
+    private static boolean crossed(double p, double a, double b) {
+        return a > b ? p < a && p >= b : p > a && p <= b;
+    }
+}
@@ -0,0 +1,154 @@
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.nio.file.Paths;
+
+// The Profit Calculator's Bar Replay: walks a price history file to tick the Triggered boxes the
+// way the market would have (see BarReplay), sets the close price to where the trade ended and
+// recalculates.
+public class BarReplayPanel extends JPanel {
+    private final ProfitCalculatorPanel calculator;
+    private final JTextField replayFileField = new JTextField(20);
+    private final JTextField replayFromField = new JTextField(12);
+    private final LiveCalculator<ReplayRequest, ReplayResult> replayer;
+
+    public BarReplayPanel(ProfitCalculatorPanel calculator) {
+        this.calculator = calculator;
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBorder(new TitledBorder("Bar Replay"));
+        JPanel replayFileRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        replayFileRow.add(new JLabel("Price File:"));
+        replayFileField.setToolTipText("CSV (time,open,high,low,close or time,price) or a converted .bars file");
+        replayFileRow.add(replayFileField);
+        JButton browseButton = new JButton("Browse...");
+        browseButton.addActionListener(e -> browseFile());
+        replayFileRow.add(browseButton);
+        add(replayFileRow);
+        JPanel replayStartRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        replayStartRow.add(new JLabel("From Time:"));
+        replayFromField.setToolTipText("Optional; same units as the file's time column. Blank = from the first bar");
+        replayStartRow.add(replayFromField);
+        JButton replayButton = new JButton("Replay");
+        replayStartRow.add(replayButton);
+        add(replayStartRow);
+
+        replayer = new LiveCalculator<>("Replay", this::readReplayRequest, BarReplayPanel::replay,
+                new LiveCalculator.ResultHandler<ReplayResult>() {
+                    public void onResult(ReplayResult r, boolean explicit) {
+                        applyReplay(r);
+                    }
+
+                    public void onError(Exception ex, boolean explicit) {
+                        calculator.showError(ex, explicit);
+                    }
+                });
+        replayButton.addActionListener(e -> replayer.calculateNow());
+    }
+
+    public void exportState(TabState state) {
+        state.replay.file = replayFileField.getText();
+        state.replay.from = replayFromField.getText();
+    }
+
+    public void importState(TabState state) {
+        replayer.cancel();
+        replayFileField.setText(state.replay.file);
+        replayFromField.setText(state.replay.from);
+    }
+
+    private void browseFile() {
+        JFileChooser chooser = new JFileChooser();
+        String current = replayFileField.getText().trim();
+        if (!current.isEmpty()) {
+            chooser.setSelectedFile(new java.io.File(current));
+        }
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            replayFileField.setText(chooser.getSelectedFile().getPath());
+        }
+    }
+
+    // Runs on the EDT. Every entry and TP row is sent, blank ones as NaN, so the replay's answer
+    // lines up with the rows whose Triggered boxes it will set.
+    private ReplayRequest readReplayRequest() throws Exception {
+        ReplayRequest request = new ReplayRequest();
+        request.file = replayFileField.getText().trim();
+        if (request.file.isEmpty()) {
+            throw new Exception("Please choose a price file to replay.");
+        }
+        String fromText = replayFromField.getText().trim();
+        request.fromTime = fromText.isEmpty() ? Long.MIN_VALUE : Long.parseLong(fromText);
+        request.stopLoss = Double.parseDouble(calculator.getStopLossField().getText().trim());
+        EntrySettingsPanel entrySettingsPanel = calculator.getEntrySettingsPanel();
+        request.entries = new double[entrySettingsPanel.getEntryCount()];
+        request.entryCount = entrySettingsPanel.getEntryRowPrices(request.entries);
+        if (entrySettingsPanel.getSelectedEntryTypeId() == PositionSizingEngine.SINGLE_ENTRY) {
+            request.entryCount = Math.min(1, request.entryCount);
+        }
+        ProfitTPPanel profitTPPanel = calculator.getProfitTPPanel();
+        request.tpCount = profitTPPanel.getTPRowCount();
+        request.tpPrices = new double[request.tpCount];
+        request.tpPcts = new double[request.tpCount];
+        profitTPPanel.getTPRowValues(request.tpPrices, request.tpPcts);
+        return request;
+    }
+
+    // Runs on a calculator worker thread.
+    private static ReplayResult replay(ReplayRequest request) throws Exception {
+        ReplayResult result = new ReplayResult();
+        int status;
+        try (BarFile bars = BarFile.open(Paths.get(request.file))) {
+            status = BarReplay.replay(bars, request.entries, request.entryCount, request.stopLoss,
+                    request.tpPrices, request.tpPcts, request.tpCount, request.fromTime, result);
+        }
+        if (status == PositionSizingEngine.ERR_NO_ENTRIES) {
+            throw new Exception("Please enter at least one entry price.");
+        } else if (status == PositionSizingEngine.ERR_MIXED_SIDES) {
+            throw new Exception("All entries must be either above or below the stop loss.");
+        }
+        return result;
+    }
+
+    // Ticks the boxes the replay decided on, sets the close price to where the trade ended and
+    // recalculates.
+    private void applyReplay(ReplayResult r) {
+        int filled = r.filledCount();
+        if (filled == 0) {
+            JOptionPane.showMessageDialog(this, "No entry filled in the " + r.barsRead + " bars replayed.",
+                    "Bar Replay", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        calculator.getEntrySettingsPanel().setTriggered(r.entryFilled);
+        ProfitTPPanel profitTPPanel = calculator.getProfitTPPanel();
+        profitTPPanel.setTriggered(r.tpHit);
+        int tps = 0;
+        for (int i = 0; i < profitTPPanel.getTPRowCount(); i++) {
+            if (i < r.tpHit.length && r.tpHit[i]) {
+                tps++;
+            }
+        }
+        String ending;
+        JTextField closePriceField = calculator.getActualClosePriceField();
+        if (r.stopped) {
+            closePriceField.setText(calculator.getStopLossField().getText().trim());
+            ending = "stopped out at time " + r.stopTime;
+        } else if (r.closedByTps) {
+            ending = "fully closed by the TPs";
+        } else {
+            closePriceField.setText(Double.toString(r.lastPrice));
+            ending = "still open at the last bar (time " + r.lastTime + ", close " + r.lastPrice + ")";
+        }
+        calculator.recalculate("Replayed " + r.barsRead + " bars: " + filled + " entries filled, " + tps + " TPs hit, "
+                + ending + ".");
+    }
+
+    private static class ReplayRequest {
+        String file;
+        long fromTime;
+        double stopLoss;
+        double[] entries;
+        int entryCount;
+        double[] tpPrices;
+        double[] tpPcts;
+        int tpCount;
+    }
+}
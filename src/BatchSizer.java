@@ -0,0 +1,235 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// Headless batch mode: streams order rows from a CSV file through PositionSizingEngine and
+// streams the sizing results to another CSV file.
+//
+// Input rows:  balance,risk %,stop loss,entry type,entry 1[,entry 2,...]
+//              entry type is 0/1/2 or single/dca/exp; blank lines and lines starting with '#'
+//              or a letter (a header) are skipped.
+// Output rows: line,status,side,avg entry,position size (USD),risk (USD),allocation 1[,...]
+//
+// The input is memory-mapped window by window and parsed in place, and output goes through one
+// reusable buffer, so the heap stays flat however many rows the file has.
+public class BatchSizer {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 1024 * 1024;
+    private static final String HEADER = "line,status,side,avg_entry,position_usd,risk_usd,allocations\n";
+    static final String[] STATUS_NAMES = {
+            "OK", "NO_ENTRIES", "MIXED_SIDES", "ENTRY_EQUALS_STOP", "INVALID_INPUT",
+            "BELOW_MINIMUM"
+    };
+    // Room writeResult needs: every row has the line number, the status and the newline; a
+    // sized one adds the side, average entry, position, risk, and one allocation per entry.
+    // Amounts are counted at the widest AsciiNumbers.putFixed can print them, however unlikely.
+    private static final int MAX_ROW_LENGTH = AsciiNumbers.MAX_LONG_LENGTH + 1 + maxLength(STATUS_NAMES)
+            + ",Short,".length() + AsciiNumbers.maxFixedLength(4) + 1 + AsciiNumbers.maxFixedLength(2)
+            + 1 + AsciiNumbers.maxFixedLength(2) + 1;
+    private static final int MAX_ALLOCATION_LENGTH = 1 + AsciiNumbers.maxFixedLength(2);
+
+    private final PositionResult result = new PositionResult(16);
+    private double[] entries = new double[16];
+    private ByteBuffer out = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+    private FileChannel outChannel;
+    private long lineNumber;
+    private long rowsSized;
+    private long rowsFailed;
+
+    public static int run(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: PositionSizeCalculator --batch <in.csv> <out.csv>");
+            return 2;
+        }
+        BatchSizer sizer = new BatchSizer();
+        long start = System.nanoTime();
+        try {
+            sizer.process(Paths.get(args[1]), Paths.get(args[2]));
+        } catch (IOException ex) {
+            System.err.println("Error: " + ex.getMessage());
+            return 1;
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.err.println("Sized " + sizer.rowsSized + " rows (" + sizer.rowsFailed + " rejected) in "
+                + elapsedMs + " ms.");
+        return 0;
+    }
+
+    public void process(Path input, Path output) throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel outCh = FileChannel.open(output, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            outChannel = outCh;
+            AsciiNumbers.putAscii(out, HEADER);
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                int consumed = processWindow(window, (int) length, last);
+                if (consumed == 0) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than " + WINDOW_SIZE + " bytes.");
+                }
+                position += consumed;
+            }
+            flush();
+        } finally {
+            outChannel = null;
+        }
+    }
+
+    // Processes every complete line in the window and returns the number of bytes consumed.
+    // An unterminated trailing line is left for the next window unless this is the last one.
+    private int processWindow(ByteBuffer buf, int limit, boolean last) throws IOException {
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buf.get(i) == '\n') {
+                processLine(buf, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (last && lineStart < limit) {
+            processLine(buf, lineStart, limit);
+            lineStart = limit;
+        }
+        return lineStart;
+    }
+
+    private void processLine(ByteBuffer buf, int from, int to) throws IOException {
+        lineNumber++;
+        if (to > from && buf.get(to - 1) == '\r') {
+            to--;
+        }
+        if (from >= to) {
+            return;
+        }
+        byte first = buf.get(from);
+        if (first == '#' || (first >= 'A' && first <= 'Z') || (first >= 'a' && first <= 'z')) {
+            return;
+        }
+
+        double balance = Double.NaN;
+        double riskPct = Double.NaN;
+        double stopLoss = Double.NaN;
+        int entryType = -1;
+        int n = 0;
+        int field = 0;
+        int fieldStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i < to && buf.get(i) != ',') {
+                continue;
+            }
+            switch (field) {
+                case 0: balance = AsciiNumbers.parseDouble(buf, fieldStart, i); break;
+                case 1: riskPct = AsciiNumbers.parseDouble(buf, fieldStart, i); break;
+                case 2: stopLoss = AsciiNumbers.parseDouble(buf, fieldStart, i); break;
+                case 3: entryType = parseEntryType(buf, fieldStart, i); break;
+                default:
+                    if (i > fieldStart) {
+                        if (n == entries.length) {
+                            double[] grown = new double[n * 2];
+                            System.arraycopy(entries, 0, grown, 0, n);
+                            entries = grown;
+                        }
+                        entries[n++] = AsciiNumbers.parseDouble(buf, fieldStart, i);
+                    }
+            }
+            field++;
+            fieldStart = i + 1;
+        }
+
+        int status;
+        if (entryType < 0) {
+            status = PositionSizingEngine.ERR_INVALID_INPUT;
+        } else {
+            status = hasNaN(entries, n) ? PositionSizingEngine.ERR_INVALID_INPUT
+                    : PositionSizingEngine.orderLadder(entries, n, stopLoss);
+            if (status == PositionSizingEngine.OK) {
+                status = PositionSizingEngine.size(entries, n, entryType, stopLoss, balance, riskPct, result);
+            }
+        }
+        writeResult(status);
+    }
+
+    private void writeResult(int status) throws IOException {
+        int room = MAX_ROW_LENGTH + (status == PositionSizingEngine.OK ? MAX_ALLOCATION_LENGTH * result.count : 0);
+        if (out.remaining() < room) {
+            flush();
+            if (out.capacity() < room) {
+                out = ByteBuffer.allocate(room);
+            }
+        }
+        AsciiNumbers.putLong(out, lineNumber);
+        out.put((byte) ',');
+        AsciiNumbers.putAscii(out, STATUS_NAMES[status]);
+        if (status == PositionSizingEngine.OK) {
+            rowsSized++;
+            AsciiNumbers.putAscii(out, result.isLong ? ",Long," : ",Short,");
+            AsciiNumbers.putFixed(out, result.avgEntry, 4);
+            out.put((byte) ',');
+            AsciiNumbers.putFixed(out, result.positionSizeUSD, 2);
+            out.put((byte) ',');
+            AsciiNumbers.putFixed(out, result.riskUSD, 2);
+            for (int i = 0; i < result.count; i++) {
+                out.put((byte) ',');
+                AsciiNumbers.putFixed(out, result.allocations[i], 2);
+            }
+        } else {
+            rowsFailed++;
+        }
+        out.put((byte) '\n');
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            outChannel.write(out);
+        }
+        out.clear();
+    }
+
+    private static int maxLength(String[] names) {
+        int max = 0;
+        for (String name : names) {
+            max = Math.max(max, name.length());
+        }
+        return max;
+    }
+
+    private static boolean hasNaN(double[] values, int n) {
+        for (int i = 0; i < n; i++) {
+            if (Double.isNaN(values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Accepts the numeric id (0/1/2) or a keyword: single, dca/equal, exp.
+    static int parseEntryType(ByteBuffer buf, int from, int to) {
+        while (from < to && buf.get(from) == ' ') {
+            from++;
+        }
+        if (from >= to) {
+            return -1;
+        }
+        int c = buf.get(from) | 0x20;
+        if (c == '0' || c == 's') {
+            return PositionSizingEngine.SINGLE_ENTRY;
+        } else if (c == '1' || c == 'd') {
+            return PositionSizingEngine.EQUAL_SIZED_DCA;
+        } else if (c == '2') {
+            return PositionSizingEngine.EXPONENTIAL_ENTRIES;
+        } else if (c == 'e' && from + 1 < to) {
+            int c2 = buf.get(from + 1) | 0x20;
+            return c2 == 'x' ? PositionSizingEngine.EXPONENTIAL_ENTRIES
+                    : c2 == 'q' ? PositionSizingEngine.EQUAL_SIZED_DCA : -1;
+        }
+        return -1;
+    }
+}
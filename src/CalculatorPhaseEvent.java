@@ -0,0 +1,21 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One timed phase from Metrics, e.g. reading a tab's inputs or rendering its result.
+@Name("calculator.Phase")
+@Label("Calculator Phase")
+@Category("Trade Calculator")
+@Description("Time spent in one phase of calculating or showing a result")
+@StackTrace(false)
+class CalculatorPhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+}
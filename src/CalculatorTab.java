@@ -0,0 +1,15 @@
+// A calculator panel that can be moved between tabs: it saves its inputs into a TabState
+// and can be reset from one, so containers only keep a live panel for the visible tab.
+public interface CalculatorTab {
+    void exportState(TabState state);
+
+    void importState(TabState state);
+
+    // Told about the position behind each result the panel shows, for the portfolio totals.
+    void setExposureListener(ExposureListener listener);
+
+    interface ExposureListener {
+        // notionalUSD is zero when the tab has nothing open.
+        void exposureChanged(double riskUSD, double notionalUSD, boolean isLong);
+    }
+}
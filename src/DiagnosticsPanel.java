@@ -0,0 +1,125 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+// Hidden diagnostics window (Ctrl+Shift+D): count, p50, p99 and max of every Metrics phase,
+// EDT stalls from EdtWatchdog and the stack of the last one. Refreshed twice a second while open.
+public class DiagnosticsPanel extends JPanel {
+    private static final int REFRESH_MS = 500;
+
+    private final PhaseModel model = new PhaseModel();
+    private final JLabel stallLabel = new JLabel();
+    private final JTextArea stallArea = new JTextArea(8, 60);
+    private final Timer refreshTimer = new Timer(REFRESH_MS, e -> refresh());
+
+    public DiagnosticsPanel() {
+        setLayout(new BorderLayout(0, 4));
+        setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        DefaultTableCellRenderer numberRenderer = new DefaultTableCellRenderer();
+        numberRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        for (int c = 1; c < model.getColumnCount(); c++) {
+            table.getColumnModel().getColumn(c).setCellRenderer(numberRenderer);
+        }
+        table.getColumnModel().getColumn(0).setPreferredWidth(220);
+        JScrollPane tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(600, 260));
+        add(tableScroll, BorderLayout.CENTER);
+
+        JPanel bottom = new JPanel(new BorderLayout(0, 4));
+        JPanel stallRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        stallRow.add(stallLabel);
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            Metrics.reset();
+            refresh();
+        });
+        stallRow.add(resetButton);
+        bottom.add(stallRow, BorderLayout.NORTH);
+        stallArea.setEditable(false);
+        stallArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+        bottom.add(new JScrollPane(stallArea), BorderLayout.CENTER);
+        add(bottom, BorderLayout.SOUTH);
+        refresh();
+    }
+
+    // Opens the panel in a non-modal window that refreshes until it is closed.
+    public static void showDialog(Component parent) {
+        DiagnosticsPanel panel = new DiagnosticsPanel();
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(parent), "Diagnostics");
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.setContentPane(panel);
+        dialog.pack();
+        dialog.setLocationRelativeTo(parent);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                panel.refreshTimer.stop();
+            }
+        });
+        panel.refreshTimer.start();
+        dialog.setVisible(true);
+    }
+
+    private void refresh() {
+        model.refresh();
+        stallLabel.setText(String.format("EDT stalls over %d ms: %d", EdtWatchdog.STALL_MS,
+                EdtWatchdog.getStallCount()));
+        String stall = EdtWatchdog.getLastStall();
+        String text = stall != null ? stall : "No EDT stalls so far.";
+        if (!text.equals(stallArea.getText())) {
+            stallArea.setText(text);
+            stallArea.setCaretPosition(0);
+        }
+    }
+
+    private static class PhaseModel extends AbstractTableModel {
+        private static final String[] COLUMNS = {"Phase", "Count", "p50", "p99", "Max"};
+        private final List<String> names = new ArrayList<>();
+        private final List<LatencyHistogram> histograms = new ArrayList<>();
+
+        void refresh() {
+            names.clear();
+            histograms.clear();
+            for (Metrics.Phase phase : Metrics.phases()) {
+                names.add(phase.getName());
+                histograms.add(phase.snapshot());
+            }
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return names.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            LatencyHistogram h = histograms.get(row);
+            switch (column) {
+                case 0: return names.get(row);
+                case 1: return Long.toString(h.count());
+                case 2: return h.count() == 0 ? "" : LatencyHistogram.format(h.percentile(50));
+                case 3: return h.count() == 0 ? "" : LatencyHistogram.format(h.percentile(99));
+                default: return h.count() == 0 ? "" : LatencyHistogram.format(h.max());
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// The Swing event thread did not get to EdtWatchdog's ping for longer than the stall threshold.
+@Name("calculator.EdtStall")
+@Label("EDT Stall")
+@Category("Trade Calculator")
+@Description("The event dispatch thread was blocked; blockedAt is its stack while it was stuck")
+@StackTrace(false)
+class EdtStallEvent extends jdk.jfr.Event {
+    @Label("Blocked For")
+    @Timespan(Timespan.NANOSECONDS)
+    long nanos;
+
+    @Label("Blocked At")
+    String blockedAt;
+}
@@ -0,0 +1,90 @@
+import java.awt.EventQueue;
+
+// Detects a blocked Swing event thread.
+//
+// A daemon thread posts a small task to the EDT every PING_MS and times how long it waits in
+// the queue; that delay goes into the "EDT dispatch delay" phase. While a ping has waited more
+// than STALL_MS the EDT's stack is sampled once, so the diagnostics panel (and the EdtStallEvent)
+// can say what it was busy with.
+public final class EdtWatchdog {
+    private static final long PING_MS = 50;
+    private static final long POLL_MS = 10;
+    public static final long STALL_MS = 100;
+    private static final int STACK_FRAMES = 12;
+    private static final Metrics.Phase DISPATCH_DELAY = Metrics.phase("EDT dispatch delay");
+
+    private static Thread watchdog;
+    private static volatile Thread edt;
+    private static volatile long pendingPing;
+    private static volatile String sampledStack;
+    private static volatile long stallCount;
+    private static volatile String lastStall;
+
+    private EdtWatchdog() { }
+
+    public static synchronized void start() {
+        if (watchdog != null) {
+            return;
+        }
+        watchdog = new Thread(EdtWatchdog::watch, "edt-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    public static long getStallCount() {
+        return stallCount;
+    }
+
+    // Duration and EDT stack of the most recent stall, or null if there was none.
+    public static String getLastStall() {
+        return lastStall;
+    }
+
+    private static void watch() {
+        try {
+            while (true) {
+                long posted = System.nanoTime();
+                pendingPing = posted;
+                sampledStack = null;
+                EventQueue.invokeLater(() -> pong(posted));
+                while (pendingPing == posted) {
+                    Thread.sleep(POLL_MS);
+                    Thread t = edt;
+                    if (sampledStack == null && t != null && System.nanoTime() - posted > STALL_MS * 1_000_000) {
+                        sampledStack = format(t.getStackTrace());
+                    }
+                }
+                Thread.sleep(PING_MS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs on the EDT.
+    private static void pong(long posted) {
+        long delay = System.nanoTime() - posted;
+        edt = Thread.currentThread();
+        DISPATCH_DELAY.recordNanos(delay);
+        if (delay > STALL_MS * 1_000_000) {
+            String stack = sampledStack != null ? sampledStack : "(not sampled)";
+            stallCount++;
+            lastStall = String.format("EDT blocked for %s, at:%n%s", LatencyHistogram.format(delay), stack);
+            if (Metrics.JFR) {
+                JfrEvents.edtStall(delay, stack);
+            }
+        }
+        pendingPing = 0;
+    }
+
+    private static String format(StackTraceElement[] frames) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < frames.length && i < STACK_FRAMES; i++) {
+            sb.append("    at ").append(frames[i]).append('\n');
+        }
+        if (frames.length > STACK_FRAMES) {
+            sb.append("    ... ").append(frames.length - STACK_FRAMES).append(" more\n");
+        }
+        return sb.toString();
+    }
+}
@@ -5,11 +5,28 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class EntrySettingsPanel extends JPanel {
+    private static final int MAX_ENTRIES = 500;
+    private static final int VISIBLE_ROWS = 8;
+    private static final String[] CURVE_LABELS = {"Linear", "Geometric", "Custom", "Formula"};
+    private static final Metrics.Phase UPDATE_ROWS = Metrics.phase("Update entry rows");
+
     private JComboBox<String> entryTypeCombo;
-    private JComboBox<Integer> entryCountCombo;
+    private JSpinner entryCountSpinner;
+    private JPanel curvePanel;
+    private JComboBox<String> curveCombo;
+    private JLabel curveParamLabel;
+    private JTextField curveParamField;
     private JPanel entryFieldsPanel;
+    private JScrollPane entryScroll;
     private List<EntryRow> entryRows = new ArrayList<>();
     private boolean isProspective; // true if in Position Calculator mode
+    private String customCurveText;
+    private WeightCurve customCurve;
+    private String geometricCurveText;
+    private WeightCurve geometricCurve;
+    private String formulaCurveText;
+    private WeightCurve formulaCurve;
+    private final FieldReader fields = new FieldReader();
 
     public EntrySettingsPanel(boolean isProspective) {
         this.isProspective = isProspective;
@@ -20,74 +37,233 @@ public class EntrySettingsPanel extends JPanel {
         // Top row for Entry Type and Count.
         JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
         topPanel.add(new JLabel("Entry Type:"));
-        entryTypeCombo = new JComboBox<>(new String[] {
-                "Single Entry", "Equal-Sized DCA", "Exponential Entries"
-        });
+        entryTypeCombo = new JComboBox<>(EntryStrategies.names());
         topPanel.add(entryTypeCombo);
         topPanel.add(new JLabel("Count:"));
-        entryCountCombo = new JComboBox<>(new Integer[]{1,2,3});
-        topPanel.add(entryCountCombo);
+        entryCountSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1, 1));
+        topPanel.add(entryCountSpinner);
         entryTypeCombo.addActionListener(e -> onEntryTypeChanged());
-        entryCountCombo.addActionListener(e -> updateEntryRows());
+        entryCountSpinner.addChangeListener(e -> updateEntryRows());
         add(topPanel);
 
-        // Entry fields panel (each row is compact)
+        // Weight curve row, only shown for strategies that leave the weights to the user.
+        curvePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        curvePanel.add(new JLabel("Weights:"));
+        curveCombo = new JComboBox<>(CURVE_LABELS);
+        curvePanel.add(curveCombo);
+        curveParamLabel = new JLabel();
+        curvePanel.add(curveParamLabel);
+        curveParamField = new JTextField(12);
+        curvePanel.add(curveParamField);
+        curveCombo.addActionListener(e -> onCurveChanged());
+        add(curvePanel);
+
+        // Entry fields panel (each row is compact); long ladders scroll.
         entryFieldsPanel = new JPanel();
         entryFieldsPanel.setLayout(new BoxLayout(entryFieldsPanel, BoxLayout.Y_AXIS));
-        add(entryFieldsPanel);
+        entryScroll = new JScrollPane(entryFieldsPanel,
+                JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        entryScroll.setBorder(BorderFactory.createEmptyBorder());
+        add(entryScroll);
 
+        onCurveChanged();
         onEntryTypeChanged();
-        updateEntryRows();
     }
 
     private void onEntryTypeChanged() {
-        String type = (String) entryTypeCombo.getSelectedItem();
-        if ("Single Entry".equals(type)) {
-            entryCountCombo.setModel(new DefaultComboBoxModel<>(new Integer[]{1}));
-            entryCountCombo.setEnabled(false);
+        EntryStrategy strategy = getSelectedStrategy();
+        if (!strategy.isLadder()) {
+            entryCountSpinner.setModel(new SpinnerNumberModel(1, 1, 1, 1));
+            entryCountSpinner.setEnabled(false);
         } else {
-            entryCountCombo.setModel(new DefaultComboBoxModel<>(new Integer[]{2,3}));
-            entryCountCombo.setEnabled(true);
+            int current = Math.max(2, (int) entryCountSpinner.getValue());
+            entryCountSpinner.setModel(new SpinnerNumberModel(current, 2, MAX_ENTRIES, 1));
+            entryCountSpinner.setEnabled(true);
         }
+        curvePanel.setVisible(strategy.isLadder() && strategy.curve() == null);
         updateEntryRows();
     }
 
+    private void onCurveChanged() {
+        int curve = curveCombo.getSelectedIndex();
+        if (curve == 1) {
+            curveParamLabel.setText("Factor:");
+            curveParamField.setText("1.5");
+        } else if (curve == 2) {
+            curveParamLabel.setText("Weights (comma-separated):");
+            curveParamField.setText("1, 2, 3");
+        } else if (curve == 3) {
+            curveParamLabel.setText("Weight of rung i of n:");
+            curveParamField.setText("i ^ 1.5");
+        }
+        curveParamField.setToolTipText(curve == 3
+                ? "e.g. i ^ 1.5, exp(i / n) or 1 + i; + - * / ^ and sqrt exp log abs pow min max"
+                : null);
+        curveParamLabel.setVisible(curve != 0);
+        curveParamField.setVisible(curve != 0);
+        curvePanel.revalidate();
+    }
+
+    // Adds or removes rows at the end only, so existing rows keep their values and a long
+    // ladder is not rebuilt on every step of the spinner.
     private void updateEntryRows() {
-        int count = (int) entryCountCombo.getSelectedItem();
-        List<EntryRowData> oldData = new ArrayList<>();
-        for (EntryRow row : entryRows) {
-            oldData.add(new EntryRowData(row.getPriceText(), row.isTriggered()));
-        }
-        entryFieldsPanel.removeAll();
-        entryRows.clear();
-        for (int i = 0; i < count; i++) {
-            EntryRow row = new EntryRow("Entry " + (i+1) + " Price:", isProspective);
-            if (i < oldData.size()) {
-                row.setPriceText(oldData.get(i).price);
-                row.setTriggered(oldData.get(i).triggered);
-            }
+        long start = System.nanoTime();
+        int count = (int) entryCountSpinner.getValue();
+        while (entryRows.size() > count) {
+            entryFieldsPanel.remove(entryRows.remove(entryRows.size() - 1));
+        }
+        while (entryRows.size() < count) {
+            EntryRow row = new EntryRow("Entry " + (entryRows.size() + 1) + " Price:", isProspective);
             entryRows.add(row);
             entryFieldsPanel.add(row);
         }
+        int rowHeight = entryRows.get(0).getPreferredSize().height;
+        int visibleRows = Math.min(count, VISIBLE_ROWS);
+        entryScroll.setPreferredSize(new Dimension(entryFieldsPanel.getPreferredSize().width + 20,
+                rowHeight * visibleRows + 4));
+        entryScroll.getVerticalScrollBar().setUnitIncrement(rowHeight);
         // Remove extra vertical spacing.
         entryFieldsPanel.revalidate();
         entryFieldsPanel.repaint();
+        revalidate();
+        UPDATE_ROWS.record(start);
     }
 
-    public String getSelectedEntryType() {
-        return (String) entryTypeCombo.getSelectedItem();
+    // The weight curve of the selected strategy, or the one chosen under Weights. Throws
+    // IllegalArgumentException with a user-facing message when the factor, custom weights or
+    // formula cannot be used.
+    public WeightCurve getWeightCurve() {
+        WeightCurve fixed = getSelectedStrategy().curve();
+        if (fixed != null) {
+            return fixed;
+        }
+        int curve = curveCombo.getSelectedIndex();
+        String text = curveParamField.getText().trim();
+        if (curve == 1) {
+            // Kept while the factor is unchanged, like the custom weights below; building the
+            // table for this many rungs checks the factor before the calculation starts.
+            if (!text.equals(geometricCurveText)) {
+                try {
+                    geometricCurve = WeightCurve.geometric(Double.parseDouble(text));
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Geometric factor must be a positive number.");
+                }
+                geometricCurveText = text;
+            }
+            geometricCurve.raw(Math.max(1, entryRows.size()));
+            return geometricCurve;
+        } else if (curve == 2) {
+            // Parsed weights are kept so the cached tables survive until the text changes.
+            if (!text.equals(customCurveText)) {
+                String[] parts = text.split("[,\\s]+");
+                double[] weights = new double[parts.length];
+                try {
+                    for (int i = 0; i < parts.length; i++) {
+                        weights[i] = Double.parseDouble(parts[i]);
+                    }
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Custom weights must be positive numbers.");
+                }
+                customCurve = WeightCurve.custom(weights);
+                customCurveText = text;
+            }
+            return customCurve;
+        } else if (curve == 3) {
+            // Compiled once per text; building the table for this many rungs checks that every
+            // weight is usable before the calculation starts.
+            if (!text.equals(formulaCurveText)) {
+                formulaCurve = WeightCurve.formula(text);
+                formulaCurveText = text;
+            }
+            formulaCurve.raw(Math.max(1, entryRows.size()));
+            return formulaCurve;
+        }
+        return WeightCurve.LINEAR_WEIGHTS;
+    }
+
+    public EntryStrategy getSelectedStrategy() {
+        return EntryStrategies.all().get(Math.max(0, entryTypeCombo.getSelectedIndex()));
+    }
+
+    public int getSelectedEntryTypeId() {
+        return EntryStrategies.entryTypeOf(getSelectedStrategy());
     }
 
-    public List<Double> getEntryPrices() {
-        List<Double> result = new ArrayList<>();
-        for (EntryRow row : entryRows) {
+    // Reads the prices of the entries that count (all of them here, the triggered ones in the
+    // Profit Calculator) into in.entries and in.entryCount. Blank rows are skipped; a price that
+    // is not a number is recorded as an error on in.
+    public void readEntries(TradeInputs in) {
+        in.ensureEntries(entryRows.size());
+        int n = 0;
+        for (int i = 0; i < entryRows.size(); i++) {
+            EntryRow row = entryRows.get(i);
             if (isProspective || row.isTriggered()) {
-                try {
-                    result.add(Double.parseDouble(row.getPriceText().trim()));
-                } catch (NumberFormatException ex) { }
+                double price = fields.optional(row.priceField, "Entry " + (i + 1) + " Price", in);
+                if (!Double.isNaN(price)) {
+                    in.entries[n++] = price;
+                }
             }
         }
-        return result;
+        in.entryCount = n;
+    }
+
+    // Every row's price in row order, NaN where the field is blank or not a number; returns the row count.
+    public int getEntryRowPrices(double[] dst) {
+        for (int i = 0; i < entryRows.size(); i++) {
+            dst[i] = fields.number(entryRows.get(i).priceField);
+        }
+        return entryRows.size();
+    }
+
+    // Fills the first rows with the given prices, e.g. a solved ladder; the row count is kept.
+    public void setEntryPrices(String[] prices) {
+        for (int i = 0; i < entryRows.size() && i < prices.length; i++) {
+            entryRows.get(i).setPriceText(prices[i]);
+        }
+    }
+
+    public void setTriggered(boolean[] triggered) {
+        for (int i = 0; i < entryRows.size() && i < triggered.length; i++) {
+            entryRows.get(i).setTriggered(triggered[i]);
+        }
+    }
+
+    public int getEntryCount() {
+        return entryRows.size();
+    }
+
+    public void exportState(TabState state) {
+        state.entryType = entryTypeCombo.getSelectedIndex();
+        state.entryStrategy = getSelectedStrategy().name();
+        state.curve = curveCombo.getSelectedIndex();
+        state.curveParam = curveParamField.getText();
+        int n = entryRows.size();
+        state.entryPrices = new String[n];
+        state.entryTriggered = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            state.entryPrices[i] = entryRows.get(i).getPriceText();
+            state.entryTriggered[i] = entryRows.get(i).isTriggered();
+        }
+    }
+
+    public void importState(TabState state) {
+        int strategy = EntryStrategies.indexOf(state.entryStrategy);
+        if (strategy < 0) {
+            // Older sessions only have the index, which the built-in types keep.
+            strategy = state.entryType < entryTypeCombo.getItemCount() ? state.entryType : 0;
+        }
+        entryTypeCombo.setSelectedIndex(strategy);
+        curveCombo.setSelectedIndex(state.curve);
+        curveParamField.setText(state.curveParam);
+        int n = state.entryPrices.length;
+        if (getSelectedEntryTypeId() != PositionSizingEngine.SINGLE_ENTRY) {
+            entryCountSpinner.setValue(Math.max(2, Math.min(MAX_ENTRIES, n)));
+        }
+        for (int i = 0; i < entryRows.size(); i++) {
+            EntryRow row = entryRows.get(i);
+            row.setPriceText(i < n ? state.entryPrices[i] : "");
+            row.setTriggered(i >= n || state.entryTriggered[i]);
+        }
     }
 
     private static class EntryRow extends JPanel {
@@ -125,13 +301,4 @@ public class EntrySettingsPanel extends JPanel {
             triggeredBox.setSelected(b);
         }
     }
-
-    private static class EntryRowData {
-        String price;
-        boolean triggered;
-        public EntryRowData(String price, boolean triggered) {
-            this.price = price;
-            this.triggered = triggered;
-        }
-    }
 }
@@ -0,0 +1,115 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+// The entry strategies on offer: the built-in types in PositionSizingEngine's order, so their
+// index is their entry type, then any found through ServiceLoader, in class path order. Looked
+// up once, the first time they are needed.
+public final class EntryStrategies {
+    private static final List<EntryStrategy> ALL = load();
+
+    private EntryStrategies() { }
+
+    public static List<EntryStrategy> all() {
+        return ALL;
+    }
+
+    public static String[] names() {
+        String[] names = new String[ALL.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = ALL.get(i).name();
+        }
+        return names;
+    }
+
+    // -1 when no strategy has this name.
+    public static int indexOf(String name) {
+        return indexOf(ALL, name);
+    }
+
+    // The PositionSizingEngine entry type that sizes the strategy: a single entry, equal rungs,
+    // or rungs weighted by a curve.
+    public static int entryTypeOf(EntryStrategy strategy) {
+        if (!strategy.isLadder()) {
+            return PositionSizingEngine.SINGLE_ENTRY;
+        }
+        return strategy.curve() == WeightCurve.EQUAL_WEIGHTS
+                ? PositionSizingEngine.EQUAL_SIZED_DCA
+                : PositionSizingEngine.EXPONENTIAL_ENTRIES;
+    }
+
+    private static List<EntryStrategy> load() {
+        List<EntryStrategy> all = new ArrayList<>();
+        all.add(new BuiltIn(PositionSizingEngine.labelOf(PositionSizingEngine.SINGLE_ENTRY), false,
+                WeightCurve.EQUAL_WEIGHTS));
+        all.add(new BuiltIn(PositionSizingEngine.labelOf(PositionSizingEngine.EQUAL_SIZED_DCA), true,
+                WeightCurve.EQUAL_WEIGHTS));
+        all.add(new BuiltIn(PositionSizingEngine.labelOf(PositionSizingEngine.EXPONENTIAL_ENTRIES), true, null));
+        Iterator<EntryStrategy> found = ServiceLoader.load(EntryStrategy.class,
+                EntryStrategies.class.getClassLoader()).iterator();
+        while (hasNext(found)) {
+            EntryStrategy strategy;
+            try {
+                strategy = found.next();
+                String name = strategy.name();
+                if (name == null || name.trim().isEmpty() || indexOf(all, name) >= 0) {
+                    System.err.println("Entry strategy " + strategy.getClass().getName()
+                            + " skipped: its name is blank or already taken.");
+                    continue;
+                }
+            } catch (ServiceConfigurationError | RuntimeException ex) {
+                // A broken plug-in should not keep the calculator from starting.
+                System.err.println("Entry strategy skipped: " + ex.getMessage());
+                continue;
+            }
+            all.add(strategy);
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    // A service file that cannot be read ends the search rather than failing on every call.
+    private static boolean hasNext(Iterator<EntryStrategy> found) {
+        try {
+            return found.hasNext();
+        } catch (ServiceConfigurationError ex) {
+            System.err.println("Entry strategies not loaded: " + ex.getMessage());
+            return false;
+        }
+    }
+
+    private static int indexOf(List<EntryStrategy> list, String name) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).name().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class BuiltIn implements EntryStrategy {
+        private final String name;
+        private final boolean ladder;
+        private final WeightCurve curve;
+
+        BuiltIn(String name, boolean ladder, WeightCurve curve) {
+            this.name = name;
+            this.ladder = ladder;
+            this.curve = curve;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public boolean isLadder() {
+            return ladder;
+        }
+
+        public WeightCurve curve() {
+            return curve;
+        }
+    }
+}
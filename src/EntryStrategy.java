@@ -0,0 +1,19 @@
+// A way of spreading a trade over its entries, listed under Entry Type. Single Entry,
+// Equal-Sized DCA and Exponential Entries are built in; more can be added from a jar on the
+// class path that implements this interface (in the default package, like the calculator's own
+// classes) and names its classes in META-INF/services/EntryStrategy. See EntryStrategies.
+//
+// A strategy comes down to a rung count and a WeightCurve, which the sizing engine already
+// handles, so one that is registered sizes, sweeps, solves and fans out at the built-ins' speed.
+public interface EntryStrategy {
+    // Shown under Entry Type and saved with the tab, so it should not change between versions.
+    String name();
+
+    // False for a single entry; true for a ladder of two or more.
+    boolean isLadder();
+
+    // The weights the ladder is spread by, rung 0 furthest from the stop. Null lets the user
+    // choose them under Weights, as for Exponential Entries. Called for every calculation, so
+    // return the same curve each time; its weight tables are cached on it.
+    WeightCurve curve();
+}
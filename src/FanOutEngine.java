@@ -0,0 +1,409 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Fan-out sizing behind the Position Calculator's Fan Out button: one trade (ladder, stop, entry
+// type and instrument) sized for every account in an AccountTable on that account's balance and
+// risk %, with the answer PositionSizingEngine.size would give the account on its own.
+//
+// What the accounts share (the ordered, tick-rounded ladder, the weights, the average entry,
+// the stop distance and the contracts per budget dollar) is worked out once. Each account is then the engine's own
+// arithmetic on its budget, in the same order so the lot rounding lands the same way: a few
+// multiplies and one lot floor per entry. Accounts are sized in bands of BAND_ACCOUNTS on the
+// common fork/join pool, or on the calling thread when there is only one band, straight into
+// FanOutResult's arrays; nothing is allocated per account.
+//
+// Reconciliation: every band sums its part of each entry's block order (exactly, in Fixed, with
+// an instrument), the bands are added up, and a second pass over the stored account rows has to
+// arrive at the same block orders. As quantities only round down, no account may risk more than
+// its budget either.
+public final class FanOutEngine {
+    static final int BAND_ACCOUNTS = 2048;
+    // Fees are rounded per order, so a budget may be overshot by up to a cent.
+    private static final double BUDGET_TOLERANCE = 0.01;
+
+    private FanOutEngine() { }
+
+    // in holds the trade as the Position Calculator reads it; in.riskPct is the risk % of
+    // accounts that have none of their own (NaN for none). Returns a PositionSizingEngine
+    // status for the trade itself; each account's own status is in out.statuses.
+    public static int fanOut(TradeInputs in, AccountTable accounts, FanOutResult out) {
+        out.accounts = accounts.count;
+        out.count = 0;
+        out.sized = out.belowMinimum = out.invalid = out.overBudget = 0;
+        out.totalBudgetUSD = out.totalPositionUSD = out.totalRiskUSD = out.totalFeesUSD = 0.0;
+        out.reconciled = false;
+        out.total.count = 0;
+        int n = in.entryType == PositionSizingEngine.SINGLE_ENTRY ? Math.min(1, in.entryCount) : in.entryCount;
+        if (n <= 0) {
+            return out.status = PositionSizingEngine.ERR_NO_ENTRIES;
+        }
+        if (Double.isNaN(in.stopLoss)) {
+            return out.status = PositionSizingEngine.ERR_INVALID_INPUT;
+        }
+        int bands = Math.max(1, (accounts.count + BAND_ACCOUNTS - 1) / BAND_ACCOUNTS);
+        out.ensureCapacity(accounts.count, Math.max(n, in.entryCount), bands);
+
+        // The trade, as the calculator sizes it: ordered, then snapped to the tick.
+        double[] ladder = out.ladder;
+        System.arraycopy(in.entries, 0, ladder, 0, in.entryCount);
+        if (PositionSizingEngine.orderLadder(ladder, in.entryCount, in.stopLoss) != PositionSizingEngine.OK) {
+            return out.status = PositionSizingEngine.ERR_MIXED_SIDES;
+        }
+        InstrumentSpec spec = in.instrument;
+        double stop = in.stopLoss;
+        if (spec != null) {
+            for (int i = 0; i < n; i++) {
+                if (!(ladder[i] > 0)) {
+                    return out.status = PositionSizingEngine.ERR_INVALID_INPUT;
+                }
+                out.priceFx[i] = spec.roundPrice(ladder[i]);
+                ladder[i] = Fixed.toDouble(out.priceFx[i]);
+            }
+            out.stopFx = spec.roundPrice(stop);
+            stop = Fixed.toDouble(out.stopFx);
+            for (int i = 0; i < n; i++) {
+                out.lotNotionalFx[i] = lotNotional(spec, out.priceFx[i]);
+            }
+            out.stopLotNotionalFx = lotNotional(spec, out.stopFx);
+        }
+        WeightCurve curve = WeightCurve.EQUAL_WEIGHTS;
+        if (in.entryType == PositionSizingEngine.EXPONENTIAL_ENTRIES) {
+            curve = in.curve != null ? in.curve : PositionSizingEngine.defaultCurve(in.entryType);
+        }
+        double[] shares = curve.normalized(n);
+        double avg = 0.0;
+        for (int i = 0; i < n; i++) {
+            avg += ladder[i] * shares[i];
+        }
+        out.count = n;
+        out.stopLoss = stop;
+        out.avgEntry = avg;
+        out.isLong = avg > stop;
+        out.instrument = spec;
+        out.shares = shares;
+        out.distance = Math.abs(avg - stop);
+        if (out.distance < 1e-9) {
+            return out.status = PositionSizingEngine.ERR_ENTRY_EQUALS_STOP;
+        }
+        if (spec != null) {
+            PositionSizingEngine.contractsPerBudget(ladder, shares, n, stop, spec, out.contractsPerBudget);
+        }
+        out.defaultRisk = in.riskPct;
+
+        Band all = new Band(out, accounts, 0, accounts.count);
+        if (bands > 1) {
+            ForkJoinPool.commonPool().invoke(all);
+        } else {
+            all.invoke();
+        }
+        out.sized = all.sized;
+        out.belowMinimum = all.belowMinimum;
+        out.invalid = all.invalid;
+        out.totalBudgetUSD = all.budget;
+        out.totalPositionUSD = all.position;
+        out.totalRiskUSD = all.risk;
+        out.totalFeesUSD = all.fees;
+        // Block orders: the bands' parts, added in band order so the sums do not depend on
+        // which thread finished first.
+        Arrays.fill(out.entryUnits, 0, n, 0.0);
+        Arrays.fill(out.entryNotional, 0, n, 0.0);
+        Arrays.fill(out.entryUnitsFx, 0, n, 0L);
+        long notionalFx = 0;
+        for (int b = 0; b < bands; b++) {
+            for (int i = 0; i < n; i++) {
+                int at = b * n + i;
+                if (spec != null) {
+                    out.entryUnitsFx[i] += out.bandUnitsFx[at];
+                    out.entryNotional[i] += Fixed.toDouble(out.bandNotionalFx[at]);
+                    notionalFx += out.bandNotionalFx[at];
+                } else {
+                    out.entryUnits[i] += out.bandUnits[at];
+                    out.entryNotional[i] += out.bandNotional[at];
+                }
+            }
+        }
+        if (spec != null) {
+            for (int i = 0; i < n; i++) {
+                out.entryUnits[i] = Fixed.toDouble(out.entryUnitsFx[i]);
+            }
+        }
+        reconcile(out);
+        fillTotal(in.entryType, in.entryStrategy, curve, notionalFx, out);
+        return out.status = PositionSizingEngine.OK;
+    }
+
+    // spec.notional(price, lot) when it is exact, so that for any whole number of lots
+    // spec.notional(price, lots * lot) is lots times it; 0 when the product has to be rounded.
+    // Saves the wide multiply, which is most of the cost of sizing an account.
+    static long lotNotional(InstrumentSpec spec, long price) {
+        long lot = spec.lotSize;
+        if (lot <= 0) {
+            return 0;
+        }
+        long value = exactMul(price, lot);
+        if (value > 0 && spec.multiplier > 0 && spec.multiplier != Fixed.SCALE) {
+            value = exactMul(value, spec.multiplier);
+        }
+        return value;
+    }
+
+    // a * b / SCALE when that is a whole number that fits a long, otherwise 0.
+    private static long exactMul(long a, long b) {
+        long lo = a * b;
+        if (Math.multiplyHigh(a, b) != (lo >> 63) || lo % Fixed.SCALE != 0) {
+            return 0;
+        }
+        return lo / Fixed.SCALE;
+    }
+
+    // Adds up the stored account rows again, in the order they sit in memory, and checks them
+    // against the block orders and the budgets.
+    private static void reconcile(FanOutResult out) {
+        int n = out.count;
+        int cells = out.accounts * n;
+        double[] quantities = out.quantities;
+        boolean match = true;
+        if (out.instrument != null) {
+            long[] sums = out.checkUnitsFx;
+            Arrays.fill(sums, 0, n, 0L);
+            for (int at = 0, i = 0; at < cells; at++) {
+                sums[i] += Fixed.of(quantities[at]);
+                if (++i == n) {
+                    i = 0;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                match &= sums[i] == out.entryUnitsFx[i];
+            }
+        } else {
+            double[] sums = out.checkUnits;
+            Arrays.fill(sums, 0, n, 0.0);
+            for (int at = 0, i = 0; at < cells; at++) {
+                sums[i] += quantities[at];
+                if (++i == n) {
+                    i = 0;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                match &= Math.abs(sums[i] - out.entryUnits[i]) <= 1e-9 * Math.max(1.0, Math.abs(sums[i]));
+            }
+        }
+        int over = 0;
+        for (int k = 0; k < out.accounts; k++) {
+            if (out.riskUSD[k] > out.budgets[k] + BUDGET_TOLERANCE) {
+                over++;
+            }
+        }
+        out.overBudget = over;
+        out.reconciled = match && over == 0;
+    }
+
+    private static void fillTotal(int entryType, String entryStrategy, WeightCurve curve, long notionalFx, FanOutResult out) {
+        int n = out.count;
+        PositionResult t = out.total;
+        t.ensureCapacity(n);
+        System.arraycopy(out.ladder, 0, t.entries, 0, n);
+        System.arraycopy(curve.raw(n), 0, t.weights, 0, n);
+        System.arraycopy(out.entryNotional, 0, t.allocations, 0, n);
+        System.arraycopy(out.entryUnits, 0, t.quantities, 0, n);
+        t.count = n;
+        t.entryType = entryType;
+        t.entryStrategy = entryStrategy;
+        t.stopLoss = out.stopLoss;
+        t.isLong = out.isLong;
+        t.instrument = out.instrument;
+        t.positionSizeUSD = out.totalPositionUSD;
+        t.riskUSD = out.totalRiskUSD;
+        t.feesUSD = out.totalFeesUSD;
+        long unitsFx = 0;
+        double units = 0.0;
+        for (int i = 0; i < n; i++) {
+            unitsFx += out.entryUnitsFx[i];
+            units += out.entryUnits[i];
+        }
+        t.totalUnitsFx = unitsFx;
+        t.notionalFx = notionalFx;
+        t.totalUnits = units;
+        double multiplier = out.instrument != null ? out.instrument.multiplierValue() : 1.0;
+        t.avgEntry = units > 0 ? t.positionSizeUSD / (units * multiplier) : out.avgEntry;
+        t.status = out.sized > 0 ? PositionSizingEngine.OK : PositionSizingEngine.ERR_BELOW_MINIMUM;
+    }
+
+    private static class Band extends RecursiveAction {
+        private final FanOutResult out;
+        private final AccountTable accounts;
+        private final int from;
+        private final int to;
+        // This band's totals, added into the parent's when both halves are done.
+        int sized;
+        int belowMinimum;
+        int invalid;
+        double budget;
+        double position;
+        double risk;
+        double fees;
+
+        Band(FanOutResult out, AccountTable accounts, int from, int to) {
+            this.out = out;
+            this.accounts = accounts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BAND_ACCOUNTS) {
+                // Split on a band boundary, so each leaf owns one slot of the partial sums.
+                int mid = from + (to - from + BAND_ACCOUNTS - 1) / BAND_ACCOUNTS / 2 * BAND_ACCOUNTS;
+                Band left = new Band(out, accounts, from, mid);
+                Band right = new Band(out, accounts, mid, to);
+                invokeAll(left, right);
+                sized = left.sized + right.sized;
+                belowMinimum = left.belowMinimum + right.belowMinimum;
+                invalid = left.invalid + right.invalid;
+                budget = left.budget + right.budget;
+                position = left.position + right.position;
+                risk = left.risk + right.risk;
+                fees = left.fees + right.fees;
+                return;
+            }
+            int n = out.count;
+            int slot = from / BAND_ACCOUNTS * n;
+            Arrays.fill(out.bandUnits, slot, slot + n, 0.0);
+            Arrays.fill(out.bandNotional, slot, slot + n, 0.0);
+            Arrays.fill(out.bandUnitsFx, slot, slot + n, 0L);
+            Arrays.fill(out.bandNotionalFx, slot, slot + n, 0L);
+            if (out.instrument != null) {
+                sizeRounded(n, slot);
+            } else {
+                sizePlain(n, slot);
+            }
+        }
+
+        // Plain doubles: every account is the same ladder scaled by its budget.
+        private void sizePlain(int n, int slot) {
+            double[] balances = accounts.balances;
+            double[] riskPcts = accounts.riskPcts;
+            double[] shares = out.shares;
+            double[] ladder = out.ladder;
+            double avg = out.avgEntry;
+            double stop = out.stopLoss;
+            for (int k = from; k < to; k++) {
+                double balance = balances[k];
+                double riskPct = Double.isNaN(riskPcts[k]) ? out.defaultRisk : riskPcts[k];
+                int row = k * n;
+                if (!(balance > 0) || !(riskPct > 0)) {
+                    skip(k, row, n);
+                    continue;
+                }
+                double pos = PositionSizingEngine.positionSize(avg, stop, balance, riskPct);
+                for (int i = 0; i < n; i++) {
+                    double allocation = pos * shares[i];
+                    double quantity = allocation / ladder[i];
+                    out.allocations[row + i] = allocation;
+                    out.quantities[row + i] = quantity;
+                    out.bandUnits[slot + i] += quantity;
+                    out.bandNotional[slot + i] += allocation;
+                }
+                out.statuses[k] = PositionSizingEngine.OK;
+                out.budgets[k] = balance * (riskPct / 100.0);
+                out.positionUSD[k] = pos;
+                out.riskUSD[k] = out.distance * (pos / avg);
+                out.feesUSD[k] = 0.0;
+                sized++;
+                budget += out.budgets[k];
+                position += pos;
+                risk += out.riskUSD[k];
+            }
+        }
+
+        // With an instrument: lot floors, minimum notional and fees, summed in Fixed.
+        private void sizeRounded(int n, int slot) {
+            double[] balances = accounts.balances;
+            double[] riskPcts = accounts.riskPcts;
+            double[] perBudget = out.contractsPerBudget;
+            long[] priceFx = out.priceFx;
+            InstrumentSpec spec = out.instrument;
+            long[] lotNotionalFx = out.lotNotionalFx;
+            long lot = spec.lotSize;
+            // Past these the shortcut could overflow where mul() would throw, or the lot count
+            // could not be read back exactly.
+            long maxNotional = (long) (Fixed.MAX_UNITS * Fixed.SCALE);
+            long maxQuantity = 1L << 53;
+            for (int k = from; k < to; k++) {
+                double balance = balances[k];
+                double riskPct = Double.isNaN(riskPcts[k]) ? out.defaultRisk : riskPcts[k];
+                int row = k * n;
+                if (!(balance > 0) || !(riskPct > 0)) {
+                    skip(k, row, n);
+                    continue;
+                }
+                double riskBudget = balance * (riskPct / 100.0);
+                long unitsFx = 0;
+                long notionalFx = 0;
+                long feesFx = 0;
+                long lots = 0;
+                boolean byLot = out.stopLotNotionalFx > 0;
+                for (int i = 0; i < n; i++) {
+                    // PositionSizingEngine.size's steps, in its order.
+                    long quantityFx = Fixed.roundToStep((long) (riskBudget * perBudget[i] * Fixed.SCALE), spec.lotSize,
+                            Fixed.FLOOR);
+                    long notional;
+                    long perLot = lotNotionalFx[i];
+                    if (perLot > 0 && quantityFx >= 0 && quantityFx < maxQuantity
+                            && (double) quantityFx / lot * perLot < maxNotional) {
+                        // quantityFx is a whole number of lots, so the division is exact.
+                        long entryLots = (long) ((double) quantityFx / lot);
+                        notional = entryLots * perLot;
+                        if (notional >= spec.minNotional && quantityFx > 0) {
+                            lots += entryLots;
+                        }
+                    } else {
+                        notional = spec.notional(priceFx[i], quantityFx);
+                        byLot = false;
+                    }
+                    if (notional < spec.minNotional || quantityFx <= 0) {
+                        quantityFx = 0;
+                        notional = 0;
+                    }
+                    out.quantities[row + i] = Fixed.toDouble(quantityFx);
+                    out.allocations[row + i] = Fixed.toDouble(notional);
+                    out.bandUnitsFx[slot + i] += quantityFx;
+                    out.bandNotionalFx[slot + i] += notional;
+                    unitsFx += quantityFx;
+                    notionalFx += notional;
+                    feesFx += spec.fee(notional);
+                }
+                long stopNotionalFx = byLot && (double) lots * out.stopLotNotionalFx < maxNotional
+                        ? lots * out.stopLotNotionalFx
+                        : spec.notional(out.stopFx, unitsFx);
+                feesFx += spec.fee(stopNotionalFx);
+                out.budgets[k] = riskBudget;
+                out.positionUSD[k] = Fixed.toDouble(notionalFx);
+                out.riskUSD[k] = Fixed.toDouble(Math.abs(notionalFx - stopNotionalFx) + feesFx);
+                out.feesUSD[k] = Fixed.toDouble(feesFx);
+                budget += riskBudget;
+                if (unitsFx == 0) {
+                    out.statuses[k] = PositionSizingEngine.ERR_BELOW_MINIMUM;
+                    belowMinimum++;
+                    continue;
+                }
+                out.statuses[k] = PositionSizingEngine.OK;
+                sized++;
+                position += out.positionUSD[k];
+                risk += out.riskUSD[k];
+                fees += out.feesUSD[k];
+            }
+        }
+
+        private void skip(int k, int row, int n) {
+            out.statuses[k] = PositionSizingEngine.ERR_INVALID_INPUT;
+            out.budgets[k] = 0.0;
+            out.positionUSD[k] = out.riskUSD[k] = out.feesUSD[k] = 0.0;
+            Arrays.fill(out.allocations, row, row + n, 0.0);
+            Arrays.fill(out.quantities, row, row + n, 0.0);
+            invalid++;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// The Position Calculator's Fan-Out: the trade as typed in the calculator, sized for every
+// account in an accounts file (see FanOutEngine). The totals and block orders go to the
+// calculator's results; Export Report saves the orders per account.
+public class FanOutPanel extends JPanel {
+    private final PositionCalculatorPanel calculator;
+    private final JTextField accountsField = new JTextField(16);
+    private final LiveCalculator<FanOutRequest, FanOut> fanOuter;
+    // The last accounts file the fan-out loaded, kept until the file changes. Only touched by
+    // the fan-out's worker.
+    private AccountTable accounts;
+    private Path accountsPath;
+    private long accountsModified;
+    private long accountsSize;
+    private final FieldReader fields = new FieldReader();
+
+    public FanOutPanel(PositionCalculatorPanel calculator) {
+        super(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        this.calculator = calculator;
+        setBorder(new TitledBorder("Fan-Out (optional)"));
+        add(new JLabel("Accounts:"));
+        accountsField.setToolTipText("CSV with one account per line: id,balance[,risk %]; a blank risk % uses Risk (%)");
+        add(accountsField);
+        JButton accountsBrowseButton = new JButton("Browse...");
+        add(accountsBrowseButton);
+        JButton fanOutButton = new JButton("Fan Out");
+        fanOutButton.setToolTipText("Size the trade above for every account; Export Report saves the orders per account");
+        add(fanOutButton);
+
+        fanOuter = new LiveCalculator<>("Fan-out", this::readFanOutRequest, this::fanOut,
+                new LiveCalculator.ResultHandler<FanOut>() {
+                    public void onResult(FanOut f, boolean explicit) {
+                        showFanOut(f);
+                    }
+
+                    public void onError(Exception ex, boolean explicit) {
+                        calculator.showError(ex, explicit);
+                    }
+                });
+        fanOutButton.addActionListener(e -> {
+            calculator.showResults();
+            fanOuter.calculateNow();
+        });
+        accountsBrowseButton.addActionListener(e -> browseAccountsFile());
+    }
+
+    public void exportState(TabState state) {
+        state.accountsFile = accountsField.getText();
+    }
+
+    public void importState(TabState state) {
+        fanOuter.cancel();
+        accountsField.setText(state.accountsFile);
+    }
+
+    private void browseAccountsFile() {
+        JFileChooser chooser = new JFileChooser();
+        String current = accountsField.getText().trim();
+        if (!current.isEmpty()) {
+            chooser.setSelectedFile(new java.io.File(current));
+        }
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            accountsField.setText(chooser.getSelectedFile().getPath());
+        }
+    }
+
+    // Runs on the EDT. Account Balance is not needed; a blank Risk (%) is only a problem for
+    // accounts without a risk % of their own.
+    private FanOutRequest readFanOutRequest() throws Exception {
+        TradeInputs in = new TradeInputs();
+        in.riskPct = fields.optional(calculator.getRiskField(), "Risk (%)", in);
+        in.stopLoss = fields.required(calculator.getStopLossField(), "Stop Loss", in);
+        calculator.readTrade(in);
+        FanOutRequest request = new FanOutRequest();
+        request.trade = in;
+        request.file = accountsField.getText().trim();
+        if (request.file.isEmpty()) {
+            throw new Exception("Please choose an accounts file.");
+        }
+        return request;
+    }
+
+    // Runs on a calculator worker thread; large tables are sized on the fork/join pool.
+    private FanOut fanOut(FanOutRequest request) throws Exception {
+        FanOut f = new FanOut();
+        f.accounts = loadAccounts(Paths.get(request.file));
+        if (f.accounts.count == 0) {
+            throw new Exception("No accounts found in " + Paths.get(request.file).getFileName() + ".");
+        }
+        f.result = new FanOutResult();
+        long start = System.nanoTime();
+        int status = FanOutEngine.fanOut(request.trade, f.accounts, f.result);
+        f.micros = (System.nanoTime() - start) / 1000.0;
+        if (status == PositionSizingEngine.ERR_MIXED_SIDES) {
+            throw new Exception("For multi-entry strategies, all entries must be either above or below the stop loss.");
+        } else if (status == PositionSizingEngine.ERR_ENTRY_EQUALS_STOP) {
+            throw new Exception("Entry price equals Stop Loss. Cannot calculate risk.");
+        } else if (status != PositionSizingEngine.OK) {
+            throw new Exception("Invalid input.");
+        }
+        return f;
+    }
+
+    private AccountTable loadAccounts(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            throw new IOException(path.getFileName() + " does not exist.");
+        }
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        long size = Files.size(path);
+        if (accounts == null || !path.equals(accountsPath) || modified != accountsModified || size != accountsSize) {
+            accounts = AccountTable.load(path);
+            accountsPath = path;
+            accountsModified = modified;
+            accountsSize = size;
+        }
+        return accounts;
+    }
+
+    private void showFanOut(FanOut f) {
+        FanOutResult r = f.result;
+        ResultsView resultsView = calculator.getResultsView();
+        ResultsTableModel model = resultsView.getModel();
+        double nan = Double.NaN;
+        model.beginUpdate();
+        model.addRow("Accounts", nan, nan, 0, nan, accountsNote(r));
+        model.addRow("Entry Type", nan, nan, 0, nan, r.total.entryName());
+        model.addRow("Trade Type", nan, nan, 0, nan, r.isLong ? "Long" : "Short");
+        model.addRow("Stop Loss", r.stopLoss, nan, 0, nan, null);
+        model.addRow(r.count > 1 ? "Average Entry" : "Entry Price", r.avgEntry, nan, 0, nan, null);
+        model.addRow("Total Position", nan, nan, 0, r.totalPositionUSD, null);
+        model.addRow("Total Risk", nan, nan, 0, r.totalRiskUSD, null);
+        model.addRow("Risk Budget", nan, nan, 0, r.totalBudgetUSD, "Balance x risk % of every account");
+        if (r.instrument != null) {
+            model.addRow("Unallocated", nan, nan, 0, r.totalBudgetUSD - r.totalRiskUSD, "Left by lot rounding and minimums");
+            if (r.totalFeesUSD > 0) {
+                model.addRow("Fees", nan, nan, 0, r.totalFeesUSD, "Entry and stop, included in risk");
+            }
+        }
+        for (int i = 0; i < r.count; i++) {
+            model.addRow(ResultsTableModel.numbered("Entry ", i + 1), r.ladder[i], r.total.weights[i], 2,
+                    r.entryNotional[i], "Block Qty " + blockQuantity(r, i));
+        }
+        model.addRow("Reconciled", nan, nan, 0, nan, reconciledNote(r));
+        model.endUpdate();
+        calculator.getLadderChart().setLadder(r.total, null, null, null, 0, Double.NaN);
+        resultsView.showMessage(String.format("%,d accounts sized in %.0f microseconds.", r.accounts, f.micros));
+        resultsView.setReportSupplier(() -> formatFanOut(f));
+    }
+
+    private static String accountsNote(FanOutResult r) {
+        StringBuilder note = new StringBuilder();
+        note.append(String.format("%,d: %,d sized", r.accounts, r.sized));
+        if (r.belowMinimum > 0) {
+            note.append(String.format(", %,d below minimum", r.belowMinimum));
+        }
+        if (r.invalid > 0) {
+            note.append(String.format(", %,d without a balance or risk %%", r.invalid));
+        }
+        return note.toString();
+    }
+
+    private static String reconciledNote(FanOutResult r) {
+        if (r.reconciled) {
+            return "Yes: the accounts add up to the block orders";
+        } else if (r.overBudget > 0) {
+            return String.format("No: %,d accounts over budget", r.overBudget);
+        }
+        return "No: the accounts do not add up to the block orders";
+    }
+
+    private static String blockQuantity(FanOutResult r, int i) {
+        return Fixed.toString(r.instrument != null ? r.entryUnitsFx[i] : Fixed.of(r.entryUnits[i]));
+    }
+
+    // The totals, then one CSV line per account with its quantity at each entry.
+    private static String formatFanOut(FanOut f) {
+        FanOutResult r = f.result;
+        StringBuilder res = new StringBuilder(64 + r.accounts * (32 + 12 * r.count));
+        res.append("===== Fan-Out =====\n\n");
+        res.append("Accounts: ").append(accountsNote(r)).append("\n");
+        res.append(String.format("Stop Loss: %.4f\n", r.stopLoss));
+        res.append(String.format("Average Entry: %.4f\n", r.avgEntry));
+        res.append(String.format("Trade Type: %s\n", r.isLong ? "Long" : "Short"));
+        res.append(String.format("Total Position (USD): %.2f\n", r.totalPositionUSD));
+        res.append(String.format("Total Risk (USD): %.2f\n", r.totalRiskUSD));
+        res.append(String.format("Risk Budget (USD): %.2f\n", r.totalBudgetUSD));
+        if (r.totalFeesUSD > 0) {
+            res.append(String.format("Fees (USD, entry and stop, included in risk): %.2f\n", r.totalFeesUSD));
+        }
+        for (int i = 0; i < r.count; i++) {
+            res.append(String.format("Block Order %d (Price: %s): Qty %s, $%.2f\n", i + 1,
+                    PositionCalculatorPanel.formatPrice(r.ladder[i]), blockQuantity(r, i), r.entryNotional[i]));
+        }
+        res.append("Reconciled: ").append(reconciledNote(r)).append("\n");
+        res.append("----------------------------------------\n");
+        res.append("account,status,position_usd,risk_usd,fees_usd");
+        for (int i = 0; i < r.count; i++) {
+            res.append(",qty_").append(i + 1);
+        }
+        res.append("\n");
+        for (int k = 0; k < r.accounts; k++) {
+            res.append(f.accounts.ids[k]).append(',').append(statusLabel(r.statuses[k]));
+            res.append(String.format(",%.2f,%.2f,%.2f", r.positionUSD[k], r.riskUSD[k], r.feesUSD[k]));
+            for (int i = 0; i < r.count; i++) {
+                res.append(',').append(Fixed.toString(Fixed.of(r.quantity(k, i))));
+            }
+            res.append("\n");
+        }
+        return res.toString();
+    }
+
+    private static String statusLabel(int status) {
+        switch (status) {
+            case PositionSizingEngine.OK:
+                return "sized";
+            case PositionSizingEngine.ERR_BELOW_MINIMUM:
+                return "below minimum";
+            default:
+                return "invalid";
+        }
+    }
+
+    private static class FanOutRequest {
+        TradeInputs trade;
+        String file;
+    }
+
+    private static class FanOut {
+        FanOutResult result;
+        AccountTable accounts;
+        double micros;
+    }
+}
@@ -0,0 +1,109 @@
+// Mutable result holder filled in place by FanOutEngine: one row per account in parallel arrays,
+// the per-entry allocations and quantities flattened row-major (account k, entry i at
+// k * count + i), and the block orders the account rows add up to. The arrays only grow when a
+// larger table or ladder than any seen before is fanned out.
+public class FanOutResult {
+    public int status;
+    public int accounts;
+    // Entries in the ladder, ordered and rounded to the tick as they are sized.
+    public int count;
+    public double[] ladder = new double[0];
+    public double stopLoss;
+    public double avgEntry;
+    public boolean isLong;
+    public InstrumentSpec instrument;
+
+    // Per account: a PositionSizingEngine status, what it buys and what it risks.
+    public byte[] statuses = new byte[0];
+    public double[] budgets = new double[0];
+    public double[] positionUSD = new double[0];
+    public double[] riskUSD = new double[0];
+    public double[] feesUSD = new double[0];
+    public double[] allocations = new double[0];
+    public double[] quantities = new double[0];
+
+    // Totals. The block order for entry i is entryUnits[i] at ladder[i]; with an instrument its
+    // exact Fixed quantity is entryUnitsFx[i].
+    public int sized;
+    public int belowMinimum;
+    public int invalid;
+    public double[] entryUnits = new double[0];
+    public double[] entryNotional = new double[0];
+    public long[] entryUnitsFx = new long[0];
+    public double totalBudgetUSD;
+    public double totalPositionUSD;
+    public double totalRiskUSD;
+    public double totalFeesUSD;
+    // True when a separate pass over the account rows gives the same block orders and no
+    // account risks more than its budget; overBudget counts the accounts that do.
+    public boolean reconciled;
+    public int overBudget;
+    // The block orders as one position, for the views that show a PositionResult.
+    public final PositionResult total = new PositionResult();
+
+    // Shared by every account, set up once per fan-out.
+    double[] shares;
+    long[] priceFx = new long[0];
+    long stopFx;
+    // The exact notional of one lot at each entry and at the stop, or 0 where mul() would have
+    // to round it; see FanOutEngine.lotNotional.
+    long[] lotNotionalFx = new long[0];
+    long stopLotNotionalFx;
+    double distance;
+    // With an instrument; see PositionSizingEngine.contractsPerBudget.
+    double[] contractsPerBudget = new double[0];
+    double defaultRisk;
+    // Per-entry partial sums of each fork/join band, band-major.
+    double[] bandUnits = new double[0];
+    double[] bandNotional = new double[0];
+    long[] bandUnitsFx = new long[0];
+    long[] bandNotionalFx = new long[0];
+    // Per-entry sums of reconciliation's second pass.
+    double[] checkUnits = new double[0];
+    long[] checkUnitsFx = new long[0];
+
+    public void ensureCapacity(int accounts, int entries, int bands) {
+        if (statuses.length < accounts) {
+            int cap = Math.max(accounts, statuses.length * 2);
+            statuses = new byte[cap];
+            budgets = new double[cap];
+            positionUSD = new double[cap];
+            riskUSD = new double[cap];
+            feesUSD = new double[cap];
+        }
+        if (allocations.length < accounts * entries) {
+            int cap = Math.max(accounts * entries, allocations.length * 2);
+            allocations = new double[cap];
+            quantities = new double[cap];
+        }
+        if (ladder.length < entries) {
+            ladder = new double[entries];
+            priceFx = new long[entries];
+            lotNotionalFx = new long[entries];
+            contractsPerBudget = new double[entries];
+            entryUnits = new double[entries];
+            entryNotional = new double[entries];
+            entryUnitsFx = new long[entries];
+            checkUnits = new double[entries];
+            checkUnitsFx = new long[entries];
+        }
+        if (bandUnits.length < bands * entries) {
+            bandUnits = new double[bands * entries];
+            bandNotional = new double[bands * entries];
+            bandUnitsFx = new long[bands * entries];
+            bandNotionalFx = new long[bands * entries];
+        }
+    }
+
+    public double allocation(int account, int entry) {
+        return allocations[account * count + entry];
+    }
+
+    public double quantity(int account, int entry) {
+        return quantities[account * count + entry];
+    }
+
+    public boolean isOk() {
+        return status == PositionSizingEngine.OK;
+    }
+}
@@ -0,0 +1,72 @@
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
+
+// Reads numbers straight out of text fields' documents: no String per field and no exception
+// for half-typed input, so re-reading a whole form on every keystroke stays cheap. Problems are
+// recorded per field on the TradeInputs being filled. Use on the EDT; one per panel.
+public class FieldReader {
+    private final Segment segment = new Segment();
+
+    // The field's value; NaN when it is blank or not a number.
+    public double number(JTextComponent field) {
+        if (!load(field)) {
+            return Double.NaN;
+        }
+        return AsciiNumbers.parseDouble(segment.array, segment.offset, segment.offset + segment.count);
+    }
+
+    public boolean isBlank(JTextComponent field) {
+        if (!load(field)) {
+            return true;
+        }
+        for (int i = segment.offset; i < segment.offset + segment.count; i++) {
+            if (!Character.isWhitespace(segment.array[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A number the calculation cannot do without; records an error under name if it is missing.
+    public double required(JTextComponent field, String name, TradeInputs errors) {
+        double v = number(field);
+        if (Double.isNaN(v)) {
+            errors.error(name, isBlank(field) ? "is required" : "is not a number");
+        }
+        return v;
+    }
+
+    // An optional number: NaN when blank, with an error recorded if something else is typed.
+    public double optional(JTextComponent field, String name, TradeInputs errors) {
+        double v = number(field);
+        if (Double.isNaN(v) && !isBlank(field)) {
+            errors.error(name, "is not a number");
+        }
+        return v;
+    }
+
+    // A required percentage as a 0..1 fraction; NaN, with an error recorded, when it is unusable.
+    public double percent(JTextComponent field, String name, TradeInputs errors) {
+        double pct = required(field, name, errors);
+        if (Double.isNaN(pct)) {
+            return Double.NaN;
+        }
+        if (!(pct >= 0.0 && pct <= 100.0)) {
+            errors.error(name, "must be between 0 and 100");
+            return Double.NaN;
+        }
+        return pct / 100.0;
+    }
+
+    private boolean load(JTextComponent field) {
+        Document doc = field.getDocument();
+        try {
+            doc.getText(0, doc.getLength(), segment);
+            return true;
+        } catch (BadLocationException ex) {
+            return false;
+        }
+    }
+}
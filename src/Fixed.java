@@ -0,0 +1,161 @@
+import java.math.BigInteger;
+
+// Exact decimal arithmetic on scaled longs: a value v is held as the long v * SCALE, so prices
+// and quantities with up to 8 decimals (the finest tick or lot any venue quotes) add and
+// subtract exactly. Static methods on raw longs rather than a value class, so the sizing paths
+// that use it allocate nothing. NAN marks a missing or unrepresentable value.
+public final class Fixed {
+    public static final long SCALE = 100_000_000L;
+    public static final int DECIMALS = 8;
+    public static final long NAN = Long.MIN_VALUE;
+
+    public static final int FLOOR = 0;
+    public static final int CEIL = 1;
+    public static final int NEAREST = 2;
+
+    // Largest magnitude, in whole units, that of() accepts and mul() may produce.
+    static final double MAX_UNITS = 9.0e10;
+    // Quotients below this come out of a double division within one of the truth.
+    private static final double EXACT_QUOTIENT = 0x1p50;
+
+    private Fixed() { }
+
+    // Nearest representable value; NAN for NaN, infinities and magnitudes above 9e10.
+    public static long of(double v) {
+        if (!(Math.abs(v) < MAX_UNITS)) {
+            return NAN;
+        }
+        return Math.round(v * SCALE);
+    }
+
+    public static double toDouble(long f) {
+        return f == NAN ? Double.NaN : (double) f / SCALE;
+    }
+
+    public static boolean isNaN(long f) {
+        return f == NAN;
+    }
+
+    // a * b, rounded half away from zero to 8 decimals. Throws ArithmeticException when the
+    // product is out of range.
+    public static long mul(long a, long b) {
+        long lo = a * b;
+        long hi = Math.multiplyHigh(a, b);
+        if (hi == (lo >> 63)) {
+            // The raw product fits in a long: divide it exactly.
+            long q = lo / SCALE;
+            long r = lo % SCALE;
+            if (2 * Math.abs(r) >= SCALE) {
+                q += lo < 0 ? -1 : 1;
+            }
+            return q;
+        }
+        return mulWide(a, b, lo);
+    }
+
+    // Kept out of mul() so the common case stays small enough to inline.
+    private static long mulWide(long a, long b, long lo) {
+        // Typical for price x quantity. A double estimate of the quotient is within a few
+        // thousand units of the truth (usually within one), so the remainder against it is
+        // small enough that the low 64 bits of the product give it exactly.
+        double estimate = Math.floor((double) a * (double) b * (1.0 / SCALE));
+        if (!(Math.abs(estimate) < MAX_UNITS * SCALE)) {
+            throw new ArithmeticException("Fixed-point overflow.");
+        }
+        long q = (long) estimate;
+        long r = lo - q * SCALE;
+        if (r < 0 || r >= SCALE) {
+            q += Math.floorDiv(r, SCALE);
+            r = Math.floorMod(r, SCALE);
+        }
+        // The exact result is q + r / SCALE with 0 <= r < SCALE.
+        if (q >= 0 ? 2 * r >= SCALE : 2 * r > SCALE) {
+            q++;
+        }
+        return q;
+    }
+
+    // a * b / c rounded half away from zero, without rounding b / c first: the share of a that
+    // b is of c. c must be positive. Throws ArithmeticException when the result is out of range.
+    public static long mulDiv(long a, long b, long c) {
+        long lo = a * b;
+        if (Math.multiplyHigh(a, b) == (lo >> 63)) {
+            long q = lo / c;
+            long r = Math.abs(lo % c);
+            if (r >= c - r) {
+                q += lo < 0 ? -1 : 1;
+            }
+            return q;
+        }
+        // A notional times a quantity usually lands here. Callers use this once per order, not
+        // per account, so BigInteger stands in for a 128-bit division.
+        BigInteger[] qr = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                .divideAndRemainder(BigInteger.valueOf(c));
+        BigInteger q = qr[0];
+        if (qr[1].abs().shiftLeft(1).compareTo(BigInteger.valueOf(c)) >= 0) {
+            q = q.add(BigInteger.valueOf(qr[1].signum()));
+        }
+        if (q.bitLength() > 63 || Math.abs(q.doubleValue()) >= MAX_UNITS * SCALE) {
+            throw new ArithmeticException("Fixed-point overflow.");
+        }
+        return q.longValue();
+    }
+
+    // value rounded to a multiple of step; step <= 0 means no rounding. NEAREST rounds halves up.
+    public static long roundToStep(long value, long step, int mode) {
+        if (step <= 0 || value == NAN) {
+            return value;
+        }
+        // A 64-bit divide by a step only known at run time is slow; a double division gets
+        // the quotient to within one, and the remainder check makes it exact.
+        double estimate = Math.floor((double) value / step);
+        long q;
+        long r;
+        if (Math.abs(estimate) < EXACT_QUOTIENT) {
+            q = (long) estimate;
+            r = value - q * step;
+            if (r < 0) {
+                q--;
+                r += step;
+            } else if (r >= step) {
+                q++;
+                r -= step;
+            }
+        } else {
+            q = Math.floorDiv(value, step);
+            r = value - q * step;
+        }
+        if (r != 0 && (mode == CEIL || (mode == NEAREST && 2 * r >= step))) {
+            q++;
+        }
+        return q * step;
+    }
+
+    // Plain decimal without trailing zeros, e.g. "12.5" or "-0.0001". Allocates; for display.
+    public static String toString(long f) {
+        if (f == NAN) {
+            return "NaN";
+        }
+        StringBuilder sb = new StringBuilder(24);
+        long whole = f / SCALE;
+        long frac = Math.abs(f % SCALE);
+        if (f < 0 && whole == 0) {
+            sb.append('-');
+        }
+        sb.append(whole);
+        if (frac != 0) {
+            int digits = DECIMALS;
+            while (frac % 10 == 0) {
+                frac /= 10;
+                digits--;
+            }
+            sb.append('.');
+            String s = Long.toString(frac);
+            for (int i = s.length(); i < digits; i++) {
+                sb.append('0');
+            }
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
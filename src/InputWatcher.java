@@ -0,0 +1,105 @@
+import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.awt.*;
+import java.awt.event.ActionListener;
+import java.awt.event.ContainerEvent;
+import java.awt.event.ContainerListener;
+
+// Calls back whenever any input inside a component tree changes: text fields, check boxes,
+// combo boxes and spinners. Rows added later (e.g. when the entry or TP count changes) are
+// picked up automatically.
+public class InputWatcher implements DocumentListener, ContainerListener {
+    private final Runnable onChange;
+    private final ActionListener actionListener;
+    private final ChangeListener changeListener;
+
+    private InputWatcher(Runnable onChange) {
+        this.onChange = onChange;
+        this.actionListener = e -> onChange.run();
+        this.changeListener = e -> onChange.run();
+    }
+
+    public static void watch(Component root, Runnable onChange) {
+        new InputWatcher(onChange).attach(root);
+    }
+
+    private void attach(Component c) {
+        if (c instanceof JTextComponent) {
+            ((JTextComponent) c).getDocument().addDocumentListener(this);
+        } else if (c instanceof JCheckBox) {
+            ((JCheckBox) c).addActionListener(actionListener);
+        } else if (c instanceof JComboBox) {
+            ((JComboBox<?>) c).addActionListener(actionListener);
+            // An editable combo box changes as it is typed in, before any action.
+            Component editor = ((JComboBox<?>) c).getEditor().getEditorComponent();
+            if (((JComboBox<?>) c).isEditable() && editor instanceof JTextComponent) {
+                ((JTextComponent) editor).getDocument().addDocumentListener(this);
+            }
+        } else if (c instanceof JSpinner) {
+            // The spinner's editor is a text field of its own; listening to the model is enough.
+            ((JSpinner) c).addChangeListener(changeListener);
+            return;
+        }
+        if (c instanceof Container && !(c instanceof JComboBox)) {
+            Container container = (Container) c;
+            container.addContainerListener(this);
+            for (Component child : container.getComponents()) {
+                attach(child);
+            }
+        }
+    }
+
+    private void detach(Component c) {
+        if (c instanceof JTextComponent) {
+            ((JTextComponent) c).getDocument().removeDocumentListener(this);
+        } else if (c instanceof JCheckBox) {
+            ((JCheckBox) c).removeActionListener(actionListener);
+        } else if (c instanceof JComboBox) {
+            ((JComboBox<?>) c).removeActionListener(actionListener);
+            Component editor = ((JComboBox<?>) c).getEditor().getEditorComponent();
+            if (editor instanceof JTextComponent) {
+                ((JTextComponent) editor).getDocument().removeDocumentListener(this);
+            }
+        } else if (c instanceof JSpinner) {
+            ((JSpinner) c).removeChangeListener(changeListener);
+            return;
+        }
+        if (c instanceof Container && !(c instanceof JComboBox)) {
+            Container container = (Container) c;
+            container.removeContainerListener(this);
+            for (Component child : container.getComponents()) {
+                detach(child);
+            }
+        }
+    }
+
+    @Override
+    public void componentAdded(ContainerEvent e) {
+        attach(e.getChild());
+        onChange.run();
+    }
+
+    @Override
+    public void componentRemoved(ContainerEvent e) {
+        detach(e.getChild());
+        onChange.run();
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        onChange.run();
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        onChange.run();
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        onChange.run();
+    }
+}
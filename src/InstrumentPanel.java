@@ -0,0 +1,173 @@
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import javax.swing.text.JTextComponent;
+import java.awt.*;
+
+// The traded instrument's contract spec. A symbol found in the InstrumentRegistry fills in
+// (and locks) the other fields, and they follow the file when it is reloaded; otherwise the
+// fields can be typed by hand. All optional: with every field blank the calculators size in
+// plain doubles, as before.
+public class InstrumentPanel extends JPanel {
+    private final InstrumentRegistry registry;
+    private final JComboBox<String> symbolCombo = new JComboBox<>();
+    private final JTextComponent symbolEditor;
+    private final JTextField tickField = new JTextField(6);
+    private final JTextField lotField = new JTextField(6);
+    private final JTextField minNotionalField = new JTextField(6);
+    private final JTextField multiplierField = new JTextField(6);
+    private final JTextField feeField = new JTextField(6);
+    private final JTextField[] specFields = {tickField, lotField, minNotionalField, multiplierField, feeField};
+
+    public InstrumentPanel() {
+        this(InstrumentRegistry.getDefault());
+    }
+
+    public InstrumentPanel(InstrumentRegistry registry) {
+        this.registry = registry;
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBorder(new TitledBorder("Instrument (optional)"));
+        symbolCombo.setEditable(true);
+        symbolCombo.setPrototypeDisplayValue("XXXXXXXXXXXX");
+        symbolCombo.setToolTipText("Looked up in " + registry.getFile() + "; the list holds recently used symbols");
+        symbolEditor = (JTextComponent) symbolCombo.getEditor().getEditorComponent();
+
+        JPanel symbolRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        symbolRow.add(new JLabel("Symbol:"));
+        symbolRow.add(symbolCombo);
+        symbolRow.add(new JLabel("Multiplier:"));
+        multiplierField.setToolTipText("Units of the underlying per contract; blank = 1");
+        symbolRow.add(multiplierField);
+        symbolRow.add(new JLabel("Fee (%):"));
+        feeField.setToolTipText("Fee per side, as a percentage of the order value; blank = none");
+        symbolRow.add(feeField);
+        add(symbolRow);
+
+        JPanel rulesRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        rulesRow.add(new JLabel("Tick Size:"));
+        tickField.setToolTipText("Prices are rounded to a multiple of this; blank = no rounding");
+        rulesRow.add(tickField);
+        rulesRow.add(new JLabel("Lot Size:"));
+        lotField.setToolTipText("Quantities are rounded down to a multiple of this; blank = no rounding");
+        rulesRow.add(lotField);
+        rulesRow.add(new JLabel("Min Notional:"));
+        minNotionalField.setToolTipText("Entries whose order value would be below this are dropped; blank = none");
+        rulesRow.add(minNotionalField);
+        add(rulesRow);
+
+        symbolEditor.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                applySymbol();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                applySymbol();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+        symbolCombo.addPopupMenuListener(new PopupMenuListener() {
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                String text = symbolEditor.getText();
+                symbolCombo.removeAllItems();
+                for (String symbol : registry.recent()) {
+                    symbolCombo.addItem(symbol);
+                }
+                symbolEditor.setText(text);
+            }
+
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
+        registry.addListener(() -> SwingUtilities.invokeLater(this::applySymbol));
+    }
+
+    // Fills the spec fields from the registry when the symbol is known there, and locks them.
+    private void applySymbol() {
+        String symbol = symbolEditor.getText().trim();
+        InstrumentSpec spec = symbol.isEmpty() ? null : registry.lookup(symbol);
+        if (spec != null) {
+            setIfChanged(tickField, spec.tickSize);
+            setIfChanged(lotField, spec.lotSize);
+            setIfChanged(minNotionalField, spec.minNotional);
+            setIfChanged(multiplierField, spec.multiplier);
+            setIfChanged(feeField, spec.feeRate * 100);
+        }
+        for (JTextField field : specFields) {
+            field.setEditable(spec == null);
+        }
+    }
+
+    private static void setIfChanged(JTextField field, long value) {
+        String text = value == 0 ? "" : Fixed.toString(value);
+        if (!field.getText().equals(text)) {
+            field.setText(text);
+        }
+    }
+
+    // Runs on the EDT. Null when every field is blank.
+    public InstrumentSpec getSpec() throws Exception {
+        String symbol = symbolEditor.getText().trim();
+        if (!symbol.isEmpty()) {
+            InstrumentSpec spec = registry.lookup(symbol);
+            if (spec == null) {
+                throw new Exception("Unknown symbol " + symbol + "; add it to " + registry.getFile() + ".");
+            }
+            registry.touch(symbol);
+            return spec;
+        }
+        boolean blank = true;
+        for (JTextField field : specFields) {
+            blank &= field.getText().trim().isEmpty();
+        }
+        if (blank) {
+            return null;
+        }
+        InstrumentSpec spec = new InstrumentSpec();
+        spec.tickSize = parse(tickField, "Tick Size", 1.0);
+        spec.lotSize = parse(lotField, "Lot Size", 1.0);
+        spec.minNotional = parse(minNotionalField, "Min Notional", 1.0);
+        spec.multiplier = parse(multiplierField, "Multiplier", 1.0);
+        spec.feeRate = parse(feeField, "Fee (%)", 0.01);
+        return spec;
+    }
+
+    private static long parse(JTextField field, String name, double scale) throws Exception {
+        String text = field.getText().trim();
+        if (text.isEmpty()) {
+            return 0;
+        }
+        double typed = Double.parseDouble(text);
+        long value = Fixed.of(typed * scale);
+        if (Fixed.isNaN(value) || value < 0 || (value == 0 && typed != 0)) {
+            throw new Exception(name + " must be 0 or a positive number with at most " + Fixed.DECIMALS + " decimals.");
+        }
+        return value;
+    }
+
+    public void exportState(TabState state) {
+        state.instrument.symbol = symbolEditor.getText();
+        state.instrument.tickSize = tickField.getText();
+        state.instrument.lotSize = lotField.getText();
+        state.instrument.minNotional = minNotionalField.getText();
+        state.instrument.multiplier = multiplierField.getText();
+        state.instrument.feePct = feeField.getText();
+    }
+
+    public void importState(TabState state) {
+        tickField.setText(state.instrument.tickSize);
+        lotField.setText(state.instrument.lotSize);
+        minNotionalField.setText(state.instrument.minNotional);
+        multiplierField.setText(state.instrument.multiplier);
+        feeField.setText(state.instrument.feePct);
+        symbolEditor.setText(state.instrument.symbol);
+        applySymbol();
+    }
+}
@@ -0,0 +1,239 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Contract specs by symbol, loaded from a local CSV file, one instrument per line:
+//
+//   symbol,tick size,lot size,min notional,multiplier,fee %
+//
+// Blank fields mean the instrument has no such rule (multiplier 1, no fee). Lines starting
+// with '#' and a header line starting with "symbol" are skipped. Symbols are case-insensitive.
+//
+// The table is an immutable snapshot behind a volatile field, so lookups from any thread never
+// lock. watch() reloads the file on a background thread whenever it changes: the new table is
+// parsed completely and then swapped in with a single write, and readers see either the old
+// snapshot or the new one. A file that cannot be read leaves the current table in place.
+//
+// Symbols the user picks are kept in a small LRU, most recent first, for the symbol fields'
+// drop-down lists.
+public class InstrumentRegistry {
+    public static final String FILE_NAME = "instruments.csv";
+    private static final int RECENT_LIMIT = 16;
+
+    private static InstrumentRegistry defaultRegistry;
+
+    private final Path file;
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), 0);
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    // Access-ordered and bounded; guarded by itself.
+    private final LinkedHashMap<String, String> recent = new LinkedHashMap<String, String>(32, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > RECENT_LIMIT;
+        }
+    };
+    private WatchService watcher;
+
+    public static final class Snapshot {
+        private final Map<String, InstrumentSpec> specs;
+        // Lines that could not be parsed and were left out.
+        public final int badLines;
+
+        Snapshot(Map<String, InstrumentSpec> specs, int badLines) {
+            this.specs = specs;
+            this.badLines = badLines;
+        }
+
+        public int size() {
+            return specs.size();
+        }
+    }
+
+    public InstrumentRegistry(Path file) {
+        this.file = file;
+    }
+
+    // The registry backed by ~/.position-size-calculator/instruments.csv, loaded on first use.
+    public static synchronized InstrumentRegistry getDefault() {
+        if (defaultRegistry == null) {
+            defaultRegistry = new InstrumentRegistry(
+                    Paths.get(System.getProperty("user.home"), ".position-size-calculator", FILE_NAME));
+            defaultRegistry.reload();
+        }
+        return defaultRegistry;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // The instrument's spec, or null when the symbol is not in the file.
+    public InstrumentSpec lookup(String symbol) {
+        return snapshot.specs.get(normalize(symbol));
+    }
+
+    // Records that the user picked this symbol, for recent().
+    public void touch(String symbol) {
+        String key = normalize(symbol);
+        synchronized (recent) {
+            recent.put(key, key);
+        }
+    }
+
+    // Recently picked symbols, most recent first.
+    public List<String> recent() {
+        List<String> symbols;
+        synchronized (recent) {
+            symbols = new ArrayList<>(recent.keySet());
+        }
+        Collections.reverse(symbols);
+        return symbols;
+    }
+
+    // Called on the loading thread after every reload.
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    // Reads the file into a new snapshot and publishes it. A missing file gives an empty table.
+    public boolean reload() {
+        Snapshot loaded;
+        try {
+            loaded = Files.isRegularFile(file) ? parse(file) : new Snapshot(Collections.emptyMap(), 0);
+        } catch (IOException ex) {
+            System.err.println("Could not load instruments from " + file + ": " + ex.getMessage());
+            return false;
+        }
+        if (loaded.badLines > 0) {
+            System.err.println("Skipped " + loaded.badLines + " malformed line(s) in " + file + ".");
+        }
+        snapshot = loaded;
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+        return true;
+    }
+
+    static Snapshot parse(Path file) throws IOException {
+        Map<String, InstrumentSpec> specs = new HashMap<>();
+        int bad = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.regionMatches(true, 0, "symbol", 0, 6)) {
+                    continue;
+                }
+                InstrumentSpec spec = parseLine(line);
+                if (spec == null) {
+                    bad++;
+                } else {
+                    specs.put(spec.symbol, spec);
+                }
+            }
+        }
+        return new Snapshot(specs, bad);
+    }
+
+    private static InstrumentSpec parseLine(String line) {
+        String[] fields = line.split(",", -1);
+        InstrumentSpec spec = new InstrumentSpec();
+        spec.symbol = normalize(fields[0]);
+        if (spec.symbol.isEmpty() || fields.length > 6) {
+            return null;
+        }
+        try {
+            spec.tickSize = field(fields, 1, 1.0);
+            spec.lotSize = field(fields, 2, 1.0);
+            spec.minNotional = field(fields, 3, 1.0);
+            spec.multiplier = field(fields, 4, 1.0);
+            spec.feeRate = field(fields, 5, 0.01);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        return spec;
+    }
+
+    private static long field(String[] fields, int index, double scale) {
+        String text = index < fields.length ? fields[index].trim() : "";
+        if (text.isEmpty()) {
+            return 0;
+        }
+        long value = Fixed.of(Double.parseDouble(text) * scale);
+        if (Fixed.isNaN(value) || value < 0) {
+            throw new NumberFormatException(text);
+        }
+        return value;
+    }
+
+    private static String normalize(String symbol) {
+        return symbol.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Starts reloading the file whenever it is created, changed or replaced, on a daemon thread.
+    public synchronized void watch() {
+        if (watcher != null) {
+            return;
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(dir);
+            watcher = FileSystems.getDefault().newWatchService();
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException ex) {
+            System.err.println("Could not watch " + dir + " for instrument changes: " + ex.getMessage());
+            return;
+        }
+        Thread thread = new Thread(this::watchLoop, "instrument-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watchLoop() {
+        Path name = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    // Editors often write a file in several steps; let them finish.
+                    Thread.sleep(200);
+                    WatchKey more;
+                    while ((more = watcher.poll()) != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // Shutting down.
+        }
+    }
+}
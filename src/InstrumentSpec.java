@@ -0,0 +1,41 @@
+// Contract specification and exchange trading rules for one instrument, as Fixed values.
+// A 0 tick, lot or minimum notional means the venue has no such rule: prices are then not
+// snapped to a tick, quantities not to a lot, and any order size is accepted. A 0 multiplier
+// is taken as 1 (one unit of the underlying per contract) and a 0 fee rate as no fees.
+// Specs handed out by InstrumentRegistry are shared between threads and must not be changed.
+public class InstrumentSpec {
+    public String symbol = "";
+    public long tickSize;
+    public long lotSize;
+    public long minNotional;
+    // Units of the underlying per contract, so USD value = price x quantity x multiplier.
+    public long multiplier;
+    // Fee per side as a fraction of notional, e.g. 0.0005 for 0.05%.
+    public long feeRate;
+
+    public InstrumentSpec() { }
+
+    public InstrumentSpec(double tickSize, double lotSize, double minNotional) {
+        this.tickSize = Fixed.of(tickSize);
+        this.lotSize = Fixed.of(lotSize);
+        this.minNotional = Fixed.of(minNotional);
+    }
+
+    public long roundPrice(double price) {
+        return Fixed.roundToStep(Fixed.of(price), tickSize, Fixed.NEAREST);
+    }
+
+    // USD value of quantity contracts at price; price may be a difference, for a P&L.
+    public long notional(long price, long quantity) {
+        long value = Fixed.mul(price, quantity);
+        return multiplier > 0 && multiplier != Fixed.SCALE ? Fixed.mul(value, multiplier) : value;
+    }
+
+    public long fee(long notional) {
+        return feeRate > 0 ? Fixed.mul(Math.abs(notional), feeRate) : 0;
+    }
+
+    public double multiplierValue() {
+        return multiplier > 0 ? Fixed.toDouble(multiplier) : 1.0;
+    }
+}
@@ -0,0 +1,29 @@
+import jdk.jfr.EventType;
+
+// Commits the JFR events for Metrics and EdtWatchdog. Only loaded once Metrics.JFR has found
+// jdk.jfr in the runtime, so an image linked without it never touches jdk.jfr.Event; and an
+// event object is only made while a recording has the event type enabled.
+final class JfrEvents {
+    private static final EventType PHASE = EventType.getEventType(CalculatorPhaseEvent.class);
+    private static final EventType EDT_STALL = EventType.getEventType(EdtStallEvent.class);
+
+    private JfrEvents() { }
+
+    static void phase(String name, long nanos) {
+        if (PHASE.isEnabled()) {
+            CalculatorPhaseEvent event = new CalculatorPhaseEvent();
+            event.phase = name;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    static void edtStall(long nanos, String blockedAt) {
+        if (EDT_STALL.isEnabled()) {
+            EdtStallEvent event = new EdtStallEvent();
+            event.nanos = nanos;
+            event.blockedAt = blockedAt;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+// Statistics over the trade journal (File > Trade Journal...), filtered by symbol, entry type
+// and date range, and the same report from the command line:
+//
+//   --journal-stats [symbol|all] [entry type|all] [from yyyy-mm-dd|all] [to yyyy-mm-dd|all] [file]
+//
+// The entry type is a strategy's name as shown under Entry Type, or single, dca or exp for the
+// built-in ones. The dates are inclusive and in the local time zone; "all" leaves that filter off.
+public class JournalPanel extends JPanel {
+    private static final String ALL = "All";
+
+    private final TradeJournal journal;
+    private final JComboBox<String> symbolCombo = new JComboBox<>();
+    private final JComboBox<String> entryTypeCombo = new JComboBox<>();
+    private final JTextField fromField = new JTextField(8);
+    private final JTextField toField = new JTextField(8);
+    private final ResultsView resultsView = new ResultsView();
+    private final JournalStats stats = new JournalStats();
+
+    public JournalPanel(TradeJournal journal) {
+        this.journal = journal;
+        setLayout(new BorderLayout(0, 4));
+        setBorder(BorderFactory.createEmptyBorder(6, 6, 6, 6));
+
+        JPanel filterRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        filterRow.add(new JLabel("Symbol:"));
+        symbolCombo.setEditable(true);
+        symbolCombo.addItem(ALL);
+        for (String symbol : journal.symbols()) {
+            symbolCombo.addItem(symbol);
+        }
+        filterRow.add(symbolCombo);
+        filterRow.add(new JLabel("Entry Type:"));
+        // The strategies on offer, then any the journal has trades for that are no longer loaded.
+        entryTypeCombo.addItem(ALL);
+        for (String name : EntryStrategies.names()) {
+            entryTypeCombo.addItem(name);
+        }
+        for (String name : journal.strategies()) {
+            if (EntryStrategies.indexOf(name) < 0) {
+                entryTypeCombo.addItem(name);
+            }
+        }
+        filterRow.add(entryTypeCombo);
+        filterRow.add(new JLabel("From:"));
+        fromField.setToolTipText("First day, yyyy-mm-dd; blank = from the first trade");
+        filterRow.add(fromField);
+        filterRow.add(new JLabel("To:"));
+        toField.setToolTipText("Last day, yyyy-mm-dd; blank = up to now");
+        filterRow.add(toField);
+        JButton showButton = new JButton("Show");
+        showButton.addActionListener(e -> refresh());
+        filterRow.add(showButton);
+        add(filterRow, BorderLayout.NORTH);
+
+        resultsView.setPreferredSize(new Dimension(620, 300));
+        add(resultsView, BorderLayout.CENTER);
+        refresh();
+    }
+
+    public static void showDialog(Component parent) {
+        TradeJournal journal;
+        try {
+            journal = TradeJournal.getDefault();
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(parent, "Error: " + ex.getMessage(), "Trade Journal",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(parent), "Trade Journal");
+        dialog.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+        dialog.setContentPane(new JournalPanel(journal));
+        dialog.pack();
+        dialog.setLocationRelativeTo(parent);
+        dialog.setVisible(true);
+    }
+
+    private void refresh() {
+        String symbol = ((String) symbolCombo.getEditor().getItem()).trim();
+        String strategy = entryTypeCombo.getSelectedIndex() > 0 ? (String) entryTypeCombo.getSelectedItem() : null;
+        long from;
+        long to;
+        try {
+            from = parseDay(fromField.getText(), Long.MIN_VALUE, 0);
+            to = parseDay(toField.getText(), Long.MAX_VALUE, 1);
+        } catch (DateTimeParseException ex) {
+            resultsView.clear();
+            resultsView.showMessage("Dates must be written as yyyy-mm-dd.");
+            return;
+        }
+        long start = System.nanoTime();
+        journal.stats(symbol.equalsIgnoreCase(ALL) ? null : symbol, strategy, from, to, stats);
+        long micros = (System.nanoTime() - start) / 1000;
+
+        ResultsTableModel model = resultsView.getModel();
+        double nan = Double.NaN;
+        model.beginUpdate();
+        model.addRow("Trades", nan, stats.trades, 0, nan, null);
+        model.addRow("Win Rate", nan, stats.winRate() * 100.0, 2, nan, stats.wins + " won, " + stats.losses + " lost");
+        model.addRow("Average R", nan, stats.averageR(), 2, nan, null);
+        model.addRow("Expectancy", nan, nan, 0, stats.expectancy(), "Per trade");
+        model.addRow("Average Win", nan, nan, 0, stats.averageWin(), null);
+        model.addRow("Average Loss", nan, nan, 0, stats.averageLoss(), null);
+        model.addRow("Profit Factor", nan, stats.profitFactor(), 2, nan, null);
+        model.addRow("Total Profit", nan, nan, 0, stats.totalProfit, null);
+        model.addRow("Max Drawdown", nan, nan, 0, stats.maxDrawdown, null);
+        model.endUpdate();
+        resultsView.showMessage(String.format("%d of %d journaled trades, queried in %.2f ms.",
+                stats.trades, journal.count(), micros / 1000.0));
+        String report = format(stats);
+        resultsView.setReportSupplier(() -> report);
+    }
+
+    // Epoch milliseconds of the start of the given day (plus days), or blank if text is empty.
+    private static long parseDay(String text, long blank, int plusDays) {
+        text = text.trim();
+        if (text.isEmpty()) {
+            return blank;
+        }
+        return LocalDate.parse(text).plusDays(plusDays).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static String format(JournalStats s) {
+        if (s.trades == 0) {
+            return "No journaled trades match.\n";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("Trades: ").append(s.trades).append(" (").append(s.wins).append(" won, ")
+                .append(s.losses).append(" lost)\n");
+        sb.append(String.format("Win Rate: %.2f%%%n", s.winRate() * 100.0));
+        sb.append(String.format("Average R: %.2f%n", s.averageR()));
+        sb.append(String.format("Expectancy: %.2f USD per trade%n", s.expectancy()));
+        sb.append(String.format("Average Win: %.2f USD%n", s.averageWin()));
+        sb.append(String.format("Average Loss: %.2f USD%n", s.averageLoss()));
+        sb.append(String.format("Profit Factor: %.2f%n", s.profitFactor()));
+        sb.append(String.format("Total Profit: %.2f USD%n", s.totalProfit));
+        sb.append(String.format("Max Drawdown: %.2f USD%n", s.maxDrawdown));
+        return sb.toString();
+    }
+
+    public static int run(String[] args) {
+        try {
+            TradeJournal journal = args.length > 5 ? TradeJournal.open(Paths.get(args[5])) : TradeJournal.getDefault();
+            String symbol = args.length > 1 && !args[1].equalsIgnoreCase(ALL) ? args[1] : null;
+            String strategy = null;
+            if (args.length > 2 && !args[2].equalsIgnoreCase(ALL)) {
+                strategy = parseStrategy(args[2], journal);
+                if (strategy == null) {
+                    System.err.println("Entry type must be single, dca, exp, a strategy name or all.");
+                    return 2;
+                }
+            }
+            long from = args.length > 3 && !args[3].equalsIgnoreCase(ALL) ? parseDay(args[3], Long.MIN_VALUE, 0) : Long.MIN_VALUE;
+            long to = args.length > 4 && !args[4].equalsIgnoreCase(ALL) ? parseDay(args[4], Long.MAX_VALUE, 1) : Long.MAX_VALUE;
+            JournalStats stats = new JournalStats();
+            long start = System.nanoTime();
+            journal.stats(symbol, strategy, from, to, stats);
+            long micros = (System.nanoTime() - start) / 1000;
+            System.out.print(format(stats));
+            System.err.printf("%d of %d journaled trades, queried in %.2f ms.%n", stats.trades, journal.count(),
+                    micros / 1000.0);
+            journal.close();
+            return 0;
+        } catch (IOException ex) {
+            System.err.println("Error: " + ex.getMessage());
+            return 1;
+        } catch (DateTimeParseException ex) {
+            System.err.println("Usage: PositionSizeCalculator --journal-stats [symbol|all] [entry type|all]"
+                    + " [from yyyy-mm-dd|all] [to yyyy-mm-dd|all] [file]");
+            return 2;
+        }
+    }
+
+    // single, dca and exp name the built-in types, as in batch mode; otherwise a strategy that is
+    // loaded or has journaled trades, in any case. Null if there is none.
+    private static String parseStrategy(String arg, TradeJournal journal) {
+        byte[] type = arg.getBytes(StandardCharsets.US_ASCII);
+        int entryType = BatchSizer.parseEntryType(ByteBuffer.wrap(type), 0, type.length);
+        if (entryType >= 0) {
+            return PositionSizingEngine.labelOf(entryType);
+        }
+        for (String name : EntryStrategies.names()) {
+            if (name.equalsIgnoreCase(arg)) {
+                return name;
+            }
+        }
+        for (String name : journal.strategies()) {
+            if (name.equalsIgnoreCase(arg)) {
+                return name;
+            }
+        }
+        return null;
+    }
+}
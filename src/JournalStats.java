@@ -0,0 +1,70 @@
+// Mutable result holder filled in place by TradeJournal.stats: trades are added one at a time,
+// in time order.
+public class JournalStats {
+    public int trades;
+    public int wins;
+    public int losses;
+    public double totalProfit;
+    public double grossWin;
+    public double grossLoss;
+    // Sum and count of R multiples; trades without a defined risk have no R.
+    public double sumR;
+    public int rTrades;
+    // Largest fall of the running profit from its previous high, in USD (0 or positive).
+    public double maxDrawdown;
+    private double equity;
+    private double peak;
+
+    public void reset() {
+        trades = wins = losses = rTrades = 0;
+        totalProfit = grossWin = grossLoss = sumR = maxDrawdown = equity = peak = 0.0;
+    }
+
+    public void add(double profit, double r) {
+        trades++;
+        if (profit > 0) {
+            wins++;
+            grossWin += profit;
+        } else if (profit < 0) {
+            losses++;
+            grossLoss -= profit;
+        }
+        totalProfit += profit;
+        if (!Double.isNaN(r) && !Double.isInfinite(r)) {
+            sumR += r;
+            rTrades++;
+        }
+        equity += profit;
+        if (equity > peak) {
+            peak = equity;
+        } else if (peak - equity > maxDrawdown) {
+            maxDrawdown = peak - equity;
+        }
+    }
+
+    // Share of trades that made money, 0..1.
+    public double winRate() {
+        return trades > 0 ? (double) wins / trades : Double.NaN;
+    }
+
+    public double averageR() {
+        return rTrades > 0 ? sumR / rTrades : Double.NaN;
+    }
+
+    // Average profit per trade in USD: win rate x average win - loss rate x average loss.
+    public double expectancy() {
+        return trades > 0 ? totalProfit / trades : Double.NaN;
+    }
+
+    public double averageWin() {
+        return wins > 0 ? grossWin / wins : Double.NaN;
+    }
+
+    public double averageLoss() {
+        return losses > 0 ? grossLoss / losses : Double.NaN;
+    }
+
+    public double profitFactor() {
+        return grossLoss > 0 ? grossWin / grossLoss : Double.NaN;
+    }
+}
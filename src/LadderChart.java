@@ -0,0 +1,510 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// Price ladder shown under the results of both calculators: the entry rungs with the dollars
+// allocated to each, the average entry, the stop, the TPs with the share of the position each
+// closes, the close price and, while a live feed runs, the last price.
+//
+// Price runs up the Y axis and each level's size is a bar from the left. The chart is drawn in
+// three layers:
+//   axis     background, grid and price labels; redrawn when the size or price range changes
+//   levels   bars, lines and labels; redrawn when the ladder or the range changes
+//   live     the last price and the band from the average entry to it; drawn on every paint
+// The first two are cached images, so a paint is two image copies and a few lines however long
+// the ladder is, and a new live price repaints only the strip it moved through. When the price
+// leaves the range, the range grows with room to spare, so the layers are seldom redrawn.
+// Levels that land on the same pixel row are summed into one bar and labels that would overlap
+// are left out, so a ladder of hundreds of rungs stays readable and costs no more to paint.
+public class LadderChart extends JComponent {
+    private static final Metrics.Phase RENDER_LAYERS = Metrics.phase("Chart layers");
+    private static final Metrics.Phase PAINT_FRAME = Metrics.phase("Chart frame");
+
+    private static final int LEFT = 70;
+    private static final int RIGHT = 8;
+    private static final int TOP = 8;
+    private static final int BOTTOM = 8;
+    // The longest bar takes this share of the plot width; the rest is room for its label.
+    private static final double BAR_SHARE = 0.55;
+    private static final int MAX_BAR_THICKNESS = 8;
+    private static final double PADDING = 0.08;
+    // When the live price leaves the range, the range grows to put it this far inside.
+    private static final double GROWTH = 0.25;
+
+    private static final Color PLOT_BACKGROUND = Color.WHITE;
+    private static final Color GRID = new Color(0xE4E4E4);
+    private static final Color ENTRY = new Color(0x3A7BD5);
+    private static final Color ENTRY_PENDING = new Color(0xB5CDF0);
+    private static final Color TP = new Color(0x2E9E5B);
+    private static final Color TP_OPEN = new Color(0xAEDDC1);
+    private static final Color STOP = new Color(0xD64541);
+    private static final Color AVERAGE = new Color(0x606060);
+    private static final Color CLOSE = new Color(0x8E44AD);
+    private static final Color LIVE = new Color(0xE08E0B);
+    private static final Color PROFIT_BAND = new Color(46, 158, 91, 48);
+    private static final Color LOSS_BAND = new Color(214, 69, 65, 48);
+    private static final Stroke DASHED = new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f,
+            new float[] {5f, 4f}, 0f);
+    private static final Stroke LEVEL_STROKE = new BasicStroke(1.5f);
+    private static final Stroke LIVE_STROKE = new BasicStroke(2f);
+
+    // The ladder, copied so the result holders it came from can be reused.
+    private boolean hasLadder;
+    private boolean isLong;
+    private int entryCount;
+    private double[] entryPrices = new double[0];
+    private double[] entrySizes = new double[0];
+    private boolean[] entryFilled = new boolean[0];
+    private int tpCount;
+    private double[] tpPrices = new double[0];
+    private double[] tpSizes = new double[0];
+    private boolean[] tpHit = new boolean[0];
+    private double stopLoss = Double.NaN;
+    private double avgEntry = Double.NaN;
+    private double closePrice = Double.NaN;
+    private double livePrice = Double.NaN;
+    private double low;
+    private double high;
+    private int decimals;
+
+    private BufferedImage axisLayer;
+    private BufferedImage levelLayer;
+    private boolean axisValid;
+    private boolean levelsValid;
+    private int layerWidth;
+    private int layerHeight;
+    private double layerScale;
+    // Per pixel row: the summed sizes of filled and pending entries and of hit and open TPs.
+    private double[] rowFilled = new double[0];
+    private double[] rowPending = new double[0];
+    private double[] rowHit = new double[0];
+    private double[] rowOpen = new double[0];
+    private boolean[] rowLabelled = new boolean[0];
+    private int[] rowThickness = new int[0];
+    private final NumberFormatter liveText = new NumberFormatter();
+
+    public LadderChart() {
+        setPreferredSize(new Dimension(300, 220));
+        setMinimumSize(new Dimension(100, 80));
+        // The axis layer covers every pixel, so nothing behind the chart needs painting.
+        setOpaque(true);
+    }
+
+    // Shows a sized position; every entry counts as filled. tpPrices may hold NaN for blank
+    // rows, which are skipped; closePrice is NaN when there is none.
+    public void setLadder(PositionResult sizing, double[] tpPrices, double[] tpPcts, boolean[] tpHit, int tpCount,
+                          double closePrice) {
+        int n = sizing.count;
+        if (entryPrices.length < n) {
+            entryPrices = new double[n];
+            entrySizes = new double[n];
+            entryFilled = new boolean[n];
+        }
+        System.arraycopy(sizing.entries, 0, entryPrices, 0, n);
+        System.arraycopy(sizing.allocations, 0, entrySizes, 0, n);
+        Arrays.fill(entryFilled, 0, n, true);
+        entryCount = n;
+        if (this.tpPrices.length < tpCount) {
+            this.tpPrices = new double[tpCount];
+            tpSizes = new double[tpCount];
+            this.tpHit = new boolean[tpCount];
+        }
+        for (int i = 0; i < tpCount; i++) {
+            this.tpPrices[i] = tpPrices[i];
+            // What the TP closes, in the same dollars as the entries' allocations.
+            tpSizes[i] = tpPcts[i] > 0 ? tpPcts[i] / 100.0 * sizing.positionSizeUSD : 0.0;
+            this.tpHit[i] = tpHit != null && tpHit[i];
+        }
+        this.tpCount = tpCount;
+        isLong = sizing.isLong;
+        stopLoss = sizing.stopLoss;
+        avgEntry = sizing.avgEntry;
+        this.closePrice = closePrice;
+        livePrice = Double.NaN;
+        hasLadder = true;
+        fitRange();
+        repaint();
+    }
+
+    // Live mode: which entries have filled and which TPs were hit, in setLadder's order, and
+    // the average entry of what has filled (NaN before anything has).
+    public void setFills(boolean[] filled, boolean[] hit, double avgEntry) {
+        for (int i = 0; i < entryCount; i++) {
+            entryFilled[i] = i < filled.length && filled[i];
+        }
+        for (int i = 0; i < tpCount; i++) {
+            tpHit[i] = i < hit.length && hit[i];
+        }
+        this.avgEntry = avgEntry;
+        levelsValid = false;
+        repaint();
+    }
+
+    public void clear() {
+        hasLadder = false;
+        entryCount = tpCount = 0;
+        livePrice = Double.NaN;
+        axisValid = levelsValid = false;
+        repaint();
+    }
+
+    // Moves the live price line; NaN hides it. Cheap enough to call on every frame.
+    public void setLivePrice(double price) {
+        if (!hasLadder || price == livePrice || (Double.isNaN(price) && Double.isNaN(livePrice))) {
+            return;
+        }
+        double old = livePrice;
+        livePrice = price;
+        if (!Double.isNaN(price) && (price < low || price > high)) {
+            double span = high - low;
+            if (price < low) {
+                low = price - GROWTH * span;
+            } else {
+                high = price + GROWTH * span;
+            }
+            axisValid = levelsValid = false;
+            repaint();
+            return;
+        }
+        if (Double.isNaN(old) || Double.isNaN(price)) {
+            repaint();
+            return;
+        }
+        // Only the strip between the old line, the new one and the average entry changes.
+        int half = getFontMetrics(getFont()).getHeight();
+        int from = Math.min(yOf(old), yOf(price));
+        int to = Math.max(yOf(old), yOf(price));
+        if (!Double.isNaN(avgEntry)) {
+            from = Math.min(from, yOf(avgEntry));
+            to = Math.max(to, yOf(avgEntry));
+        }
+        repaint(0, from - half, getWidth(), to - from + 2 * half);
+    }
+
+    // Range of every level, padded; the live price keeps stretching it as it moves.
+    private void fitRange() {
+        double lo = Double.POSITIVE_INFINITY;
+        double hi = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < entryCount; i++) {
+            lo = Math.min(lo, entryPrices[i]);
+            hi = Math.max(hi, entryPrices[i]);
+        }
+        for (int i = 0; i < tpCount; i++) {
+            if (!Double.isNaN(tpPrices[i])) {
+                lo = Math.min(lo, tpPrices[i]);
+                hi = Math.max(hi, tpPrices[i]);
+            }
+        }
+        for (double p : new double[] {stopLoss, closePrice}) {
+            if (!Double.isNaN(p)) {
+                lo = Math.min(lo, p);
+                hi = Math.max(hi, p);
+            }
+        }
+        if (!(hi > lo)) {
+            double mid = lo < Double.POSITIVE_INFINITY ? lo : 1.0;
+            lo = mid * 0.99;
+            hi = mid * 1.01;
+        }
+        double pad = PADDING * (hi - lo);
+        low = lo - pad;
+        high = hi + pad;
+        axisValid = levelsValid = false;
+    }
+
+    private Rectangle plotArea() {
+        return new Rectangle(LEFT, TOP, Math.max(1, getWidth() - LEFT - RIGHT), Math.max(1, getHeight() - TOP - BOTTOM));
+    }
+
+    private int yOf(double price) {
+        Rectangle plot = plotArea();
+        return plot.y + (int) Math.round((high - price) / (high - low) * plot.height);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long start = System.nanoTime();
+        Graphics2D g2 = (Graphics2D) g.create();
+        if (!hasLadder) {
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            g2.setColor(Color.GRAY);
+            String text = "Calculate to see the price ladder.";
+            FontMetrics fm = g2.getFontMetrics();
+            g2.drawString(text, (getWidth() - fm.stringWidth(text)) / 2, getHeight() / 2);
+            g2.dispose();
+            return;
+        }
+        // The layers are drawn at the screen's pixel scale so they stay sharp on HiDPI displays.
+        double scale = g2.getTransform().getScaleX();
+        if (getWidth() != layerWidth || getHeight() != layerHeight || scale != layerScale) {
+            layerWidth = getWidth();
+            layerHeight = getHeight();
+            layerScale = scale;
+            axisValid = levelsValid = false;
+        }
+        if (!axisValid || !levelsValid) {
+            long render = System.nanoTime();
+            if (!axisValid) {
+                axisLayer = layer(axisLayer, false);
+                Graphics2D lg = layerGraphics(axisLayer, false);
+                renderAxis(lg);
+                lg.dispose();
+                axisValid = true;
+            }
+            if (!levelsValid) {
+                levelLayer = layer(levelLayer, true);
+                Graphics2D lg = layerGraphics(levelLayer, true);
+                renderLevels(lg);
+                lg.dispose();
+                levelsValid = true;
+            }
+            RENDER_LAYERS.record(render);
+        }
+        g2.drawImage(axisLayer, 0, 0, layerWidth, layerHeight, null);
+        paintBand(g2);
+        g2.drawImage(levelLayer, 0, 0, layerWidth, layerHeight, null);
+        paintLivePrice(g2);
+        g2.dispose();
+        PAINT_FRAME.record(start);
+    }
+
+    // Reuses the layer's image when the size has not changed.
+    private BufferedImage layer(BufferedImage image, boolean transparent) {
+        int w = Math.max(1, (int) Math.ceil(layerWidth * layerScale));
+        int h = Math.max(1, (int) Math.ceil(layerHeight * layerScale));
+        if (image != null && image.getWidth() == w && image.getHeight() == h) {
+            return image;
+        }
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc != null) {
+            return gc.createCompatibleImage(w, h, transparent ? Transparency.TRANSLUCENT : Transparency.OPAQUE);
+        }
+        return new BufferedImage(w, h, transparent ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB);
+    }
+
+    private Graphics2D layerGraphics(BufferedImage image, boolean transparent) {
+        Graphics2D g = image.createGraphics();
+        if (transparent) {
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setComposite(AlphaComposite.SrcOver);
+        }
+        g.scale(layerScale, layerScale);
+        g.setFont(getFont());
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        return g;
+    }
+
+    private void renderAxis(Graphics2D g) {
+        Rectangle plot = plotArea();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, layerWidth, layerHeight);
+        g.setColor(PLOT_BACKGROUND);
+        g.fillRect(plot.x, plot.y, plot.width, plot.height);
+        // A round grid step giving a line every 40 pixels or so.
+        double span = high - low;
+        double raw = span / Math.max(1, plot.height / 40);
+        double step = Math.pow(10, Math.floor(Math.log10(raw)));
+        if (raw / step >= 5) {
+            step *= 5;
+        } else if (raw / step >= 2) {
+            step *= 2;
+        }
+        decimals = Math.max(0, Math.min(8, 1 - (int) Math.floor(Math.log10(step))));
+        FontMetrics fm = g.getFontMetrics();
+        for (double p = Math.ceil(low / step) * step; p <= high; p += step) {
+            int y = yOf(p);
+            g.setColor(GRID);
+            g.drawLine(plot.x, y, plot.x + plot.width, y);
+            g.setColor(getForeground());
+            String label = formatPrice(p);
+            g.drawString(label, plot.x - 6 - fm.stringWidth(label), y + fm.getAscent() / 2 - 1);
+        }
+        g.setColor(Color.GRAY);
+        g.drawRect(plot.x, plot.y, plot.width, plot.height);
+    }
+
+    private void renderLevels(Graphics2D g) {
+        Rectangle plot = plotArea();
+        int rows = plot.height + 1;
+        if (rowFilled.length < rows) {
+            rowFilled = new double[rows];
+            rowPending = new double[rows];
+            rowHit = new double[rows];
+            rowOpen = new double[rows];
+            rowLabelled = new boolean[rows];
+            rowThickness = new int[rows];
+        }
+        Arrays.fill(rowFilled, 0, rows, 0.0);
+        Arrays.fill(rowPending, 0, rows, 0.0);
+        Arrays.fill(rowHit, 0, rows, 0.0);
+        Arrays.fill(rowOpen, 0, rows, 0.0);
+        Arrays.fill(rowLabelled, 0, rows, false);
+        for (int i = 0; i < entryCount; i++) {
+            int row = row(entryPrices[i], plot);
+            if (row >= 0) {
+                (entryFilled[i] ? rowFilled : rowPending)[row] += entrySizes[i];
+            }
+        }
+        for (int i = 0; i < tpCount; i++) {
+            int row = row(tpPrices[i], plot);
+            if (row >= 0) {
+                (tpHit[i] ? rowHit : rowOpen)[row] += tpSizes[i];
+            }
+        }
+        double max = 0.0;
+        for (int r = 0; r < rows; r++) {
+            max = Math.max(max, Math.max(rowFilled[r] + rowPending[r], rowHit[r] + rowOpen[r]));
+        }
+        double perDollar = max > 0 ? BAR_SHARE * plot.width / max : 0.0;
+        // A bar is as thick as the gap to its nearest neighbours allows: rungs a pixel apart
+        // merge into a solid profile, a lone TP gets a full bar.
+        int previous = -MAX_BAR_THICKNESS;
+        for (int r = 0; r < rows; r++) {
+            rowThickness[r] = 0;
+            if (rowFilled[r] + rowPending[r] + rowHit[r] + rowOpen[r] > 0) {
+                rowThickness[r] = Math.min(MAX_BAR_THICKNESS, r - previous);
+                if (previous >= 0) {
+                    rowThickness[previous] = Math.min(rowThickness[previous], r - previous);
+                }
+                previous = r;
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            int thickness = rowThickness[r];
+            if (thickness == 0) {
+                continue;
+            }
+            int y = plot.y + r - thickness / 2;
+            int x = plot.x + 1;
+            x = bar(g, x, y, rowFilled[r] * perDollar, thickness, ENTRY);
+            bar(g, x, y, rowPending[r] * perDollar, thickness, ENTRY_PENDING);
+            x = plot.x + 1;
+            x = bar(g, x, y, rowHit[r] * perDollar, thickness, TP);
+            bar(g, x, y, rowOpen[r] * perDollar, thickness, TP_OPEN);
+        }
+
+        // Lines and labels, most important first; a label is dropped where it would overlap.
+        FontMetrics fm = g.getFontMetrics();
+        level(g, plot, fm, stopLoss, STOP, LEVEL_STROKE, "Stop " + levelPrice(stopLoss));
+        level(g, plot, fm, avgEntry, AVERAGE, DASHED, "Avg " + levelPrice(avgEntry));
+        level(g, plot, fm, closePrice, CLOSE, DASHED, "Close " + levelPrice(closePrice));
+        for (int i = 0; i < tpCount; i++) {
+            int row = row(tpPrices[i], plot);
+            if (row >= 0 && free(row, fm, plot)) {
+                g.setColor(tpHit[i] ? TP : TP_OPEN.darker());
+                place(g, fm, plot, row, plot.x + 6 + (int) Math.round((rowHit[row] + rowOpen[row]) * perDollar),
+                        String.format("TP %d  %s  $%,.0f", i + 1, levelPrice(tpPrices[i]), tpSizes[i]));
+            }
+        }
+        for (int i = 0; i < entryCount; i++) {
+            int row = row(entryPrices[i], plot);
+            if (row >= 0 && free(row, fm, plot)) {
+                g.setColor(entryFilled[i] ? ENTRY : ENTRY_PENDING.darker());
+                place(g, fm, plot, row, plot.x + 6 + (int) Math.round((rowFilled[row] + rowPending[row]) * perDollar),
+                        String.format("E%d  %s  $%,.0f", i + 1, levelPrice(entryPrices[i]), entrySizes[i]));
+            }
+        }
+    }
+
+    // Pixel row of price inside the plot, or -1 for a blank or out-of-range level.
+    private int row(double price, Rectangle plot) {
+        if (Double.isNaN(price)) {
+            return -1;
+        }
+        int row = yOf(price) - plot.y;
+        return row >= 0 && row <= plot.height ? row : -1;
+    }
+
+    private static int bar(Graphics2D g, int x, int y, double length, int thickness, Color color) {
+        int w = (int) Math.round(length);
+        if (w > 0) {
+            g.setColor(color);
+            g.fillRect(x, y, w, thickness);
+        }
+        return x + w;
+    }
+
+    private void level(Graphics2D g, Rectangle plot, FontMetrics fm, double price, Color color, Stroke stroke, String text) {
+        int row = row(price, plot);
+        if (row < 0) {
+            return;
+        }
+        int y = plot.y + row;
+        g.setColor(color);
+        g.setStroke(stroke);
+        g.drawLine(plot.x, y, plot.x + plot.width, y);
+        if (free(row, fm, plot)) {
+            // On a patch of background, so the line does not run through the text.
+            int x = plot.x + plot.width - 4 - fm.stringWidth(text);
+            g.setColor(PLOT_BACKGROUND);
+            g.fillRect(x - 2, y - fm.getAscent() / 2 - 1, fm.stringWidth(text) + 4, fm.getAscent() + 2);
+            g.setColor(color);
+            place(g, fm, plot, row, x, text);
+        }
+    }
+
+    // True if a label centred on row would not overlap one already drawn. Checked before the
+    // label's text is built, as most rungs of a long ladder get none.
+    private boolean free(int row, FontMetrics fm, Rectangle plot) {
+        int half = fm.getAscent() / 2 + 1;
+        for (int r = Math.max(0, row - half), to = Math.min(plot.height, row + half); r <= to; r++) {
+            if (rowLabelled[r]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void place(Graphics2D g, FontMetrics fm, Rectangle plot, int row, int x, String text) {
+        int half = fm.getAscent() / 2 + 1;
+        Arrays.fill(rowLabelled, Math.max(0, row - half), Math.min(plot.height, row + half) + 1, true);
+        g.drawString(text, x, plot.y + row + fm.getAscent() / 2 - 1);
+    }
+
+    // Green from the average entry to a price in profit, red to one at a loss.
+    private void paintBand(Graphics2D g) {
+        if (Double.isNaN(livePrice) || Double.isNaN(avgEntry)) {
+            return;
+        }
+        Rectangle plot = plotArea();
+        int a = yOf(avgEntry);
+        int b = yOf(livePrice);
+        boolean profit = isLong ? livePrice > avgEntry : livePrice < avgEntry;
+        g.setColor(profit ? PROFIT_BAND : LOSS_BAND);
+        g.fillRect(plot.x + 1, Math.min(a, b), plot.width - 1, Math.abs(a - b));
+    }
+
+    // The live price line and its value boxed over the price axis; no Strings per frame.
+    private void paintLivePrice(Graphics2D g) {
+        if (Double.isNaN(livePrice)) {
+            return;
+        }
+        Rectangle plot = plotArea();
+        int y = yOf(livePrice);
+        g.setColor(LIVE);
+        g.setStroke(LIVE_STROKE);
+        g.drawLine(plot.x, y, plot.x + plot.width, y);
+        FontMetrics fm = g.getFontMetrics();
+        int n = liveText.format(livePrice, decimals);
+        int w = fm.charsWidth(liveText.buffer(), 0, n);
+        int h = fm.getHeight();
+        g.fillRect(plot.x - w - 8, y - h / 2, w + 8, h);
+        g.setColor(Color.WHITE);
+        g.drawChars(liveText.buffer(), 0, n, plot.x - w - 4, y - h / 2 + fm.getAscent());
+    }
+
+    private String formatPrice(double price) {
+        return String.format("%." + decimals + "f", price);
+    }
+
+    // A level's price as exactly as it was entered; the average entry to the grid's precision
+    // plus two digits.
+    private String levelPrice(double price) {
+        return price == avgEntry ? String.format("%." + Math.min(8, decimals + 2) + "f", price)
+                : Fixed.toString(Fixed.of(price));
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.Arrays;
+
+// Fixed-size histogram of latencies in nanoseconds with about 3% resolution.
+//
+// Values below 64 ns get a bucket each; above that every power of two is split into 32 linear
+// sub-buckets. Recording is an array increment, so one histogram per thread can sit on a hot
+// path and be merged into a total afterwards. Not thread-safe.
+public class LatencyHistogram {
+    private static final int LINEAR = 64;
+    private static final int SUB_BUCKETS = 32;
+    private static final int SHIFTS = 58;
+
+    private final long[] counts = new long[LINEAR + SHIFTS * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[indexOf(nanos)]++;
+        total++;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        total = 0;
+        max = 0;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100); 0 when empty.
+    public long percentile(double pct) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * pct / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBoundOf(i));
+            }
+        }
+        return max;
+    }
+
+    private static int indexOf(long v) {
+        if (v < LINEAR) {
+            return (int) v;
+        }
+        // v has its top bit at position >= 6; keep the top 6 bits (32..63) as the sub-bucket.
+        int shift = 58 - Long.numberOfLeadingZeros(v);
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) ((v >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long upperBoundOf(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    // "p50 12.3 us, p99 45.6 us, p99.9 78.9 us, max 1.2 ms"
+    public String summary() {
+        return String.format("p50 %s, p99 %s, p99.9 %s, max %s", format(percentile(50)), format(percentile(99)),
+                format(percentile(99.9)), format(max));
+    }
+
+    public static String format(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + " ns";
+        } else if (nanos < 10_000_000) {
+            return String.format("%.1f us", nanos / 1e3);
+        }
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,123 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ContainerAdapter;
+import java.awt.event.ContainerEvent;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Manages the tabs of a calculator container without building a panel per tab. Every tab
+// holds a lightweight Slot with its TabState; a single calculator panel is created on first
+// use and moved into whichever slot is selected, saving the outgoing tab's inputs into its
+// state and loading the incoming one's. Nothing is built while the tabs are off screen (e.g. the
+// mode that is not selected), so a mode costs nothing at startup until it is first opened.
+//
+// Every tab's exposure is reported to the shared Portfolio: the panel's results go to the
+// selected tab, and a closed tab is taken back out of the totals.
+public class LazyTabs<P extends JComponent & CalculatorTab> {
+    private final JTabbedPane pane;
+    private final Supplier<P> factory;
+    private final Portfolio portfolio;
+    private P panel;
+    private Slot current;
+
+    public LazyTabs(JTabbedPane pane, Supplier<P> factory, Portfolio portfolio) {
+        this.pane = pane;
+        this.factory = factory;
+        this.portfolio = portfolio;
+        pane.addChangeListener(e -> onSelectionChanged());
+        pane.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                attachPanel();
+            }
+        });
+        pane.addContainerListener(new ContainerAdapter() {
+            @Override
+            public void componentRemoved(ContainerEvent e) {
+                if (e.getChild() instanceof Slot) {
+                    portfolio.remove(((Slot) e.getChild()).state);
+                }
+            }
+        });
+    }
+
+    public Slot addTab(TabState state) {
+        Slot slot = new Slot(state);
+        pane.addTab(state.title, slot);
+        portfolio.add(state);
+        return slot;
+    }
+
+    // Current state of every open tab, in tab order.
+    public List<TabState> states() {
+        syncCurrent();
+        List<TabState> states = new ArrayList<>();
+        for (int i = 0; i < pane.getTabCount(); i++) {
+            Component c = pane.getComponentAt(i);
+            if (c instanceof Slot) {
+                states.add(((Slot) c).state);
+            }
+        }
+        return states;
+    }
+
+    // Copies the visible panel's inputs into its tab's state.
+    public void syncCurrent() {
+        if (current != null && panel != null && panel.getParent() == current) {
+            panel.exportState(current.state);
+            current.state.modCount++;
+        }
+    }
+
+    public P getPanel() {
+        return panel;
+    }
+
+    private void onSelectionChanged() {
+        Component selected = pane.getSelectedComponent();
+        Slot next = (selected instanceof Slot) ? (Slot) selected : null;
+        if (next == current) {
+            return;
+        }
+        syncCurrent();
+        if (current != null && panel != null) {
+            current.remove(panel);
+        }
+        current = next;
+        attachPanel();
+    }
+
+    // Puts the panel (building it the first time) into the selected slot, once the tabs are
+    // actually on screen.
+    private void attachPanel() {
+        if (current == null || !pane.isShowing() || (panel != null && panel.getParent() == current)) {
+            return;
+        }
+        if (panel == null) {
+            panel = factory.get();
+            panel.setExposureListener((risk, notional, isLong) -> {
+                if (current != null) {
+                    portfolio.update(current.state, risk, notional, isLong);
+                }
+            });
+        }
+        panel.importState(current.state);
+        current.add(panel, BorderLayout.CENTER);
+        current.revalidate();
+        current.repaint();
+    }
+
+    public static class Slot extends JPanel {
+        final TabState state;
+
+        Slot(TabState state) {
+            super(new BorderLayout());
+            this.state = state;
+        }
+
+        public TabState getState() {
+            return state;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+import javax.swing.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+// Runs a calculator panel's calculation off the EDT.
+//
+// Inputs are read on the EDT (Swing components are not thread-safe) and the computation runs on
+// a shared background pool. Keystrokes are debounced, only the newest pending input is ever
+// computed, and a result that was superseded while it was being computed is dropped instead
+// of being published.
+//
+// An input the calculator is finished with (computed, superseded or cancelled) is handed to
+// the optional recycler, so the reader can refill the same object on the next keystroke.
+//
+// Each calculator is named, and the time spent reading inputs, computing and showing the result
+// is recorded under that name in Metrics.
+public class LiveCalculator<I, R> {
+    public interface InputReader<I> {
+        I read() throws Exception;
+    }
+
+    public interface Computation<I, R> {
+        R compute(I input) throws Exception;
+    }
+
+    public interface ResultHandler<R> {
+        // explicit is true when the user asked for the calculation (e.g. pressed the button),
+        // false when it was triggered by typing.
+        void onResult(R result, boolean explicit);
+
+        void onError(Exception ex, boolean explicit);
+    }
+
+    public static final int DEBOUNCE_MS = 120;
+
+    // Shared by every tab; each LiveCalculator has at most one task queued or running on it.
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)), r -> {
+                Thread t = new Thread(r, "calculator-worker");
+                t.setDaemon(true);
+                return t;
+            });
+
+    private final InputReader<I> reader;
+    private final Computation<I, R> computation;
+    private final ResultHandler<R> handler;
+    private final Metrics.Phase readPhase;
+    private final Metrics.Phase computePhase;
+    private final Metrics.Phase showPhase;
+    private final Timer debounceTimer;
+    private final AtomicReference<Request<I>> pending = new AtomicReference<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // Written on the EDT only; read by workers to skip work that is already stale.
+    private volatile long generation;
+    private volatile Consumer<I> recycler;
+
+    public LiveCalculator(String name, InputReader<I> reader, Computation<I, R> computation,
+                          ResultHandler<R> handler) {
+        this.reader = reader;
+        this.computation = computation;
+        this.handler = handler;
+        readPhase = Metrics.phase(name + ": read inputs");
+        computePhase = Metrics.phase(name + ": compute");
+        showPhase = Metrics.phase(name + ": show result");
+        debounceTimer = new Timer(DEBOUNCE_MS, e -> submit(false));
+        debounceTimer.setRepeats(false);
+    }
+
+    // Called with each input once nothing refers to it any more, on the EDT or a worker.
+    public void setRecycler(Consumer<I> recycler) {
+        this.recycler = recycler;
+    }
+
+    // Call on the EDT when an input changes; the calculation runs once typing pauses.
+    public void inputChanged() {
+        debounceTimer.restart();
+    }
+
+    // Call on the EDT to calculate straight away.
+    public void calculateNow() {
+        debounceTimer.stop();
+        submit(true);
+    }
+
+    // Call on the EDT to calculate straight away without error popups, e.g. after restoring a tab.
+    public void calculateQuietly() {
+        debounceTimer.stop();
+        submit(false);
+    }
+
+    public void cancel() {
+        debounceTimer.stop();
+        generation++;
+        recycle(pending.getAndSet(null));
+    }
+
+    private void submit(boolean explicit) {
+        long gen = ++generation;
+        I input;
+        long start = System.nanoTime();
+        try {
+            input = reader.read();
+        } catch (Exception ex) {
+            handler.onError(ex, explicit);
+            return;
+        }
+        readPhase.record(start);
+        recycle(pending.getAndSet(new Request<>(gen, input, explicit)));
+        if (scheduled.compareAndSet(false, true)) {
+            EXECUTOR.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Request<I> request = pending.getAndSet(null);
+            if (request == null) {
+                scheduled.set(false);
+                // A request may have arrived between the empty poll and clearing the flag.
+                if (pending.get() != null && scheduled.compareAndSet(false, true)) {
+                    continue;
+                }
+                return;
+            }
+            if (request.generation != generation) {
+                recycle(request);
+                continue;
+            }
+            R result = null;
+            Exception error = null;
+            long start = System.nanoTime();
+            try {
+                result = computation.compute(request.input);
+                computePhase.record(start);
+            } catch (Exception ex) {
+                error = ex;
+            }
+            recycle(request);
+            publish(request, result, error);
+        }
+    }
+
+    private void recycle(Request<I> request) {
+        Consumer<I> r = recycler;
+        if (request != null && r != null) {
+            r.accept(request.input);
+        }
+    }
+
+    private void publish(Request<I> request, R result, Exception error) {
+        if (request.generation != generation) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (request.generation != generation) {
+                return;
+            }
+            if (error != null) {
+                handler.onError(error, request.explicit);
+            } else {
+                long start = System.nanoTime();
+                handler.onResult(result, request.explicit);
+                showPhase.record(start);
+            }
+        });
+    }
+
+    private static class Request<I> {
+        final long generation;
+        final I input;
+        final boolean explicit;
+
+        Request(long generation, I input, boolean explicit) {
+            this.generation = generation;
+            this.input = input;
+            this.explicit = explicit;
+        }
+    }
+}
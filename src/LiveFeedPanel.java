@@ -0,0 +1,317 @@
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+
+// The Profit Calculator's Live Price Feed: follows the trade tick by tick from a socket or a
+// price file played in its place (see PriceFeed and LiveTrade), ticking the Triggered boxes as
+// prices cross them. While it runs it owns the calculator's results and chart; when the trade
+// is over it sets the close price and recalculates, as a replay would.
+public class LiveFeedPanel extends JPanel {
+    // The chart follows the price at 60 frames a second, the table at 30.
+    private static final int FRAME_MS = 16;
+    private static final long TABLE_FRAME_NANOS = 33_000_000L;
+
+    private final ProfitCalculatorPanel calculator;
+    private final JTextField feedSourceField = new JTextField(20);
+    private final JTextField feedRateField = new JTextField(6);
+    private final JButton feedStartButton = new JButton("Start");
+    private final JButton feedStopButton = new JButton("Stop");
+    // The running live feed and the trade it drives; null when no feed is running.
+    private PriceFeed feed;
+    private LiveTrade liveTrade;
+    private final LiveStatus liveStatus = new LiveStatus();
+    // Repaints the live trade at display rate, however fast the ticks come in.
+    private final Timer frameTimer;
+    private int shownEvents;
+    private long shownTicks;
+    private long tableNanos;
+    // The chart's rungs are the non-blank entry rows; feedRows maps them back to their rows.
+    private int[] feedRows = new int[0];
+    private boolean[] feedFilled = new boolean[0];
+    private int feedRungs;
+    private long rateTicks;
+    private long rateNanos;
+    private double tickRate;
+    private final FieldReader fields = new FieldReader();
+
+    public LiveFeedPanel(ProfitCalculatorPanel calculator) {
+        this.calculator = calculator;
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBorder(new TitledBorder("Live Price Feed"));
+        JPanel feedSourceRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        feedSourceRow.add(new JLabel("Source:"));
+        feedSourceField.setToolTipText("host:port of a feed sending price, time,price or symbol,time,price lines,"
+                + " or a price file to play instead");
+        feedSourceRow.add(feedSourceField);
+        JButton feedBrowseButton = new JButton("Browse...");
+        feedBrowseButton.addActionListener(e -> browseFile());
+        feedSourceRow.add(feedBrowseButton);
+        add(feedSourceRow);
+        JPanel feedControlRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        feedControlRow.add(new JLabel("Ticks/s:"));
+        feedRateField.setToolTipText("Pace of a price file; blank = as fast as it can be read");
+        feedControlRow.add(feedRateField);
+        feedStartButton.addActionListener(e -> startFeed());
+        feedControlRow.add(feedStartButton);
+        feedStopButton.setEnabled(false);
+        feedStopButton.addActionListener(e -> {
+            stopFeed();
+            calculator.getResultsView().showMessage("Live feed stopped after " + liveStatus.ticks + " ticks.");
+        });
+        feedControlRow.add(feedStopButton);
+        add(feedControlRow);
+        frameTimer = new Timer(FRAME_MS, e -> showFeedFrame());
+    }
+
+    // A running feed owns the results; the calculator leaves them alone until it stops.
+    public boolean isRunning() {
+        return feed != null;
+    }
+
+    public void exportState(TabState state) {
+        state.feed.source = feedSourceField.getText();
+        state.feed.rate = feedRateField.getText();
+    }
+
+    public void importState(TabState state) {
+        stopFeed();
+        feedSourceField.setText(state.feed.source);
+        feedRateField.setText(state.feed.rate);
+    }
+
+    private void browseFile() {
+        JFileChooser chooser = new JFileChooser();
+        String current = feedSourceField.getText().trim();
+        if (!current.isEmpty()) {
+            chooser.setSelectedFile(new java.io.File(current));
+        }
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            feedSourceField.setText(chooser.getSelectedFile().getPath());
+        }
+    }
+
+    // Runs on the EDT. Every entry and TP row is taken, blank ones as NaN, as for a replay: the
+    // feed decides which are triggered.
+    private TradeInputs readFeedInputs() throws Exception {
+        TradeInputs in = new TradeInputs();
+        in.balance = fields.required(calculator.getBalanceField(), "Account Balance", in);
+        in.riskPct = fields.required(calculator.getRiskField(), "Risk (%)", in);
+        in.stopLoss = fields.required(calculator.getStopLossField(), "Stop Loss", in);
+        EntrySettingsPanel entrySettingsPanel = calculator.getEntrySettingsPanel();
+        in.ensureEntries(entrySettingsPanel.getEntryCount());
+        in.entryCount = entrySettingsPanel.getEntryRowPrices(in.entries);
+        if (entrySettingsPanel.getSelectedEntryTypeId() == PositionSizingEngine.SINGLE_ENTRY) {
+            in.entryCount = Math.min(1, in.entryCount);
+        }
+        ProfitTPPanel profitTPPanel = calculator.getProfitTPPanel();
+        in.ensureTps(profitTPPanel.getTPRowCount());
+        in.tpCount = profitTPPanel.getTPRowCount();
+        profitTPPanel.getTPRowValues(in.tpPrices, in.tpPcts);
+        for (int i = 0; i < in.tpCount; i++) {
+            if (!Double.isNaN(in.tpPrices[i]) && Double.isNaN(in.tpPcts[i])) {
+                in.error("TP " + (i + 1) + " Close %", "is required");
+            }
+        }
+        if (in.hasErrors()) {
+            throw new Exception(in.errorSummary());
+        }
+        in.entryType = entrySettingsPanel.getSelectedEntryTypeId();
+        in.entryStrategy = entrySettingsPanel.getSelectedStrategy().name();
+        in.curve = entrySettingsPanel.getWeightCurve();
+        in.instrument = calculator.getInstrumentPanel().getSpec();
+        return in;
+    }
+
+    private void startFeed() {
+        stopFeed();
+        try {
+            String source = feedSourceField.getText().trim();
+            if (source.isEmpty()) {
+                throw new Exception("Please enter a feed address (host:port) or choose a price file.");
+            }
+            double rate = fields.number(feedRateField);
+            if (!fields.isBlank(feedRateField) && !(rate > 0)) {
+                throw new Exception("Ticks/s must be a positive number.");
+            }
+            TradeInputs in = readFeedInputs();
+            LiveTrade trade = new LiveTrade(in);
+            if (trade.getStatus() == PositionSizingEngine.ERR_NO_ENTRIES) {
+                throw new Exception("Please enter at least one entry price.");
+            } else if (trade.getStatus() == PositionSizingEngine.ERR_MIXED_SIDES) {
+                throw new Exception("All entries must be either above or below the stop loss.");
+            }
+            // Nothing is triggered until the feed says so.
+            calculator.getEntrySettingsPanel().setTriggered(new boolean[in.entryCount]);
+            calculator.getProfitTPPanel().setTriggered(new boolean[in.tpCount]);
+            calculator.getActualClosePriceField().setText("");
+            calculator.cancelCalculation();
+            showFeedPlan(in);
+            liveTrade = trade;
+            liveStatus.clear();
+            shownEvents = 0;
+            shownTicks = -1;
+            rateTicks = 0;
+            rateNanos = System.nanoTime();
+            tickRate = 0.0;
+            feed = PriceFeed.start(source, in.instrument != null ? in.instrument.symbol : null,
+                    Double.isNaN(rate) ? 0.0 : rate, trade);
+            frameTimer.start();
+            feedStartButton.setEnabled(false);
+            feedStopButton.setEnabled(true);
+        } catch (Exception ex) {
+            calculator.showError(ex, true);
+        }
+    }
+
+    private void stopFeed() {
+        if (feed != null) {
+            feed.close();
+            feed = null;
+        }
+        liveTrade = null;
+        frameTimer.stop();
+        feedStartButton.setEnabled(true);
+        feedStopButton.setEnabled(false);
+    }
+
+    // Charts the whole ladder as if every row fills; the feed then marks what actually does.
+    private void showFeedPlan(TradeInputs in) {
+        if (feedRows.length < in.entryCount) {
+            feedRows = new int[in.entryCount];
+            feedFilled = new boolean[in.entryCount];
+        }
+        double[] rungs = new double[in.entryCount];
+        feedRungs = 0;
+        for (int i = 0; i < in.entryCount; i++) {
+            if (!Double.isNaN(in.entries[i])) {
+                feedRows[feedRungs] = i;
+                rungs[feedRungs++] = in.entries[i];
+            }
+        }
+        LadderChart ladderChart = calculator.getLadderChart();
+        PositionResult plan = new PositionResult(feedRungs);
+        if (PositionSizingEngine.size(rungs, feedRungs, in.entryType, in.curve, in.stopLoss, in.balance, in.riskPct,
+                in.instrument, plan) == PositionSizingEngine.OK) {
+            ladderChart.setLadder(plan, in.tpPrices, in.tpPcts, null, in.tpCount, Double.NaN);
+            ladderChart.setFills(new boolean[0], new boolean[0], Double.NaN);
+        } else {
+            ladderChart.clear();
+        }
+    }
+
+    // Runs on the EDT once per frame while a feed is running. However many ticks came in since
+    // the last frame, the boxes, chart and table are updated once, from a snapshot.
+    private void showFeedFrame() {
+        LiveTrade trade = liveTrade;
+        if (trade == null) {
+            return;
+        }
+        LiveStatus s = liveStatus;
+        trade.copyTo(s);
+        long now = System.nanoTime();
+        if (now - rateNanos >= 1_000_000_000L) {
+            tickRate = (s.ticks - rateTicks) * 1e9 / (now - rateNanos);
+            rateTicks = s.ticks;
+            rateNanos = now;
+        }
+        LadderChart ladderChart = calculator.getLadderChart();
+        if (s.events != shownEvents) {
+            shownEvents = s.events;
+            calculator.getEntrySettingsPanel().setTriggered(s.entryFilled);
+            calculator.getProfitTPPanel().setTriggered(s.tpHit);
+            for (int k = 0; k < feedRungs; k++) {
+                feedFilled[k] = s.entryFilled[feedRows[k]];
+            }
+            ladderChart.setFills(feedFilled, s.tpHit, s.sized ? s.avgEntry : Double.NaN);
+            double open = s.sized ? s.remainingPct / 100.0 : 0.0;
+            calculator.reportExposure(open * s.riskUSD, open * s.positionSizeUSD, s.isLong);
+        }
+        ladderChart.setLivePrice(s.lastPrice);
+        if (s.ticks != shownTicks && now - tableNanos >= TABLE_FRAME_NANOS) {
+            shownTicks = s.ticks;
+            tableNanos = now;
+            showFeedStatus(s);
+        }
+        if (s.isOver()) {
+            finishFeed(s);
+        }
+    }
+
+    private void showFeedStatus(LiveStatus s) {
+        ResultsView resultsView = calculator.getResultsView();
+        ResultsTableModel model = resultsView.getModel();
+        double nan = Double.NaN;
+        model.beginUpdate();
+        model.addRow("Ticks", nan, s.ticks, 0, nan, String.format("%,.0f per second", tickRate));
+        model.addRow("Last Price", s.lastPrice, nan, 0, nan, null);
+        model.addRow("Trade Type", nan, nan, 0, nan, s.isLong ? "Long" : "Short");
+        model.addRow("Entries Filled", nan, s.filledCount, 0, nan, "of " + s.entryFilled.length);
+        model.addRow("TPs Hit", nan, s.tpsHit, 0, nan, "of " + s.tpHit.length);
+        if (s.sized) {
+            model.addRow(s.filledCount > 1 ? "Average Entry" : "Entry Price", s.avgEntry, nan, 0, nan, null);
+            model.addRow("Position Size", nan, nan, 0, s.positionSizeUSD, null);
+            model.addRow("Total Risk", nan, nan, 0, s.riskUSD, null);
+            model.addRow("Realized Profit", nan, nan, 0, s.realizedUSD, s.stopped ? "TPs and stop" : "TPs");
+            model.addRow("Unrealized Profit", nan, s.remainingPct, 2, s.unrealizedUSD, "% open, at the last price");
+            model.addRow("Total Profit", nan, s.r, 2, s.totalUSD, "Ratio = R multiple");
+        }
+        model.endUpdate();
+        resultsView.showMessage(s.sized ? "Live feed running." : s.filledCount > 0
+                ? "Live feed running. " + sizingProblem(s.sizingStatus) : "Live feed running; waiting for an entry to fill.");
+        resultsView.setReportSupplier(() -> formatFeedStatus(s));
+    }
+
+    private static String sizingProblem(int status) {
+        return status == PositionSizingEngine.ERR_BELOW_MINIMUM
+                ? "The filled position is smaller than one lot or the minimum notional."
+                : "The filled entries cannot be sized.";
+    }
+
+    static String formatFeedStatus(LiveStatus s) {
+        StringBuilder res = new StringBuilder();
+        res.append("===== Live Price Feed =====\n\n");
+        res.append(String.format("Ticks: %d\n", s.ticks));
+        res.append(String.format("Last Price: %.4f\n", s.lastPrice));
+        res.append(String.format("Trade Type: %s\n", s.isLong ? "Long" : "Short"));
+        res.append(String.format("Entries Filled: %d of %d\n", s.filledCount, s.entryFilled.length));
+        res.append(String.format("TPs Hit: %d of %d\n", s.tpsHit, s.tpHit.length));
+        if (s.sized) {
+            res.append("----------------------------------------\n");
+            res.append(String.format("Average Entry: %.4f\n", s.avgEntry));
+            res.append(String.format("Position Size (USD): %.2f\n", s.positionSizeUSD));
+            res.append(String.format("Total Risk (USD): %.2f\n", s.riskUSD));
+            res.append(String.format("Realized Profit: $%.2f\n", s.realizedUSD));
+            res.append(String.format("Unrealized Profit: $%.2f (%.2f%% open)\n", s.unrealizedUSD, s.remainingPct));
+            res.append(String.format("Total Profit: $%.2f (%.2fR)\n", s.totalUSD, s.r));
+        }
+        return res.toString();
+    }
+
+    // The trade is over or the feed stopped by itself: leaves the boxes as the feed set them,
+    // sets the close price as a replay would, and recalculates (which journals the trade).
+    private void finishFeed(LiveStatus s) {
+        stopFeed();
+        ResultsView resultsView = calculator.getResultsView();
+        if (s.error != null) {
+            resultsView.showMessage("Live feed stopped: " + s.error.getMessage());
+            return;
+        }
+        if (s.filledCount == 0) {
+            resultsView.showMessage("The feed ended after " + s.ticks + " ticks without any entry filling.");
+            return;
+        }
+        String ending;
+        JTextField closePriceField = calculator.getActualClosePriceField();
+        if (s.stopped) {
+            closePriceField.setText(calculator.getStopLossField().getText().trim());
+            ending = "stopped out at time " + s.lastTime;
+        } else if (s.closedByTps) {
+            ending = "fully closed by the TPs";
+        } else {
+            closePriceField.setText(Double.toString(s.lastPrice));
+            ending = "still open when the feed ended (time " + s.lastTime + ", price " + s.lastPrice + ")";
+        }
+        calculator.recalculate("Live feed: " + s.ticks + " ticks, " + s.filledCount + " entries filled, " + s.tpsHit
+                + " TPs hit, " + ending + ".");
+    }
+}
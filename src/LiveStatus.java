@@ -0,0 +1,60 @@
+import java.util.Arrays;
+
+// Snapshot of a LiveTrade, copied out once per screen frame. Entry and TP flags are in row
+// order, like ReplayResult's.
+public class LiveStatus {
+    public long ticks;
+    public long lastTime = Long.MIN_VALUE;
+    public double lastPrice = Double.NaN;
+    // Counts fills, TP hits and the stop; changes whenever a Triggered box should.
+    public int events;
+    public boolean[] entryFilled = new boolean[0];
+    public boolean[] tpHit = new boolean[0];
+    public int filledCount;
+    public int tpsHit;
+    public boolean isLong;
+    public boolean stopped;
+    public boolean closedByTps;
+    // The feed ran out or failed (error) before the trade was over.
+    public boolean ended;
+    public Exception error;
+    // PositionSizingEngine status of sizing the filled entries; OK once something is open.
+    public int sizingStatus;
+    public boolean sized;
+    public double avgEntry;
+    public double positionSizeUSD;
+    public double riskUSD;
+    // TP closes (and the stop, once taken) count as realized; the rest is marked at the last price.
+    public double realizedUSD;
+    public double unrealizedUSD;
+    public double totalUSD;
+    public double r;
+    // Share of the position still open, 0 once stopped.
+    public double remainingPct;
+
+    public void ensureCapacity(int entryCount, int tpCount) {
+        if (entryFilled.length != entryCount) {
+            entryFilled = new boolean[entryCount];
+        }
+        if (tpHit.length != tpCount) {
+            tpHit = new boolean[tpCount];
+        }
+    }
+
+    public boolean isOver() {
+        return stopped || closedByTps || ended;
+    }
+
+    public void clear() {
+        ticks = 0;
+        lastTime = Long.MIN_VALUE;
+        lastPrice = Double.NaN;
+        events = 0;
+        Arrays.fill(entryFilled, false);
+        Arrays.fill(tpHit, false);
+        filledCount = tpsHit = 0;
+        stopped = closedByTps = ended = sized = false;
+        error = null;
+        realizedUSD = unrealizedUSD = totalUSD = r = 0.0;
+    }
+}
@@ -0,0 +1,109 @@
+// A trade followed tick by tick in the Profit Calculator's live mode: which entries fill, which
+// TPs are hit and whether the stop is taken (by BarReplay's rules), and the realized and
+// unrealized profit and R at the last price.
+//
+// Ticks arrive on the feed thread, 100k or more a second, while the screen needs a few dozen
+// updates a second. So a tick only updates this state in place: BarReplay's crossing checks,
+// then ProfitEngine on the sized position with the tick as the close price. The filled entries
+// are re-sized only when one fills. The EDT copies a snapshot out with copyTo() once per frame,
+// so every tick in between is coalesced into the next frame. Nothing is allocated per tick.
+public class LiveTrade implements PriceFeed.Listener {
+    private final TradeInputs in;
+    private final BarReplay replay;
+    private final ReplayResult events = new ReplayResult();
+    private final PositionResult sizing = new PositionResult();
+    private final ProfitResult profit = new ProfitResult();
+    // The filled entries' prices in row order, as the calculator sizes the ticked rows.
+    private final double[] filled;
+    private int sizedEvents;
+    private int sizingStatus = PositionSizingEngine.ERR_NO_ENTRIES;
+    private long ticks;
+    private boolean ended;
+    private Exception error;
+
+    // in.entries and in.tpPrices hold every row, NaN where blank; they are used, not copied.
+    public LiveTrade(TradeInputs in) {
+        this.in = in;
+        filled = new double[in.entryCount];
+        replay = BarReplay.start(in.entries, in.entryCount, in.stopLoss, in.tpPrices, in.tpPcts, in.tpCount, events);
+    }
+
+    // A PositionSizingEngine status: ERR_NO_ENTRIES or ERR_MIXED_SIDES when the rows do not make
+    // a trade, OK otherwise.
+    public int getStatus() {
+        return events.status;
+    }
+
+    @Override
+    public synchronized void onTick(long time, double price) {
+        ticks++;
+        if (replay == null || replay.isDone()) {
+            // Over already: later ticks are only counted.
+            return;
+        }
+        replay.tick(time, price);
+        if (replay.events() != sizedEvents) {
+            sizedEvents = replay.events();
+            resize();
+        }
+        if (sizingStatus == PositionSizingEngine.OK) {
+            ProfitEngine.calculate(sizing, in.tpPrices, in.tpPcts, events.tpHit, in.tpCount,
+                    events.stopped ? in.stopLoss : price, profit);
+        }
+    }
+
+    @Override
+    public synchronized void onEnd(Exception ex) {
+        ended = true;
+        error = ex;
+    }
+
+    private void resize() {
+        int n = 0;
+        for (int i = 0; i < in.entryCount; i++) {
+            if (events.entryFilled[i]) {
+                filled[n++] = in.entries[i];
+            }
+        }
+        sizingStatus = PositionSizingEngine.size(filled, n, in.entryType, in.curve, in.stopLoss, in.balance,
+                in.riskPct, in.instrument, sizing);
+    }
+
+    public synchronized void copyTo(LiveStatus s) {
+        s.ensureCapacity(in.entryCount, in.tpCount);
+        s.ticks = ticks;
+        s.lastTime = events.lastTime;
+        s.lastPrice = events.lastPrice;
+        s.events = replay != null ? replay.events() : 0;
+        s.filledCount = 0;
+        for (int i = 0; i < in.entryCount; i++) {
+            s.entryFilled[i] = events.entryFilled[i];
+            s.filledCount += events.entryFilled[i] ? 1 : 0;
+        }
+        s.tpsHit = 0;
+        for (int i = 0; i < in.tpCount; i++) {
+            s.tpHit[i] = events.tpHit[i];
+            s.tpsHit += events.tpHit[i] ? 1 : 0;
+        }
+        s.isLong = events.isLong;
+        s.stopped = events.stopped;
+        s.closedByTps = events.closedByTps;
+        s.ended = ended;
+        s.error = error;
+        s.sizingStatus = sizingStatus;
+        s.sized = sizingStatus == PositionSizingEngine.OK && s.filledCount > 0;
+        if (s.sized) {
+            s.avgEntry = sizing.avgEntry;
+            s.positionSizeUSD = sizing.positionSizeUSD;
+            s.riskUSD = sizing.riskUSD;
+            s.realizedUSD = profit.profitFromTPs + (events.stopped ? profit.profitFromRemaining : 0.0);
+            s.unrealizedUSD = events.stopped ? 0.0 : profit.profitFromRemaining;
+            s.totalUSD = profit.totalProfit;
+            s.r = profit.riskReward;
+            s.remainingPct = events.stopped ? 0.0 : profit.remainingPct;
+        } else {
+            s.avgEntry = s.positionSizeUSD = s.riskUSD = Double.NaN;
+            s.realizedUSD = s.unrealizedUSD = s.totalUSD = s.r = s.remainingPct = 0.0;
+        }
+    }
+}
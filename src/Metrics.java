@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Latency of each phase of calculating and showing results, for the diagnostics panel.
+//
+// Call sites keep a Phase in a static field, take System.nanoTime() before the work and pass it
+// to record() afterwards. Recording adds to the phase's LatencyHistogram and, while a flight
+// recording is running, commits a CalculatorPhaseEvent, so the same numbers show up in JFR.
+public final class Metrics {
+    // Whether the runtime has jdk.jfr; a jlink'd image may not, and then JfrEvents is never loaded.
+    static final boolean JFR = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+    private static final List<Phase> PHASES = new ArrayList<>();
+
+    private Metrics() { }
+
+    // Returns the phase with this name, registering it the first time.
+    public static synchronized Phase phase(String name) {
+        for (Phase p : PHASES) {
+            if (p.name.equals(name)) {
+                return p;
+            }
+        }
+        Phase p = new Phase(name);
+        PHASES.add(p);
+        return p;
+    }
+
+    // Every registered phase, in registration order.
+    public static synchronized List<Phase> phases() {
+        return new ArrayList<>(PHASES);
+    }
+
+    public static synchronized void reset() {
+        for (Phase p : PHASES) {
+            p.reset();
+        }
+    }
+
+    public static class Phase {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void record(long startNanos) {
+            recordNanos(System.nanoTime() - startNanos);
+        }
+
+        public void recordNanos(long nanos) {
+            synchronized (histogram) {
+                histogram.record(nanos);
+            }
+            if (Metrics.JFR) {
+                JfrEvents.phase(name, nanos);
+            }
+        }
+
+        // A copy of the histogram so far.
+        public LatencyHistogram snapshot() {
+            LatencyHistogram copy = new LatencyHistogram();
+            synchronized (histogram) {
+                copy.add(histogram);
+            }
+            return copy;
+        }
+
+        void reset() {
+            synchronized (histogram) {
+                histogram.reset();
+            }
+        }
+    }
+}
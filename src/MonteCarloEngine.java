@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Monte Carlo simulation of how a sized trade plays out across its take-profit ladder.
+//
+// Each simulated path walks the TPs in order: TP i is reached with probability tpHitProbs[i]
+// given that the previous level was reached, and closes tpPcts[i] percent of the position.
+// The walk ends at the first TP that is missed (or after the last one); whatever is still
+// open is then stopped out with probability stopHitProb, otherwise it is closed at the
+// trade's close price (or at break-even when there is none).
+//
+// A path can only end in one of 2 * (tpCount + 1) ways, so workers just count outcomes; the
+// mean, percentiles and histogram are then exact for the simulated counts and no per-path
+// samples are kept. Paths are split across the common fork/join pool, and every task gets its
+// own SplittableRandom split off its parent's, so no generator is shared between threads.
+public final class MonteCarloEngine {
+    public static final int HISTOGRAM_BINS = 20;
+    private static final int LEAF_PATHS = 1 << 16;
+
+    private MonteCarloEngine() { }
+
+    // tpHitProbs and stopHitProb are probabilities in [0, 1]; tpPcts are percentages of the
+    // original position and must not add up to more than 100. closePrice is NaN when unset.
+    public static void simulate(PositionResult sizing, double[] tpPrices, double[] tpPcts, double[] tpHitProbs,
+                                int tpCount, double stopHitProb, double closePrice, long paths, long seed,
+                                MonteCarloResult out) {
+        int outcomes = 2 * (tpCount + 1);
+        out.ensureCapacity(outcomes);
+        out.paths = paths;
+        out.outcomeCount = outcomes;
+        out.riskUSD = sizing.riskUSD;
+
+        // PnL of every outcome: index 2*k is "k TPs hit, rest closed", 2*k+1 is "k TPs hit, rest stopped".
+        double direction = sizing.isLong ? 1.0 : -1.0;
+        double units = sizing.totalUnits;
+        double avgEntry = sizing.avgEntry;
+        double exitPrice = Double.isNaN(closePrice) ? avgEntry : closePrice;
+        double banked = 0.0;
+        double closedPct = 0.0;
+        // Chance of the rest being stopped once the walk ends after k TPs; zero when nothing is left open.
+        double[] stopProbs = new double[tpCount + 1];
+        for (int k = 0; k <= tpCount; k++) {
+            double remaining = units * Math.max(0.0, 100.0 - closedPct) / 100.0;
+            stopProbs[k] = remaining > 0 ? stopHitProb : 0.0;
+            out.outcomePnl[2 * k] = banked + direction * (exitPrice - avgEntry) * remaining;
+            out.outcomePnl[2 * k + 1] = banked + direction * (sizing.stopLoss - avgEntry) * remaining;
+            if (k < tpCount) {
+                banked += direction * (tpPrices[k] - avgEntry) * units * (tpPcts[k] / 100.0);
+                closedPct += tpPcts[k];
+            }
+        }
+
+        long[] counts = ForkJoinPool.commonPool().invoke(
+                new PathTask(tpHitProbs, tpCount, stopProbs, 0, paths, new SplittableRandom(seed)));
+        System.arraycopy(counts, 0, out.outcomeCounts, 0, outcomes);
+        summarize(out);
+    }
+
+    private static void summarize(MonteCarloResult out) {
+        int n = out.outcomeCount;
+        double risk = out.riskUSD != 0 ? out.riskUSD : Double.NaN;
+        double sum = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            out.outcomeR[i] = out.outcomePnl[i] / risk;
+            if (out.outcomeCounts[i] > 0) {
+                sum += out.outcomePnl[i] * out.outcomeCounts[i];
+                min = Math.min(min, out.outcomePnl[i]);
+                max = Math.max(max, out.outcomePnl[i]);
+            }
+        }
+        out.meanPnl = sum / out.paths;
+        out.meanR = out.meanPnl / risk;
+        out.minPnl = min;
+        out.maxPnl = max;
+
+        // Outcomes sorted by PnL (there are only a handful) give the percentiles directly.
+        int[] order = out.order;
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int i = 1; i < n; i++) {
+            int o = order[i];
+            int j = i - 1;
+            while (j >= 0 && out.outcomePnl[order[j]] > out.outcomePnl[o]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = o;
+        }
+        double winning = 0;
+        for (int i = 0; i < n; i++) {
+            if (out.outcomePnl[i] > 0) {
+                winning += out.outcomeCounts[i];
+            }
+        }
+        out.winRate = winning / out.paths;
+        for (int p = 0; p < MonteCarloResult.PERCENTILES.length; p++) {
+            long rank = (long) Math.ceil(MonteCarloResult.PERCENTILES[p] / 100.0 * out.paths);
+            long seen = 0;
+            double value = max;
+            for (int i = 0; i < n; i++) {
+                seen += out.outcomeCounts[order[i]];
+                if (seen >= Math.max(1, rank)) {
+                    value = out.outcomePnl[order[i]];
+                    break;
+                }
+            }
+            out.percentilePnl[p] = value;
+        }
+
+        // Equal-width PnL bins between the smallest and largest outcome that occurred.
+        Arrays.fill(out.histogram, 0L);
+        double width = (max - min) / HISTOGRAM_BINS;
+        out.histogramMin = min;
+        out.histogramWidth = width;
+        for (int i = 0; i < n; i++) {
+            if (out.outcomeCounts[i] == 0) {
+                continue;
+            }
+            int bin = width > 0 ? (int) ((out.outcomePnl[i] - min) / width) : 0;
+            out.histogram[Math.min(bin, HISTOGRAM_BINS - 1)] += out.outcomeCounts[i];
+        }
+    }
+
+    private static class PathTask extends RecursiveTask<long[]> {
+        private final double[] hitProbs;
+        private final int tpCount;
+        private final double[] stopProbs;
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        PathTask(double[] hitProbs, int tpCount, double[] stopProbs, long from, long to, SplittableRandom random) {
+            this.hitProbs = hitProbs;
+            this.tpCount = tpCount;
+            this.stopProbs = stopProbs;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= LEAF_PATHS) {
+                return simulateLeaf();
+            }
+            long mid = (from + to) >>> 1;
+            PathTask left = new PathTask(hitProbs, tpCount, stopProbs, from, mid, random.split());
+            PathTask right = new PathTask(hitProbs, tpCount, stopProbs, mid, to, random);
+            left.fork();
+            long[] counts = right.compute();
+            long[] other = left.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other[i];
+            }
+            return counts;
+        }
+
+        private long[] simulateLeaf() {
+            long[] counts = new long[2 * (tpCount + 1)];
+            SplittableRandom rnd = random;
+            for (long p = from; p < to; p++) {
+                int k = 0;
+                while (k < tpCount && rnd.nextDouble() < hitProbs[k]) {
+                    k++;
+                }
+                counts[2 * k + (rnd.nextDouble() < stopProbs[k] ? 1 : 0)]++;
+            }
+            return counts;
+        }
+    }
+}
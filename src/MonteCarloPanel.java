@@ -0,0 +1,202 @@
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+
+// The Profit Calculator's Monte Carlo Simulation: plays the TP ladder out many times using each
+// TP's Hit % and the stop hit chance (see MonteCarloEngine). Reads the trade from the calculator
+// and shows the outcome distribution in its results.
+public class MonteCarloPanel extends JPanel {
+    private static final long[] SIM_PATHS = {100_000, 1_000_000, 10_000_000};
+    private static final String[] SIM_PATH_LABELS = {"100,000", "1,000,000", "10,000,000"};
+    private static final int DEFAULT_SIM_PATHS = 1;
+    private static final String[] PERCENTILE_LABELS = {"5th Percentile", "25th Percentile", "Median",
+            "75th Percentile", "95th Percentile"};
+
+    private final ProfitCalculatorPanel calculator;
+    private final JTextField stopHitPctField = new JTextField(4);
+    private final JComboBox<String> simPathsCombo = new JComboBox<>(SIM_PATH_LABELS);
+    private final LiveCalculator<TradeInputs, Simulation> simulator;
+    private final FieldReader fields = new FieldReader();
+
+    public MonteCarloPanel(ProfitCalculatorPanel calculator) {
+        super(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        this.calculator = calculator;
+        setBorder(new TitledBorder("Monte Carlo Simulation"));
+        add(new JLabel("Stop hit %:"));
+        stopHitPctField.setToolTipText("Chance that whatever the TPs leave open is stopped out");
+        add(stopHitPctField);
+        add(new JLabel("Paths:"));
+        simPathsCombo.setSelectedIndex(DEFAULT_SIM_PATHS);
+        add(simPathsCombo);
+        JButton simButton = new JButton("Simulate");
+        add(simButton);
+
+        simulator = new LiveCalculator<>("Monte Carlo", this::readSimulationInputs, MonteCarloPanel::simulate,
+                new LiveCalculator.ResultHandler<Simulation>() {
+                    public void onResult(Simulation simulation, boolean explicit) {
+                        showSimulation(simulation);
+                    }
+
+                    public void onError(Exception ex, boolean explicit) {
+                        calculator.showError(ex, explicit);
+                    }
+                });
+        simulator.setRecycler(calculator::recycleInputs);
+        simButton.addActionListener(e -> {
+            calculator.cancelCalculation();
+            simulator.calculateNow();
+        });
+    }
+
+    // Drops a pending simulation, e.g. because the trade it was started for was edited.
+    public void cancel() {
+        simulator.cancel();
+    }
+
+    public void exportState(TabState state) {
+        state.simulation.stopHitPct = stopHitPctField.getText();
+        state.simulation.paths = (int) SIM_PATHS[simPathsCombo.getSelectedIndex()];
+    }
+
+    public void importState(TabState state) {
+        simulator.cancel();
+        stopHitPctField.setText(state.simulation.stopHitPct);
+        simPathsCombo.setSelectedIndex(DEFAULT_SIM_PATHS);
+        for (int i = 0; i < SIM_PATHS.length; i++) {
+            if (SIM_PATHS[i] == state.simulation.paths) {
+                simPathsCombo.setSelectedIndex(i);
+            }
+        }
+    }
+
+    // Runs on the EDT, from the calculator's readInputs: the stop hit chance and path count,
+    // with their problems reported along with the trade's.
+    void readSettings(TradeInputs in) {
+        in.stopHitProb = fields.percent(stopHitPctField, "Stop hit %", in);
+        in.simPaths = SIM_PATHS[simPathsCombo.getSelectedIndex()];
+    }
+
+    // Runs on the EDT: the regular inputs plus each TP's Hit % and the stop hit chance.
+    private TradeInputs readSimulationInputs() throws Exception {
+        TradeInputs in = calculator.readInputs(true);
+        double closedPct = 0.0;
+        for (int i = 0; i < in.tpCount; i++) {
+            closedPct += in.tpPcts[i];
+        }
+        if (closedPct > 100.0) {
+            calculator.recycleInputs(in);
+            throw new Exception("TP Close % values add up to more than 100%.");
+        }
+        return in;
+    }
+
+    // Runs on a calculator worker thread; the paths themselves are spread over the fork/join pool.
+    private static Simulation simulate(TradeInputs in) throws Exception {
+        PositionResult sized = new PositionResult(in.entryCount);
+        int status = PositionSizingEngine.size(in.entries, in.entryCount, in.entryType, in.curve,
+                in.stopLoss, in.balance, in.riskPct, in.instrument, sized);
+        if (status == PositionSizingEngine.ERR_ENTRY_EQUALS_STOP) {
+            throw new Exception("Entry equals Stop Loss. Risk undefined.");
+        } else if (status == PositionSizingEngine.ERR_BELOW_MINIMUM) {
+            throw new Exception("The position is smaller than one lot or the minimum notional.");
+        } else if (status != PositionSizingEngine.OK) {
+            throw new Exception("Invalid input.");
+        }
+        Simulation simulation = new Simulation();
+        simulation.sizing = sized;
+        simulation.result = new MonteCarloResult(2 * (in.tpCount + 1));
+        long start = System.nanoTime();
+        MonteCarloEngine.simulate(sized, in.tpPrices, in.tpPcts, in.tpHitProbs, in.tpCount, in.stopHitProb,
+                in.closePrice, in.simPaths, System.nanoTime(), simulation.result);
+        simulation.millis = (System.nanoTime() - start) / 1_000_000;
+        return simulation;
+    }
+
+    private void showSimulation(Simulation simulation) {
+        PositionResult sizing = simulation.sizing;
+        MonteCarloResult mc = simulation.result;
+        ResultsView resultsView = calculator.getResultsView();
+        ResultsTableModel model = resultsView.getModel();
+        double nan = Double.NaN;
+        model.beginUpdate();
+        model.addRow("Simulated Paths", nan, mc.paths, 0, nan, null);
+        model.addRow("Position Size", nan, nan, 0, sizing.positionSizeUSD, null);
+        model.addRow("Total Risk", nan, nan, 0, sizing.riskUSD, null);
+        model.addRow("Mean Profit", nan, mc.meanR, 2, mc.meanPnl, "Ratio = R multiple");
+        model.addRow("Win Rate", nan, mc.winRate * 100.0, 2, nan, null);
+        for (int p = 0; p < PERCENTILE_LABELS.length; p++) {
+            model.addRow(PERCENTILE_LABELS[p], nan, mc.percentileR(p), 2, mc.percentilePnl[p], null);
+        }
+        for (int i = 0; i < mc.outcomeCount; i++) {
+            if (mc.outcomeCounts[i] > 0) {
+                model.addRow(outcomeLabel(i), nan, 100.0 * mc.outcomeCounts[i] / mc.paths, 2, mc.outcomePnl[i],
+                        MonteCarloResult.stopped(i) ? "Rest stopped out" : "Rest closed");
+            }
+        }
+        long peak = 1;
+        for (long count : mc.histogram) {
+            peak = Math.max(peak, count);
+        }
+        for (int b = 0; b < mc.histogram.length; b++) {
+            model.addRow(ResultsTableModel.numbered("Histogram ", b + 1), nan, 100.0 * mc.histogram[b] / mc.paths, 2,
+                    mc.histogramMin + b * mc.histogramWidth, bar(mc.histogram[b], peak));
+        }
+        model.endUpdate();
+        calculator.forgetResult();
+        resultsView.showMessage("Simulated " + SIM_PATH_LABELS[simPathsCombo.getSelectedIndex()] + " paths in "
+                + simulation.millis + " ms. Histogram rows: USD = bin start, % = share of paths.");
+        resultsView.setReportSupplier(() -> formatSimulation(sizing, mc));
+    }
+
+    private static String outcomeLabel(int outcome) {
+        int hit = MonteCarloResult.tpsHit(outcome);
+        return hit == 0 ? "No TP hit" : ResultsTableModel.numbered("TPs hit: ", hit);
+    }
+
+    private static final String BARS = "████████████████████████████████████████";
+
+    private static String bar(long count, long peak) {
+        int len = (int) Math.round((double) count / peak * BARS.length());
+        return BARS.substring(0, len);
+    }
+
+    static String formatSimulation(PositionResult sizing, MonteCarloResult mc) {
+        StringBuilder res = new StringBuilder();
+        res.append("===== Monte Carlo Simulation =====\n\n");
+        res.append(String.format("Simulated Paths: %d\n", mc.paths));
+        res.append(String.format("Position Size (USD): %.2f\n", sizing.positionSizeUSD));
+        res.append(String.format("Total Risk (USD): %.2f\n", sizing.riskUSD));
+        res.append("----------------------------------------\n");
+        res.append(String.format("Mean Profit: $%.2f (%.2fR)\n", mc.meanPnl, mc.meanR));
+        res.append(String.format("Win Rate: %.2f%%\n", mc.winRate * 100.0));
+        for (int p = 0; p < PERCENTILE_LABELS.length; p++) {
+            res.append(String.format("%s: $%.2f (%.2fR)\n", PERCENTILE_LABELS[p], mc.percentilePnl[p], mc.percentileR(p)));
+        }
+        res.append("----------------------------------------\n");
+        res.append("Outcomes:\n");
+        for (int i = 0; i < mc.outcomeCount; i++) {
+            if (mc.outcomeCounts[i] > 0) {
+                res.append(String.format("  %s, rest %s: %.2f%% of paths, Profit = $%.2f (%.2fR)\n",
+                        outcomeLabel(i), MonteCarloResult.stopped(i) ? "stopped out" : "closed",
+                        100.0 * mc.outcomeCounts[i] / mc.paths, mc.outcomePnl[i], mc.outcomeR[i]));
+            }
+        }
+        res.append("----------------------------------------\n");
+        res.append("Profit Histogram:\n");
+        long peak = 1;
+        for (long count : mc.histogram) {
+            peak = Math.max(peak, count);
+        }
+        for (int b = 0; b < mc.histogram.length; b++) {
+            res.append(String.format("  from $%10.2f: %6.2f%% %s\n", mc.histogramMin + b * mc.histogramWidth,
+                    100.0 * mc.histogram[b] / mc.paths, bar(mc.histogram[b], peak)));
+        }
+        return res.toString();
+    }
+
+    private static class Simulation {
+        PositionResult sizing;
+        MonteCarloResult result;
+        long millis;
+    }
+}
@@ -0,0 +1,56 @@
+// Result of a MonteCarloEngine run. PnL figures are in USD; R figures are PnL divided by the
+// position's total risk.
+public class MonteCarloResult {
+    public static final double[] PERCENTILES = {5, 25, 50, 75, 95};
+
+    public long paths;
+    public double riskUSD;
+    public double meanPnl;
+    public double meanR;
+    public double minPnl;
+    public double maxPnl;
+    public double winRate;
+    public double[] percentilePnl = new double[PERCENTILES.length];
+    // Every way a path can end, with its PnL, R and how many paths ended that way.
+    public int outcomeCount;
+    public double[] outcomePnl;
+    public double[] outcomeR;
+    public long[] outcomeCounts;
+    int[] order;
+    public long[] histogram = new long[MonteCarloEngine.HISTOGRAM_BINS];
+    public double histogramMin;
+    public double histogramWidth;
+
+    public MonteCarloResult() {
+        this(12);
+    }
+
+    public MonteCarloResult(int capacity) {
+        outcomePnl = new double[capacity];
+        outcomeR = new double[capacity];
+        outcomeCounts = new long[capacity];
+        order = new int[capacity];
+    }
+
+    public void ensureCapacity(int n) {
+        if (outcomePnl.length < n) {
+            outcomePnl = new double[n];
+            outcomeR = new double[n];
+            outcomeCounts = new long[n];
+            order = new int[n];
+        }
+    }
+
+    // Outcome i means i / 2 take-profits were hit; odd outcomes end at the stop loss.
+    public static int tpsHit(int outcome) {
+        return outcome / 2;
+    }
+
+    public static boolean stopped(int outcome) {
+        return (outcome & 1) != 0;
+    }
+
+    public double percentileR(int p) {
+        return percentilePnl[p] / riskUSD;
+    }
+}
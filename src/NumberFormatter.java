@@ -0,0 +1,84 @@
+// Formats doubles to a fixed number of decimals into a reusable char buffer, so a value can be
+// compared with what is already on screen before any String is created for it.
+// Not thread-safe; use one instance per thread (the results views use theirs on the EDT).
+public class NumberFormatter {
+    private static final long[] POW10 = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L
+    };
+
+    private char[] buf = new char[40];
+    private int length;
+
+    // Formats v with the given number of decimals (at most 8) and returns the length.
+    public int format(double v, int decimals) {
+        length = 0;
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            append(Double.isNaN(v) ? "NaN" : (v > 0 ? "Infinity" : "-Infinity"));
+            return length;
+        }
+        long scale = POW10[decimals];
+        double scaled = Math.abs(v) * scale;
+        if (scaled >= 9.0e18) {
+            // Too large for the fast path; rare enough to go through the JDK.
+            append(String.format("%." + decimals + "f", v));
+            return length;
+        }
+        long units = Math.round(scaled);
+        if (v < 0 && units != 0) {
+            buf[length++] = '-';
+        }
+        int intDigits = 1;
+        for (long t = units / scale; t >= 10; t /= 10) {
+            intDigits++;
+        }
+        int end = length + intDigits + (decimals > 0 ? decimals + 1 : 0);
+        int pos = end - 1;
+        for (int d = 0; d < decimals; d++) {
+            buf[pos--] = (char) ('0' + units % 10);
+            units /= 10;
+        }
+        if (decimals > 0) {
+            buf[pos--] = '.';
+        }
+        do {
+            buf[pos--] = (char) ('0' + units % 10);
+            units /= 10;
+        } while (units > 0);
+        length = end;
+        return length;
+    }
+
+    // True if the last formatted value reads exactly like s.
+    public boolean matches(String s) {
+        if (s == null || s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != buf[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public char[] buffer() {
+        return buf;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, length);
+    }
+
+    private void append(String s) {
+        if (s.length() > buf.length) {
+            buf = new char[s.length()];
+        }
+        s.getChars(0, s.length(), buf, 0);
+        length = s.length();
+    }
+}
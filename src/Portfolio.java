@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Running totals of what every calculator tab (in both modes) has at risk.
+//
+// Each tab's last exposure is kept on its TabState, so when a tab recalculates or closes only
+// the difference between its old and new figures is applied; the other tabs are never
+// revisited. Use on the EDT only.
+public class Portfolio {
+    private double riskUSD;
+    private double notionalUSD;
+    private double longUSD;
+    private double shortUSD;
+    private int openPositions;
+    private double riskCap = Double.NaN;
+    private final List<Runnable> listeners = new ArrayList<>();
+
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    // Counts a tab opened with an exposure already on it, e.g. restored from the last session.
+    public void add(TabState state) {
+        apply(state, 1);
+        fireChanged();
+    }
+
+    public void remove(TabState state) {
+        apply(state, -1);
+        fireChanged();
+    }
+
+    // Replaces the tab's exposure with a new one. Zero notional means nothing is open.
+    public void update(TabState state, double riskUSD, double notionalUSD, boolean isLong) {
+        if (state.exposure.riskUSD == riskUSD && state.exposure.notionalUSD == notionalUSD && state.exposure.isLong == isLong) {
+            return;
+        }
+        apply(state, -1);
+        state.exposure.riskUSD = riskUSD;
+        state.exposure.notionalUSD = notionalUSD;
+        state.exposure.isLong = isLong;
+        apply(state, 1);
+        fireChanged();
+    }
+
+    private void apply(TabState state, int sign) {
+        if (state.exposure.notionalUSD == 0.0 && state.exposure.riskUSD == 0.0) {
+            return;
+        }
+        riskUSD += sign * state.exposure.riskUSD;
+        notionalUSD += sign * state.exposure.notionalUSD;
+        if (state.exposure.isLong) {
+            longUSD += sign * state.exposure.notionalUSD;
+        } else {
+            shortUSD += sign * state.exposure.notionalUSD;
+        }
+        openPositions += sign;
+        if (openPositions == 0) {
+            // Nothing open: drop whatever rounding the additions and subtractions left behind.
+            riskUSD = notionalUSD = longUSD = shortUSD = 0.0;
+        }
+    }
+
+    public void setRiskCap(double riskCap) {
+        if (Double.compare(this.riskCap, riskCap) != 0) {
+            this.riskCap = riskCap;
+            fireChanged();
+        }
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    public double getRiskUSD() {
+        return riskUSD;
+    }
+
+    public double getNotionalUSD() {
+        return notionalUSD;
+    }
+
+    public double getLongUSD() {
+        return longUSD;
+    }
+
+    public double getShortUSD() {
+        return shortUSD;
+    }
+
+    public int getOpenPositions() {
+        return openPositions;
+    }
+
+    // NaN when no cap is set.
+    public double getRiskCap() {
+        return riskCap;
+    }
+
+    public boolean isOverCap() {
+        return riskUSD > riskCap;
+    }
+}
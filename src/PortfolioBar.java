@@ -0,0 +1,74 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+
+// One-line summary of the Portfolio under the calculator tabs, with the risk cap field.
+public class PortfolioBar extends JPanel {
+    private static final Color WARNING = new Color(0xB00020);
+
+    private final Portfolio portfolio;
+    private final JLabel totalsLabel = new JLabel();
+    private final JLabel warningLabel = new JLabel();
+    private final JTextField capField = new JTextField(8);
+
+    public PortfolioBar(Portfolio portfolio) {
+        super(new FlowLayout(FlowLayout.LEFT, 8, 2));
+        this.portfolio = portfolio;
+        setBorder(BorderFactory.createMatteBorder(1, 0, 0, 0, Color.LIGHT_GRAY));
+        totalsLabel.setToolTipText("Totals over every calculator tab. Profit Calculator tabs count only the part "
+                + "the TPs left open, and nothing once a close price is entered.");
+        add(totalsLabel);
+        add(new JLabel("Risk Cap (USD):"));
+        capField.setToolTipText("Warn when the total open risk goes above this amount; blank for no cap");
+        if (!Double.isNaN(portfolio.getRiskCap())) {
+            capField.setText(String.format("%.2f", portfolio.getRiskCap()));
+        }
+        capField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                capChanged();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                capChanged();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                capChanged();
+            }
+        });
+        add(capField);
+        warningLabel.setForeground(WARNING);
+        add(warningLabel);
+        portfolio.addListener(this::refresh);
+        refresh();
+    }
+
+    private void capChanged() {
+        String text = capField.getText().trim();
+        double cap = Double.NaN;
+        if (!text.isEmpty()) {
+            try {
+                cap = Double.parseDouble(text);
+            } catch (NumberFormatException ex) {
+                return; // Keep the previous cap while the number is being typed.
+            }
+        }
+        portfolio.setRiskCap(cap);
+    }
+
+    private void refresh() {
+        double longUSD = portfolio.getLongUSD();
+        double shortUSD = portfolio.getShortUSD();
+        totalsLabel.setText(String.format("Portfolio: %d open | Risk $%.2f | Notional $%.2f | Long $%.2f | "
+                        + "Short $%.2f | Net $%.2f", portfolio.getOpenPositions(), portfolio.getRiskUSD(),
+                portfolio.getNotionalUSD(), longUSD, shortUSD, longUSD - shortUSD));
+        if (portfolio.isOverCap()) {
+            totalsLabel.setForeground(WARNING);
+            warningLabel.setText(String.format("Over cap by $%.2f", portfolio.getRiskUSD() - portfolio.getRiskCap()));
+        } else {
+            totalsLabel.setForeground(UIManager.getColor("Label.foreground"));
+            warningLabel.setText("");
+        }
+    }
+}
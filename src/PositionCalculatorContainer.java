@@ -1,18 +1,39 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.Collections;
+import java.util.List;
 
 public class PositionCalculatorContainer extends JPanel {
     private JTabbedPane tabbedPane;
     private JButton addTabButton;
+    private LazyTabs<PositionCalculatorPanel> tabs;
 
     public PositionCalculatorContainer() {
+        this(Collections.emptyList(), 0, new Portfolio());
+    }
+
+    // Opens the given saved tabs (or one empty tab if there are none) and selects one of them.
+    // The tabs' exposure is added to portfolio, which may be shared with other containers.
+    public PositionCalculatorContainer(List<TabState> savedTabs, int selectedIndex, Portfolio portfolio) {
         setLayout(new BorderLayout());
         tabbedPane = new JTabbedPane();
+        // Tabs only hold their state; one PositionCalculatorPanel is built on demand
+        // and moved to whichever tab is selected.
+        tabs = new LazyTabs<>(tabbedPane, PositionCalculatorPanel::new, portfolio);
         add(tabbedPane, BorderLayout.CENTER);
 
-        // Add an initial Position Calculator tab.
-        addNewTab();
+        if (savedTabs.isEmpty()) {
+            // Add an initial Position Calculator tab.
+            addNewTab();
+        } else {
+            for (TabState state : savedTabs) {
+                addTab(state);
+            }
+            if (selectedIndex >= 0 && selectedIndex < tabbedPane.getTabCount()) {
+                tabbedPane.setSelectedIndex(selectedIndex);
+            }
+        }
 
         // Plus button to add more tabs.
         addTabButton = new JButton("+");
@@ -23,12 +44,23 @@ public class PositionCalculatorContainer extends JPanel {
     }
 
     private void addNewTab() {
-        PositionCalculatorPanel panel = new PositionCalculatorPanel();
         String title = "Calc " + (tabbedPane.getTabCount() + 1);
-        tabbedPane.addTab(title, panel);
-        int index = tabbedPane.indexOfComponent(panel);
-        tabbedPane.setTabComponentAt(index, new TabHeader(title, tabbedPane));
-        tabbedPane.setSelectedComponent(panel);
+        tabbedPane.setSelectedComponent(addTab(new TabState(title)));
+    }
+
+    private LazyTabs.Slot addTab(TabState state) {
+        LazyTabs.Slot slot = tabs.addTab(state);
+        int index = tabbedPane.indexOfComponent(slot);
+        tabbedPane.setTabComponentAt(index, new TabHeader(state.title, tabbedPane));
+        return slot;
+    }
+
+    public List<TabState> getTabStates() {
+        return tabs.states();
+    }
+
+    public int getSelectedTabIndex() {
+        return tabbedPane.getSelectedIndex();
     }
 
     // Custom tab header with title and close (X) button.
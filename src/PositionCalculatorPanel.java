@@ -1,16 +1,46 @@
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import java.awt.image.BufferedImage;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
-public class PositionCalculatorPanel extends JPanel {
+public class PositionCalculatorPanel extends JPanel implements CalculatorTab {
     private JTextField balanceField;
     private JTextField riskField;
     private JTextField stopLossField;
+    private InstrumentPanel instrumentPanel;
     private EntrySettingsPanel entrySettingsPanel;
-    private JTextArea resultsArea;
+    private ResultsView resultsView;
+    private LadderChart ladderChart;
+    private SweepView sweepView;
+    private JTabbedPane outputTabs;
+    private JCheckBox liveBox;
+    private JTextField[] sweepFields;
+    private JComboBox<String> sweepAxisCombo;
+    private RiskSuggestionPanel riskSuggestionPanel;
+    private ReverseSolvePanel reverseSolvePanel;
+    private FanOutPanel fanOutPanel;
+    private boolean hasResult;
+    private ExposureListener exposureListener;
+    // Only touched by the calculator's worker, which never runs two calculations at once.
+    private final PositionResult result = new PositionResult();
+    private final LiveCalculator<TradeInputs, PositionResult> calculator;
+    private final LiveCalculator<TradeInputs, Sweep> sweeper;
+    private final FieldReader fields = new FieldReader();
+    // Inputs the calculator is done with, refilled instead of allocating anew.
+    private final Queue<TradeInputs> spareInputs = new ConcurrentLinkedQueue<>();
+
+    // Sweep inputs, also the order they are saved in TabState.sweep.
+    private static final int SWEEP_STOP_FROM = 0;
+    private static final int SWEEP_STOP_TO = 1;
+    private static final int SWEEP_STOP_STEPS = 2;
+    private static final int SWEEP_Y_FROM = 3;
+    private static final int SWEEP_Y_TO = 4;
+    private static final int SWEEP_Y_STEPS = 5;
+    private static final int SWEEP_MAX_POSITION = 6;
+    private static final int SWEEP_AXIS = 7;
+    private static final String DEFAULT_SWEEP_STEPS = "200";
 
     public PositionCalculatorPanel() {
         // Create two panels: one for settings (left) and one for results (right)
@@ -29,6 +59,14 @@ public class PositionCalculatorPanel extends JPanel {
         accountPanel.add(riskField);
         settingsPanel.add(accountPanel);
 
+        // Risk Suggestion Panel: Kelly, optimal f and a ruin bound from past trades' R multiples.
+        riskSuggestionPanel = new RiskSuggestionPanel(riskField);
+        settingsPanel.add(riskSuggestionPanel);
+
+        // Instrument Panel: symbol or contract spec (tick, lot, minimum order, multiplier, fees)
+        instrumentPanel = new InstrumentPanel();
+        settingsPanel.add(instrumentPanel);
+
         // Stop Loss Panel
         JPanel stopLossPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
         stopLossPanel.setBorder(new TitledBorder("Stop Loss"));
@@ -41,22 +79,114 @@ public class PositionCalculatorPanel extends JPanel {
         entrySettingsPanel = new EntrySettingsPanel(true);
         settingsPanel.add(entrySettingsPanel);
 
+        // Sensitivity Sweep Panel: position size over a grid of stop losses and risk % or entry prices.
+        JPanel sweepPanel = new JPanel();
+        sweepPanel.setLayout(new BoxLayout(sweepPanel, BoxLayout.Y_AXIS));
+        sweepPanel.setBorder(new TitledBorder("Sensitivity Sweep"));
+        sweepFields = new JTextField[SWEEP_AXIS];
+        for (int i = 0; i < sweepFields.length; i++) {
+            sweepFields[i] = new JTextField(i == SWEEP_STOP_STEPS || i == SWEEP_Y_STEPS ? 4 : 7);
+        }
+        sweepFields[SWEEP_STOP_STEPS].setText(DEFAULT_SWEEP_STEPS);
+        sweepFields[SWEEP_Y_STEPS].setText(DEFAULT_SWEEP_STEPS);
+        JPanel stopRangeRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        stopRangeRow.add(new JLabel("Stop Loss from:"));
+        stopRangeRow.add(sweepFields[SWEEP_STOP_FROM]);
+        stopRangeRow.add(new JLabel("to:"));
+        stopRangeRow.add(sweepFields[SWEEP_STOP_TO]);
+        stopRangeRow.add(new JLabel("Steps:"));
+        stopRangeRow.add(sweepFields[SWEEP_STOP_STEPS]);
+        sweepPanel.add(stopRangeRow);
+        JPanel yRangeRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        sweepAxisCombo = new JComboBox<>(new String[]{"Risk (%)", "Entry Price"});
+        yRangeRow.add(sweepAxisCombo);
+        yRangeRow.add(new JLabel("from:"));
+        yRangeRow.add(sweepFields[SWEEP_Y_FROM]);
+        yRangeRow.add(new JLabel("to:"));
+        yRangeRow.add(sweepFields[SWEEP_Y_TO]);
+        yRangeRow.add(new JLabel("Steps:"));
+        yRangeRow.add(sweepFields[SWEEP_Y_STEPS]);
+        sweepPanel.add(yRangeRow);
+        JPanel sweepButtonRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        sweepButtonRow.add(new JLabel("Max Position (USD):"));
+        sweepFields[SWEEP_MAX_POSITION].setToolTipText("Frontier cap; leave blank to use the account balance (1x)");
+        sweepButtonRow.add(sweepFields[SWEEP_MAX_POSITION]);
+        JButton sweepButton = new JButton("Sweep");
+        sweepButtonRow.add(sweepButton);
+        sweepPanel.add(sweepButtonRow);
+        settingsPanel.add(sweepPanel);
+
+        // Reverse Solve Panel: the stop loss and ladder spacing that meet a size cap or average entry.
+        reverseSolvePanel = new ReverseSolvePanel(this);
+        settingsPanel.add(reverseSolvePanel);
+
+        // Fan-Out Panel: the same trade sized for every account in a file.
+        fanOutPanel = new FanOutPanel(this);
+        settingsPanel.add(fanOutPanel);
+
         // Calculate Button
         JPanel calcPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
         JButton calcButton = new JButton("Calculate Position");
         calcPanel.add(calcButton);
+        liveBox = new JCheckBox("Live update");
+        calcPanel.add(liveBox);
         settingsPanel.add(calcPanel);
-        calcButton.addActionListener(e -> calculatePosition());
+        calculator = new LiveCalculator<>("Position", this::readInputs, this::calculatePosition,
+                new LiveCalculator.ResultHandler<PositionResult>() {
+                    public void onResult(PositionResult r, boolean explicit) {
+                        showResult(r);
+                    }
+
+                    public void onError(Exception ex, boolean explicit) {
+                        showError(ex, explicit);
+                    }
+                });
+        calculator.setRecycler(spareInputs::offer);
+        calcButton.addActionListener(e -> {
+            outputTabs.setSelectedComponent(resultsView);
+            calculator.calculateNow();
+        });
+        sweeper = new LiveCalculator<>("Sweep", this::readSweepInputs, this::sweep,
+                new LiveCalculator.ResultHandler<Sweep>() {
+                    public void onResult(Sweep s, boolean explicit) {
+                        sweepView.showSweep(s.result, s.image, s.millis);
+                    }
+
+                    public void onError(Exception ex, boolean explicit) {
+                        showError(ex, explicit);
+                    }
+                });
+        sweepButton.addActionListener(e -> {
+            outputTabs.setSelectedComponent(sweepView);
+            sweeper.calculateNow();
+        });
+        liveBox.addActionListener(e -> {
+            if (liveBox.isSelected()) {
+                calculator.inputChanged();
+            } else {
+                calculator.cancel();
+            }
+        });
+        InputWatcher.watch(settingsPanel, () -> {
+            if (liveBox.isSelected()) {
+                calculator.inputChanged();
+            }
+            reverseSolvePanel.inputChanged();
+        });
 
-        // Results Area (right panel)
-        resultsArea = new JTextArea(20, 30);
-        resultsArea.setEditable(false);
-        resultsArea.setLineWrap(true);
-        resultsArea.setWrapStyleWord(true);
-        JScrollPane resultsScroll = new JScrollPane(resultsArea);
+        // Results table and sweep heatmap (right panel)
+        resultsView = new ResultsView();
+        sweepView = new SweepView();
+        outputTabs = new JTabbedPane();
+        outputTabs.addTab("Results", resultsView);
+        outputTabs.addTab("Sweep", sweepView);
+        ladderChart = new LadderChart();
+        JSplitPane outputSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, outputTabs, ladderChart);
+        outputSplit.setResizeWeight(0.6);
+        outputSplit.setContinuousLayout(true);
 
         // Use a JSplitPane to show settings on the left and results on the right.
-        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, settingsPanel, resultsScroll);
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, settingsPanel, outputSplit);
         splitPane.setDividerLocation(500);
         splitPane.setResizeWeight(0.5);
         splitPane.setContinuousLayout(true);
@@ -65,116 +195,307 @@ public class PositionCalculatorPanel extends JPanel {
         add(splitPane, BorderLayout.CENTER);
     }
 
-    private void calculatePosition() {
+    @Override
+    public void setExposureListener(ExposureListener listener) {
+        exposureListener = listener;
+    }
+
+    @Override
+    public void exportState(TabState state) {
+        state.balance = balanceField.getText();
+        state.risk = riskField.getText();
+        state.stopLoss = stopLossField.getText();
+        instrumentPanel.exportState(state);
+        entrySettingsPanel.exportState(state);
+        state.sweep = new String[SWEEP_AXIS + 1];
+        for (int i = 0; i < sweepFields.length; i++) {
+            state.sweep[i] = sweepFields[i].getText();
+        }
+        state.sweep[SWEEP_AXIS] = Integer.toString(sweepAxisCombo.getSelectedIndex());
+        reverseSolvePanel.exportState(state);
+        riskSuggestionPanel.exportState(state);
+        fanOutPanel.exportState(state);
+        state.live = liveBox.isSelected();
+        state.calculated = hasResult;
+    }
+
+    @Override
+    public void importState(TabState state) {
+        calculator.cancel();
+        sweeper.cancel();
+        balanceField.setText(state.balance);
+        riskField.setText(state.risk);
+        stopLossField.setText(state.stopLoss);
+        instrumentPanel.importState(state);
+        entrySettingsPanel.importState(state);
+        for (int i = 0; i < sweepFields.length; i++) {
+            boolean steps = i == SWEEP_STOP_STEPS || i == SWEEP_Y_STEPS;
+            sweepFields[i].setText(i < state.sweep.length ? state.sweep[i] : steps ? DEFAULT_SWEEP_STEPS : "");
+        }
+        sweepAxisCombo.setSelectedIndex(state.sweep.length > SWEEP_AXIS && state.sweep[SWEEP_AXIS].equals("1") ? 1 : 0);
+        sweepView.clear();
+        reverseSolvePanel.importState(state);
+        outputTabs.setSelectedComponent(resultsView);
+        riskSuggestionPanel.importState(state);
+        fanOutPanel.importState(state);
+        liveBox.setSelected(state.live);
+        hasResult = false;
+        resultsView.clear();
+        ladderChart.clear();
+        if (state.live || state.calculated) {
+            calculator.calculateQuietly();
+        } else {
+            calculator.cancel();
+        }
+    }
+
+    // Runs on the EDT: copies the field values into a snapshot the worker can use. Every field
+    // is parsed once; all the problems found are reported together.
+    private TradeInputs readInputs() throws Exception {
+        TradeInputs in = spareInputs.poll();
+        if (in == null) {
+            in = new TradeInputs();
+        }
+        in.reset();
         try {
-            double balance = Double.parseDouble(balanceField.getText().trim());
-            double riskPct = Double.parseDouble(riskField.getText().trim()) / 100.0;
-            double stopLoss = Double.parseDouble(stopLossField.getText().trim());
-            List<Double> entries = entrySettingsPanel.getEntryPrices();
-            if (entries.isEmpty()) {
-                throw new Exception("Please provide at least one entry price.");
-            }
+            in.balance = fields.required(balanceField, "Account Balance", in);
+            in.riskPct = fields.required(riskField, "Risk (%)", in);
+            in.stopLoss = fields.required(stopLossField, "Stop Loss", in);
+            readTrade(in);
+            return in;
+        } catch (Exception ex) {
+            spareInputs.offer(in);
+            throw ex;
+        }
+    }
 
-            // If more than one entry, ensure that all entries are either above or below the stop loss,
-            // and sort them in an order that makes sense.
-            if (entries.size() > 1) {
-                boolean allAbove = true;
-                boolean allBelow = true;
-                for (Double e : entries) {
-                    if (e <= stopLoss) {
-                        allAbove = false;
-                    }
-                    if (e >= stopLoss) {
-                        allBelow = false;
-                    }
-                }
-                if (!allAbove && !allBelow) {
-                    throw new Exception("For multi-entry strategies, all entries must be either above or below the stop loss.");
-                }
-                if (allAbove) {
-                    // For a long position, sort descending (highest first).
-                    Collections.sort(entries, Comparator.reverseOrder());
-                } else {
-                    // For a short position, sort ascending.
-                    Collections.sort(entries);
-                }
+    // For the tool panels below the trade inputs (Reverse Solve, Fan-Out), which read the same
+    // trade and report into the same results.
+    JTextField getBalanceField() {
+        return balanceField;
+    }
+
+    JTextField getRiskField() {
+        return riskField;
+    }
+
+    JTextField getStopLossField() {
+        return stopLossField;
+    }
+
+    EntrySettingsPanel getEntrySettingsPanel() {
+        return entrySettingsPanel;
+    }
+
+    ResultsView getResultsView() {
+        return resultsView;
+    }
+
+    LadderChart getLadderChart() {
+        return ladderChart;
+    }
+
+    // Brings the Results tab to the front, for a result that is about to be shown there.
+    void showResults() {
+        outputTabs.setSelectedComponent(resultsView);
+    }
+
+    // Runs on the EDT, once the caller has read the numbers it needs into in: adds the ladder,
+    // entry type, weights and instrument, and throws with every problem found so far. Shared
+    // with the tool panels, which size the same trade.
+    void readTrade(TradeInputs in) throws Exception {
+        entrySettingsPanel.readEntries(in);
+        if (in.hasErrors()) {
+            throw new Exception(in.errorSummary());
+        }
+        if (in.entryCount == 0) {
+            throw new Exception("Please provide at least one entry price.");
+        }
+        in.entryType = entrySettingsPanel.getSelectedEntryTypeId();
+        in.entryStrategy = entrySettingsPanel.getSelectedStrategy().name();
+        in.curve = entrySettingsPanel.getWeightCurve();
+        in.instrument = instrumentPanel.getSpec();
+    }
+
+    // Runs on a calculator worker thread. Returns a copy so the worker's result can be reused.
+    private PositionResult calculatePosition(TradeInputs in) throws Exception {
+        // If more than one entry, ensure that all entries are either above or below the stop loss,
+        // and sort them in an order that makes sense.
+        if (PositionSizingEngine.orderLadder(in.entries, in.entryCount, in.stopLoss) != PositionSizingEngine.OK) {
+            throw new Exception("For multi-entry strategies, all entries must be either above or below the stop loss.");
+        }
+        int status = PositionSizingEngine.size(in.entries, in.entryCount, in.entryType, in.curve,
+                in.stopLoss, in.balance, in.riskPct, in.instrument, result);
+        if (status == PositionSizingEngine.ERR_ENTRY_EQUALS_STOP) {
+            throw new Exception("Entry price equals Stop Loss. Cannot calculate risk.");
+        } else if (status == PositionSizingEngine.ERR_BELOW_MINIMUM) {
+            throw new Exception("The position is smaller than one lot or the minimum notional.");
+        } else if (status != PositionSizingEngine.OK) {
+            throw new Exception("Invalid input.");
+        }
+        result.entryStrategy = in.entryStrategy;
+        PositionResult copy = new PositionResult(result.count);
+        copy.copyFrom(result);
+        return copy;
+    }
+
+    // Runs on the EDT. The stop loss field is not needed; the sweep supplies its own stops.
+    private TradeInputs readSweepInputs() throws Exception {
+        TradeInputs in = new TradeInputs();
+        in.balance = Double.parseDouble(balanceField.getText().trim());
+        in.sweepAxis = sweepAxisCombo.getSelectedIndex();
+        // The risk axis supplies its own risk, so whatever is in the field is ignored.
+        in.riskPct = in.sweepAxis == SweepEngine.AXIS_RISK ? Double.NaN : fields.required(riskField, "Risk (%)", in);
+        entrySettingsPanel.readEntries(in);
+        if (in.hasErrors()) {
+            throw new Exception(in.errorSummary());
+        }
+        if (in.entryCount == 0) {
+            throw new Exception("Please provide at least one entry price.");
+        }
+        in.entryType = entrySettingsPanel.getSelectedEntryTypeId();
+        in.entryStrategy = entrySettingsPanel.getSelectedStrategy().name();
+        in.curve = entrySettingsPanel.getWeightCurve();
+        in.sweepStopFrom = Double.parseDouble(sweepFields[SWEEP_STOP_FROM].getText().trim());
+        in.sweepStopTo = Double.parseDouble(sweepFields[SWEEP_STOP_TO].getText().trim());
+        in.sweepCols = parseSteps(sweepFields[SWEEP_STOP_STEPS].getText().trim());
+        in.sweepYFrom = Double.parseDouble(sweepFields[SWEEP_Y_FROM].getText().trim());
+        in.sweepYTo = Double.parseDouble(sweepFields[SWEEP_Y_TO].getText().trim());
+        in.sweepRows = parseSteps(sweepFields[SWEEP_Y_STEPS].getText().trim());
+        String maxText = sweepFields[SWEEP_MAX_POSITION].getText().trim();
+        in.sweepMaxPosition = maxText.isEmpty() ? in.balance : Double.parseDouble(maxText);
+        if (!(in.balance > 0) || !(in.sweepMaxPosition > 0)) {
+            throw new Exception("Account Balance and Max Position must be positive.");
+        }
+        return in;
+    }
+
+    private static int parseSteps(String text) throws Exception {
+        int steps = Integer.parseInt(text);
+        if (steps < 1 || steps > SweepEngine.MAX_STEPS) {
+            throw new Exception("Steps must be between 1 and " + SweepEngine.MAX_STEPS + ".");
+        }
+        return steps;
+    }
+
+    // Runs on a calculator worker thread; the grid itself is filled on the fork/join pool.
+    private Sweep sweep(TradeInputs in) throws Exception {
+        Sweep s = new Sweep();
+        s.result = new SweepResult();
+        long start = System.nanoTime();
+        if (SweepEngine.sweep(in, s.result) != PositionSizingEngine.OK) {
+            throw new Exception("Invalid input.");
+        }
+        s.image = SweepView.render(s.result);
+        s.millis = (System.nanoTime() - start) / 1_000_000;
+        return s;
+    }
+
+    private void showResult(PositionResult r) {
+        if (exposureListener != null) {
+            exposureListener.exposureChanged(r.riskUSD, r.positionSizeUSD, r.isLong);
+        }
+        ResultsTableModel model = resultsView.getModel();
+        model.beginUpdate();
+        addPositionRows(model, r);
+        model.endUpdate();
+        ladderChart.setLadder(r, null, null, null, 0, Double.NaN);
+        hasResult = true;
+        resultsView.showMessage(null);
+        resultsView.setReportSupplier(() -> formatResult(r));
+    }
+
+    static void addPositionRows(ResultsTableModel model, PositionResult r) {
+        double nan = Double.NaN;
+        model.addRow("Entry Type", nan, nan, 0, nan, r.entryName());
+        model.addRow("Trade Type", nan, nan, 0, nan, r.isLong ? "Long" : "Short");
+        model.addRow("Stop Loss", r.stopLoss, nan, 0, nan, null);
+        model.addRow(r.count > 1 ? "Average Entry" : "Entry Price", r.avgEntry, nan, 0, nan, null);
+        model.addRow("Position Size", nan, nan, 0, r.positionSizeUSD, null);
+        model.addRow("Total Risk", nan, nan, 0, r.riskUSD, null);
+        if (r.instrument != null) {
+            model.addRow("Total Units", nan, nan, 0, nan, Fixed.toString(r.totalUnitsFx));
+            if (r.feesUSD > 0) {
+                model.addRow("Fees", nan, nan, 0, r.feesUSD, "Entry and stop, included in risk");
             }
+        }
+        for (int i = 0; i < r.count; i++) {
+            model.addRow(ResultsTableModel.numbered("Entry ", i + 1), r.entries[i], r.weights[i], 2,
+                    r.allocations[i], quantityNote(r, i));
+        }
+    }
 
-            // Calculate average entry using the sorted list.
-            String entryType = entrySettingsPanel.getSelectedEntryType();
-            double avgEntry = 0.0;
-            StringBuilder details = new StringBuilder();
-            details.append("Entry Type: ").append(entryType).append("\n");
-            if ("Single Entry".equals(entryType) || entries.size() == 1) {
-                avgEntry = entries.get(0);
-                details.append("Entry Price: ").append(String.format("%.4f", avgEntry)).append("\n");
-            } else if ("Equal-Sized DCA".equals(entryType)) {
-                double sum = 0.0;
-                details.append("Entries (sorted):\n");
-                for (int i = 0; i < entries.size(); i++) {
-                    double e = entries.get(i);
-                    sum += e;
-                    details.append("  E").append(i + 1).append(": ").append(String.format("%.4f", e)).append("\n");
-                }
-                avgEntry = sum / entries.size();
-                details.append("Average Entry: ").append(String.format("%.4f", avgEntry)).append("\n");
-            } else if ("Exponential Entries".equals(entryType)) {
-                double[] ratios = (entries.size() == 2) ? new double[]{0.5, 1.0} : new double[]{0.5, 1.0, 1.5};
-                double weightedSum = 0.0, sumRatios = 0.0;
-                details.append("Entries (sorted):\n");
-                for (int i = 0; i < entries.size(); i++) {
-                    double e = entries.get(i);
-                    weightedSum += e * ratios[i];
-                    sumRatios += ratios[i];
-                    details.append("  E").append(i + 1).append(": ").append(String.format("%.4f", e))
-                            .append(" (ratio=").append(ratios[i]).append(")\n");
+    // Up to 8 decimals, without trailing zeros.
+    static String formatPrice(double price) {
+        return Fixed.toString(Fixed.of(price));
+    }
+
+    // "Qty 12.5" for a position rounded to an instrument; null otherwise.
+    static String quantityNote(PositionResult r, int i) {
+        if (r.instrument == null) {
+            return null;
+        }
+        return r.quantities[i] > 0 ? "Qty " + Fixed.toString(Fixed.of(r.quantities[i])) : "Below minimum, skipped";
+    }
+
+    void showError(Exception ex, boolean explicit) {
+        if (explicit) {
+            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(),
+                    "Calculation Error", JOptionPane.ERROR_MESSAGE);
+        } else {
+            // Half-typed input is normal while live updating; say what is missing without a popup.
+            String message = (ex instanceof NumberFormatException) ? "Please enter valid numbers." : ex.getMessage();
+            resultsView.showMessage("Waiting for valid input: " + message);
+        }
+    }
+
+    static String formatResult(PositionResult r) {
+        StringBuilder res = new StringBuilder();
+        res.append("===== Position Calculation =====\n\n");
+        res.append("Entry Type: ").append(r.entryName()).append("\n");
+        boolean single = r.entryType == PositionSizingEngine.SINGLE_ENTRY || r.count == 1;
+        boolean exponential = r.entryType == PositionSizingEngine.EXPONENTIAL_ENTRIES;
+        if (single) {
+            res.append("Entry Price: ").append(String.format("%.4f", r.avgEntry)).append("\n");
+        } else {
+            res.append("Entries (sorted):\n");
+            for (int i = 0; i < r.count; i++) {
+                res.append("  E").append(i + 1).append(": ").append(String.format("%.4f", r.entries[i]));
+                if (exponential) {
+                    res.append(" (ratio=").append(r.weights[i]).append(")");
                 }
-                avgEntry = weightedSum / sumRatios;
-                details.append("Weighted Average Entry: ").append(String.format("%.4f", avgEntry)).append("\n");
+                res.append("\n");
             }
-
-            boolean isLong = avgEntry > stopLoss;
-            if (Math.abs(avgEntry - stopLoss) < 1e-9) {
-                throw new Exception("Entry price equals Stop Loss. Cannot calculate risk.");
+            res.append(exponential ? "Weighted Average Entry: " : "Average Entry: ")
+                    .append(String.format("%.4f", r.avgEntry)).append("\n");
+        }
+        res.append(String.format("Stop Loss: %.4f\n", r.stopLoss));
+        res.append(String.format("Trade Type: %s\n", r.isLong ? "Long" : "Short"));
+        res.append(String.format("Position Size (USD): %.2f\n", r.positionSizeUSD));
+        res.append(String.format("Total Risk (USD): %.2f\n", r.riskUSD));
+        if (r.instrument != null) {
+            res.append("Total Units: ").append(Fixed.toString(r.totalUnitsFx)).append("\n");
+            if (r.feesUSD > 0) {
+                res.append(String.format("Fees (USD, entry and stop, included in risk): %.2f\n", r.feesUSD));
             }
-            double posSizeUSD = (balance * riskPct * avgEntry) / Math.abs(avgEntry - stopLoss);
-            double riskUSD = Math.abs(avgEntry - stopLoss) * (posSizeUSD / avgEntry);
-
-            StringBuilder res = new StringBuilder();
-            res.append("===== Position Calculation =====\n\n");
-            res.append(details.toString());
-            res.append(String.format("Stop Loss: %.4f\n", stopLoss));
-            res.append(String.format("Trade Type: %s\n", isLong ? "Long" : "Short"));
-            res.append(String.format("Position Size (USD): %.2f\n", posSizeUSD));
-            res.append(String.format("Total Risk (USD): %.2f\n", riskUSD));
-            res.append("----------------------------------------\n");
-            // Display per-entry allocation along with the entry price.
-            if ("Single Entry".equals(entryType) || entries.size() == 1) {
-                res.append(String.format("Allocation for Entry 1 (Price: $%.2f): $%.2f\n", avgEntry, posSizeUSD));
-            } else if ("Equal-Sized DCA".equals(entryType)) {
-                int n = entries.size();
-                double alloc = posSizeUSD / n;
-                for (int i = 0; i < n; i++) {
-                    double entryPrice = entries.get(i);
-                    res.append(String.format("Allocation for Entry %d (Price: $%.2f): $%.2f\n", i + 1, entryPrice, alloc));
-                }
-            } else if ("Exponential Entries".equals(entryType)) {
-                int n = entries.size();
-                double[] ratios = (n == 2) ? new double[]{0.5, 1.0} : new double[]{0.5, 1.0, 1.5};
-                double sumRatios = 0.0;
-                for (int i = 0; i < n; i++) {
-                    sumRatios += ratios[i];
-                }
-                for (int i = 0; i < n; i++) {
-                    double alloc = posSizeUSD * (ratios[i] / sumRatios);
-                    double entryPrice = entries.get(i);
-                    res.append(String.format("Allocation for Entry %d (Price: $%.2f): $%.2f\n", i + 1, entryPrice, alloc));
-                }
+        }
+        res.append("----------------------------------------\n");
+        // Display per-entry allocation along with the entry price.
+        for (int i = 0; i < r.count; i++) {
+            res.append(String.format("Allocation for Entry %d (Price: $%.2f): $%.2f",
+                    i + 1, r.entries[i], r.allocations[i]));
+            String note = quantityNote(r, i);
+            if (note != null) {
+                res.append(" (").append(note).append(")");
             }
-            resultsArea.setText(res.toString());
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(),
-                    "Calculation Error", JOptionPane.ERROR_MESSAGE);
+            res.append("\n");
         }
+        return res.toString();
+    }
+
+    private static class Sweep {
+        SweepResult result;
+        BufferedImage image;
+        long millis;
     }
 }
@@ -0,0 +1,81 @@
+// Mutable result holder filled in place by PositionSizingEngine.
+// Callers keep one instance per thread and reuse it; the per-entry arrays only grow when a
+// larger ladder than any seen before is sized.
+public class PositionResult {
+    public int status;
+    public int entryType;
+    // Name of the EntryStrategy it was sized for, copied from the TradeInputs by the caller;
+    // null from callers that only know the entry type.
+    public String entryStrategy;
+    public int count;
+    public boolean isLong;
+    public double stopLoss;
+    public double avgEntry;
+    public double positionSizeUSD;
+    public double totalUnits;
+    public double riskUSD;
+    // Entry and stop-out fees, already included in riskUSD; 0 without an instrument.
+    public double feesUSD;
+    public double[] entries;
+    public double[] weights;
+    public double[] allocations;
+    // Units bought at each entry (contracts, with an instrument).
+    public double[] quantities;
+    // Set when the position was sized against an instrument's contract spec; totalUnitsFx is
+    // then the exact Fixed total that quantities add up to, and notionalFx what they cost.
+    public InstrumentSpec instrument;
+    public long totalUnitsFx;
+    public long notionalFx;
+
+    public PositionResult() {
+        this(3);
+    }
+
+    public PositionResult(int capacity) {
+        entries = new double[capacity];
+        weights = new double[capacity];
+        allocations = new double[capacity];
+        quantities = new double[capacity];
+    }
+
+    public void ensureCapacity(int n) {
+        if (entries.length < n) {
+            int cap = Math.max(n, entries.length * 2);
+            entries = new double[cap];
+            weights = new double[cap];
+            allocations = new double[cap];
+            quantities = new double[cap];
+        }
+    }
+
+    public void copyFrom(PositionResult other) {
+        ensureCapacity(other.count);
+        status = other.status;
+        entryType = other.entryType;
+        entryStrategy = other.entryStrategy;
+        count = other.count;
+        isLong = other.isLong;
+        stopLoss = other.stopLoss;
+        avgEntry = other.avgEntry;
+        positionSizeUSD = other.positionSizeUSD;
+        totalUnits = other.totalUnits;
+        riskUSD = other.riskUSD;
+        feesUSD = other.feesUSD;
+        instrument = other.instrument;
+        totalUnitsFx = other.totalUnitsFx;
+        notionalFx = other.notionalFx;
+        System.arraycopy(other.entries, 0, entries, 0, other.count);
+        System.arraycopy(other.weights, 0, weights, 0, other.count);
+        System.arraycopy(other.allocations, 0, allocations, 0, other.count);
+        System.arraycopy(other.quantities, 0, quantities, 0, other.count);
+    }
+
+    public boolean isOk() {
+        return status == PositionSizingEngine.OK;
+    }
+
+    // What to show and journal as the entry type: the strategy's name, or the built-in type's.
+    public String entryName() {
+        return entryStrategy != null ? entryStrategy : PositionSizingEngine.labelOf(entryType);
+    }
+}
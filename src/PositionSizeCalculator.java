@@ -1,11 +1,25 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.Collections;
 
 public class PositionSizeCalculator extends JFrame {
+    private final SessionStore sessionStore = new SessionStore(SessionStore.defaultFile());
+    private final PositionCalculatorContainer posContainer;
+    private final ProfitCalculatorContainer profitContainer;
+    // Totals over the tabs of both modes.
+    private final Portfolio portfolio = new Portfolio();
+
     public PositionSizeCalculator() {
         super("Trade Calculator");
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Closing goes through exit() so the session is saved first.
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                exit();
+            }
+        });
         // Set overall window size.
         setSize(1000, 700);
         setLocationRelativeTo(null);
@@ -13,12 +27,36 @@ public class PositionSizeCalculator extends JFrame {
         // Set up the menu bar with a Help menu.
         setJMenuBar(createMenuBar());
 
+        // Ctrl+Shift+D opens the diagnostics window; it is deliberately not in the menus.
+        JRootPane root = getRootPane();
+        root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_D, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+                "diagnostics");
+        root.getActionMap().put("diagnostics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                DiagnosticsPanel.showDialog(PositionSizeCalculator.this);
+            }
+        });
+
         // Create a top-level tabbed pane with two modes.
         JTabbedPane modeTabbedPane = new JTabbedPane();
 
-        // Each mode uses its own container with multiple calculation tabs.
-        PositionCalculatorContainer posContainer = new PositionCalculatorContainer();
-        ProfitCalculatorContainer profitContainer = new ProfitCalculatorContainer();
+        // Each mode uses its own container with multiple calculation tabs, reopened from the
+        // last session if there is one. The containers only hold tab states; a mode's
+        // calculator panel is built the first time the mode is shown.
+        SessionStore.Session session = sessionStore.load();
+        if (session != null) {
+            portfolio.setRiskCap(session.riskCap);
+            posContainer = new PositionCalculatorContainer(session.positionTabs, session.positionSelected, portfolio);
+            profitContainer = new ProfitCalculatorContainer(session.profitTabs, session.profitSelected, portfolio);
+        } else {
+            posContainer = new PositionCalculatorContainer(Collections.emptyList(), 0, portfolio);
+            profitContainer = new ProfitCalculatorContainer(Collections.emptyList(), 0, portfolio);
+        }
+        sessionStore.startAutosave(posContainer, profitContainer, portfolio);
+        // Symbols typed in the calculators follow edits to the instrument file.
+        InstrumentRegistry.getDefault().watch();
 
         modeTabbedPane.addTab("Position Calculator", posContainer);
         modeTabbedPane.addTab("Profit Calculator", profitContainer);
@@ -28,10 +66,20 @@ public class PositionSizeCalculator extends JFrame {
         JLabel disclaimerLabel = new JLabel("© " + java.time.Year.now().getValue() + " SBJ - This tool might contain bugs. Use at your own risk.");
         disclaimerPanel.add(disclaimerLabel);
 
+        // Portfolio totals sit between the calculators and the disclaimer.
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.add(new PortfolioBar(portfolio), BorderLayout.NORTH);
+        southPanel.add(disclaimerPanel, BorderLayout.SOUTH);
+
         // Use a BorderLayout in the main content pane.
         getContentPane().setLayout(new BorderLayout());
         getContentPane().add(modeTabbedPane, BorderLayout.CENTER);
-        getContentPane().add(disclaimerPanel, BorderLayout.SOUTH);
+        getContentPane().add(southPanel, BorderLayout.SOUTH);
+    }
+
+    private void exit() {
+        sessionStore.save(posContainer, profitContainer, portfolio, true);
+        System.exit(0);
     }
 
     private JMenuBar createMenuBar() {
@@ -39,8 +87,12 @@ public class PositionSizeCalculator extends JFrame {
 
         // File menu.
         JMenu fileMenu = new JMenu("File");
+        JMenuItem journalItem = new JMenuItem("Trade Journal...");
+        journalItem.addActionListener(e -> JournalPanel.showDialog(this));
+        fileMenu.add(journalItem);
+        fileMenu.addSeparator();
         JMenuItem exitItem = new JMenuItem("Exit");
-        exitItem.addActionListener(e -> System.exit(0));
+        exitItem.addActionListener(e -> exit());
         fileMenu.add(exitItem);
         menuBar.add(fileMenu);
 
@@ -61,7 +113,11 @@ public class PositionSizeCalculator extends JFrame {
                         "  • Enter your Account Balance and Risk (%) in the Account Information panel.\n" +
                         "  • Enter your Stop Loss in the separate Stop Loss panel.\n" +
                         "  • Choose your Entry Type and enter one or more entry prices (all assumed triggered).\n" +
-                        "  • The calculation will display the total Position Size (in USD), Total Risk, and the USD allocation for each entry.\n\n" +
+                        "  • Ladders can have up to 500 entries. Exponential Entries spread the size by a Linear (0.5, 1.0, 1.5, ...), Geometric (factor per rung), Custom or Formula weight curve. A formula gives the weight of rung i of n, e.g. i ^ 1.5 or exp(-i / n). Entry types added as plug-ins are listed after the built-in ones.\n" +
+                        "  • The calculation will display the total Position Size (in USD), Total Risk, and the USD allocation for each entry.\n" +
+                        "  • Sensitivity Sweep: enter a Stop Loss range and a Risk (%) or Entry Price range, then press Sweep. The Sweep tab shows a heatmap of position size (hover for values) and, for each stop, the largest position that stays within Max Position (the frontier).\n\n" +
+                        "  • Reverse Solve: enter a Max Position, a Max Leverage (or drag the Leverage slider) and/or a Target Avg Entry, then press Solve. It finds the tightest Stop Loss that keeps the position within the caps and the ladder spacing from Entry 1 that gives the target average; the typed Stop Loss only tells long from short. Apply copies the answer into the fields.\n\n" +
+                        "  • Fan-Out: choose a CSV of accounts (one per line: id,balance and optionally its own risk %) and press Fan Out to size the same trade for every account. The results show the block order for each entry, the totals and a check that the accounts add up to the block orders; Export Report saves the quantities per account.\n\n" +
                         "Profit Calculator:\n" +
                         "  • Enter your Account Balance and Risk (%) in the Trade Details panel.\n" +
                         "  • Enter your Stop Loss in the Stop Loss panel.\n" +
@@ -69,8 +125,18 @@ public class PositionSizeCalculator extends JFrame {
                         "  • Optionally, enter a global Trade Actual Close Price in the Trade Close Price panel.\n" +
                         "  • In the Take Profit Setup panel, for each TP, enter the planned TP Price, the Close % (of the original position), and mark if that TP was triggered.\n" +
                         "  • The calculation will compute the profit from each triggered TP and, if a global close price is provided, assume the remaining open portion is closed at that price.\n" +
-                        "  • Finally, the Risk–Reward Ratio (total profit divided by total risk) is displayed.\n\n" +
-                        "You can open multiple tabs in either mode using the '+' button and close any tab by clicking its 'X' button.";
+                        "  • Finally, the Risk–Reward Ratio (total profit divided by total risk) is displayed.\n" +
+                        "  • To simulate outcomes, give each TP a Hit % (chance of reaching it once the previous TP was reached), enter the Stop hit % in the Monte Carlo Simulation panel and press Simulate. The mean, percentiles and histogram of profit and R are shown.\n" +
+                        "  • Bar Replay: choose a CSV price file (time,open,high,low,close or time,price) and press Replay to tick the triggered entries and TPs from the price history and set the close price to where the trade ended.\n\n" +
+                        "  • Live Price Feed: enter host:port of a local feed (lines of price, time,price or symbol,time,price) or choose a price file to play instead, and press Start. The Triggered boxes tick as prices cross the entries, TPs and stop, and the realized and unrealized profit and R follow every tick. When the trade ends the close price is set and the trade is calculated and journaled.\n\n" +
+                        "Price ladder (both calculators): the chart below the results shows each entry rung and TP as a bar sized by its dollars, with the stop, average entry and close price as lines. Filled entries and hit TPs are solid; during a live feed the last price moves over the ladder.\n\n" +
+                        "Instrument (optional, both calculators): enter a Symbol listed in ~/.position-size-calculator/instruments.csv (symbol,tick size,lot size,min notional,multiplier,fee %), or type the exchange's Tick Size, Lot Size, Min Notional, contract Multiplier and Fee (%) by hand, to size the trade as it will actually fill. Prices are rounded to the tick, each entry's quantity (in contracts) is rounded down to the lot, entries below the minimum order value are skipped, fees for the entries and the stop are counted in the risk, and TP quantities are rounded down to the lot with fees taken out of the profit. The results then show the quantity of each entry and TP. Edits to the instruments file are picked up while the calculator runs.\n\n" +
+                        "Trade Journal: every profit calculation you run with the Calculate Profit button (or a Bar Replay) is added to ~/.position-size-calculator/journal.bin. File > Trade Journal shows the win rate, average R, expectancy and drawdown of the journaled trades, filtered by symbol, entry type and dates.\n\n" +
+                        "Risk Suggestion: choose a CSV of past trades (one per line: the R multiple, or profit,risk) in the Position Calculator to see full and fractional Kelly, optimal f and a drawdown-bounded risk. Click one to use it as Risk (%). Trades appended to the file are picked up within a few seconds.\n\n" +
+                        "Tick 'Live update' in either calculator to recalculate automatically as you type.\n\n" +
+                        "You can open multiple tabs in either mode using the '+' button and close any tab by clicking its 'X' button.\n\n" +
+                        "The bar at the bottom totals the open risk, notional and long/short exposure of every calculated tab in both modes (Profit Calculator tabs count only the part not yet closed). Enter a Risk Cap to be warned when the total risk goes above it.\n\n" +
+                        "Open tabs are saved automatically and reopened the next time the calculator starts.";
         JTextArea textArea = new JTextArea(helpText);
         textArea.setEditable(false);
         textArea.setLineWrap(true);
@@ -81,6 +147,28 @@ public class PositionSizeCalculator extends JFrame {
     }
 
     public static void main(String[] args) {
+        // Headless batch mode: size a CSV of orders without starting the GUI.
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            System.exit(BatchSizer.run(args));
+        }
+        // Local sizing service for bots, and a client to load-test it.
+        if (args.length > 0 && "--serve".equals(args[0])) {
+            System.exit(SizingServer.run(args));
+        }
+        if (args.length > 0 && "--load-test".equals(args[0])) {
+            System.exit(SizingLoadTest.run(args));
+        }
+        if (args.length > 0 && "--journal-stats".equals(args[0])) {
+            System.exit(JournalPanel.run(args));
+        }
+        if (args.length > 0 && "--startup-benchmark".equals(args[0])) {
+            System.exit(StartupBenchmark.run(args));
+        }
+        EdtWatchdog.start();
+        if (args.length > 0 && "--first-paint".equals(args[0])) {
+            StartupBenchmark.firstPaint();
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             PositionSizeCalculator frame = new PositionSizeCalculator();
             frame.setVisible(true);
@@ -0,0 +1,212 @@
+// Headless position sizing math shared by the calculator panels and any non-GUI caller.
+// Works on primitive arrays, reports problems through status codes instead of exceptions and
+// writes everything into a caller-supplied PositionResult, so sizing allocates nothing.
+public final class PositionSizingEngine {
+    public static final int SINGLE_ENTRY = 0;
+    public static final int EQUAL_SIZED_DCA = 1;
+    public static final int EXPONENTIAL_ENTRIES = 2;
+
+    public static final int OK = 0;
+    public static final int ERR_NO_ENTRIES = 1;
+    public static final int ERR_MIXED_SIDES = 2;
+    public static final int ERR_ENTRY_EQUALS_STOP = 3;
+    public static final int ERR_INVALID_INPUT = 4;
+    public static final int ERR_BELOW_MINIMUM = 5;
+
+    private static final String[] ENTRY_TYPE_LABELS = {
+            "Single Entry", "Equal-Sized DCA", "Exponential Entries"
+    };
+
+    private PositionSizingEngine() { }
+
+    public static String labelOf(int entryType) {
+        return ENTRY_TYPE_LABELS[entryType];
+    }
+
+    public static String[] entryTypeLabels() {
+        return ENTRY_TYPE_LABELS.clone();
+    }
+
+    // Ensures a multi-entry ladder sits entirely on one side of the stop and orders it in place:
+    // highest first for a long (all entries above the stop), lowest first for a short.
+    public static int orderLadder(double[] prices, int n, double stopLoss) {
+        if (n <= 1) {
+            return OK;
+        }
+        boolean allAbove = true;
+        boolean allBelow = true;
+        for (int i = 0; i < n; i++) {
+            double e = prices[i];
+            if (e <= stopLoss) {
+                allAbove = false;
+            }
+            if (e >= stopLoss) {
+                allBelow = false;
+            }
+        }
+        if (!allAbove && !allBelow) {
+            return ERR_MIXED_SIDES;
+        }
+        // Insertion sort: ladders are short and usually typed in order already.
+        for (int i = 1; i < n; i++) {
+            double key = prices[i];
+            int j = i - 1;
+            while (j >= 0 && (allAbove ? prices[j] < key : prices[j] > key)) {
+                prices[j + 1] = prices[j];
+                j--;
+            }
+            prices[j + 1] = key;
+        }
+        return OK;
+    }
+
+    // The curve each built-in entry type spreads its ladder with.
+    public static WeightCurve defaultCurve(int entryType) {
+        return entryType == EXPONENTIAL_ENTRIES ? WeightCurve.LINEAR_WEIGHTS : WeightCurve.EQUAL_WEIGHTS;
+    }
+
+    // The core formula: USD size of a position entered at avgEntry that loses riskPercent of
+    // balance when stopped out at stopLoss. Callers check that the two prices differ.
+    public static double positionSize(double avgEntry, double stopLoss, double balance, double riskPercent) {
+        return (balance * (riskPercent / 100.0) * avgEntry) / Math.abs(avgEntry - stopLoss);
+    }
+
+    // Sizes a position so that being stopped out at stopLoss loses riskPercent of balance.
+    // The first n prices are taken as given (call orderLadder first if they need sorting).
+    public static int size(double[] entries, int n, int entryType, double stopLoss,
+                           double balance, double riskPercent, PositionResult out) {
+        return size(entries, n, entryType, defaultCurve(entryType), stopLoss, balance, riskPercent, out);
+    }
+
+    // As above, with the ladder spread by the given curve. The curve is ignored for Single Entry
+    // and Equal-Sized DCA, which always use one rung and equal rungs respectively.
+    public static int size(double[] entries, int n, int entryType, WeightCurve curve, double stopLoss,
+                           double balance, double riskPercent, PositionResult out) {
+        out.entryType = entryType;
+        out.stopLoss = stopLoss;
+        out.count = 0;
+        out.instrument = null;
+        out.feesUSD = 0.0;
+        if (n <= 0) {
+            return out.status = ERR_NO_ENTRIES;
+        }
+        if (Double.isNaN(balance) || Double.isNaN(riskPercent) || Double.isNaN(stopLoss)) {
+            return out.status = ERR_INVALID_INPUT;
+        }
+        if (entryType == SINGLE_ENTRY) {
+            n = 1;
+        }
+        if (entryType != EXPONENTIAL_ENTRIES) {
+            curve = WeightCurve.EQUAL_WEIGHTS;
+        }
+        out.ensureCapacity(n);
+        double[] shares = curve.normalized(n);
+        System.arraycopy(curve.raw(n), 0, out.weights, 0, n);
+        System.arraycopy(entries, 0, out.entries, 0, n);
+        double avgEntry = 0.0;
+        for (int i = 0; i < n; i++) {
+            avgEntry += entries[i] * shares[i];
+        }
+        double distance = Math.abs(avgEntry - stopLoss);
+        out.count = n;
+        out.avgEntry = avgEntry;
+        out.isLong = avgEntry > stopLoss;
+        if (distance < 1e-9) {
+            return out.status = ERR_ENTRY_EQUALS_STOP;
+        }
+        double posSizeUSD = positionSize(avgEntry, stopLoss, balance, riskPercent);
+        double totalUnits = posSizeUSD / avgEntry;
+        out.positionSizeUSD = posSizeUSD;
+        out.totalUnits = totalUnits;
+        out.riskUSD = distance * totalUnits;
+        for (int i = 0; i < n; i++) {
+            out.allocations[i] = posSizeUSD * shares[i];
+            out.quantities[i] = out.allocations[i] / entries[i];
+        }
+        return out.status = OK;
+    }
+
+    // As above, sized the way the exchange will fill it: entries and stop snapped to the tick,
+    // each entry's quantity (in contracts of spec.multiplier units) rounded down to the lot, and
+    // entries whose order value falls below the minimum notional dropped. The ladder keeps the
+    // plain sizing's proportions but is scaled to what its entries really lose at the stop,
+    // fees of every entry order and of the stop order included, so rounding down keeps the risk
+    // at or under the target for longs and shorts alike. The totals are summed exactly in
+    // Fixed, so position size, units, fees and risk agree with the per-entry figures to the
+    // cent. A null spec sizes in plain doubles.
+    public static int size(double[] entries, int n, int entryType, WeightCurve curve, double stopLoss,
+                           double balance, double riskPercent, InstrumentSpec spec, PositionResult out) {
+        if (spec == null) {
+            return size(entries, n, entryType, curve, stopLoss, balance, riskPercent, out);
+        }
+        out.ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            if (!(entries[i] > 0)) {
+                out.count = 0;
+                return out.status = ERR_INVALID_INPUT;
+            }
+            out.entries[i] = Fixed.toDouble(spec.roundPrice(entries[i]));
+        }
+        long stopFx = spec.roundPrice(stopLoss);
+        int status = size(out.entries, n, entryType, curve, Fixed.toDouble(stopFx), balance, riskPercent, out);
+        if (status != OK) {
+            return status;
+        }
+        WeightCurve spread = entryType == EXPONENTIAL_ENTRIES ? curve : WeightCurve.EQUAL_WEIGHTS;
+        contractsPerBudget(out.entries, spread.normalized(out.count), out.count, out.stopLoss, spec, out.quantities);
+        double budget = balance * (riskPercent / 100.0);
+        long unitsFx = 0;
+        long notionalFx = 0;
+        long feesFx = 0;
+        for (int i = 0; i < out.count; i++) {
+            long priceFx = Fixed.of(out.entries[i]);
+            // Truncating the double target can only err low, which the lot floor absorbs.
+            long quantityFx = Fixed.roundToStep((long) (budget * out.quantities[i] * Fixed.SCALE), spec.lotSize,
+                    Fixed.FLOOR);
+            long notional = spec.notional(priceFx, quantityFx);
+            if (notional < spec.minNotional || quantityFx <= 0) {
+                quantityFx = 0;
+                notional = 0;
+            }
+            out.quantities[i] = Fixed.toDouble(quantityFx);
+            out.allocations[i] = Fixed.toDouble(notional);
+            unitsFx += quantityFx;
+            notionalFx += notional;
+            feesFx += spec.fee(notional);
+        }
+        // Every entry is on the same side of the stop, so the per-entry losses sum to this.
+        long stopNotionalFx = spec.notional(stopFx, unitsFx);
+        feesFx += spec.fee(stopNotionalFx);
+        long riskFx = Math.abs(notionalFx - stopNotionalFx) + feesFx;
+        out.instrument = spec;
+        out.totalUnitsFx = unitsFx;
+        out.totalUnits = Fixed.toDouble(unitsFx);
+        out.notionalFx = notionalFx;
+        out.positionSizeUSD = Fixed.toDouble(notionalFx);
+        out.feesUSD = Fixed.toDouble(feesFx);
+        out.riskUSD = Fixed.toDouble(riskFx);
+        if (unitsFx == 0) {
+            return out.status = ERR_BELOW_MINIMUM;
+        }
+        out.avgEntry = out.positionSizeUSD / (out.totalUnits * spec.multiplierValue());
+        return out.status = OK;
+    }
+
+    // Contracts to buy at each entry per dollar of risk budget: units in proportion to the
+    // ladder's USD shares, scaled so that being stopped out, with the fees of every entry order
+    // and of the stop order, loses exactly one dollar. Each entry loses its own distance to the
+    // stop, so this holds for a short ladder as much as for a long one.
+    static void contractsPerBudget(double[] entries, double[] shares, int n, double stopLoss, InstrumentSpec spec,
+                                   double[] out) {
+        double feeRate = Fixed.toDouble(spec.feeRate);
+        double loss = 0.0;
+        for (int i = 0; i < n; i++) {
+            out[i] = shares[i] / entries[i];
+            loss += out[i] * (Math.abs(entries[i] - stopLoss) + feeRate * (entries[i] + stopLoss));
+        }
+        double scale = 1.0 / (loss * spec.multiplierValue());
+        for (int i = 0; i < n; i++) {
+            out[i] *= scale;
+        }
+    }
+}
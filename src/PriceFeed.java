@@ -0,0 +1,239 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.LockSupport;
+
+// A stream of trade prices for the Profit Calculator's live mode, read on its own thread and
+// handed to a Listener one tick at a time.
+//
+//   host:port   a TCP connection to a local feed sending one tick per line:
+//                 price | time,price | symbol,time,price
+//               Lines for other symbols are skipped when a symbol is given.
+//   file        a price file (CSV or .bars, as for Bar Replay) played as a stand-in for a live
+//               feed: each bar as its open, low/high, high/low and close, in the order
+//               BarReplay assumes. As fast as it can be read, or paced to ticksPerSecond.
+//
+// Lines are parsed in place from the socket buffer, so a tick costs no allocation; the listener
+// is called on the feed thread and must be quick.
+public class PriceFeed implements AutoCloseable {
+    public interface Listener {
+        void onTick(long time, double price);
+
+        // The feed ran out (error null) or failed.
+        void onEnd(Exception error);
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String source;
+    private final byte[] symbol;
+    private final double ticksPerSecond;
+    private final Listener listener;
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile SocketChannel channel;
+    // Ticks without a time of their own are numbered.
+    private long sequence;
+
+    private PriceFeed(String source, String symbol, double ticksPerSecond, Listener listener) {
+        this.source = source;
+        this.symbol = symbol == null || symbol.isEmpty() ? null : symbol.getBytes(StandardCharsets.US_ASCII);
+        this.ticksPerSecond = ticksPerSecond;
+        this.listener = listener;
+        thread = new Thread(this::run, "price-feed");
+        thread.setDaemon(true);
+    }
+
+    // Starts reading straight away. symbol may be null or empty to take every line.
+    public static PriceFeed start(String source, String symbol, double ticksPerSecond, Listener listener) {
+        PriceFeed feed = new PriceFeed(source.trim(), symbol, ticksPerSecond, listener);
+        feed.thread.start();
+        return feed;
+    }
+
+    // host:port rather than a file, unless a file of that name exists.
+    static boolean isSocket(String source) {
+        int colon = source.lastIndexOf(':');
+        if (colon <= 0 || colon == source.length() - 1 || Files.exists(Paths.get(source))) {
+            return false;
+        }
+        for (int i = colon + 1; i < source.length(); i++) {
+            if (!Character.isDigit(source.charAt(i))) {
+                return false;
+            }
+        }
+        return source.indexOf('/') < 0 && source.indexOf('\\') < 0;
+    }
+
+    private void run() {
+        Exception error = null;
+        try {
+            if (isSocket(source)) {
+                readSocket();
+            } else {
+                readFile(Paths.get(source));
+            }
+        } catch (Exception ex) {
+            if (!closed) {
+                error = ex;
+            }
+        }
+        if (!closed) {
+            listener.onEnd(error);
+        }
+    }
+
+    private void readSocket() throws IOException {
+        int colon = source.lastIndexOf(':');
+        InetSocketAddress address = new InetSocketAddress(source.substring(0, colon),
+                Integer.parseInt(source.substring(colon + 1)));
+        try (SocketChannel ch = SocketChannel.open(address)) {
+            channel = ch;
+            if (closed) {
+                return;
+            }
+            ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+            while (!closed) {
+                if (ch.read(buf) < 0) {
+                    return;
+                }
+                buf.flip();
+                int lineStart = 0;
+                int limit = buf.limit();
+                for (int i = 0; i < limit; i++) {
+                    if (buf.get(i) == '\n') {
+                        parseLine(buf, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lineStart == 0 && limit == buf.capacity()) {
+                    throw new IOException("A feed line is longer than " + BUFFER_SIZE + " bytes.");
+                }
+                buf.position(lineStart);
+                buf.compact();
+            }
+        }
+    }
+
+    private void parseLine(ByteBuffer buf, int from, int to) {
+        if (to > from && buf.get(to - 1) == '\r') {
+            to--;
+        }
+        int first = -1;
+        int second = -1;
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == ',') {
+                if (first < 0) {
+                    first = i;
+                } else {
+                    second = i;
+                    break;
+                }
+            }
+        }
+        int priceFrom = from;
+        int timeFrom = -1;
+        int timeTo = -1;
+        if (second >= 0) {
+            if (symbol != null && !symbolMatches(buf, from, first)) {
+                return;
+            }
+            timeFrom = first + 1;
+            timeTo = second;
+            priceFrom = second + 1;
+        } else if (first >= 0) {
+            timeFrom = from;
+            timeTo = first;
+            priceFrom = first + 1;
+        }
+        double price = AsciiNumbers.parseDouble(buf, priceFrom, to);
+        if (!(price > 0)) {
+            // Headers and anything else that is not a tick.
+            return;
+        }
+        double time = timeFrom >= 0 ? AsciiNumbers.parseDouble(buf, timeFrom, timeTo) : Double.NaN;
+        listener.onTick(Double.isNaN(time) ? sequence : (long) time, price);
+        sequence++;
+    }
+
+    private boolean symbolMatches(ByteBuffer buf, int from, int to) {
+        while (from < to && buf.get(from) == ' ') {
+            from++;
+        }
+        while (to > from && buf.get(to - 1) == ' ') {
+            to--;
+        }
+        if (to - from != symbol.length) {
+            return false;
+        }
+        for (int i = 0; i < symbol.length; i++) {
+            int a = buf.get(from + i);
+            int b = symbol[i];
+            if (a != b && Character.toUpperCase(a) != Character.toUpperCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readFile(Path path) throws IOException {
+        long start = System.nanoTime();
+        double nanosPerTick = ticksPerSecond > 0 ? 1e9 / ticksPerSecond : 0.0;
+        try (BarFile bars = BarFile.open(path)) {
+            long total = bars.count();
+            for (long first = 0; first < total && !closed; ) {
+                int n = bars.window(first);
+                for (int i = 0; i < n && !closed; i++) {
+                    long time = bars.timeAt(i);
+                    double open = bars.openAt(i);
+                    double high = bars.highAt(i);
+                    double low = bars.lowAt(i);
+                    double close = bars.closeAt(i);
+                    emit(time, open, start, nanosPerTick);
+                    if (high != low) {
+                        boolean up = close >= open;
+                        emit(time, up ? low : high, start, nanosPerTick);
+                        emit(time, up ? high : low, start, nanosPerTick);
+                        emit(time, close, start, nanosPerTick);
+                    }
+                }
+                first += n;
+            }
+        }
+    }
+
+    private void emit(long time, double price, long start, double nanosPerTick) {
+        if (nanosPerTick > 0) {
+            long wait = start + (long) (sequence * nanosPerTick) - System.nanoTime();
+            // Sleeping is only worth it in whole milliseconds; shorter gaps are made up in bursts.
+            if (wait > 1_000_000) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+        listener.onTick(time, price);
+        sequence++;
+    }
+
+    public boolean isRunning() {
+        return thread.isAlive();
+    }
+
+    // Stops the feed after the tick in hand, if any; onEnd is not called.
+    @Override
+    public void close() {
+        closed = true;
+        SocketChannel ch = channel;
+        if (ch != null) {
+            try {
+                ch.close();
+            } catch (IOException ignored) {
+                // Closing is all that is wanted.
+            }
+        }
+    }
+}
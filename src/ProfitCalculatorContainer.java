@@ -1,18 +1,39 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.Collections;
+import java.util.List;
 
 public class ProfitCalculatorContainer extends JPanel {
     private JTabbedPane tabbedPane;
     private JButton addTabButton;
+    private LazyTabs<ProfitCalculatorPanel> tabs;
 
     public ProfitCalculatorContainer() {
+        this(Collections.emptyList(), 0, new Portfolio());
+    }
+
+    // Opens the given saved tabs (or one empty tab if there are none) and selects one of them.
+    // The tabs' exposure is added to portfolio, which may be shared with other containers.
+    public ProfitCalculatorContainer(List<TabState> savedTabs, int selectedIndex, Portfolio portfolio) {
         setLayout(new BorderLayout());
         tabbedPane = new JTabbedPane();
+        // Tabs only hold their state; one ProfitCalculatorPanel is built on demand
+        // and moved to whichever tab is selected.
+        tabs = new LazyTabs<>(tabbedPane, ProfitCalculatorPanel::new, portfolio);
         add(tabbedPane, BorderLayout.CENTER);
 
-        // Add an initial Profit Calculator tab.
-        addNewTab();
+        if (savedTabs.isEmpty()) {
+            // Add an initial Profit Calculator tab.
+            addNewTab();
+        } else {
+            for (TabState state : savedTabs) {
+                addTab(state);
+            }
+            if (selectedIndex >= 0 && selectedIndex < tabbedPane.getTabCount()) {
+                tabbedPane.setSelectedIndex(selectedIndex);
+            }
+        }
 
         addTabButton = new JButton("+");
         addTabButton.addActionListener(e -> addNewTab());
@@ -22,12 +43,23 @@ public class ProfitCalculatorContainer extends JPanel {
     }
 
     private void addNewTab() {
-        ProfitCalculatorPanel panel = new ProfitCalculatorPanel();
         String title = "Calc " + (tabbedPane.getTabCount() + 1);
-        tabbedPane.addTab(title, panel);
-        int index = tabbedPane.indexOfComponent(panel);
-        tabbedPane.setTabComponentAt(index, new TabHeader(title, tabbedPane));
-        tabbedPane.setSelectedComponent(panel);
+        tabbedPane.setSelectedComponent(addTab(new TabState(title)));
+    }
+
+    private LazyTabs.Slot addTab(TabState state) {
+        LazyTabs.Slot slot = tabs.addTab(state);
+        int index = tabbedPane.indexOfComponent(slot);
+        tabbedPane.setTabComponentAt(index, new TabHeader(state.title, tabbedPane));
+        return slot;
+    }
+
+    public List<TabState> getTabStates() {
+        return tabs.states();
+    }
+
+    public int getSelectedTabIndex() {
+        return tabbedPane.getSelectedIndex();
     }
 
     private static class TabHeader extends JPanel {
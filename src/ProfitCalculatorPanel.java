@@ -1,16 +1,38 @@
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
-import java.util.List;
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
-public class ProfitCalculatorPanel extends JPanel {
+public class ProfitCalculatorPanel extends JPanel implements CalculatorTab {
     private JTextField balanceField;
     private JTextField riskField;
     private JTextField stopLossField;
+    private InstrumentPanel instrumentPanel;
     private EntrySettingsPanel entrySettingsPanel;
     private JTextField actualClosePriceField; // Global trade actual close price (optional)
     private ProfitTPPanel profitTPPanel;
-    private JTextArea resultsArea;
+    private ResultsView resultsView;
+    private LadderChart ladderChart;
+    private JCheckBox liveBox;
+    private MonteCarloPanel monteCarloPanel;
+    private BarReplayPanel barReplayPanel;
+    private LiveFeedPanel liveFeedPanel;
+    private boolean hasResult;
+    private ExposureListener exposureListener;
+    // Shown under the next result instead of clearing the message line, e.g. a replay summary.
+    private String resultNote;
+    // Only touched by the calculator's worker, which never runs two calculations at once.
+    private final PositionResult sizing = new PositionResult();
+    private final ProfitResult profit = new ProfitResult();
+    private final LiveCalculator<TradeInputs, Outcome> calculator;
+    private final FieldReader fields = new FieldReader();
+    // Inputs the calculator and simulator are done with, refilled instead of allocating anew.
+    private final Queue<TradeInputs> spareInputs = new ConcurrentLinkedQueue<>();
+    // What this tab last wrote to the trade journal, so pressing Calculate again on the same
+    // trade does not record it twice.
+    private String journaledKey;
 
     public ProfitCalculatorPanel() {
         // Create a left-panel for inputs.
@@ -28,6 +50,10 @@ public class ProfitCalculatorPanel extends JPanel {
         tradeDetailsPanel.add(riskField);
         inputPanel.add(tradeDetailsPanel);
 
+        // Instrument Panel: symbol or contract spec (tick, lot, minimum order, multiplier, fees)
+        instrumentPanel = new InstrumentPanel();
+        inputPanel.add(instrumentPanel);
+
         // Stop Loss Panel
         JPanel stopLossPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
         stopLossPanel.setBorder(new TitledBorder("Stop Loss"));
@@ -52,22 +78,64 @@ public class ProfitCalculatorPanel extends JPanel {
         profitTPPanel = new ProfitTPPanel();
         inputPanel.add(profitTPPanel);
 
+        // Monte Carlo Simulation Panel: plays the TP ladder out many times using each TP's Hit %.
+        monteCarloPanel = new MonteCarloPanel(this);
+        inputPanel.add(monteCarloPanel);
+
+        // Bar Replay Panel: walks a price history file to tick the Triggered boxes automatically.
+        barReplayPanel = new BarReplayPanel(this);
+        inputPanel.add(barReplayPanel);
+
+        // Live Price Feed Panel: ticks the Triggered boxes as prices cross them and keeps the profit current.
+        liveFeedPanel = new LiveFeedPanel(this);
+        inputPanel.add(liveFeedPanel);
+
         // Calculate Button
         JPanel calcPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
         JButton calcButton = new JButton("Calculate Profit");
         calcPanel.add(calcButton);
+        liveBox = new JCheckBox("Live update");
+        calcPanel.add(liveBox);
         inputPanel.add(calcPanel);
-        calcButton.addActionListener(e -> calculateProfit());
+        calculator = new LiveCalculator<>("Profit", this::readInputs, this::calculateProfit,
+                new LiveCalculator.ResultHandler<Outcome>() {
+                    public void onResult(Outcome outcome, boolean explicit) {
+                        showResult(outcome.sizing, outcome.profit);
+                        if (explicit) {
+                            journal(outcome);
+                        }
+                    }
+
+                    public void onError(Exception ex, boolean explicit) {
+                        showError(ex, explicit);
+                    }
+                });
+        calculator.setRecycler(spareInputs::offer);
+        calcButton.addActionListener(e -> calculator.calculateNow());
+        liveBox.addActionListener(e -> {
+            if (liveBox.isSelected()) {
+                calculator.inputChanged();
+            } else {
+                calculator.cancel();
+            }
+        });
+        InputWatcher.watch(inputPanel, () -> {
+            monteCarloPanel.cancel();
+            // A running feed owns the results; edits apply when it is started again.
+            if (liveBox.isSelected() && !liveFeedPanel.isRunning()) {
+                calculator.inputChanged();
+            }
+        });
 
-        // Results Area (right panel)
-        resultsArea = new JTextArea(20, 30);
-        resultsArea.setEditable(false);
-        resultsArea.setLineWrap(true);
-        resultsArea.setWrapStyleWord(true);
-        JScrollPane resultsScroll = new JScrollPane(resultsArea);
+        // Results table and price ladder (right panel)
+        resultsView = new ResultsView();
+        ladderChart = new LadderChart();
+        JSplitPane outputSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, resultsView, ladderChart);
+        outputSplit.setResizeWeight(0.6);
+        outputSplit.setContinuousLayout(true);
 
         // Use JSplitPane to display inputs on the left and results on the right.
-        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, inputPanel, resultsScroll);
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, inputPanel, outputSplit);
         splitPane.setDividerLocation(500);
         splitPane.setResizeWeight(0.5);
         splitPane.setContinuousLayout(true);
@@ -76,117 +144,328 @@ public class ProfitCalculatorPanel extends JPanel {
         add(splitPane, BorderLayout.CENTER);
     }
 
-    private void calculateProfit() {
-        try {
-            double balance = Double.parseDouble(balanceField.getText().trim());
-            double riskPct = Double.parseDouble(riskField.getText().trim()) / 100.0;
-            double stopLoss = Double.parseDouble(stopLossField.getText().trim());
+    @Override
+    public void setExposureListener(ExposureListener listener) {
+        exposureListener = listener;
+    }
 
-            List<Double> entries = entrySettingsPanel.getEntryPrices();
-            if (entries.isEmpty()) {
-                throw new Exception("Please mark at least one entry as triggered.");
+    @Override
+    public void exportState(TabState state) {
+        state.balance = balanceField.getText();
+        state.risk = riskField.getText();
+        state.stopLoss = stopLossField.getText();
+        instrumentPanel.exportState(state);
+        entrySettingsPanel.exportState(state);
+        state.closePrice = actualClosePriceField.getText();
+        profitTPPanel.exportState(state);
+        barReplayPanel.exportState(state);
+        liveFeedPanel.exportState(state);
+        monteCarloPanel.exportState(state);
+        state.live = liveBox.isSelected();
+        state.calculated = hasResult;
+    }
+
+    @Override
+    public void importState(TabState state) {
+        calculator.cancel();
+        balanceField.setText(state.balance);
+        riskField.setText(state.risk);
+        stopLossField.setText(state.stopLoss);
+        instrumentPanel.importState(state);
+        entrySettingsPanel.importState(state);
+        actualClosePriceField.setText(state.closePrice);
+        profitTPPanel.importState(state);
+        barReplayPanel.importState(state);
+        liveFeedPanel.importState(state);
+        monteCarloPanel.importState(state);
+        liveBox.setSelected(state.live);
+        hasResult = false;
+        resultsView.clear();
+        ladderChart.clear();
+        if (state.live || state.calculated) {
+            calculator.calculateQuietly();
+        } else {
+            calculator.cancel();
+        }
+    }
+
+    // Runs on the EDT: copies the field values into a snapshot the worker can use.
+    private TradeInputs readInputs() throws Exception {
+        return readInputs(false);
+    }
+
+    // Every field is parsed once; all the problems found are reported together. A simulation
+    // also reads the Monte Carlo settings and each TP's Hit %.
+    TradeInputs readInputs(boolean simulation) throws Exception {
+        TradeInputs in = spareInputs.poll();
+        if (in == null) {
+            in = new TradeInputs();
+        }
+        in.reset();
+        try {
+            in.balance = fields.required(balanceField, "Account Balance", in);
+            in.riskPct = fields.required(riskField, "Risk (%)", in);
+            in.stopLoss = fields.required(stopLossField, "Stop Loss", in);
+            entrySettingsPanel.readEntries(in);
+            in.closePrice = fields.optional(actualClosePriceField, "Trade Actual Close Price", in);
+            profitTPPanel.readTPs(in, simulation);
+            if (simulation) {
+                monteCarloPanel.readSettings(in);
             }
-            String entryType = entrySettingsPanel.getSelectedEntryType();
-            double avgEntry = 0.0;
-            StringBuilder entryDetails = new StringBuilder();
-            entryDetails.append("Entry Type: ").append(entryType).append("\n");
-            if ("Single Entry".equals(entryType) || entries.size() == 1) {
-                avgEntry = entries.get(0);
-                entryDetails.append("Entry Price: ").append(String.format("%.4f", avgEntry)).append("\n");
-            } else if ("Equal-Sized DCA".equals(entryType)) {
-                double sum = 0.0;
-                entryDetails.append("Triggered Entries:\n");
-                for (int i = 0; i < entries.size(); i++) {
-                    double e = entries.get(i);
-                    sum += e;
-                    entryDetails.append("  E").append(i+1).append(": ").append(String.format("%.4f", e)).append("\n");
-                }
-                avgEntry = sum / entries.size();
-                entryDetails.append("Average Entry: ").append(String.format("%.4f", avgEntry)).append("\n");
-            } else if ("Exponential Entries".equals(entryType)) {
-                double[] ratios = (entries.size() == 2) ? new double[]{0.5, 1.0} : new double[]{0.5, 1.0, 1.5};
-                double weightedSum = 0.0, sumRatios = 0.0;
-                entryDetails.append("Triggered Entries:\n");
-                for (int i = 0; i < entries.size(); i++) {
-                    double e = entries.get(i);
-                    weightedSum += e * ratios[i];
-                    sumRatios += ratios[i];
-                    entryDetails.append("  E").append(i+1).append(": ").append(String.format("%.4f", e))
-                            .append(" (ratio=").append(ratios[i]).append(")\n");
-                }
-                avgEntry = weightedSum / sumRatios;
-                entryDetails.append("Weighted Avg Entry: ").append(String.format("%.4f", avgEntry)).append("\n");
+            if (in.hasErrors()) {
+                throw new Exception(in.errorSummary());
             }
-
-            boolean isLong = avgEntry > stopLoss;
-            if (Math.abs(avgEntry - stopLoss) < 1e-9) {
-                throw new Exception("Entry equals Stop Loss. Risk undefined.");
+            if (in.entryCount == 0) {
+                throw new Exception("Please mark at least one entry as triggered.");
             }
+            in.entryType = entrySettingsPanel.getSelectedEntryTypeId();
+            in.entryStrategy = entrySettingsPanel.getSelectedStrategy().name();
+            in.curve = entrySettingsPanel.getWeightCurve();
+            in.instrument = instrumentPanel.getSpec();
+            return in;
+        } catch (Exception ex) {
+            spareInputs.offer(in);
+            throw ex;
+        }
+    }
 
-            double posSizeUSD = (balance * riskPct * avgEntry) / Math.abs(avgEntry - stopLoss);
-            double totalShares = posSizeUSD / avgEntry;
-            double riskUSD = Math.abs(avgEntry - stopLoss) * totalShares;
-
-            List<ProfitTPPanel.TPRowData> tpDataList = profitTPPanel.getTPData();
-            double triggeredPctSum = 0.0;
-            StringBuilder tpDetails = new StringBuilder();
-            tpDetails.append("Take Profit Details:\n");
-            double profitFromTPs = 0.0;
-            for (int i = 0; i < tpDataList.size(); i++) {
-                ProfitTPPanel.TPRowData tp = tpDataList.get(i);
-                double tpPct = Double.parseDouble(tp.closePctStr);
-                double plannedTP = Double.parseDouble(tp.tpPriceStr);
-                if (tp.triggered) {
-                    triggeredPctSum += tpPct;
-                    double profitSegment = (plannedTP - avgEntry) * (totalShares * (tpPct / 100.0));
-                    if (!isLong) {
-                        profitSegment = (avgEntry - plannedTP) * (totalShares * (tpPct / 100.0));
-                    }
-                    profitFromTPs += profitSegment;
-                    tpDetails.append(String.format("  TP%d (Triggered): Planned Price = %.2f, Close%% = %.2f%%, Profit = $%.2f\n",
-                            i + 1, plannedTP, tpPct, profitSegment));
-                } else {
-                    tpDetails.append(String.format("  TP%d (Not Triggered): Planned Price = %.2f, Close%% = %.2f%%\n",
-                            i + 1, plannedTP, tpPct));
-                }
+    // Records a calculation the user asked for in the trade journal.
+    private void journal(Outcome outcome) {
+        PositionResult s = outcome.sizing;
+        ProfitResult p = outcome.profit;
+        String symbol = s.instrument != null ? s.instrument.symbol : "";
+        String key = symbol + "|" + s.entryName() + "|" + s.avgEntry + "|" + s.stopLoss + "|" + s.positionSizeUSD
+                + "|" + p.totalProfit + "|" + p.closePrice + "|" + p.triggeredPct;
+        if (key.equals(journaledKey)) {
+            return;
+        }
+        try {
+            TradeJournal.getDefault().append(symbol, s, p);
+            journaledKey = key;
+        } catch (IOException ex) {
+            resultsView.showMessage("Not saved to the trade journal: " + ex.getMessage());
+        }
+    }
+
+    // Runs on a calculator worker thread. Returns copies so the worker's results can be reused.
+    private Outcome calculateProfit(TradeInputs in) throws Exception {
+        int status = PositionSizingEngine.size(in.entries, in.entryCount, in.entryType, in.curve,
+                in.stopLoss, in.balance, in.riskPct, in.instrument, sizing);
+        if (status == PositionSizingEngine.ERR_ENTRY_EQUALS_STOP) {
+            throw new Exception("Entry equals Stop Loss. Risk undefined.");
+        } else if (status == PositionSizingEngine.ERR_BELOW_MINIMUM) {
+            throw new Exception("The position is smaller than one lot or the minimum notional.");
+        } else if (status != PositionSizingEngine.OK) {
+            throw new Exception("Invalid input.");
+        }
+        sizing.entryStrategy = in.entryStrategy;
+        ProfitEngine.calculate(sizing, in.tpPrices, in.tpPcts, in.tpTriggered, in.tpCount, in.closePrice, profit);
+        Outcome outcome = new Outcome();
+        outcome.sizing = new PositionResult(sizing.count);
+        outcome.sizing.copyFrom(sizing);
+        outcome.profit = new ProfitResult(profit.tpCount);
+        outcome.profit.copyFrom(profit);
+        return outcome;
+    }
+
+    private void showResult(PositionResult sizing, ProfitResult p) {
+        if (exposureListener != null) {
+            // Only the part the TPs have not closed is still at risk; a close price closes it all.
+            double open = p.hasClosePrice ? 0.0 : Math.max(0.0, p.remainingPct) / 100.0;
+            exposureListener.exposureChanged(open * sizing.riskUSD, open * sizing.positionSizeUSD, sizing.isLong);
+        }
+        ResultsTableModel model = resultsView.getModel();
+        double nan = Double.NaN;
+        model.beginUpdate();
+        model.addRow("Entry Type", nan, nan, 0, nan, sizing.entryName());
+        model.addRow("Trade Type", nan, nan, 0, nan, sizing.isLong ? "Long" : "Short");
+        model.addRow("Stop Loss", sizing.stopLoss, nan, 0, nan, null);
+        model.addRow(sizing.count > 1 ? "Average Entry" : "Entry Price", sizing.avgEntry, nan, 0, nan, null);
+        model.addRow("Position Size", nan, nan, 0, sizing.positionSizeUSD, null);
+        model.addRow("Total Risk", nan, nan, 0, sizing.riskUSD, null);
+        model.addRow("Risk–Reward Ratio", nan, p.riskReward, 2, nan, null);
+        boolean rounded = sizing.instrument != null;
+        if (rounded) {
+            model.addRow("Total Units", nan, nan, 0, nan, Fixed.toString(sizing.totalUnitsFx));
+        }
+        for (int i = 0; i < sizing.count; i++) {
+            String qty = PositionCalculatorPanel.quantityNote(sizing, i);
+            model.addRow(ResultsTableModel.numbered("Entry ", i + 1), sizing.entries[i], sizing.weights[i], 2,
+                    sizing.allocations[i], qty == null ? "Triggered" : "Triggered, " + qty);
+        }
+        for (int i = 0; i < p.tpCount; i++) {
+            boolean hit = p.tpTriggered[i];
+            String note = hit ? "Triggered" : "Not triggered";
+            if (hit && rounded) {
+                note += ", Qty " + Fixed.toString(Fixed.of(p.tpUnits[i]));
             }
-            double remainingPct = 100.0 - triggeredPctSum;
-            double profitFromRemaining = 0.0;
-            if (!actualClosePriceField.getText().trim().isEmpty()) {
-                double globalClosePrice = Double.parseDouble(actualClosePriceField.getText().trim());
-                if (remainingPct > 0) {
-                    profitFromRemaining = (globalClosePrice - avgEntry) * (totalShares * (remainingPct / 100.0));
-                    if (!isLong) {
-                        profitFromRemaining = (avgEntry - globalClosePrice) * (totalShares * (remainingPct / 100.0));
-                    }
-                    tpDetails.append(String.format("  Remaining (%.2f%%) closed at Global Close Price = %.2f, Profit = $%.2f\n",
-                            remainingPct, globalClosePrice, profitFromRemaining));
+            model.addRow(ResultsTableModel.numbered("TP ", i + 1), p.tpPrices[i], p.tpPcts[i], 2,
+                    hit ? p.tpProfits[i] : nan, note);
+        }
+        if (p.hasClosePrice && p.remainingPct > 0) {
+            model.addRow("Remaining", p.closePrice, p.remainingPct, 2, p.profitFromRemaining, "Closed at close price");
+        }
+        if (p.feesUSD > 0) {
+            model.addRow("Fees", nan, nan, 0, p.feesUSD, "Included in the profits above");
+        }
+        model.addRow(p.hasClosePrice ? "Total Actual Profit" : "Total Planned Profit", nan, nan, 0, p.totalProfit, null);
+        model.endUpdate();
+        ladderChart.setLadder(sizing, p.tpPrices, p.tpPcts, p.tpTriggered, p.tpCount,
+                p.hasClosePrice ? p.closePrice : Double.NaN);
+        hasResult = true;
+        resultsView.showMessage(resultNote);
+        resultNote = null;
+        resultsView.setReportSupplier(() -> formatResult(sizing, p));
+    }
+
+    // For the tool panels below the trade inputs (Monte Carlo, Bar Replay, Live Price Feed),
+    // which read the same trade and report into the same results.
+    JTextField getBalanceField() {
+        return balanceField;
+    }
+
+    JTextField getRiskField() {
+        return riskField;
+    }
+
+    JTextField getStopLossField() {
+        return stopLossField;
+    }
+
+    EntrySettingsPanel getEntrySettingsPanel() {
+        return entrySettingsPanel;
+    }
+
+    InstrumentPanel getInstrumentPanel() {
+        return instrumentPanel;
+    }
+
+    ProfitTPPanel getProfitTPPanel() {
+        return profitTPPanel;
+    }
+
+    JTextField getActualClosePriceField() {
+        return actualClosePriceField;
+    }
+
+    ResultsView getResultsView() {
+        return resultsView;
+    }
+
+    LadderChart getLadderChart() {
+        return ladderChart;
+    }
+
+    // The open risk and position a running feed is holding, for the portfolio totals.
+    void reportExposure(double riskUSD, double positionUSD, boolean isLong) {
+        if (exposureListener != null) {
+            exposureListener.exposureChanged(riskUSD, positionUSD, isLong);
+        }
+    }
+
+    // Hands back inputs a tool panel is done with, for the next calculation to refill.
+    void recycleInputs(TradeInputs in) {
+        spareInputs.offer(in);
+    }
+
+    // Recalculates after a tool panel set the Triggered boxes and close price; note is shown
+    // under the result, e.g. a replay summary.
+    void recalculate(String note) {
+        resultNote = note;
+        calculator.calculateNow();
+    }
+
+    // Drops a pending calculation and simulation, for a tool panel about to fill the results
+    // itself.
+    void cancelCalculation() {
+        calculator.cancel();
+        monteCarloPanel.cancel();
+    }
+
+    // A tool panel's result replaced the calculation's, so the tab no longer reopens calculated.
+    void forgetResult() {
+        hasResult = false;
+    }
+
+    void showError(Exception ex, boolean explicit) {
+        if (explicit) {
+            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(),
+                    "Calculation Error", JOptionPane.ERROR_MESSAGE);
+        } else {
+            // Half-typed input is normal while live updating; say what is missing without a popup.
+            String message = (ex instanceof NumberFormatException) ? "Please enter valid numbers." : ex.getMessage();
+            resultsView.showMessage("Waiting for valid input: " + message);
+        }
+    }
+
+    static String formatResult(PositionResult sizing, ProfitResult p) {
+        StringBuilder entryDetails = new StringBuilder();
+        entryDetails.append("Entry Type: ").append(sizing.entryName()).append("\n");
+        boolean exponential = sizing.entryType == PositionSizingEngine.EXPONENTIAL_ENTRIES;
+        if (sizing.entryType == PositionSizingEngine.SINGLE_ENTRY || sizing.count == 1) {
+            entryDetails.append("Entry Price: ").append(String.format("%.4f", sizing.avgEntry)).append("\n");
+        } else {
+            entryDetails.append("Triggered Entries:\n");
+            for (int i = 0; i < sizing.count; i++) {
+                entryDetails.append("  E").append(i+1).append(": ").append(String.format("%.4f", sizing.entries[i]));
+                if (exponential) {
+                    entryDetails.append(" (ratio=").append(sizing.weights[i]).append(")");
                 }
+                entryDetails.append("\n");
             }
-            double totalProfit = profitFromTPs + profitFromRemaining;
-            double riskReward = (riskUSD != 0) ? totalProfit / riskUSD : 0.0;
-
-            StringBuilder res = new StringBuilder();
-            res.append("===== Profit Calculation =====\n\n");
-            res.append(entryDetails.toString()).append("\n");
-            res.append(String.format("Stop Loss: %.4f\n", stopLoss));
-            res.append(String.format("Trade Type: %s\n", isLong ? "Long" : "Short"));
-            res.append(String.format("Position Size (USD): %.2f\n", posSizeUSD));
-            res.append(String.format("Total Risk (USD): %.2f\n", riskUSD));
-            res.append(String.format("Risk–Reward Ratio: %.2f\n", riskReward));
-            res.append("----------------------------------------\n");
-            res.append(tpDetails.toString());
-            res.append("----------------------------------------\n");
-            if (!actualClosePriceField.getText().trim().isEmpty()) {
-                res.append(String.format("Total Actual Profit: $%.2f\n", totalProfit));
+            entryDetails.append(exponential ? "Weighted Avg Entry: " : "Average Entry: ")
+                    .append(String.format("%.4f", sizing.avgEntry)).append("\n");
+        }
+
+        StringBuilder tpDetails = new StringBuilder();
+        tpDetails.append("Take Profit Details:\n");
+        for (int i = 0; i < p.tpCount; i++) {
+            if (p.tpTriggered[i]) {
+                tpDetails.append(String.format("  TP%d (Triggered): Planned Price = %.2f, Close%% = %.2f%%, Profit = $%.2f\n",
+                        i + 1, p.tpPrices[i], p.tpPcts[i], p.tpProfits[i]));
             } else {
-                res.append(String.format("Total Planned Profit: $%.2f\n", totalProfit));
+                tpDetails.append(String.format("  TP%d (Not Triggered): Planned Price = %.2f, Close%% = %.2f%%\n",
+                        i + 1, p.tpPrices[i], p.tpPcts[i]));
             }
+        }
+        if (p.hasClosePrice && p.remainingPct > 0) {
+            tpDetails.append(String.format("  Remaining (%.2f%%) closed at Global Close Price = %.2f, Profit = $%.2f\n",
+                    p.remainingPct, p.closePrice, p.profitFromRemaining));
+        }
+        if (sizing.instrument != null) {
+            tpDetails.append("  Units: ").append(Fixed.toString(sizing.totalUnitsFx)).append(" bought");
+            for (int i = 0; i < p.tpCount; i++) {
+                if (p.tpTriggered[i]) {
+                    tpDetails.append(", ").append(Fixed.toString(Fixed.of(p.tpUnits[i]))).append(" sold at TP").append(i + 1);
+                }
+            }
+            tpDetails.append(", ").append(Fixed.toString(Fixed.of(p.remainingUnits))).append(" left\n");
+        }
 
-            resultsArea.setText(res.toString());
-        } catch (Exception ex) {
-            JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(),
-                    "Calculation Error", JOptionPane.ERROR_MESSAGE);
+        StringBuilder res = new StringBuilder();
+        res.append("===== Profit Calculation =====\n\n");
+        res.append(entryDetails.toString()).append("\n");
+        res.append(String.format("Stop Loss: %.4f\n", sizing.stopLoss));
+        res.append(String.format("Trade Type: %s\n", sizing.isLong ? "Long" : "Short"));
+        res.append(String.format("Position Size (USD): %.2f\n", sizing.positionSizeUSD));
+        res.append(String.format("Total Risk (USD): %.2f\n", sizing.riskUSD));
+        res.append(String.format("Risk–Reward Ratio: %.2f\n", p.riskReward));
+        res.append("----------------------------------------\n");
+        res.append(tpDetails.toString());
+        res.append("----------------------------------------\n");
+        if (p.feesUSD > 0) {
+            res.append(String.format("Fees (included above): $%.2f\n", p.feesUSD));
+        }
+        if (p.hasClosePrice) {
+            res.append(String.format("Total Actual Profit: $%.2f\n", p.totalProfit));
+        } else {
+            res.append(String.format("Total Planned Profit: $%.2f\n", p.totalProfit));
         }
+        return res.toString();
+    }
+
+    private static class Outcome {
+        PositionResult sizing;
+        ProfitResult profit;
     }
 }
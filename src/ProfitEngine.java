@@ -0,0 +1,119 @@
+// Headless take-profit math behind the Profit Calculator. Takes a sized position from
+// PositionSizingEngine plus the TP ladder as primitive arrays and fills a reusable ProfitResult.
+public final class ProfitEngine {
+    private ProfitEngine() { }
+
+    // tpPcts are percentages of the original position. closePrice is NaN when the trade has no
+    // actual close price, in which case whatever the TPs leave open is not counted.
+    public static void calculate(PositionResult sizing, double[] tpPrices, double[] tpPcts,
+                                 boolean[] tpTriggered, int tpCount, double closePrice, ProfitResult out) {
+        if (sizing.instrument != null) {
+            calculateRounded(sizing, tpPrices, tpPcts, tpTriggered, tpCount, closePrice, out);
+            return;
+        }
+        out.ensureCapacity(tpCount);
+        double avgEntry = sizing.avgEntry;
+        double totalUnits = sizing.totalUnits;
+        double direction = sizing.isLong ? 1.0 : -1.0;
+        double triggeredPct = 0.0;
+        double profitFromTPs = 0.0;
+        for (int i = 0; i < tpCount; i++) {
+            double tpPct = tpPcts[i];
+            double price = tpPrices[i];
+            out.tpPrices[i] = price;
+            out.tpPcts[i] = tpPct;
+            out.tpTriggered[i] = tpTriggered[i];
+            if (tpTriggered[i]) {
+                double units = totalUnits * (tpPct / 100.0);
+                double profit = direction * (price - avgEntry) * units;
+                out.tpUnits[i] = units;
+                out.tpProfits[i] = profit;
+                triggeredPct += tpPct;
+                profitFromTPs += profit;
+            } else {
+                out.tpUnits[i] = 0.0;
+                out.tpProfits[i] = 0.0;
+            }
+        }
+        out.tpCount = tpCount;
+        out.triggeredPct = triggeredPct;
+        out.remainingPct = 100.0 - triggeredPct;
+        out.remainingUnits = totalUnits * (out.remainingPct / 100.0);
+        out.feesUSD = 0.0;
+        out.profitFromTPs = profitFromTPs;
+        out.hasClosePrice = !Double.isNaN(closePrice);
+        out.closePrice = closePrice;
+        out.profitFromRemaining = 0.0;
+        if (out.hasClosePrice && out.remainingPct > 0) {
+            out.profitFromRemaining = direction * (closePrice - avgEntry) * out.remainingUnits;
+        }
+        out.totalProfit = profitFromTPs + out.profitFromRemaining;
+        out.riskReward = (sizing.riskUSD != 0) ? out.totalProfit / sizing.riskUSD : 0.0;
+    }
+
+    // For a position sized against an instrument: TP and close prices snap to the tick, each TP
+    // sells its percentage of the position rounded down to the lot, and profits are exact Fixed
+    // products (times the contract multiplier) summed in Fixed, net of the entry and exit fees
+    // of the part closed. Each close is charged its share of the position's exact cost by units
+    // sold, so the closes' costs add up to sizing.notionalFx. Whatever the lot rounding leaves
+    // behind stays in the remainder.
+    private static void calculateRounded(PositionResult sizing, double[] tpPrices, double[] tpPcts,
+                                         boolean[] tpTriggered, int tpCount, double closePrice, ProfitResult out) {
+        out.ensureCapacity(tpCount);
+        InstrumentSpec spec = sizing.instrument;
+        long costFx = sizing.notionalFx;
+        long totalFx = sizing.totalUnitsFx;
+        long direction = sizing.isLong ? 1 : -1;
+        long soldFx = 0;
+        long soldCostFx = 0;
+        long tpProfitFx = 0;
+        long feesFx = 0;
+        double triggeredPct = 0.0;
+        for (int i = 0; i < tpCount; i++) {
+            long priceFx = spec.roundPrice(tpPrices[i]);
+            out.tpPrices[i] = Fixed.toDouble(priceFx);
+            out.tpPcts[i] = tpPcts[i];
+            out.tpTriggered[i] = tpTriggered[i];
+            long unitsFx = 0;
+            long profitFx = 0;
+            if (tpTriggered[i]) {
+                unitsFx = Fixed.mul(totalFx, Fixed.of(tpPcts[i])) / 100;
+                unitsFx = Math.min(Fixed.roundToStep(unitsFx, spec.lotSize, Fixed.FLOOR), totalFx - soldFx);
+                long cost = totalFx > 0 ? Fixed.mulDiv(costFx, soldFx + unitsFx, totalFx) - soldCostFx : 0;
+                long value = spec.notional(priceFx, unitsFx);
+                long fees = spec.fee(cost) + spec.fee(value);
+                profitFx = direction * (value - cost) - fees;
+                feesFx += fees;
+                soldFx += unitsFx;
+                soldCostFx += cost;
+                tpProfitFx += profitFx;
+                triggeredPct += tpPcts[i];
+            }
+            out.tpUnits[i] = Fixed.toDouble(unitsFx);
+            out.tpProfits[i] = Fixed.toDouble(profitFx);
+        }
+        long remainingFx = totalFx - soldFx;
+        out.tpCount = tpCount;
+        out.triggeredPct = triggeredPct;
+        out.remainingPct = totalFx > 0 ? 100.0 * remainingFx / totalFx : 0.0;
+        out.remainingUnits = Fixed.toDouble(remainingFx);
+        out.profitFromTPs = Fixed.toDouble(tpProfitFx);
+        out.hasClosePrice = !Double.isNaN(closePrice);
+        long remainderProfitFx = 0;
+        if (out.hasClosePrice) {
+            long closeFx = spec.roundPrice(closePrice);
+            out.closePrice = Fixed.toDouble(closeFx);
+            long cost = costFx - soldCostFx;
+            long value = spec.notional(closeFx, remainingFx);
+            long fees = spec.fee(cost) + spec.fee(value);
+            remainderProfitFx = direction * (value - cost) - fees;
+            feesFx += fees;
+        } else {
+            out.closePrice = closePrice;
+        }
+        out.profitFromRemaining = Fixed.toDouble(remainderProfitFx);
+        out.feesUSD = Fixed.toDouble(feesFx);
+        out.totalProfit = Fixed.toDouble(tpProfitFx + remainderProfitFx);
+        out.riskReward = (sizing.riskUSD != 0) ? out.totalProfit / sizing.riskUSD : 0.0;
+    }
+}
@@ -0,0 +1,64 @@
+// Mutable result holder filled in place by ProfitEngine.
+public class ProfitResult {
+    public int tpCount;
+    public double[] tpPrices;
+    public double[] tpPcts;
+    public boolean[] tpTriggered;
+    public double[] tpProfits;
+    // Units each triggered TP sells, and what is left open after them.
+    public double[] tpUnits;
+    public double remainingUnits;
+    public double triggeredPct;
+    public double remainingPct;
+    public boolean hasClosePrice;
+    public double closePrice;
+    public double profitFromTPs;
+    public double profitFromRemaining;
+    // Fees of the closed part, entry and exit, already taken out of the profits.
+    public double feesUSD;
+    public double totalProfit;
+    public double riskReward;
+
+    public ProfitResult() {
+        this(5);
+    }
+
+    public ProfitResult(int capacity) {
+        tpPrices = new double[capacity];
+        tpPcts = new double[capacity];
+        tpTriggered = new boolean[capacity];
+        tpProfits = new double[capacity];
+        tpUnits = new double[capacity];
+    }
+
+    public void ensureCapacity(int n) {
+        if (tpPrices.length < n) {
+            int cap = Math.max(n, tpPrices.length * 2);
+            tpPrices = new double[cap];
+            tpPcts = new double[cap];
+            tpTriggered = new boolean[cap];
+            tpProfits = new double[cap];
+            tpUnits = new double[cap];
+        }
+    }
+
+    public void copyFrom(ProfitResult other) {
+        ensureCapacity(other.tpCount);
+        tpCount = other.tpCount;
+        System.arraycopy(other.tpPrices, 0, tpPrices, 0, other.tpCount);
+        System.arraycopy(other.tpPcts, 0, tpPcts, 0, other.tpCount);
+        System.arraycopy(other.tpTriggered, 0, tpTriggered, 0, other.tpCount);
+        System.arraycopy(other.tpProfits, 0, tpProfits, 0, other.tpCount);
+        System.arraycopy(other.tpUnits, 0, tpUnits, 0, other.tpCount);
+        triggeredPct = other.triggeredPct;
+        remainingPct = other.remainingPct;
+        remainingUnits = other.remainingUnits;
+        hasClosePrice = other.hasClosePrice;
+        closePrice = other.closePrice;
+        profitFromTPs = other.profitFromTPs;
+        profitFromRemaining = other.profitFromRemaining;
+        feesUSD = other.feesUSD;
+        totalProfit = other.totalProfit;
+        riskReward = other.riskReward;
+    }
+}
@@ -5,9 +5,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ProfitTPPanel extends JPanel {
+    private static final Metrics.Phase UPDATE_ROWS = Metrics.phase("Update TP rows");
+
     private JComboBox<Integer> tpCountCombo;
     private JPanel tpFieldsPanel;
     private List<TPRow> tpRows = new ArrayList<>();
+    private final FieldReader fields = new FieldReader();
 
     public ProfitTPPanel() {
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
@@ -28,51 +31,92 @@ public class ProfitTPPanel extends JPanel {
         updateTPRows();
     }
 
+    // Adds or removes rows at the end only, so existing rows keep their values.
     private void updateTPRows() {
+        long start = System.nanoTime();
         int count = (int) tpCountCombo.getSelectedItem();
-        List<TPRowData> oldData = new ArrayList<>();
-        for (TPRow row : tpRows) {
-            oldData.add(new TPRowData(row.getTPPrice(), row.getClosePct(), row.isTriggered()));
-        }
-        tpFieldsPanel.removeAll();
-        tpRows.clear();
-        for (int i = 0; i < count; i++) {
-            TPRow row = new TPRow("TP " + (i+1) + " Price:", "Close %:");
-            if (i < oldData.size()) {
-                TPRowData data = oldData.get(i);
-                row.setTPPrice(data.tpPriceStr);
-                row.setClosePct(data.closePctStr);
-                row.setTriggered(data.triggered);
-            }
+        while (tpRows.size() > count) {
+            tpFieldsPanel.remove(tpRows.remove(tpRows.size() - 1));
+        }
+        while (tpRows.size() < count) {
+            TPRow row = new TPRow("TP " + (tpRows.size() + 1) + " Price:", "Close %:");
             tpRows.add(row);
             tpFieldsPanel.add(row);
         }
         revalidate();
         repaint();
+        UPDATE_ROWS.record(start);
     }
 
-    public List<TPRowData> getTPData() {
-        List<TPRowData> result = new ArrayList<>();
-        for (TPRow row : tpRows) {
-            String tpPriceStr = row.getTPPrice().trim();
-            String closePctStr = row.getClosePct().trim();
-            try {
-                Double.parseDouble(tpPriceStr);
-                Double.parseDouble(closePctStr);
-                result.add(new TPRowData(tpPriceStr, closePctStr, row.isTriggered()));
-            } catch (NumberFormatException ex) { }
-        }
-        return result;
+    // Reads the TP rows into in's TP arrays and in.tpCount, and each TP's Hit % (as a 0..1
+    // chance) too when hitPcts is set. Rows left blank are skipped; a row that is partly filled
+    // or holds something that is not a number is recorded as an error on in.
+    public void readTPs(TradeInputs in, boolean hitPcts) {
+        in.ensureTps(tpRows.size());
+        int n = 0;
+        for (int i = 0; i < tpRows.size(); i++) {
+            TPRow row = tpRows.get(i);
+            if (fields.isBlank(row.tpPriceField) && fields.isBlank(row.closePctField)
+                    && (!hitPcts || fields.isBlank(row.hitPctField))) {
+                continue;
+            }
+            String name = "TP " + (i + 1);
+            double price = fields.required(row.tpPriceField, name + " Price", in);
+            double pct = fields.required(row.closePctField, name + " Close %", in);
+            double hit = hitPcts ? fields.percent(row.hitPctField, name + " Hit %", in) : Double.NaN;
+            if (!Double.isNaN(price) && !Double.isNaN(pct)) {
+                in.tpPrices[n] = price;
+                in.tpPcts[n] = pct;
+                in.tpTriggered[n] = row.isTriggered();
+                in.tpHitProbs[n] = hit;
+                n++;
+            }
+        }
+        in.tpCount = n;
+    }
+
+    public int getTPRowCount() {
+        return tpRows.size();
+    }
+
+    // Every row's TP price and close %, in row order, NaN where a field is blank or not a number.
+    public void getTPRowValues(double[] prices, double[] pcts) {
+        for (int i = 0; i < tpRows.size(); i++) {
+            prices[i] = fields.number(tpRows.get(i).tpPriceField);
+            pcts[i] = fields.number(tpRows.get(i).closePctField);
+        }
     }
 
-    public static class TPRowData {
-        public String tpPriceStr;
-        public String closePctStr;
-        public boolean triggered;
-        public TPRowData(String tpPriceStr, String closePctStr, boolean triggered) {
-            this.tpPriceStr = tpPriceStr;
-            this.closePctStr = closePctStr;
-            this.triggered = triggered;
+    public void setTriggered(boolean[] triggered) {
+        for (int i = 0; i < tpRows.size() && i < triggered.length; i++) {
+            tpRows.get(i).setTriggered(triggered[i]);
+        }
+    }
+
+    public void exportState(TabState state) {
+        int n = tpRows.size();
+        state.tpPrices = new String[n];
+        state.tpPcts = new String[n];
+        state.tpTriggered = new boolean[n];
+        state.tpHitPcts = new String[n];
+        for (int i = 0; i < n; i++) {
+            TPRow row = tpRows.get(i);
+            state.tpPrices[i] = row.getTPPrice();
+            state.tpPcts[i] = row.getClosePct();
+            state.tpTriggered[i] = row.isTriggered();
+            state.tpHitPcts[i] = row.getHitPct();
+        }
+    }
+
+    public void importState(TabState state) {
+        int n = Math.min(state.tpPrices.length, tpCountCombo.getItemCount() - 1);
+        tpCountCombo.setSelectedItem(n);
+        for (int i = 0; i < n; i++) {
+            TPRow row = tpRows.get(i);
+            row.setTPPrice(state.tpPrices[i]);
+            row.setClosePct(state.tpPcts[i]);
+            row.setTriggered(state.tpTriggered[i]);
+            row.setHitPct(i < state.tpHitPcts.length ? state.tpHitPcts[i] : "");
         }
     }
 
@@ -80,6 +124,7 @@ public class ProfitTPPanel extends JPanel {
         private JTextField tpPriceField;
         private JTextField closePctField;
         private JCheckBox triggeredBox;
+        private JTextField hitPctField;
 
         public TPRow(String tpLabel, String pctLabel) {
             setLayout(new FlowLayout(FlowLayout.LEFT, 5, 2));
@@ -91,6 +136,10 @@ public class ProfitTPPanel extends JPanel {
             add(closePctField);
             triggeredBox = new JCheckBox("Triggered", false);
             add(triggeredBox);
+            add(new JLabel("Hit %:"));
+            hitPctField = new JTextField(4);
+            hitPctField.setToolTipText("Chance of reaching this TP once the previous one was reached (for Simulate)");
+            add(hitPctField);
         }
 
         public String getTPPrice() {
@@ -116,5 +165,13 @@ public class ProfitTPPanel extends JPanel {
         public void setTriggered(boolean b) {
             triggeredBox.setSelected(b);
         }
+
+        public String getHitPct() {
+            return hitPctField.getText();
+        }
+
+        public void setHitPct(String text) {
+            hitPctField.setText(text);
+        }
     }
 }
@@ -0,0 +1,53 @@
+import java.util.Arrays;
+
+// What a BarReplay found: which entries filled, which take-profits were hit and whether the
+// stop was taken, with the bar time of each event (Long.MIN_VALUE when it did not happen).
+public class ReplayResult {
+    public int status;
+    public boolean isLong;
+    public boolean[] entryFilled = new boolean[0];
+    public long[] entryTimes = new long[0];
+    public boolean[] tpHit = new boolean[0];
+    public long[] tpTimes = new long[0];
+    public boolean stopped;
+    // The TPs hit add up to 100% of the position, so nothing was left to stop out.
+    public boolean closedByTps;
+    public long stopTime = Long.MIN_VALUE;
+    public long barsRead;
+    public long firstTime = Long.MIN_VALUE;
+    public long lastTime = Long.MIN_VALUE;
+    public double lastPrice = Double.NaN;
+
+    public void reset(int entryCount, int tpCount) {
+        if (entryFilled.length < entryCount) {
+            entryFilled = new boolean[entryCount];
+            entryTimes = new long[entryCount];
+        }
+        if (tpHit.length < tpCount) {
+            tpHit = new boolean[tpCount];
+            tpTimes = new long[tpCount];
+        }
+        Arrays.fill(entryFilled, false);
+        Arrays.fill(entryTimes, Long.MIN_VALUE);
+        Arrays.fill(tpHit, false);
+        Arrays.fill(tpTimes, Long.MIN_VALUE);
+        status = PositionSizingEngine.OK;
+        stopped = false;
+        closedByTps = false;
+        stopTime = Long.MIN_VALUE;
+        barsRead = 0;
+        firstTime = Long.MIN_VALUE;
+        lastTime = Long.MIN_VALUE;
+        lastPrice = Double.NaN;
+    }
+
+    public int filledCount() {
+        int n = 0;
+        for (boolean filled : entryFilled) {
+            if (filled) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,166 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Table model behind the results views. A calculation is written row by row between
+// beginUpdate() and endUpdate(); each cell is compared with what is already shown and only
+// cells whose displayed text actually changed fire an update, so a recalculation of a long
+// ladder repaints just the handful of cells that moved. Use on the EDT only.
+public class ResultsTableModel extends AbstractTableModel {
+    public static final int COL_ITEM = 0;
+    public static final int COL_PRICE = 1;
+    public static final int COL_RATIO = 2;
+    public static final int COL_USD = 3;
+    public static final int COL_NOTE = 4;
+
+    private static final String[] COLUMN_NAMES = {"Item", "Price", "Ratio / %", "USD", "Note"};
+    private static final int NUMERIC_COLUMNS = 3;
+
+    private static final Map<String, String[]> NUMBERED_LABELS = new HashMap<>();
+
+    private final NumberFormatter formatter = new NumberFormatter();
+    private int rowCount;
+    private int cursor;
+    private String[] items = new String[16];
+    private String[] notes = new String[16];
+    // Displayed text and the value it came from, per row for Price, Ratio / % and USD.
+    private String[][] texts = new String[16][NUMERIC_COLUMNS];
+    private long[][] valueBits = new long[16][NUMERIC_COLUMNS];
+
+    // "Entry 1", "TP 3", ...: cached so repeated updates do not build new label strings.
+    public static String numbered(String prefix, int number) {
+        String[] labels = NUMBERED_LABELS.get(prefix);
+        if (labels == null || number >= labels.length) {
+            String[] grown = new String[Math.max(number + 1, labels == null ? 16 : labels.length * 2)];
+            if (labels != null) {
+                System.arraycopy(labels, 0, grown, 0, labels.length);
+            }
+            labels = grown;
+            NUMBERED_LABELS.put(prefix, labels);
+        }
+        if (labels[number] == null) {
+            labels[number] = prefix + number;
+        }
+        return labels[number];
+    }
+
+    public void beginUpdate() {
+        cursor = 0;
+    }
+
+    // Writes the next row. NaN leaves a numeric cell blank; note may be null.
+    public void addRow(String item, double price, double ratio, int ratioDecimals, double usd, String note) {
+        int row = cursor++;
+        if (row >= items.length) {
+            grow(row + 1);
+        }
+        boolean isNew = row >= rowCount;
+        setText(row, COL_ITEM, item, isNew);
+        setNumber(row, 0, price, 4, isNew);
+        setNumber(row, 1, ratio, ratioDecimals, isNew);
+        setNumber(row, 2, usd, 2, isNew);
+        setText(row, COL_NOTE, note, isNew);
+        if (isNew) {
+            rowCount = row + 1;
+            fireTableRowsInserted(row, row);
+        }
+    }
+
+    public void endUpdate() {
+        if (cursor < rowCount) {
+            int oldCount = rowCount;
+            for (int i = cursor; i < oldCount; i++) {
+                items[i] = null;
+                notes[i] = null;
+                Arrays.fill(texts[i], null);
+            }
+            rowCount = cursor;
+            fireTableRowsDeleted(cursor, oldCount - 1);
+        }
+    }
+
+    public void clear() {
+        beginUpdate();
+        endUpdate();
+    }
+
+    private void setText(int row, int column, String text, boolean isNew) {
+        String[] target = column == COL_ITEM ? items : notes;
+        String old = target[row];
+        if (isNew || (old == null ? text != null : !old.equals(text))) {
+            target[row] = text;
+            if (!isNew) {
+                fireTableCellUpdated(row, column);
+            }
+        }
+    }
+
+    private void setNumber(int row, int slot, double value, int decimals, boolean isNew) {
+        long bits = Double.doubleToLongBits(value);
+        String[] rowTexts = texts[row];
+        if (!isNew && rowTexts[slot] != null && valueBits[row][slot] == bits) {
+            return;
+        }
+        valueBits[row][slot] = bits;
+        String text;
+        if (Double.isNaN(value)) {
+            text = "";
+        } else {
+            formatter.format(value, decimals);
+            // The value moved but may still read the same at this precision.
+            if (formatter.matches(rowTexts[slot])) {
+                return;
+            }
+            text = formatter.toString();
+        }
+        if (text.equals(rowTexts[slot])) {
+            return;
+        }
+        rowTexts[slot] = text;
+        if (!isNew) {
+            fireTableCellUpdated(row, slot + 1);
+        }
+    }
+
+    private void grow(int min) {
+        int cap = Math.max(min, items.length * 2);
+        items = Arrays.copyOf(items, cap);
+        notes = Arrays.copyOf(notes, cap);
+        texts = Arrays.copyOf(texts, cap);
+        valueBits = Arrays.copyOf(valueBits, cap);
+        for (int i = 0; i < cap; i++) {
+            if (texts[i] == null) {
+                texts[i] = new String[NUMERIC_COLUMNS];
+                valueBits[i] = new long[NUMERIC_COLUMNS];
+            }
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case COL_ITEM:
+                return items[row];
+            case COL_NOTE:
+                return notes[row] == null ? "" : notes[row];
+            default:
+                return texts[row][column - 1];
+        }
+    }
+}
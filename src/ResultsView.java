@@ -0,0 +1,102 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumnModel;
+import java.awt.*;
+import java.awt.datatransfer.StringSelection;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+
+// Right-hand results column shared by both calculators: a table backed by ResultsTableModel,
+// a status line for live-update messages, and buttons to copy or export the plain-text report.
+public class ResultsView extends JPanel {
+    private static final Metrics.Phase FORMAT_REPORT = Metrics.phase("Format report");
+
+    private final ResultsTableModel model = new ResultsTableModel();
+    private final JTable table;
+    private final JLabel messageLabel;
+    private final JButton copyButton;
+    private final JButton exportButton;
+    private Supplier<String> reportSupplier;
+
+    public ResultsView() {
+        setLayout(new BorderLayout());
+        table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.setRowSelectionAllowed(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        DefaultTableCellRenderer numberRenderer = new DefaultTableCellRenderer();
+        numberRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        TableColumnModel columns = table.getColumnModel();
+        for (int c = ResultsTableModel.COL_PRICE; c <= ResultsTableModel.COL_USD; c++) {
+            columns.getColumn(c).setCellRenderer(numberRenderer);
+        }
+        columns.getColumn(ResultsTableModel.COL_ITEM).setPreferredWidth(130);
+        columns.getColumn(ResultsTableModel.COL_NOTE).setPreferredWidth(130);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        messageLabel = new JLabel(" ");
+        bottomPanel.add(messageLabel, BorderLayout.CENTER);
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 2));
+        copyButton = new JButton("Copy Report");
+        copyButton.addActionListener(e -> copyReport());
+        buttonPanel.add(copyButton);
+        exportButton = new JButton("Export Report...");
+        exportButton.addActionListener(e -> exportReport());
+        buttonPanel.add(exportButton);
+        bottomPanel.add(buttonPanel, BorderLayout.EAST);
+        add(bottomPanel, BorderLayout.SOUTH);
+        setReportSupplier(null);
+    }
+
+    public ResultsTableModel getModel() {
+        return model;
+    }
+
+    // The plain-text report is only built when the user copies or exports it.
+    public void setReportSupplier(Supplier<String> reportSupplier) {
+        this.reportSupplier = reportSupplier;
+        copyButton.setEnabled(reportSupplier != null);
+        exportButton.setEnabled(reportSupplier != null);
+    }
+
+    public void clear() {
+        model.clear();
+        showMessage(null);
+        setReportSupplier(null);
+    }
+
+    public void showMessage(String message) {
+        messageLabel.setText(message == null || message.isEmpty() ? " " : message);
+    }
+
+    private void copyReport() {
+        if (reportSupplier != null) {
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(buildReport()), null);
+        }
+    }
+
+    private String buildReport() {
+        long start = System.nanoTime();
+        String report = reportSupplier.get();
+        FORMAT_REPORT.record(start);
+        return report;
+    }
+
+    private void exportReport() {
+        if (reportSupplier == null) {
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                Files.write(chooser.getSelectedFile().toPath(), buildReport().getBytes(StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(),
+                        "Export Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+}
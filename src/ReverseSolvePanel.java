@@ -0,0 +1,222 @@
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+
+// The Position Calculator's Reverse Solve: the stop loss and ladder spacing that meet a size cap
+// or an average entry (see ReverseSolver). Reads the trade from the calculator and shows the
+// solution in its results; Apply writes the solved stop and ladder back into its fields.
+public class ReverseSolvePanel extends JPanel {
+    // Reverse solve targets, also the order they are saved in TabState.solve.
+    private static final int SOLVE_MAX_POSITION = 0;
+    private static final int SOLVE_MAX_LEVERAGE = 1;
+    private static final int SOLVE_AVG_ENTRY = 2;
+    private static final int SOLVE_FIELDS = 3;
+    // The leverage slider moves in tenths: 0.1x to 50x.
+    private static final int LEVERAGE_STEPS_PER_X = 10;
+    private static final int MAX_SLIDER_LEVERAGE = 50;
+
+    private final PositionCalculatorPanel calculator;
+    private final JTextField[] solveFields = new JTextField[SOLVE_FIELDS];
+    private final JSlider leverageSlider;
+    // The last solution shown; null until Solve has worked once, so typing does not start it.
+    private SolveResult solution;
+    private final LiveCalculator<TradeInputs, Solve> solver;
+    private final FieldReader fields = new FieldReader();
+
+    public ReverseSolvePanel(PositionCalculatorPanel calculator) {
+        this.calculator = calculator;
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBorder(new TitledBorder("Reverse Solve"));
+        for (int i = 0; i < solveFields.length; i++) {
+            solveFields[i] = new JTextField(i == SOLVE_MAX_LEVERAGE ? 4 : 7);
+        }
+        JPanel capRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        capRow.add(new JLabel("Max Position (USD):"));
+        solveFields[SOLVE_MAX_POSITION].setToolTipText("Solves the tightest Stop Loss that keeps the position at or under this");
+        capRow.add(solveFields[SOLVE_MAX_POSITION]);
+        capRow.add(new JLabel("Max Leverage (x):"));
+        solveFields[SOLVE_MAX_LEVERAGE].setToolTipText("Solves the tightest Stop Loss that keeps position / balance at or under this");
+        capRow.add(solveFields[SOLVE_MAX_LEVERAGE]);
+        add(capRow);
+        JPanel leverageRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        leverageRow.add(new JLabel("Leverage:"));
+        leverageSlider = new JSlider(1, MAX_SLIDER_LEVERAGE * LEVERAGE_STEPS_PER_X, LEVERAGE_STEPS_PER_X);
+        leverageSlider.setToolTipText("Drag to set Max Leverage and re-solve as it moves");
+        leverageRow.add(leverageSlider);
+        add(leverageRow);
+        JPanel averageRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        averageRow.add(new JLabel("Target Avg Entry:"));
+        solveFields[SOLVE_AVG_ENTRY].setToolTipText("Solves the spacing of a ladder stepping from Entry 1 towards the stop");
+        averageRow.add(solveFields[SOLVE_AVG_ENTRY]);
+        JButton solveButton = new JButton("Solve");
+        solveButton.setToolTipText("The Stop Loss as typed only tells long from short when a cap is set");
+        averageRow.add(solveButton);
+        JButton applyButton = new JButton("Apply");
+        applyButton.setToolTipText("Copy the solved Stop Loss and entry prices into the fields above");
+        averageRow.add(applyButton);
+        add(averageRow);
+
+        solver = new LiveCalculator<>("Reverse solve", this::readSolveInputs, ReverseSolvePanel::solve,
+                new LiveCalculator.ResultHandler<Solve>() {
+                    public void onResult(Solve s, boolean explicit) {
+                        showSolution(s.result, s.micros);
+                    }
+
+                    public void onError(Exception ex, boolean explicit) {
+                        calculator.showError(ex, explicit);
+                    }
+                });
+        solveButton.addActionListener(e -> {
+            calculator.showResults();
+            solver.calculateNow();
+        });
+        applyButton.addActionListener(e -> applySolution());
+        // The solve takes microseconds, so the slider re-solves on every step without debouncing.
+        leverageSlider.addChangeListener(e -> {
+            String text = String.format("%.1f", leverageSlider.getValue() / (double) LEVERAGE_STEPS_PER_X);
+            if (!text.equals(solveFields[SOLVE_MAX_LEVERAGE].getText())) {
+                solveFields[SOLVE_MAX_LEVERAGE].setText(text);
+            }
+            if (solution != null) {
+                solver.calculateQuietly();
+            }
+        });
+    }
+
+    // Called as the trade or the targets are edited: once a solution is showing, it follows them.
+    public void inputChanged() {
+        if (solution != null) {
+            solver.inputChanged();
+        }
+    }
+
+    public void exportState(TabState state) {
+        state.solve = new String[SOLVE_FIELDS];
+        for (int i = 0; i < solveFields.length; i++) {
+            state.solve[i] = solveFields[i].getText();
+        }
+    }
+
+    public void importState(TabState state) {
+        solver.cancel();
+        solution = null;
+        for (int i = 0; i < solveFields.length; i++) {
+            solveFields[i].setText(i < state.solve.length ? state.solve[i] : "");
+        }
+    }
+
+    // Runs on the EDT. Stop Loss tells long from short; the targets left blank are not used.
+    private TradeInputs readSolveInputs() throws Exception {
+        TradeInputs in = new TradeInputs();
+        in.balance = fields.required(calculator.getBalanceField(), "Account Balance", in);
+        in.riskPct = fields.required(calculator.getRiskField(), "Risk (%)", in);
+        in.stopLoss = fields.required(calculator.getStopLossField(), "Stop Loss", in);
+        in.solveMaxPosition = fields.optional(solveFields[SOLVE_MAX_POSITION], "Max Position", in);
+        in.solveMaxLeverage = fields.optional(solveFields[SOLVE_MAX_LEVERAGE], "Max Leverage", in);
+        in.solveAvgEntry = fields.optional(solveFields[SOLVE_AVG_ENTRY], "Target Avg Entry", in);
+        calculator.readTrade(in);
+        if (Double.isNaN(in.solveMaxPosition) && Double.isNaN(in.solveMaxLeverage) && Double.isNaN(in.solveAvgEntry)) {
+            throw new Exception("Enter a Max Position, Max Leverage or Target Avg Entry to solve for.");
+        }
+        if (in.solveMaxPosition <= 0 || in.solveMaxLeverage <= 0 || !(in.balance > 0) || !(in.riskPct > 0)) {
+            throw new Exception("Account Balance, Risk (%), Max Position and Max Leverage must be positive.");
+        }
+        if (!Double.isNaN(in.solveAvgEntry)) {
+            // The ladder is rebuilt from Entry 1; only the number of rows counts.
+            in.entryCount = calculator.getEntrySettingsPanel().getEntryCount();
+        }
+        return in;
+    }
+
+    // Runs on a calculator worker thread.
+    private static Solve solve(TradeInputs in) throws Exception {
+        Solve s = new Solve();
+        s.result = new SolveResult();
+        long start = System.nanoTime();
+        int status = ReverseSolver.solve(in, s.result);
+        s.micros = (System.nanoTime() - start) / 1000.0;
+        if (status == ReverseSolver.ERR_NEEDS_LADDER) {
+            throw new Exception("Target Avg Entry needs a ladder of two or more entries.");
+        } else if (status == ReverseSolver.ERR_UNREACHABLE && !Double.isNaN(in.solveAvgEntry) && !s.result.spacingSolved) {
+            throw new Exception("Target Avg Entry must lie between Entry 1 and the Stop Loss.");
+        } else if (status == ReverseSolver.ERR_UNREACHABLE) {
+            throw new Exception("Even the widest Stop Loss gives a position above the cap.");
+        } else if (status == PositionSizingEngine.ERR_MIXED_SIDES) {
+            throw new Exception("For multi-entry strategies, all entries must be either above or below the stop loss.");
+        } else if (status == PositionSizingEngine.ERR_BELOW_MINIMUM) {
+            throw new Exception("The position is smaller than one lot or the minimum notional.");
+        } else if (status != PositionSizingEngine.OK) {
+            throw new Exception("Invalid input.");
+        }
+        return s;
+    }
+
+    private void showSolution(SolveResult s, double micros) {
+        solution = s;
+        PositionResult r = s.position;
+        ResultsView resultsView = calculator.getResultsView();
+        ResultsTableModel model = resultsView.getModel();
+        double nan = Double.NaN;
+        model.beginUpdate();
+        if (s.stopSolved) {
+            model.addRow("Solved Stop Loss", s.stopLoss, nan, 0, nan, bindingNote(s));
+        }
+        if (s.spacingSolved) {
+            model.addRow("Solved Spacing", s.spacing, nan, 0, nan, "Between rungs, from Entry 1");
+        }
+        model.addRow("Leverage", nan, s.leverage, 2, nan, "Position / balance");
+        PositionCalculatorPanel.addPositionRows(model, r);
+        model.endUpdate();
+        calculator.getLadderChart().setLadder(r, null, null, null, 0, Double.NaN);
+        resultsView.showMessage(String.format("Solved in %d steps, %.1f microseconds.", s.evaluations, micros));
+        resultsView.setReportSupplier(() -> formatSolution(s) + PositionCalculatorPanel.formatResult(r));
+    }
+
+    private static String bindingNote(SolveResult s) {
+        switch (s.binding) {
+            case ReverseSolver.BIND_POSITION:
+                return "Held by Max Position";
+            case ReverseSolver.BIND_LEVERAGE:
+                return "Held by Max Leverage";
+            default:
+                return "Next to the entries; the caps do not bind";
+        }
+    }
+
+    static String formatSolution(SolveResult s) {
+        StringBuilder res = new StringBuilder();
+        res.append("===== Reverse Solve =====\n\n");
+        if (s.stopSolved) {
+            res.append(String.format("Solved Stop Loss: %.4f (%s)\n", s.stopLoss, bindingNote(s)));
+        }
+        if (s.spacingSolved) {
+            res.append(String.format("Solved Spacing: %.4f\n", s.spacing));
+        }
+        res.append(String.format("Leverage: %.2fx\n\n", s.leverage));
+        return res.toString();
+    }
+
+    // Writes the solved stop and ladder into the fields, where Calculate Position picks them up.
+    private void applySolution() {
+        if (solution == null) {
+            JOptionPane.showMessageDialog(this, "Press Solve first.", "Reverse Solve", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        PositionResult r = solution.position;
+        if (solution.stopSolved) {
+            calculator.getStopLossField().setText(PositionCalculatorPanel.formatPrice(r.stopLoss));
+        }
+        if (solution.spacingSolved) {
+            String[] prices = new String[r.count];
+            for (int i = 0; i < r.count; i++) {
+                prices[i] = PositionCalculatorPanel.formatPrice(r.entries[i]);
+            }
+            calculator.getEntrySettingsPanel().setEntryPrices(prices);
+        }
+    }
+
+    private static class Solve {
+        SolveResult result;
+        double micros;
+    }
+}
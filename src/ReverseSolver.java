@@ -0,0 +1,263 @@
+// The sizing formula worked backwards (the Position Calculator's Solve button): instead of sizing
+// from a given stop and ladder, finds the stop and ladder spacing that meet targets.
+//
+//   Max Position / Max Leverage   the tightest stop whose position stays at or under the smaller
+//                                 of the two caps (leverage = position size / balance).
+//   Target Avg Entry              the spacing between rungs, stepping from Entry 1 towards the
+//                                 stop, that brings the ladder's weighted average entry there.
+//
+// Given both, the spacing is solved first (the average entry does not depend on the stop) and the
+// stop then for that ladder. The Stop Loss as typed tells a long from a short, and is kept as it
+// is when no cap is given.
+//
+// Each unknown is found by a bracketed secant search (the Illinois variant of regula falsi) on
+// the real sizing path, PositionSizingEngine.size with the instrument, so tick and lot rounding,
+// the minimum notional and fees all hold at the answer. Without an instrument both functions are
+// linear in the unknown (the position is inversely proportional to the stop distance), so the
+// search lands in a step or two; with rounding it narrows to the tick in a few dozen sizings.
+// Either way a solve takes microseconds and allocates nothing.
+public final class ReverseSolver {
+    public static final int ERR_NO_TARGET = 10;
+    public static final int ERR_UNREACHABLE = 11;
+    public static final int ERR_NEEDS_LADDER = 12;
+
+    // Which cap decided the stop.
+    public static final int BIND_NONE = 0;
+    public static final int BIND_POSITION = 1;
+    public static final int BIND_LEVERAGE = 2;
+
+    private static final int STOP = 0;
+    private static final int SPACING = 1;
+    private static final int MAX_ITERATIONS = 200;
+    // A short's stop is searched for up to this many times the entry above it.
+    private static final double MAX_SHORT_STOP = 1000.0;
+    private static final double EPSILON = 1e-12;
+
+    private ReverseSolver() { }
+
+    // in holds the sizing inputs and the solve targets (NaN where not set); in.entries[0] is
+    // Entry 1, the rung the spacing is counted from. Returns an ERR_ code of this class or a
+    // PositionSizingEngine status; out.position is the position at the solution.
+    public static int solve(TradeInputs in, SolveResult out) {
+        out.stopSolved = false;
+        out.spacingSolved = false;
+        out.spacing = Double.NaN;
+        out.binding = BIND_NONE;
+        out.evaluations = 0;
+        out.leverage = Double.NaN;
+        double leverageCap = in.solveMaxLeverage * in.balance;
+        out.cap = Math.min(nanToInfinity(in.solveMaxPosition), nanToInfinity(leverageCap));
+        boolean capped = out.cap < Double.POSITIVE_INFINITY;
+        boolean averaged = !Double.isNaN(in.solveAvgEntry);
+        if (!capped && !averaged) {
+            return out.status = ERR_NO_TARGET;
+        }
+        int n = in.entryType == PositionSizingEngine.SINGLE_ENTRY ? Math.min(1, in.entryCount) : in.entryCount;
+        if (n <= 0) {
+            return out.status = PositionSizingEngine.ERR_NO_ENTRIES;
+        }
+        if (!(in.balance > 0) || !(in.riskPct > 0) || Double.isNaN(in.stopLoss) || !(in.entries[0] > 0)) {
+            return out.status = PositionSizingEngine.ERR_INVALID_INPUT;
+        }
+        out.ensureCapacity(n);
+        out.count = n;
+        out.curve = in.entryType == PositionSizingEngine.EXPONENTIAL_ENTRIES ? in.curve : WeightCurve.EQUAL_WEIGHTS;
+        if (out.curve == null) {
+            out.curve = PositionSizingEngine.defaultCurve(in.entryType);
+        }
+        out.stopLoss = in.stopLoss;
+        double[] ladder = out.ladder;
+
+        if (averaged) {
+            if (n < 2) {
+                return out.status = ERR_NEEDS_LADDER;
+            }
+            int status = solveSpacing(in, out);
+            if (status != PositionSizingEngine.OK) {
+                return out.status = status;
+            }
+        } else {
+            System.arraycopy(in.entries, 0, ladder, 0, n);
+            if (PositionSizingEngine.orderLadder(ladder, n, in.stopLoss) != PositionSizingEngine.OK) {
+                return out.status = PositionSizingEngine.ERR_MIXED_SIDES;
+            }
+            out.direction = ladder[0] > in.stopLoss ? 1 : -1;
+        }
+
+        if (capped) {
+            int status = solveStop(in, out);
+            if (status != PositionSizingEngine.OK) {
+                return out.status = status;
+            }
+        }
+        int status = PositionSizingEngine.size(ladder, n, in.entryType, out.curve, out.stopLoss, in.balance,
+                in.riskPct, in.instrument, out.position);
+        out.position.entryStrategy = in.entryStrategy;
+        out.leverage = out.position.positionSizeUSD / in.balance;
+        return out.status = status;
+    }
+
+    // Spreads the ladder from Entry 1 so that its weighted average reaches in.solveAvgEntry.
+    private static int solveSpacing(TradeInputs in, SolveResult out) {
+        int n = out.count;
+        double anchor = in.entries[0];
+        out.anchor = anchor;
+        out.direction = in.stopLoss < anchor ? 1 : -1;
+        out.targetGap = out.direction * (anchor - in.solveAvgEntry);
+        // Without an instrument the average moves by spacing x sum(share_i x i).
+        double[] shares = out.curve.normalized(n);
+        double moment = 0.0;
+        for (int i = 1; i < n; i++) {
+            moment += shares[i] * i;
+        }
+        double exact = out.targetGap / moment;
+        // The last rung must stay above 0 for a long, and beyond the stop when the stop is kept.
+        double limit = out.direction > 0 ? anchor / (n - 1) : Double.POSITIVE_INFINITY;
+        boolean stopKept = Double.isNaN(in.solveMaxPosition) && Double.isNaN(in.solveMaxLeverage);
+        if (stopKept) {
+            limit = Math.min(limit, out.direction * (anchor - in.stopLoss) / (n - 1));
+        }
+        if (!(out.targetGap > 0) || !(exact < limit)) {
+            return ERR_UNREACHABLE;
+        }
+        double lo = 0.0;
+        double flo = gap(SPACING, lo, in, out);
+        double hi = Math.min(2.0 * exact + tick(in), 0.5 * (exact + limit));
+        double fhi = gap(SPACING, hi, in, out);
+        if (fhi < 0) {
+            return ERR_UNREACHABLE;
+        }
+        // Rounding Entry 1 to the tick can reach a target that close on its own.
+        out.spacing = flo >= 0 ? lo : search(SPACING, lo, flo, hi, fhi, tolerance(in, hi), in, out);
+        fillLadder(out.spacing, out);
+        out.spacingSolved = true;
+        return PositionSizingEngine.OK;
+    }
+
+    // The tightest stop, counted as a distance beyond the rung nearest to it, whose position
+    // stays within out.cap.
+    private static int solveStop(TradeInputs in, SolveResult out) {
+        int n = out.count;
+        double[] ladder = out.ladder;
+        double nearest = ladder[0];
+        for (int i = 1; i < n; i++) {
+            nearest = out.direction > 0 ? Math.min(nearest, ladder[i]) : Math.max(nearest, ladder[i]);
+        }
+        out.nearest = nearest;
+        double tick = tick(in);
+        double lo = Math.max(tick, nearest * 1e-9);
+        double hi = out.direction > 0 ? nearest - lo : MAX_SHORT_STOP * nearest;
+        if (!(hi > lo)) {
+            return ERR_UNREACHABLE;
+        }
+        double flo = gap(STOP, lo, in, out);
+        double distance;
+        if (flo >= 0) {
+            // Even a stop right next to the ladder keeps the position under the cap.
+            distance = lo;
+        } else {
+            double fhi = gap(STOP, hi, in, out);
+            if (fhi < 0) {
+                return ERR_UNREACHABLE;
+            }
+            distance = search(STOP, lo, flo, hi, fhi, tolerance(in, nearest), in, out);
+            out.binding = out.cap == in.solveMaxPosition ? BIND_POSITION : BIND_LEVERAGE;
+        }
+        double stop = nearest - out.direction * distance;
+        if (in.instrument != null && in.instrument.tickSize > 0) {
+            // Onto the tick, away from the ladder; then one tick closer if that still fits.
+            long stopFx = Fixed.roundToStep(Fixed.of(stop), in.instrument.tickSize,
+                    out.direction > 0 ? Fixed.FLOOR : Fixed.CEIL);
+            stop = Fixed.toDouble(stopFx);
+            double closer = stop + out.direction * tick;
+            if (out.direction * (nearest - closer) >= lo
+                    && gap(STOP, out.direction * (nearest - closer), in, out) >= 0) {
+                stop = closer;
+            }
+        }
+        if (out.direction > 0 && !(stop > 0)) {
+            return ERR_UNREACHABLE;
+        }
+        out.stopLoss = stop;
+        out.stopSolved = true;
+        return PositionSizingEngine.OK;
+    }
+
+    // Illinois regula falsi on [lo, hi], where f(lo) < 0 <= f(hi) and f rises with x. Returns the
+    // end of the final bracket that meets the target (f >= 0).
+    private static double search(int unknown, double lo, double flo, double hi, double fhi, double tolerance,
+                                 TradeInputs in, SolveResult out) {
+        int side = 0;
+        for (int i = 0; i < MAX_ITERATIONS && hi - lo > tolerance; i++) {
+            double x = hi - fhi * (hi - lo) / (fhi - flo);
+            if (!(x > lo && x < hi)) {
+                x = 0.5 * (lo + hi);
+            }
+            double fx = gap(unknown, x, in, out);
+            if (Math.abs(fx) < EPSILON) {
+                // On the target to rounding error; linear cases get here in one step.
+                return x;
+            }
+            if (fx > 0) {
+                hi = x;
+                fhi = fx;
+                if (side > 0) {
+                    // The same end moved twice: halve the other's weight so the bracket closes.
+                    flo *= 0.5;
+                }
+                side = 1;
+            } else {
+                lo = x;
+                flo = fx;
+                if (side < 0) {
+                    fhi *= 0.5;
+                }
+                side = -1;
+            }
+        }
+        return hi;
+    }
+
+    // How far x is from the target: negative short of it, 0 on it, positive past it.
+    //   STOP     x = stop distance beyond the nearest rung; cap / position size - 1.
+    //   SPACING  x = rung spacing; how far the average has moved from Entry 1 minus how far it should.
+    private static double gap(int unknown, double x, TradeInputs in, SolveResult out) {
+        out.evaluations++;
+        if (unknown == SPACING) {
+            fillLadder(x, out);
+            double[] shares = out.curve.normalized(out.count);
+            InstrumentSpec spec = in.instrument;
+            double avg = 0.0;
+            for (int i = 0; i < out.count; i++) {
+                double price = spec != null ? Fixed.toDouble(spec.roundPrice(out.ladder[i])) : out.ladder[i];
+                avg += price * shares[i];
+            }
+            return out.direction * (out.anchor - avg) - out.targetGap;
+        }
+        PositionResult p = out.position;
+        PositionSizingEngine.size(out.ladder, out.count, in.entryType, out.curve, out.nearest - out.direction * x,
+                in.balance, in.riskPct, in.instrument, p);
+        // Too small to place at all is within any cap.
+        return p.positionSizeUSD > 0 ? out.cap / p.positionSizeUSD - 1.0 : 1.0;
+    }
+
+    private static void fillLadder(double spacing, SolveResult out) {
+        for (int i = 0; i < out.count; i++) {
+            out.ladder[i] = out.anchor - out.direction * i * spacing;
+        }
+    }
+
+    private static double tick(TradeInputs in) {
+        return in.instrument != null && in.instrument.tickSize > 0 ? Fixed.toDouble(in.instrument.tickSize) : 0.0;
+    }
+
+    // Narrow the bracket to a quarter tick with an instrument, else to the last few digits.
+    private static double tolerance(TradeInputs in, double scale) {
+        double tick = tick(in);
+        return tick > 0 ? 0.25 * tick : Math.max(Math.abs(scale), 1.0) * EPSILON;
+    }
+
+    private static double nanToInfinity(double v) {
+        return Double.isNaN(v) ? Double.POSITIVE_INFINITY : v;
+    }
+}
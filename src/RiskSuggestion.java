@@ -0,0 +1,15 @@
+// Mutable result holder filled in place by TradeHistory.suggest. Rates and suggested risks are
+// fractions (0.02 = 2% of the balance per trade); NaN when the history cannot support them.
+public class RiskSuggestion {
+    public int trades;
+    public long skippedLines;
+    public double winRate;
+    // Average win over average loss, in R.
+    public double payoff;
+    public double meanR;
+    public double sdR;
+    public double kelly;
+    public double kellyFraction;
+    public double optimalF;
+    public double ruinBounded;
+}
@@ -0,0 +1,201 @@
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.nio.file.Paths;
+
+// Risk per trade suggested by past trades' R multiples (Kelly, fractional Kelly, optimal f and a
+// ruin bound; see TradeHistory). A button copies its suggestion into the Risk (%) field. The
+// history file is polled while the panel is on screen, so appended trades show up on their own.
+public class RiskSuggestionPanel extends JPanel {
+    // Risk suggestions from the trade history, in button order.
+    private static final int SUGGEST_KELLY = 0;
+    private static final int SUGGEST_FRACTIONAL = 1;
+    private static final int SUGGEST_OPTIMAL_F = 2;
+    private static final int SUGGEST_RUIN = 3;
+    private static final String[] SUGGESTION_LABELS = {"Kelly", "Fractional Kelly", "Optimal f", "Ruin-bounded"};
+    private static final String DEFAULT_KELLY_SHARE = "0.5";
+    private static final String DEFAULT_MAX_DRAWDOWN = "20";
+    private static final int HISTORY_POLL_MS = 2000;
+
+    private final JTextField riskField;
+    private final JTextField historyField = new JTextField(16);
+    private final JTextField kellyShareField = new JTextField(DEFAULT_KELLY_SHARE, 4);
+    private final JTextField maxDrawdownField = new JTextField(DEFAULT_MAX_DRAWDOWN, 4);
+    private final JButton[] suggestionButtons = new JButton[SUGGESTION_LABELS.length];
+    private final JLabel historyLabel = new JLabel(" ");
+    private RiskSuggestion suggestion;
+    private final LiveCalculator<HistoryRequest, RiskSuggestion> suggester;
+    // Picks up trades appended to the history file while it is loaded.
+    private final Timer historyTimer;
+    private final FieldReader fields = new FieldReader();
+
+    // riskField is where a chosen suggestion is written.
+    public RiskSuggestionPanel(JTextField riskField) {
+        this.riskField = riskField;
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBorder(new TitledBorder("Risk Suggestion (optional)"));
+        JPanel historyRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        historyRow.add(new JLabel("Trade History:"));
+        historyField.setToolTipText("CSV with one trade per line: its R multiple, or profit,risk");
+        historyRow.add(historyField);
+        JButton historyBrowseButton = new JButton("Browse...");
+        historyRow.add(historyBrowseButton);
+        JButton historyUpdateButton = new JButton("Update");
+        historyRow.add(historyUpdateButton);
+        add(historyRow);
+        JPanel settingsRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        settingsRow.add(new JLabel("Kelly Share:"));
+        kellyShareField.setToolTipText("Fractional Kelly = this share of full Kelly, e.g. 0.5 for half Kelly");
+        settingsRow.add(kellyShareField);
+        settingsRow.add(new JLabel("Max Drawdown (%):"));
+        maxDrawdownField.setToolTipText("Ruin-bounded keeps the chance of ever falling this far below 1%");
+        settingsRow.add(maxDrawdownField);
+        add(settingsRow);
+        JPanel suggestionRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        for (int i = 0; i < suggestionButtons.length; i++) {
+            int which = i;
+            suggestionButtons[i] = new JButton();
+            suggestionButtons[i].setToolTipText("Use as Risk (%)");
+            suggestionButtons[i].addActionListener(e -> useSuggestion(which));
+            suggestionRow.add(suggestionButtons[i]);
+        }
+        add(suggestionRow);
+        JPanel historyLabelRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+        historyLabelRow.add(historyLabel);
+        add(historyLabelRow);
+
+        suggester = new LiveCalculator<>("Risk suggestion", this::readHistoryRequest,
+                RiskSuggestionPanel::suggest, new LiveCalculator.ResultHandler<RiskSuggestion>() {
+                    public void onResult(RiskSuggestion s, boolean explicit) {
+                        showSuggestion(s);
+                    }
+
+                    public void onError(Exception ex, boolean explicit) {
+                        showSuggestion(null);
+                        if (explicit) {
+                            JOptionPane.showMessageDialog(RiskSuggestionPanel.this, "Error: " + ex.getMessage(),
+                                    "Calculation Error", JOptionPane.ERROR_MESSAGE);
+                        } else {
+                            historyLabel.setText(ex.getMessage());
+                        }
+                    }
+                });
+        historyBrowseButton.addActionListener(e -> browseHistoryFile());
+        historyUpdateButton.addActionListener(e -> suggester.calculateNow());
+        InputWatcher.watch(settingsRow, () -> {
+            if (suggestion != null) {
+                suggester.inputChanged();
+            }
+        });
+        historyTimer = new Timer(HISTORY_POLL_MS, e -> {
+            if (suggestion != null && isShowing()) {
+                suggester.calculateQuietly();
+            }
+        });
+        historyTimer.start();
+        showSuggestion(null);
+    }
+
+    public void exportState(TabState state) {
+        state.suggestion.historyFile = historyField.getText();
+        state.suggestion.kellyShare = kellyShareField.getText();
+        state.suggestion.maxDrawdownPct = maxDrawdownField.getText();
+    }
+
+    public void importState(TabState state) {
+        suggester.cancel();
+        historyField.setText(state.suggestion.historyFile);
+        kellyShareField.setText(state.suggestion.kellyShare);
+        maxDrawdownField.setText(state.suggestion.maxDrawdownPct);
+        showSuggestion(null);
+        if (!state.suggestion.historyFile.trim().isEmpty()) {
+            suggester.calculateQuietly();
+        }
+    }
+
+    private void browseHistoryFile() {
+        JFileChooser chooser = new JFileChooser();
+        String current = historyField.getText().trim();
+        if (!current.isEmpty()) {
+            chooser.setSelectedFile(new java.io.File(current));
+        }
+        if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            historyField.setText(chooser.getSelectedFile().getPath());
+            suggester.calculateNow();
+        }
+    }
+
+    // Runs on the EDT.
+    private HistoryRequest readHistoryRequest() throws Exception {
+        HistoryRequest request = new HistoryRequest();
+        request.file = historyField.getText().trim();
+        if (request.file.isEmpty()) {
+            throw new Exception("Please choose a trade history file.");
+        }
+        request.kellyShare = fields.number(kellyShareField);
+        request.maxDrawdown = fields.number(maxDrawdownField) / 100.0;
+        if (!(request.kellyShare > 0) || !(request.maxDrawdown > 0 && request.maxDrawdown < 1)) {
+            throw new Exception("Kelly Share must be positive and Max Drawdown between 0 and 100%.");
+        }
+        return request;
+    }
+
+    // Runs on a calculator worker thread. Only the lines added to the file since the last
+    // update are read.
+    private static RiskSuggestion suggest(HistoryRequest request) throws Exception {
+        TradeHistory history = TradeHistory.forFile(Paths.get(request.file));
+        history.update();
+        RiskSuggestion s = new RiskSuggestion();
+        history.suggest(request.kellyShare, request.maxDrawdown, s);
+        return s;
+    }
+
+    // Null clears the suggestions.
+    private void showSuggestion(RiskSuggestion s) {
+        suggestion = s;
+        for (int i = 0; i < suggestionButtons.length; i++) {
+            double f = s == null ? Double.NaN : suggestionValue(s, i);
+            String text = Double.isNaN(f) ? SUGGESTION_LABELS[i] : String.format("%s %.2f%%", SUGGESTION_LABELS[i], f * 100.0);
+            if (!text.equals(suggestionButtons[i].getText())) {
+                suggestionButtons[i].setText(text);
+            }
+            suggestionButtons[i].setEnabled(!Double.isNaN(f));
+        }
+        if (s == null) {
+            historyLabel.setText(" ");
+        } else if (Double.isNaN(s.kelly)) {
+            historyLabel.setText(s.trades + " trades; at least one win and one loss are needed.");
+        } else {
+            historyLabel.setText(String.format("%d trades, win rate %.1f%%, payoff %.2f, mean %.2fR, sd %.2fR%s",
+                    s.trades, s.winRate * 100.0, s.payoff, s.meanR, s.sdR,
+                    s.skippedLines > 0 ? ", " + s.skippedLines + " lines skipped" : ""));
+        }
+    }
+
+    private static double suggestionValue(RiskSuggestion s, int which) {
+        switch (which) {
+            case SUGGEST_KELLY:
+                return s.kelly;
+            case SUGGEST_FRACTIONAL:
+                return s.kellyFraction;
+            case SUGGEST_OPTIMAL_F:
+                return s.optimalF;
+            case SUGGEST_RUIN:
+                return s.ruinBounded;
+            default:
+                return Double.NaN;
+        }
+    }
+
+    private void useSuggestion(int which) {
+        if (suggestion != null) {
+            riskField.setText(String.format("%.2f", suggestionValue(suggestion, which) * 100.0));
+        }
+    }
+
+    private static class HistoryRequest {
+        String file;
+        double kellyShare;
+        double maxDrawdown;
+    }
+}
@@ -0,0 +1,396 @@
+import javax.swing.*;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Saves and restores every tab of both calculator modes as one compact binary snapshot.
+//
+// File layout (big-endian):
+//   int magic 'PSCS', short format version,
+//   then per mode (Position, Profit): int selected tab, int tab count,
+//   and per tab: int length, followed by that many bytes of encoded TabState;
+//   then double portfolio risk cap (NaN for none).
+// A new version may only append fields to the end of a tab record. Older files load with the
+// fields they lack left at their defaults, and a newer file loads as far as this version knows
+// it: the record length skips whatever a later version added.
+//
+// Autosave runs on a timer: on the EDT it re-encodes only tabs whose state changed since the
+// last save (the rest reuse their cached bytes), and a background thread writes the file to a
+// temporary sibling and atomically moves it over the old snapshot.
+public class SessionStore {
+    private static final int MAGIC = 0x50534353; // "PSCS"
+    // Format versions, each adding to the tab record:
+    //    1  the trade: balance, risk, stop, entries, TPs, close price, live/calculated flags
+    //    2  simulation inputs: TP hit %, stop hit %, path count
+    //    3  sensitivity sweep ranges
+    //    4  bar replay file and start
+    //    5  the tab's exposure; the portfolio risk cap after the tabs
+    //    6  instrument tick, lot and minimum notional
+    //    7  instrument symbol, multiplier and fee
+    //    8  risk suggestion trade history, Kelly share and maximum drawdown
+    //    9  reverse solve targets
+    //   10  live price feed source and pace
+    //   11  fan-out accounts file
+    //   12  entry strategy name
+    private static final short VERSION = 12;
+    private static final int AUTOSAVE_MS = 3000;
+
+    public static class Session {
+        public List<TabState> positionTabs = new ArrayList<>();
+        public int positionSelected;
+        public List<TabState> profitTabs = new ArrayList<>();
+        public int profitSelected;
+        public double riskCap = Double.NaN;
+    }
+
+    private final Path file;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "session-autosave");
+        t.setDaemon(true);
+        return t;
+    });
+    // Encoded bytes and the modCount they were encoded at, per tab. EDT only.
+    private final Map<TabState, byte[]> encoded = new IdentityHashMap<>();
+    private final Map<TabState, Integer> encodedAt = new IdentityHashMap<>();
+    private byte[] lastHeader;
+    private List<byte[]> lastTabs = new ArrayList<>();
+    private Timer timer;
+
+    public SessionStore(Path file) {
+        this.file = file;
+    }
+
+    public static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), ".position-size-calculator", "session.bin");
+    }
+
+    // Returns the saved session, or null if there is none or it cannot be read.
+    public Session load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return decode(Files.readAllBytes(file));
+        } catch (IOException ex) {
+            System.err.println("Could not restore session from " + file + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    public void startAutosave(PositionCalculatorContainer positions, ProfitCalculatorContainer profits,
+                              Portfolio portfolio) {
+        timer = new Timer(AUTOSAVE_MS, e -> save(positions, profits, portfolio, false));
+        timer.start();
+    }
+
+    // Call on the EDT. With wait set the write finishes before returning (used on exit).
+    public void save(PositionCalculatorContainer positions, ProfitCalculatorContainer profits, Portfolio portfolio,
+                     boolean wait) {
+        List<TabState> positionTabs = positions.getTabStates();
+        List<TabState> profitTabs = profits.getTabStates();
+        byte[] header = encodeHeader(positions.getSelectedTabIndex(), positionTabs.size(),
+                profits.getSelectedTabIndex(), profitTabs.size(), portfolio.getRiskCap());
+        List<byte[]> tabs = new ArrayList<>(positionTabs.size() + profitTabs.size());
+        for (TabState state : positionTabs) {
+            tabs.add(encodedBytes(state));
+        }
+        for (TabState state : profitTabs) {
+            tabs.add(encodedBytes(state));
+        }
+        forgetClosedTabs(positionTabs, profitTabs);
+        if (!wait && Arrays.equals(header, lastHeader) && sameTabs(tabs, lastTabs)) {
+            return;
+        }
+        lastHeader = header;
+        lastTabs = tabs;
+        Future<?> pending = writer.submit(() -> write(header, positionTabs.size(), tabs));
+        if (wait) {
+            try {
+                pending.get();
+            } catch (Exception ex) {
+                System.err.println("Could not save session: " + ex.getMessage());
+            }
+        }
+    }
+
+    private byte[] encodedBytes(TabState state) {
+        byte[] bytes = encoded.get(state);
+        Integer at = encodedAt.get(state);
+        if (bytes == null || at == null || at != state.modCount) {
+            byte[] fresh = encodeTab(state);
+            // Keep the old array when nothing actually changed so the identity check below
+            // can tell the snapshot is unchanged.
+            if (bytes == null || !Arrays.equals(bytes, fresh)) {
+                bytes = fresh;
+                encoded.put(state, bytes);
+            }
+            encodedAt.put(state, state.modCount);
+        }
+        return bytes;
+    }
+
+    private void forgetClosedTabs(List<TabState> positionTabs, List<TabState> profitTabs) {
+        if (encoded.size() > positionTabs.size() + profitTabs.size()) {
+            Map<TabState, Boolean> open = new IdentityHashMap<>();
+            for (TabState s : positionTabs) {
+                open.put(s, Boolean.TRUE);
+            }
+            for (TabState s : profitTabs) {
+                open.put(s, Boolean.TRUE);
+            }
+            encoded.keySet().retainAll(open.keySet());
+            encodedAt.keySet().retainAll(open.keySet());
+        }
+    }
+
+    private static boolean sameTabs(List<byte[]> a, List<byte[]> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Runs on the writer thread.
+    private void write(byte[] header, int positionCount, List<byte[]> tabs) {
+        int size = header.length;
+        for (byte[] tab : tabs) {
+            size += 4 + tab.length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        // Header holds magic, version and the Position mode's selection and count; the Profit
+        // mode's pair goes in after the Position tabs and the risk cap after all of them.
+        buf.put(header, 0, 14);
+        for (int i = 0; i < tabs.size(); i++) {
+            if (i == positionCount) {
+                buf.put(header, 14, 8);
+            }
+            buf.putInt(tabs.get(i).length).put(tabs.get(i));
+        }
+        if (positionCount == tabs.size()) {
+            buf.put(header, 14, 8);
+        }
+        buf.put(header, 22, 8);
+        buf.flip();
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) {
+                    ch.write(buf);
+                }
+                ch.force(true);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            System.err.println("Could not save session to " + file + ": " + ex.getMessage());
+        }
+    }
+
+    private static byte[] encodeHeader(int positionSelected, int positionCount, int profitSelected, int profitCount,
+                                       double riskCap) {
+        ByteBuffer buf = ByteBuffer.allocate(30);
+        buf.putInt(MAGIC).putShort(VERSION);
+        buf.putInt(positionSelected).putInt(positionCount);
+        buf.putInt(profitSelected).putInt(profitCount);
+        buf.putDouble(riskCap);
+        return buf.array();
+    }
+
+    static byte[] encodeTab(TabState s) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(s.title);
+            out.writeUTF(s.balance);
+            out.writeUTF(s.risk);
+            out.writeUTF(s.stopLoss);
+            out.writeByte(s.entryType);
+            out.writeByte(s.curve);
+            out.writeUTF(s.curveParam);
+            out.writeShort(s.entryPrices.length);
+            for (int i = 0; i < s.entryPrices.length; i++) {
+                out.writeUTF(s.entryPrices[i]);
+                out.writeBoolean(s.entryTriggered[i]);
+            }
+            out.writeByte(s.tpPrices.length);
+            for (int i = 0; i < s.tpPrices.length; i++) {
+                out.writeUTF(s.tpPrices[i]);
+                out.writeUTF(s.tpPcts[i]);
+                out.writeBoolean(s.tpTriggered[i]);
+                out.writeUTF(i < s.tpHitPcts.length ? s.tpHitPcts[i] : "");
+            }
+            out.writeUTF(s.closePrice);
+            out.writeByte((s.live ? 1 : 0) | (s.calculated ? 2 : 0));
+            out.writeUTF(s.simulation.stopHitPct);
+            out.writeInt(s.simulation.paths);
+            out.writeByte(s.sweep.length);
+            for (String field : s.sweep) {
+                out.writeUTF(field);
+            }
+            out.writeUTF(s.replay.file);
+            out.writeUTF(s.replay.from);
+            out.writeDouble(s.exposure.riskUSD);
+            out.writeDouble(s.exposure.notionalUSD);
+            out.writeBoolean(s.exposure.isLong);
+            out.writeUTF(s.instrument.tickSize);
+            out.writeUTF(s.instrument.lotSize);
+            out.writeUTF(s.instrument.minNotional);
+            out.writeUTF(s.instrument.symbol);
+            out.writeUTF(s.instrument.multiplier);
+            out.writeUTF(s.instrument.feePct);
+            out.writeUTF(s.suggestion.historyFile);
+            out.writeUTF(s.suggestion.kellyShare);
+            out.writeUTF(s.suggestion.maxDrawdownPct);
+            out.writeByte(s.solve.length);
+            for (String field : s.solve) {
+                out.writeUTF(field);
+            }
+            out.writeUTF(s.feed.source);
+            out.writeUTF(s.feed.rate);
+            out.writeUTF(s.accountsFile);
+            out.writeUTF(s.entryStrategy);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Session decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a session file");
+        }
+        short version = in.readShort();
+        if (version < 1) {
+            throw new IOException("unsupported session format version " + version);
+        }
+        Session session = new Session();
+        session.positionSelected = in.readInt();
+        readTabs(in, version, in.readInt(), session.positionTabs);
+        session.profitSelected = in.readInt();
+        readTabs(in, version, in.readInt(), session.profitTabs);
+        if (version >= 5) {
+            session.riskCap = in.readDouble();
+        }
+        return session;
+    }
+
+    private static void readTabs(DataInputStream in, int version, int count, List<TabState> tabs) throws IOException {
+        for (int t = 0; t < count; t++) {
+            byte[] record = new byte[in.readInt()];
+            in.readFully(record);
+            // Fields a newer version appended are left unread at the end of the record.
+            tabs.add(readTab(new DataInputStream(new ByteArrayInputStream(record)), Math.min(version, VERSION)));
+        }
+    }
+
+    private static TabState readTab(DataInputStream in, int version) throws IOException {
+        TabState s = new TabState(in.readUTF());
+        s.balance = in.readUTF();
+        s.risk = in.readUTF();
+        s.stopLoss = in.readUTF();
+        s.entryType = in.readByte();
+        s.curve = in.readByte();
+        s.curveParam = in.readUTF();
+        int entries = in.readShort();
+        s.entryPrices = new String[entries];
+        s.entryTriggered = new boolean[entries];
+        for (int i = 0; i < entries; i++) {
+            s.entryPrices[i] = in.readUTF();
+            s.entryTriggered[i] = in.readBoolean();
+        }
+        int tps = in.readByte();
+        s.tpPrices = new String[tps];
+        s.tpPcts = new String[tps];
+        s.tpTriggered = new boolean[tps];
+        s.tpHitPcts = new String[tps];
+        for (int i = 0; i < tps; i++) {
+            s.tpPrices[i] = in.readUTF();
+            s.tpPcts[i] = in.readUTF();
+            s.tpTriggered[i] = in.readBoolean();
+            s.tpHitPcts[i] = version >= 2 ? in.readUTF() : "";
+        }
+        s.closePrice = in.readUTF();
+        int flags = in.readByte();
+        s.live = (flags & 1) != 0;
+        s.calculated = (flags & 2) != 0;
+        if (version >= 2) {
+            s.simulation.stopHitPct = in.readUTF();
+            s.simulation.paths = in.readInt();
+        }
+        if (version >= 3) {
+            s.sweep = new String[in.readByte()];
+            for (int i = 0; i < s.sweep.length; i++) {
+                s.sweep[i] = in.readUTF();
+            }
+        }
+        if (version >= 4) {
+            s.replay.file = in.readUTF();
+            s.replay.from = in.readUTF();
+        }
+        if (version >= 5) {
+            s.exposure.riskUSD = in.readDouble();
+            s.exposure.notionalUSD = in.readDouble();
+            s.exposure.isLong = in.readBoolean();
+        }
+        if (version >= 6) {
+            s.instrument.tickSize = in.readUTF();
+            s.instrument.lotSize = in.readUTF();
+            s.instrument.minNotional = in.readUTF();
+        }
+        if (version >= 7) {
+            s.instrument.symbol = in.readUTF();
+            s.instrument.multiplier = in.readUTF();
+            s.instrument.feePct = in.readUTF();
+        }
+        if (version >= 8) {
+            s.suggestion.historyFile = in.readUTF();
+            s.suggestion.kellyShare = in.readUTF();
+            s.suggestion.maxDrawdownPct = in.readUTF();
+        }
+        if (version >= 9) {
+            s.solve = new String[in.readByte()];
+            for (int i = 0; i < s.solve.length; i++) {
+                s.solve[i] = in.readUTF();
+            }
+        }
+        if (version >= 10) {
+            s.feed.source = in.readUTF();
+            s.feed.rate = in.readUTF();
+        }
+        if (version >= 11) {
+            s.accountsFile = in.readUTF();
+        }
+        if (version >= 12) {
+            s.entryStrategy = in.readUTF();
+        }
+        return s;
+    }
+}
@@ -0,0 +1,190 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.LockSupport;
+
+// Load-test client for SizingServer.
+//
+//   --load-test [port] [connections] [seconds] [pipeline] [rate]
+//
+// Every connection runs on its own thread and sends pipeline requests per round trip, mixing
+// size and profit requests. With a rate (requests per second over all connections) round trips
+// are sent on a fixed schedule and latency is measured from the scheduled send time, so a slow
+// reply also counts against the requests queued behind it; without one each connection sends
+// as fast as replies come back. The first fifth of the run (at most two seconds) is warm-up and
+// is not measured.
+public class SizingLoadTest {
+    private static final String[] REQUESTS = {
+            "size,10000,1,95,single,100\n",
+            "size,25000,0.5,1.0850,dca,1.0920,1.0900,1.0880\n",
+            "size,5000,2,110,exp,100,102,104,106\n",
+            "profit,10000,1,95,dca,,2,100,98,110,50,1,120,50,0\n",
+    };
+
+    private static final long SPIN_NANOS = 100_000;
+
+    public static int run(String[] args) {
+        int port = SizingServer.DEFAULT_PORT;
+        int connections = 4;
+        int seconds = 10;
+        int pipeline = 1;
+        double rate = 0;
+        try {
+            if (args.length > 1) {
+                port = Integer.parseInt(args[1]);
+            }
+            if (args.length > 2) {
+                connections = Integer.parseInt(args[2]);
+            }
+            if (args.length > 3) {
+                seconds = Integer.parseInt(args[3]);
+            }
+            if (args.length > 4) {
+                pipeline = Integer.parseInt(args[4]);
+            }
+            if (args.length > 5) {
+                rate = Double.parseDouble(args[5]);
+            }
+        } catch (NumberFormatException ex) {
+            connections = -1;
+        }
+        if (connections < 1 || seconds < 1 || pipeline < 1 || rate < 0) {
+            System.err.println("Usage: PositionSizeCalculator --load-test [port] [connections] [seconds] [pipeline] [rate]");
+            return 2;
+        }
+
+        long now = System.nanoTime();
+        long warmupEnd = now + Math.min(2_000_000_000L, seconds * 200_000_000L);
+        long end = now + seconds * 1_000_000_000L;
+        // Nanoseconds between one connection's round trips when pacing.
+        long interval = rate > 0 ? (long) (1e9 * pipeline * connections / rate) : 0;
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        Worker[] workers = new Worker[connections];
+        for (int i = 0; i < connections; i++) {
+            workers[i] = new Worker(address, pipeline, i, warmupEnd, end, interval);
+            workers[i].start();
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        long requests = 0;
+        long errors = 0;
+        for (Worker w : workers) {
+            try {
+                w.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return 1;
+            }
+            if (w.failure != null) {
+                System.err.println("Error: " + w.failure.getMessage());
+                return 1;
+            }
+            latency.add(w.latency);
+            requests += w.requests;
+            errors += w.errors;
+        }
+        double measured = (end - warmupEnd) / 1e9;
+        System.err.printf("%d requests in %.1f s over %d connection(s), %d per round trip: %.0f req/s, %d error replies.%n",
+                requests, measured, connections, pipeline, requests / measured, errors);
+        System.err.println("Round-trip latency: " + latency.summary());
+        return errors == 0 ? 0 : 1;
+    }
+
+    private static class Worker extends Thread {
+        private final InetSocketAddress address;
+        private final int pipeline;
+        private final long warmupEnd;
+        private final long end;
+        private final long interval;
+        private final ByteBuffer batch;
+        private final ByteBuffer reply = ByteBuffer.allocate(64 * 1024);
+        final LatencyHistogram latency = new LatencyHistogram();
+        long requests;
+        long errors;
+        IOException failure;
+
+        Worker(InetSocketAddress address, int pipeline, int index, long warmupEnd, long end, long interval) {
+            super("load-test-" + index);
+            this.address = address;
+            this.pipeline = pipeline;
+            this.warmupEnd = warmupEnd;
+            this.end = end;
+            this.interval = interval;
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < pipeline; i++) {
+                sb.append(REQUESTS[(index + i) % REQUESTS.length]);
+            }
+            batch = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public void run() {
+            try (SocketChannel ch = SocketChannel.open(address)) {
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                long next = System.nanoTime();
+                while (true) {
+                    long sent;
+                    if (interval > 0) {
+                        // Park for most of the gap, then spin: a park can oversleep by tens of
+                        // microseconds, which would show up as latency.
+                        long wait;
+                        while ((wait = next - System.nanoTime()) > 0) {
+                            if (wait > SPIN_NANOS) {
+                                LockSupport.parkNanos(wait - SPIN_NANOS);
+                            } else {
+                                Thread.onSpinWait();
+                            }
+                        }
+                        sent = next;
+                        next += interval;
+                    } else {
+                        sent = System.nanoTime();
+                    }
+                    if (sent >= end) {
+                        return;
+                    }
+                    batch.rewind();
+                    while (batch.hasRemaining()) {
+                        ch.write(batch);
+                    }
+                    int bad = readReplies(ch);
+                    long done = System.nanoTime();
+                    if (sent >= warmupEnd) {
+                        latency.record(done - sent);
+                        requests += pipeline;
+                        errors += bad;
+                    }
+                }
+            } catch (IOException ex) {
+                failure = ex;
+            }
+        }
+
+        // Reads until every request of the round trip has its reply; returns the ERR count.
+        private int readReplies(SocketChannel ch) throws IOException {
+            int lines = 0;
+            int bad = 0;
+            boolean lineStart = true;
+            while (lines < pipeline) {
+                reply.clear();
+                if (ch.read(reply) < 0) {
+                    throw new IOException("Server closed the connection.");
+                }
+                for (int i = 0; i < reply.position(); i++) {
+                    byte b = reply.get(i);
+                    if (lineStart && b == 'E') {
+                        bad++;
+                    }
+                    lineStart = b == '\n';
+                    if (lineStart) {
+                        lines++;
+                    }
+                }
+            }
+            return bad;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Headless sizing service for trading bots: a plain line protocol over a loopback TCP socket,
+// answered by PositionSizingEngine and ProfitEngine.
+//
+// Requests, one per line, comma separated:
+//   size,balance,risk %,stop loss,entry type,entry 1[,entry 2,...]
+//   profit,balance,risk %,stop loss,entry type,close price,entry count,entries...[,tp price,tp %,hit (0/1)]...
+// entry type is 0/1/2 or single/dca/exp as in batch mode; a blank close price means none.
+// Replies, one line per request and in request order:
+//   OK,side,avg entry,position size (USD),risk (USD),allocation 1[,...]
+//   OK,side,avg entry,position size (USD),risk (USD),total profit,risk-reward,remaining %,tp profit 1[,...]
+//   ERR,<status>
+//
+// Clients may pipeline: every complete line in a read is answered, and all of its replies go
+// back in a single write. Each connection is served by its own thread with its own buffers and
+// result holders, so nothing is shared or allocated per request. Virtual threads are used when
+// the runtime has them (Java 21+); the build targets 17, so they are looked up reflectively and
+// platform threads are the fallback.
+public class SizingServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7878;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Reply room, with amounts at the widest AsciiNumbers.putFixed can print them: the sizing
+    // every OK reply starts with, and each further amount with its comma.
+    private static final int SIZING_LENGTH = "OK,Short,".length() + AsciiNumbers.maxFixedLength(4)
+            + 1 + AsciiNumbers.maxFixedLength(2) + 1 + AsciiNumbers.maxFixedLength(2);
+    private static final int AMOUNT_LENGTH = 1 + AsciiNumbers.maxFixedLength(2);
+
+    private final ServerSocketChannel server;
+    private final ExecutorService connections;
+    private final boolean virtualThreads;
+
+    public SizingServer(int port) throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        connections = virtual != null ? virtual : Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "sizing-connection");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static int run(String[] args) {
+        int port = DEFAULT_PORT;
+        try {
+            if (args.length > 1) {
+                port = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException ex) {
+            System.err.println("Usage: PositionSizeCalculator --serve [port]");
+            return 2;
+        }
+        try (SizingServer server = new SizingServer(port)) {
+            System.err.println("Sizing server listening on " + server.getAddress() + " ("
+                    + (server.virtualThreads ? "virtual" : "platform") + " threads).");
+            server.acceptLoop();
+        } catch (IOException ex) {
+            System.err.println("Error: " + ex.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    // Accepts connections on a daemon thread until the server is closed.
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "sizing-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    // Accepts connections on the calling thread until the server is closed.
+    public void acceptLoop() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                connections.execute(() -> new Connection(channel).serve());
+            } catch (ClosedChannelException ex) {
+                return;
+            } catch (IOException ex) {
+                System.err.println("Accept failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        connections.shutdownNow();
+    }
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+        private final PositionResult sizing = new PositionResult(16);
+        private final ProfitResult profit = new ProfitResult(16);
+        private double[] entries = new double[16];
+        private double[] tpPrices = new double[16];
+        private double[] tpPcts = new double[16];
+        private boolean[] tpHit = new boolean[16];
+        // Start of the next unread field of the current line.
+        private int cursor;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void serve() {
+            try (SocketChannel ch = channel) {
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                while (ch.read(in) >= 0) {
+                    int limit = in.position();
+                    int lineStart = 0;
+                    for (int i = 0; i < limit; i++) {
+                        if (in.get(i) == '\n') {
+                            handleLine(lineStart, i);
+                            lineStart = i + 1;
+                        }
+                    }
+                    if (lineStart == 0 && limit == in.capacity()) {
+                        reply("ERR,LINE_TOO_LONG");
+                        flush();
+                        return;
+                    }
+                    flush();
+                    in.limit(limit).position(lineStart);
+                    in.compact();
+                }
+            } catch (IOException ex) {
+                // The client went away; nothing to report back.
+            }
+        }
+
+        private void handleLine(int from, int to) throws IOException {
+            if (to > from && in.get(to - 1) == '\r') {
+                to--;
+            }
+            if (from >= to || in.get(from) == '#') {
+                return;
+            }
+            cursor = from;
+            int command = in.get(from) | 0x20;
+            skipField(to);
+            if (command == 's') {
+                size(to);
+            } else if (command == 'p') {
+                profit(to);
+            } else {
+                reply("ERR,UNKNOWN_COMMAND");
+            }
+        }
+
+        private void size(int to) throws IOException {
+            double balance = nextDouble(to);
+            double riskPct = nextDouble(to);
+            double stopLoss = nextDouble(to);
+            int entryType = nextEntryType(to);
+            int n = 0;
+            while (cursor <= to) {
+                entries = grow(entries, n);
+                entries[n++] = nextDouble(to);
+            }
+            int status = sizeEntries(n, entryType, stopLoss, balance, riskPct);
+            if (status != PositionSizingEngine.OK) {
+                replyStatus(status);
+                return;
+            }
+            ensureOut(SIZING_LENGTH + AMOUNT_LENGTH * sizing.count + 1);
+            putSizing();
+            for (int i = 0; i < sizing.count; i++) {
+                out.put((byte) ',');
+                AsciiNumbers.putFixed(out, sizing.allocations[i], 2);
+            }
+            out.put((byte) '\n');
+        }
+
+        private void profit(int to) throws IOException {
+            double balance = nextDouble(to);
+            double riskPct = nextDouble(to);
+            double stopLoss = nextDouble(to);
+            int entryType = nextEntryType(to);
+            int closeStart = cursor;
+            double closePrice = nextDouble(to);
+            boolean valid = cursor - 1 == closeStart || !Double.isNaN(closePrice);
+            double count = nextDouble(to);
+            int n = 0;
+            for (int i = 0; i < count && cursor <= to; i++) {
+                entries = grow(entries, n);
+                entries[n++] = nextDouble(to);
+            }
+            if (!valid || n != count) {
+                replyStatus(PositionSizingEngine.ERR_INVALID_INPUT);
+                return;
+            }
+            int tpCount = 0;
+            double pctSum = 0.0;
+            while (cursor <= to) {
+                tpPrices = grow(tpPrices, tpCount);
+                tpPcts = grow(tpPcts, tpCount);
+                if (tpHit.length == tpCount) {
+                    boolean[] grown = new boolean[tpCount * 2];
+                    System.arraycopy(tpHit, 0, grown, 0, tpCount);
+                    tpHit = grown;
+                }
+                tpPrices[tpCount] = nextDouble(to);
+                tpPcts[tpCount] = nextDouble(to);
+                double hit = nextDouble(to);
+                valid &= !Double.isNaN(tpPrices[tpCount]) && tpPcts[tpCount] >= 0 && (hit == 0 || hit == 1);
+                tpHit[tpCount] = hit == 1;
+                pctSum += tpPcts[tpCount];
+                tpCount++;
+            }
+            if (!valid || pctSum > 100.0 + 1e-9) {
+                replyStatus(PositionSizingEngine.ERR_INVALID_INPUT);
+                return;
+            }
+            int status = sizeEntries(n, entryType, stopLoss, balance, riskPct);
+            if (status != PositionSizingEngine.OK) {
+                replyStatus(status);
+                return;
+            }
+            ProfitEngine.calculate(sizing, tpPrices, tpPcts, tpHit, tpCount, closePrice, profit);
+            ensureOut(SIZING_LENGTH + AMOUNT_LENGTH * (2 + tpCount) + 1 + AsciiNumbers.maxFixedLength(4) + 1);
+            putSizing();
+            out.put((byte) ',');
+            AsciiNumbers.putFixed(out, profit.totalProfit, 2);
+            out.put((byte) ',');
+            AsciiNumbers.putFixed(out, profit.riskReward, 4);
+            out.put((byte) ',');
+            AsciiNumbers.putFixed(out, profit.remainingPct, 2);
+            for (int i = 0; i < tpCount; i++) {
+                out.put((byte) ',');
+                AsciiNumbers.putFixed(out, profit.tpProfits[i], 2);
+            }
+            out.put((byte) '\n');
+        }
+
+        private int sizeEntries(int n, int entryType, double stopLoss, double balance, double riskPct) {
+            if (entryType < 0) {
+                return PositionSizingEngine.ERR_INVALID_INPUT;
+            }
+            for (int i = 0; i < n; i++) {
+                if (Double.isNaN(entries[i])) {
+                    return PositionSizingEngine.ERR_INVALID_INPUT;
+                }
+            }
+            int status = PositionSizingEngine.orderLadder(entries, n, stopLoss);
+            if (status != PositionSizingEngine.OK) {
+                return status;
+            }
+            return PositionSizingEngine.size(entries, n, entryType, stopLoss, balance, riskPct, sizing);
+        }
+
+        private void putSizing() {
+            AsciiNumbers.putAscii(out, sizing.isLong ? "OK,Long," : "OK,Short,");
+            AsciiNumbers.putFixed(out, sizing.avgEntry, 4);
+            out.put((byte) ',');
+            AsciiNumbers.putFixed(out, sizing.positionSizeUSD, 2);
+            out.put((byte) ',');
+            AsciiNumbers.putFixed(out, sizing.riskUSD, 2);
+        }
+
+        private double nextDouble(int to) {
+            int start = cursor;
+            int end = skipField(to);
+            return AsciiNumbers.parseDouble(in, start, end);
+        }
+
+        private int nextEntryType(int to) {
+            int start = cursor;
+            int end = skipField(to);
+            return BatchSizer.parseEntryType(in, start, end);
+        }
+
+        // Moves the cursor past the current field and returns where the field ended.
+        private int skipField(int to) {
+            int i = cursor;
+            while (i < to && in.get(i) != ',') {
+                i++;
+            }
+            cursor = i + 1;
+            return i;
+        }
+
+        private void replyStatus(int status) throws IOException {
+            ensureOut(32);
+            AsciiNumbers.putAscii(out, "ERR,");
+            AsciiNumbers.putAscii(out, BatchSizer.STATUS_NAMES[status]);
+            out.put((byte) '\n');
+        }
+
+        private void reply(String line) throws IOException {
+            ensureOut(line.length() + 1);
+            AsciiNumbers.putAscii(out, line);
+            out.put((byte) '\n');
+        }
+
+        private void ensureOut(int bytes) throws IOException {
+            if (out.remaining() < bytes) {
+                flush();
+                if (out.capacity() < bytes) {
+                    out = ByteBuffer.allocate(bytes);
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+
+        private static double[] grow(double[] values, int n) {
+            if (n < values.length) {
+                return values;
+            }
+            double[] grown = new double[n * 2];
+            System.arraycopy(values, 0, grown, 0, n);
+            return grown;
+        }
+    }
+}
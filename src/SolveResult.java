@@ -0,0 +1,38 @@
+// Mutable result holder filled in place by ReverseSolver. The ladder and the search fields are
+// the solver's working state; out.position is the position sized at the solution.
+public class SolveResult {
+    public int status;
+    public boolean stopSolved;
+    public boolean spacingSolved;
+    public double stopLoss;
+    // Distance between neighbouring rungs; NaN unless solved.
+    public double spacing;
+    // The smaller of Max Position and balance x Max Leverage; infinite without either.
+    public double cap;
+    public int binding;
+    // Position size / balance at the solution.
+    public double leverage;
+    // Sizings (or ladder averages) the search tried.
+    public int evaluations;
+    public final PositionResult position = new PositionResult();
+    // Rung 0 is Entry 1, the one furthest from the stop.
+    public double[] ladder = new double[3];
+    public int count;
+
+    // Working state for ReverseSolver: 1 for a long, -1 for a short.
+    int direction;
+    double anchor;
+    double nearest;
+    double targetGap;
+    WeightCurve curve;
+
+    public void ensureCapacity(int n) {
+        if (ladder.length < n) {
+            ladder = new double[Math.max(n, ladder.length * 2)];
+        }
+    }
+
+    public boolean isOk() {
+        return status == PositionSizingEngine.OK;
+    }
+}
@@ -0,0 +1,170 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Cold-start measurement.
+//
+//   --startup-benchmark [runs]  launches the calculator runs times in fresh JVMs and reports the
+//                               time from launch to the window's first paint, with and without
+//                               the AppCDS archive when one sits next to the jar.
+//   --first-paint               what each launch runs: opens the window as usual and exits as
+//                               soon as it has painted. Headless (as in the Maven build, where it
+//                               is the AppCDS training run) it builds both calculators and paints
+//                               them into an image instead.
+public class StartupBenchmark {
+    public static final String ARCHIVE_NAME = "PositionSizeCalculator.jsa";
+    private static final String PAINTED = "first-paint";
+    private static final int DEFAULT_RUNS = 10;
+
+    public static int run(String[] args) {
+        int runs = DEFAULT_RUNS;
+        try {
+            if (args.length > 1) {
+                runs = Integer.parseInt(args[1]);
+            }
+        } catch (NumberFormatException ex) {
+            runs = 0;
+        }
+        if (runs < 1) {
+            System.err.println("Usage: PositionSizeCalculator --startup-benchmark [runs]");
+            return 2;
+        }
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        // Absolute, so the children's class path matches the one the archive was dumped with.
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(Paths.get(entry).toAbsolutePath());
+        }
+        Path archive = archiveFor(classPath.toString());
+        try {
+            report("Without AppCDS archive", measure(runs, java, classPath.toString(), null));
+            if (archive != null) {
+                report("With " + archive, measure(runs, java, classPath.toString(), archive));
+            } else {
+                System.err.println("No " + ARCHIVE_NAME + " next to the jar; build with 'mvn package' to create one.");
+            }
+        } catch (IOException ex) {
+            System.err.println("Error: " + ex.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    private static Path archiveFor(String classPath) {
+        Path jar = Paths.get(classPath.split(File.pathSeparator)[0]);
+        Path archive = jar.resolveSibling(ARCHIVE_NAME);
+        return Files.isRegularFile(archive) ? archive : null;
+    }
+
+    // Milliseconds from process start to the child reporting its first paint, per run.
+    private static long[] measure(int runs, String java, String classPath, Path archive) throws IOException {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(java);
+            if (archive != null) {
+                command.add("-XX:SharedArchiveFile=" + archive);
+            }
+            command.add("-cp");
+            command.add(classPath);
+            command.add("PositionSizeCalculator");
+            command.add("--first-paint");
+            long start = System.nanoTime();
+            Process child = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(child.getInputStream(),
+                    StandardCharsets.US_ASCII))) {
+                String line;
+                while ((line = out.readLine()) != null && !line.equals(PAINTED)) { }
+                if (line == null) {
+                    throw new IOException("The calculator exited without painting.");
+                }
+                millis[i] = (System.nanoTime() - start) / 1_000_000;
+            } finally {
+                child.destroy();
+            }
+            try {
+                child.waitFor();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted.");
+            }
+        }
+        return millis;
+    }
+
+    private static void report(String label, long[] millis) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        System.err.printf("%s: median %d ms, min %d ms, max %d ms over %d runs.%n", label,
+                sorted[sorted.length / 2], sorted[0], sorted[sorted.length - 1], sorted.length);
+    }
+
+    public static void firstPaint() {
+        if (GraphicsEnvironment.isHeadless()) {
+            SwingUtilities.invokeLater(StartupBenchmark::paintOffscreen);
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            PositionSizeCalculator frame = new PositionSizeCalculator();
+            // Painted in the same pass as the content, on the top layer, so after it.
+            JComponent probe = new JComponent() {
+                @Override
+                protected void paintComponent(Graphics g) {
+                    painted();
+                }
+            };
+            probe.setBounds(0, 0, 1, 1);
+            frame.getLayeredPane().add(probe, JLayeredPane.DRAG_LAYER);
+            frame.setVisible(true);
+        });
+    }
+
+    // Builds and paints both calculators the way the window would, without a display.
+    private static void paintOffscreen() {
+        Portfolio portfolio = new Portfolio();
+        JPanel content = new JPanel(new BorderLayout());
+        JTabbedPane modes = new JTabbedPane();
+        modes.addTab("Position Calculator", new PositionCalculatorContainer(new ArrayList<>(), 0, portfolio));
+        modes.addTab("Profit Calculator", new ProfitCalculatorContainer(new ArrayList<>(), 0, portfolio));
+        content.add(modes, BorderLayout.CENTER);
+        content.add(new PortfolioBar(portfolio), BorderLayout.SOUTH);
+        BufferedImage image = new BufferedImage(1000, 700, BufferedImage.TYPE_INT_RGB);
+        for (JComponent panel : new JComponent[]{new PositionCalculatorPanel(), new ProfitCalculatorPanel(), content}) {
+            panel.setSize(image.getWidth(), image.getHeight());
+            layout(panel);
+            Graphics2D g = image.createGraphics();
+            panel.paint(g);
+            g.dispose();
+        }
+        painted();
+    }
+
+    private static void layout(Component c) {
+        c.doLayout();
+        if (c instanceof Container) {
+            for (Component child : ((Container) c).getComponents()) {
+                layout(child);
+            }
+        }
+    }
+
+    private static void painted() {
+        System.out.println(PAINTED);
+        System.out.flush();
+        System.exit(0);
+    }
+}
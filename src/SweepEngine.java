@@ -0,0 +1,134 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Sensitivity sweep behind the Position Calculator's Sweep button: position size over a grid of
+// stop losses (columns) against either risk % or entry price (rows).
+//
+// The entry ladder's weighted average only depends on which side of the stop the trade is on,
+// so it is worked out once per side with PositionSizingEngine and every cell is then one call to
+// PositionSizingEngine.positionSize. Rows are filled in bands on the common fork/join pool,
+// straight into SweepResult's flat float array.
+public final class SweepEngine {
+    public static final int AXIS_RISK = 0;
+    public static final int AXIS_ENTRY = 1;
+    public static final int MAX_STEPS = 2000;
+    private static final int BAND_ROWS = 16;
+
+    private SweepEngine() { }
+
+    // in.entries holds the ladder as typed; with AXIS_ENTRY the whole ladder is shifted so that
+    // its first entry sits at the row's price. Returns a PositionSizingEngine status code.
+    public static int sweep(TradeInputs in, SweepResult out) {
+        int n = in.entryType == PositionSizingEngine.SINGLE_ENTRY ? Math.min(1, in.entryCount) : in.entryCount;
+        if (n <= 0) {
+            return PositionSizingEngine.ERR_NO_ENTRIES;
+        }
+        int cols = in.sweepCols;
+        int rows = in.sweepRows;
+        if (cols < 1 || rows < 1 || cols > MAX_STEPS || rows > MAX_STEPS) {
+            return PositionSizingEngine.ERR_INVALID_INPUT;
+        }
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            min = Math.min(min, in.entries[i]);
+            max = Math.max(max, in.entries[i]);
+        }
+        // Weighted averages of the ladder ordered as a long (stop below) and as a short (stop above).
+        PositionResult sized = new PositionResult(n);
+        double[] ladder = new double[n];
+        System.arraycopy(in.entries, 0, ladder, 0, n);
+        PositionSizingEngine.orderLadder(ladder, n, min - 1.0);
+        PositionSizingEngine.size(ladder, n, in.entryType, in.curve, min - 1.0, 1.0, 1.0, sized);
+        double avgLong = sized.avgEntry;
+        PositionSizingEngine.orderLadder(ladder, n, max + 1.0);
+        PositionSizingEngine.size(ladder, n, in.entryType, in.curve, max + 1.0, 1.0, 1.0, sized);
+        double avgShort = sized.avgEntry;
+
+        out.ensureCapacity(cols, rows);
+        out.yAxis = in.sweepAxis;
+        out.cols = cols;
+        out.rows = rows;
+        out.stopFrom = in.sweepStopFrom;
+        out.stopStep = cols > 1 ? (in.sweepStopTo - in.sweepStopFrom) / (cols - 1) : 0.0;
+        out.yFrom = in.sweepYFrom;
+        out.yStep = rows > 1 ? (in.sweepYTo - in.sweepYFrom) / (rows - 1) : 0.0;
+        out.balance = in.balance;
+        out.maxPosition = in.sweepMaxPosition;
+
+        ForkJoinPool.commonPool().invoke(new Band(out, in, min, max, avgLong, avgShort, 0, rows));
+        findFrontier(out);
+        return PositionSizingEngine.OK;
+    }
+
+    private static void findFrontier(SweepResult out) {
+        for (int c = 0; c < out.cols; c++) {
+            int best = -1;
+            float bestSize = 0f;
+            for (int r = 0; r < out.rows; r++) {
+                float size = out.sizes[r * out.cols + c];
+                if (size <= out.maxPosition && size > bestSize) {
+                    best = r;
+                    bestSize = size;
+                }
+            }
+            out.frontier[c] = best;
+        }
+    }
+
+    private static class Band extends RecursiveAction {
+        private final SweepResult out;
+        private final TradeInputs in;
+        private final double minEntry;
+        private final double maxEntry;
+        private final double avgLong;
+        private final double avgShort;
+        private final int fromRow;
+        private final int toRow;
+
+        Band(SweepResult out, TradeInputs in, double minEntry, double maxEntry, double avgLong, double avgShort,
+             int fromRow, int toRow) {
+            this.out = out;
+            this.in = in;
+            this.minEntry = minEntry;
+            this.maxEntry = maxEntry;
+            this.avgLong = avgLong;
+            this.avgShort = avgShort;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow > BAND_ROWS) {
+                int mid = (fromRow + toRow) >>> 1;
+                invokeAll(new Band(out, in, minEntry, maxEntry, avgLong, avgShort, fromRow, mid),
+                        new Band(out, in, minEntry, maxEntry, avgLong, avgShort, mid, toRow));
+                return;
+            }
+            float[] sizes = out.sizes;
+            int cols = out.cols;
+            boolean entryAxis = out.yAxis == AXIS_ENTRY;
+            for (int r = fromRow; r < toRow; r++) {
+                double y = out.yAt(r);
+                double shift = entryAxis ? y - in.entries[0] : 0.0;
+                double risk = entryAxis ? in.riskPct : y;
+                double low = minEntry + shift;
+                double high = maxEntry + shift;
+                int base = r * cols;
+                for (int c = 0; c < cols; c++) {
+                    double stop = out.stopAt(c);
+                    double size;
+                    if (stop < low) {
+                        size = PositionSizingEngine.positionSize(avgLong + shift, stop, in.balance, risk);
+                    } else if (stop > high) {
+                        size = PositionSizingEngine.positionSize(avgShort + shift, stop, in.balance, risk);
+                    } else {
+                        size = Double.NaN;
+                    }
+                    sizes[base + c] = (float) size;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+// Grid produced by SweepEngine. Cell (row, col) is the position size for stop loss
+// stopFrom + col * stopStep and Y value yFrom + row * yStep, stored row-major in a flat float
+// array so a 1000 x 1000 sweep is 4 MB of primitives rather than a million objects.
+public class SweepResult {
+    public int yAxis;
+    public int cols;
+    public int rows;
+    public double stopFrom;
+    public double stopStep;
+    public double yFrom;
+    public double yStep;
+    public double balance;
+    public double maxPosition;
+    // NaN where the stop sits inside (or on) the entry ladder.
+    public float[] sizes = new float[0];
+    // Per stop loss column: the row with the largest size still within maxPosition, or -1.
+    public int[] frontier = new int[0];
+
+    public void ensureCapacity(int cols, int rows) {
+        if (sizes.length < cols * rows) {
+            sizes = new float[cols * rows];
+        }
+        if (frontier.length < cols) {
+            frontier = new int[cols];
+        }
+    }
+
+    public double stopAt(int col) {
+        return stopFrom + col * stopStep;
+    }
+
+    public double yAt(int row) {
+        return yFrom + row * yStep;
+    }
+
+    public float sizeAt(int row, int col) {
+        return sizes[row * cols + col];
+    }
+}
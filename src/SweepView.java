@@ -0,0 +1,247 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+// Shows a SweepResult: a heatmap of position size (coloured by leverage, size / balance, on a
+// log scale from 0.01x to 100x) with the frontier drawn over it, and the frontier as a table.
+public class SweepView extends JPanel {
+    private static final double LOG_MIN = -2.0;
+    private static final double LOG_MAX = 2.0;
+    private static final int[] PALETTE = buildPalette();
+    private static final int INVALID_RGB = 0x404040;
+
+    private final Heatmap heatmap = new Heatmap();
+    private final FrontierModel frontierModel = new FrontierModel();
+    private final JLabel messageLabel = new JLabel(" ");
+
+    public SweepView() {
+        setLayout(new BorderLayout());
+        JTable table = new JTable(frontierModel);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        DefaultTableCellRenderer numberRenderer = new DefaultTableCellRenderer();
+        numberRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
+        table.setDefaultRenderer(String.class, numberRenderer);
+        JScrollPane tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(300, 160));
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, heatmap, tableScroll);
+        split.setResizeWeight(0.7);
+        split.setContinuousLayout(true);
+        add(split, BorderLayout.CENTER);
+        add(messageLabel, BorderLayout.SOUTH);
+    }
+
+    // Builds the heatmap image; safe to call off the EDT since the image is not shown yet.
+    public static BufferedImage render(SweepResult r) {
+        BufferedImage image = new BufferedImage(r.cols, r.rows, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        double scale = (PALETTE.length - 1) / (LOG_MAX - LOG_MIN);
+        for (int row = 0; row < r.rows; row++) {
+            // Image rows run top-down; the Y axis grows upwards.
+            int dst = (r.rows - 1 - row) * r.cols;
+            int src = row * r.cols;
+            for (int col = 0; col < r.cols; col++) {
+                float size = r.sizes[src + col];
+                if (!(size > 0f)) {
+                    pixels[dst + col] = INVALID_RGB;
+                } else {
+                    int idx = (int) ((Math.log10(size / r.balance) - LOG_MIN) * scale);
+                    pixels[dst + col] = PALETTE[Math.max(0, Math.min(PALETTE.length - 1, idx))];
+                }
+            }
+        }
+        return image;
+    }
+
+    public void showSweep(SweepResult result, BufferedImage image, long millis) {
+        heatmap.setSweep(result, image);
+        frontierModel.setSweep(result);
+        showMessage(String.format("%d x %d grid in %d ms. Colour = leverage (size / balance), 0.01x blue to 100x red; "
+                + "white line = frontier.", result.cols, result.rows, millis));
+    }
+
+    public void clear() {
+        heatmap.setSweep(null, null);
+        frontierModel.setSweep(null);
+        showMessage(null);
+    }
+
+    public void showMessage(String message) {
+        messageLabel.setText(message == null || message.isEmpty() ? " " : message);
+    }
+
+    // Blue (low leverage) through green and yellow to red (high leverage).
+    private static int[] buildPalette() {
+        int[] palette = new int[256];
+        for (int i = 0; i < palette.length; i++) {
+            float t = i / 255f;
+            palette[i] = Color.HSBtoRGB(0.66f * (1f - t), 0.85f, 0.95f) & 0xFFFFFF;
+        }
+        return palette;
+    }
+
+    private static String yLabel(SweepResult r) {
+        return r.yAxis == SweepEngine.AXIS_RISK ? "Risk (%)" : "Entry Price";
+    }
+
+    private static class Heatmap extends JComponent {
+        private static final int LEFT = 70;
+        private static final int BOTTOM = 36;
+        private static final int TOP = 8;
+        private static final int RIGHT = 12;
+        private SweepResult result;
+        private BufferedImage image;
+
+        Heatmap() {
+            setPreferredSize(new Dimension(400, 300));
+            setToolTipText("");
+        }
+
+        void setSweep(SweepResult result, BufferedImage image) {
+            this.result = result;
+            this.image = image;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (result == null) {
+                return;
+            }
+            Graphics2D g2 = (Graphics2D) g.create();
+            Rectangle plot = plotArea();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2.drawImage(image, plot.x, plot.y, plot.width, plot.height, null);
+            g2.setColor(getForeground());
+            g2.drawRect(plot.x, plot.y, plot.width, plot.height);
+
+            // Frontier: one point per stop column that has one.
+            g2.setColor(Color.WHITE);
+            g2.setStroke(new BasicStroke(2f));
+            int prevX = -1;
+            int prevY = -1;
+            for (int c = 0; c < result.cols; c++) {
+                int row = result.frontier[c];
+                if (row < 0) {
+                    prevX = -1;
+                    continue;
+                }
+                int x = plot.x + (int) ((c + 0.5) * plot.width / result.cols);
+                int y = plot.y + plot.height - (int) ((row + 0.5) * plot.height / result.rows);
+                if (prevX >= 0) {
+                    g2.drawLine(prevX, prevY, x, y);
+                } else {
+                    g2.fillRect(x - 1, y - 1, 3, 3);
+                }
+                prevX = x;
+                prevY = y;
+            }
+
+            g2.setColor(getForeground());
+            FontMetrics fm = g2.getFontMetrics();
+            int base = plot.y + plot.height + fm.getAscent() + 2;
+            g2.drawString(String.format("%.4f", result.stopAt(0)), plot.x, base);
+            String right = String.format("%.4f", result.stopAt(result.cols - 1));
+            g2.drawString(right, plot.x + plot.width - fm.stringWidth(right), base);
+            String xTitle = "Stop Loss";
+            g2.drawString(xTitle, plot.x + (plot.width - fm.stringWidth(xTitle)) / 2, base + fm.getHeight());
+            g2.drawString(String.format("%.2f", result.yAt(result.rows - 1)), 4, plot.y + fm.getAscent());
+            g2.drawString(String.format("%.2f", result.yAt(0)), 4, plot.y + plot.height);
+            g2.drawString(yLabel(result), 4, plot.y + plot.height / 2);
+            g2.dispose();
+        }
+
+        private Rectangle plotArea() {
+            return new Rectangle(LEFT, TOP, Math.max(1, getWidth() - LEFT - RIGHT),
+                    Math.max(1, getHeight() - TOP - BOTTOM));
+        }
+
+        @Override
+        public String getToolTipText(MouseEvent e) {
+            if (result == null) {
+                return null;
+            }
+            Rectangle plot = plotArea();
+            if (!plot.contains(e.getPoint())) {
+                return null;
+            }
+            int col = Math.min(result.cols - 1, (e.getX() - plot.x) * result.cols / plot.width);
+            int row = Math.min(result.rows - 1, (plot.y + plot.height - e.getY()) * result.rows / plot.height);
+            float size = result.sizeAt(row, col);
+            String y = String.format("%s %.4f", yLabel(result), result.yAt(row));
+            if (Float.isNaN(size)) {
+                return String.format("Stop %.4f, %s: stop inside the entry ladder", result.stopAt(col), y);
+            }
+            return String.format("Stop %.4f, %s: Position Size $%.2f (%.2fx)", result.stopAt(col), y,
+                    size, size / result.balance);
+        }
+    }
+
+    // One row per stop loss that has a frontier point. Values are formatted on demand from the
+    // result's arrays; nothing is copied per cell.
+    private static class FrontierModel extends AbstractTableModel {
+        private SweepResult result;
+        private int[] rowCols = new int[0];
+        private int count;
+
+        void setSweep(SweepResult result) {
+            this.result = result;
+            count = 0;
+            if (result != null) {
+                if (rowCols.length < result.cols) {
+                    rowCols = new int[result.cols];
+                }
+                for (int c = 0; c < result.cols; c++) {
+                    if (result.frontier[c] >= 0) {
+                        rowCols[count++] = c;
+                    }
+                }
+            }
+            fireTableStructureChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return count;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 4;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            switch (column) {
+                case 0: return "Stop Loss";
+                case 1: return result == null ? "Y" : "Best " + yLabel(result);
+                case 2: return "Position Size";
+                default: return "Leverage";
+            }
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return String.class;
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int column) {
+            int col = rowCols[rowIndex];
+            int row = result.frontier[col];
+            float size = result.sizeAt(row, col);
+            switch (column) {
+                case 0: return String.format("%.4f", result.stopAt(col));
+                case 1: return String.format("%.4f", result.yAt(row));
+                case 2: return String.format("%.2f", size);
+                default: return String.format("%.2fx", size / result.balance);
+            }
+        }
+    }
+}
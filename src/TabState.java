@@ -0,0 +1,93 @@
+// Everything a calculator tab needs to rebuild itself, kept as the text the user typed.
+// Tabs hold one of these instead of a full Swing component tree; the panel is only built
+// (or reused) while the tab is on screen. Shared by both calculator modes; the Position
+// Calculator simply leaves the take-profit fields empty.
+//
+// The trade itself is kept at the top level; each optional feature keeps its inputs in a group
+// of its own, filled by the panel that owns them.
+public class TabState {
+    public String title;
+    public String balance = "";
+    public String risk = "";
+    public String stopLoss = "";
+    // Index under Entry Type; entryStrategy names it, so a plug-in strategy is found again
+    // when the list changes.
+    public int entryType;
+    public String entryStrategy = "";
+    public int curve;
+    public String curveParam = "";
+    public String[] entryPrices = {""};
+    public boolean[] entryTriggered = {true};
+    public String[] tpPrices = {};
+    public String[] tpPcts = {};
+    public boolean[] tpTriggered = {};
+    public String[] tpHitPcts = {};
+    public String closePrice = "";
+    public boolean live;
+    // True when the tab was showing a result, so it is recalculated when shown again.
+    public boolean calculated;
+
+    public final Instrument instrument = new Instrument();
+    public final Exposure exposure = new Exposure();
+    // Position Calculator tools.
+    // Sensitivity sweep fields as typed, in PositionCalculatorPanel's SWEEP_* order.
+    public String[] sweep = {};
+    // Reverse solve targets as typed, in ReverseSolvePanel's SOLVE_* order.
+    public String[] solve = {};
+    public final Suggestion suggestion = new Suggestion();
+    // Fan-out accounts file.
+    public String accountsFile = "";
+    // Profit Calculator tools.
+    public final Simulation simulation = new Simulation();
+    public final Replay replay = new Replay();
+    public final Feed feed = new Feed();
+
+    // Bumped whenever the fields above may have been rewritten; lets autosave skip
+    // re-encoding tabs nobody has touched.
+    public int modCount;
+
+    public TabState(String title) {
+        this.title = title;
+    }
+
+    // Instrument spec as typed; blank = none.
+    public static class Instrument {
+        public String symbol = "";
+        public String tickSize = "";
+        public String lotSize = "";
+        public String minNotional = "";
+        public String multiplier = "";
+        public String feePct = "";
+    }
+
+    // What the tab's last result added to the Portfolio totals.
+    public static class Exposure {
+        public double riskUSD;
+        public double notionalUSD;
+        public boolean isLong;
+    }
+
+    // Risk suggestion inputs.
+    public static class Suggestion {
+        public String historyFile = "";
+        public String kellyShare = "0.5";
+        public String maxDrawdownPct = "20";
+    }
+
+    // Monte Carlo inputs besides the TP hit %s, which sit with the TP rows.
+    public static class Simulation {
+        public String stopHitPct = "";
+        public int paths;
+    }
+
+    public static class Replay {
+        public String file = "";
+        public String from = "";
+    }
+
+    // Live price feed: host:port or a price file, and the file's pace in ticks/s.
+    public static class Feed {
+        public String source = "";
+        public String rate = "";
+    }
+}
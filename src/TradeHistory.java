@@ -0,0 +1,226 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Past trades' R multiples (profit / risk), imported from a CSV file, and the risk-per-trade
+// suggestions they support:
+//
+//   Kelly          win rate - loss rate / payoff ratio, from running win and loss totals;
+//                  the fractional Kelly is a chosen share of it.
+//   Optimal f      the risk fraction f that maximizes the growth sum(ln(1 + f R)) over the
+//                  actual trades (Vince's optimal f divided by the largest loss in R).
+//   Ruin-bounded   the largest f whose chance of ever falling maxDrawdown below the start
+//                  stays under RUIN_PROBABILITY, in the diffusion approximation
+//                  P = exp(-2 mean D / (f variance)); never above optimal f.
+//
+// The file has one trade per line: either its R multiple, or its profit and risk (the first
+// two comma-separated fields). Header, '#' and malformed lines are skipped.
+//
+// Statistics are kept incrementally: the mean and variance with Welford's update, the win and
+// loss totals as sums. update() reads only the bytes appended to the file since the last call,
+// so a history that grows by a trade costs one line of parsing, and the suggestions follow at
+// once. A last line without its newline may still be being written, so it waits for the
+// update after its newline arrives. Optimal f needs every trade; its Newton solve restarts from
+// the previous optimum and typically converges in a few passes. A file that got shorter
+// (rewritten rather than appended to) is read again from the start.
+public class TradeHistory {
+    public static final double RUIN_PROBABILITY = 0.01;
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private static final Map<Path, TradeHistory> OPEN = new HashMap<>();
+
+    private final Path file;
+    private long offset;
+    private long skipped;
+    private int count;
+    private double meanR;
+    private double m2;
+    private int wins;
+    private double winSum;
+    private int losses;
+    private double lossSum;
+    private double worstR;
+    private double[] rs = new double[1024];
+    private double optimalF = Double.NaN;
+    private boolean optimalDirty;
+
+    private TradeHistory(Path file) {
+        this.file = file;
+    }
+
+    // One instance per file, shared by every tab that uses it, so switching tabs does not
+    // re-read the history.
+    public static synchronized TradeHistory forFile(Path file) {
+        return OPEN.computeIfAbsent(file.toAbsolutePath().normalize(), TradeHistory::new);
+    }
+
+    public synchronized void add(double r) {
+        if (count == rs.length) {
+            rs = Arrays.copyOf(rs, count * 2);
+        }
+        rs[count++] = r;
+        double delta = r - meanR;
+        meanR += delta / count;
+        m2 += delta * (r - meanR);
+        if (r > 0) {
+            wins++;
+            winSum += r;
+        } else if (r < 0) {
+            losses++;
+            lossSum -= r;
+        }
+        worstR = Math.min(worstR, r);
+        optimalDirty = true;
+    }
+
+    private void clear() {
+        offset = skipped = 0;
+        count = wins = losses = 0;
+        meanR = m2 = winSum = lossSum = worstR = 0.0;
+        optimalF = Double.NaN;
+        optimalDirty = false;
+    }
+
+    // Reads the lines appended to the file since the last update; returns how many trades
+    // were added.
+    public synchronized int update() throws IOException {
+        int before = count;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size < offset) {
+                clear();
+            }
+            long position = offset;
+            while (position < size) {
+                long length = Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer window = in.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int limit = (int) length;
+                int lineStart = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (window.get(i) == '\n') {
+                        parseLine(window, lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lineStart == 0) {
+                    if (length == WINDOW_SIZE) {
+                        throw new IOException("A line in " + file.getFileName() + " is longer than " + WINDOW_SIZE + " bytes.");
+                    }
+                    // Only an unfinished line is left.
+                    break;
+                }
+                position += lineStart;
+            }
+            offset = position;
+        } catch (IOException ex) {
+            if (!Files.exists(file)) {
+                throw new IOException(file.getFileName() + " does not exist.");
+            }
+            throw ex;
+        }
+        return count - before;
+    }
+
+    private void parseLine(MappedByteBuffer buf, int from, int to) {
+        if (to > from && buf.get(to - 1) == '\r') {
+            to--;
+        }
+        while (from < to && buf.get(from) == ' ') {
+            from++;
+        }
+        if (from >= to) {
+            return;
+        }
+        int comma = from;
+        while (comma < to && buf.get(comma) != ',') {
+            comma++;
+        }
+        double first = AsciiNumbers.parseDouble(buf, from, comma);
+        double r = first;
+        if (comma < to) {
+            int end = comma + 1;
+            while (end < to && buf.get(end) != ',') {
+                end++;
+            }
+            double risk = Math.abs(AsciiNumbers.parseDouble(buf, comma + 1, end));
+            r = risk > 0 ? first / risk : Double.NaN;
+        }
+        if (Double.isNaN(r) || Double.isInfinite(r)) {
+            // Headers and comments land here too, as they do not start with a number.
+            skipped++;
+            return;
+        }
+        add(r);
+    }
+
+    public synchronized void suggest(double kellyFraction, double maxDrawdown, RiskSuggestion out) {
+        out.trades = count;
+        out.skippedLines = skipped;
+        out.meanR = count > 0 ? meanR : Double.NaN;
+        out.sdR = count > 1 ? Math.sqrt(m2 / (count - 1)) : Double.NaN;
+        out.winRate = count > 0 ? (double) wins / count : Double.NaN;
+        out.payoff = wins > 0 && losses > 0 ? (winSum / wins) / (lossSum / losses) : Double.NaN;
+        out.kelly = out.kellyFraction = out.optimalF = out.ruinBounded = Double.NaN;
+        if (count < 2 || losses == 0 || wins == 0) {
+            // Without both a win and a loss the formulas have nothing to balance.
+            return;
+        }
+        // Break-even trades count towards neither the win nor the loss rate.
+        out.kelly = Math.max(0.0, out.winRate - (double) losses / count / out.payoff);
+        out.kellyFraction = out.kelly * kellyFraction;
+        out.optimalF = optimalF();
+        double variance = m2 / (count - 1);
+        if (meanR <= 0) {
+            out.ruinBounded = 0.0;
+        } else if (variance > 0 && maxDrawdown > 0) {
+            double f = 2.0 * meanR * maxDrawdown / (variance * Math.log(1.0 / RUIN_PROBABILITY));
+            out.ruinBounded = Math.min(f, out.optimalF);
+        }
+    }
+
+    // The f in [0, 1 / |worst R|) maximizing sum(ln(1 + f R)), by Newton's method kept inside
+    // a shrinking bracket. The growth is concave, so its slope has one root.
+    private double optimalF() {
+        if (!optimalDirty) {
+            return optimalF;
+        }
+        optimalDirty = false;
+        double lo = 0.0;
+        double hi = -1.0 / worstR;
+        if (meanR <= 0) {
+            // The growth is falling already at f = 0: no edge to bet on.
+            return optimalF = 0.0;
+        }
+        double f = optimalF > 0 && optimalF < hi ? optimalF : 0.5 * hi;
+        for (int iter = 0; iter < 100 && hi - lo > 1e-12; iter++) {
+            double g1 = 0.0;
+            double g2 = 0.0;
+            for (int i = 0; i < count; i++) {
+                double x = rs[i] / (1.0 + f * rs[i]);
+                g1 += x;
+                g2 -= x * x;
+            }
+            if (g1 > 0) {
+                lo = f;
+            } else {
+                hi = f;
+            }
+            double next = f - g1 / g2;
+            if (!(next > lo && next < hi)) {
+                next = 0.5 * (lo + hi);
+            }
+            if (Math.abs(next - f) < 1e-12) {
+                f = next;
+                break;
+            }
+            f = next;
+        }
+        return optimalF = f;
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.Arrays;
+
+// Snapshot of a calculator tab's inputs, read on the EDT and handed to a background
+// calculation. Nothing here refers back to Swing components.
+//
+// The fields are parsed once, straight into the arrays below, and a field that cannot be used
+// is recorded as an error instead of being thrown, so one pass reports every problem. A
+// calculator can reset() and refill the same instance for the next keystroke; the arrays only
+// grow.
+public class TradeInputs {
+    public double balance;
+    public double riskPct;
+    public double stopLoss;
+    public int entryType;
+    // The EntryStrategy chosen under Entry Type, by name; entryType is how it is sized.
+    public String entryStrategy;
+    public WeightCurve curve;
+    public double[] entries;
+    public int entryCount;
+    public double[] tpPrices;
+    public double[] tpPcts;
+    public boolean[] tpTriggered;
+    public int tpCount;
+    public double closePrice = Double.NaN;
+    // Null sizes in plain doubles, without tick or lot rounding.
+    public InstrumentSpec instrument;
+    // Simulation only: chance of reaching each TP (0..1) and of the rest being stopped out.
+    public double[] tpHitProbs;
+    public double stopHitProb;
+    public long simPaths;
+    // Sweep only: stop-loss range across, risk % or entry price range (sweepAxis) up.
+    public int sweepAxis;
+    public double sweepStopFrom;
+    public double sweepStopTo;
+    public int sweepCols;
+    public double sweepYFrom;
+    public double sweepYTo;
+    public int sweepRows;
+    public double sweepMaxPosition;
+    // Reverse solve only: the targets to solve the stop and ladder spacing for; NaN where unset.
+    public double solveMaxPosition = Double.NaN;
+    public double solveMaxLeverage = Double.NaN;
+    public double solveAvgEntry = Double.NaN;
+    // Problems found while reading, e.g. "TP 2 Close % is not a number".
+    public String[] errors = new String[4];
+    public int errorCount;
+
+    public void reset() {
+        entryCount = 0;
+        tpCount = 0;
+        closePrice = Double.NaN;
+        curve = null;
+        instrument = null;
+        stopHitProb = 0;
+        errorCount = 0;
+    }
+
+    public void ensureEntries(int n) {
+        if (entries == null || entries.length < n) {
+            entries = new double[n];
+        }
+    }
+
+    public void ensureTps(int n) {
+        if (tpPrices == null || tpPrices.length < n) {
+            tpPrices = new double[n];
+            tpPcts = new double[n];
+            tpTriggered = new boolean[n];
+            tpHitProbs = new double[n];
+        }
+    }
+
+    public void error(String field, String problem) {
+        if (errorCount == errors.length) {
+            errors = Arrays.copyOf(errors, errorCount * 2);
+        }
+        errors[errorCount++] = field + " " + problem;
+    }
+
+    public boolean hasErrors() {
+        return errorCount > 0;
+    }
+
+    // Every problem in one line, for the message area or an error dialog.
+    public String errorSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < errorCount; i++) {
+            sb.append(i == 0 ? "" : "; ").append(errors[i]);
+        }
+        return sb.append('.').toString();
+    }
+}
@@ -0,0 +1,524 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Append-only journal of completed profit calculations, one fixed-size record per trade, in a
+// memory-mapped file.
+//
+// Layout (big-endian): a 32-byte header (int magic 'PSCJ', short version, short record size,
+// long record count, reserved), then RECORD_SIZE-byte records:
+//
+//   long time (epoch ms), 16 bytes symbol (ASCII, zero-padded), byte entry type, byte long,
+//   byte closed (a close price was given), byte TPs hit, int entry count, then doubles: average
+//   entry, stop loss, position size, risk, profit, R (profit / risk), close price, fees; then
+//   32 bytes entry strategy name (UTF-8, zero-padded), the one chosen under Entry Type.
+//
+// Version 1 records stop after the fees, so their trades only have the built-in entry type.
+// Such a journal is rewritten in this layout, naming each trade by its type, the first time it
+// is opened for writing.
+//
+// A record is written before the count that covers it, so a crash can only lose the trade
+// being appended. The file grows in mapped chunks of CHUNK_RECORDS records.
+//
+// Records are in time order (a clock that goes backwards is clamped), so a date range is two
+// binary searches on the time column. Symbol and entry strategy are indexed by lists of record
+// numbers, built when the journal is opened by reading just those fields. A query walks the
+// shortest matching list and reads only the few fields its statistics need straight from the
+// mapping; nothing is deserialized into objects.
+//
+// Only one process can append at a time; another one opening the journal gets a read-only
+// view of the trades recorded so far. Methods are synchronized; queries take milliseconds even
+// over hundreds of thousands of trades.
+public class TradeJournal implements Closeable {
+    public static final String FILE_NAME = "journal.bin";
+    private static final int MAGIC = 0x5053434A; // "PSCJ"
+    private static final short VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 128;
+    private static final int V1_RECORD_SIZE = 96;
+    public static final int SYMBOL_BYTES = 16;
+    public static final int STRATEGY_BYTES = 32;
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+
+    private static final int TIME = 0;
+    private static final int SYMBOL = 8;
+    private static final int ENTRY_TYPE = 24;
+    private static final int LONG = 25;
+    private static final int CLOSED = 26;
+    private static final int TPS_HIT = 27;
+    private static final int ENTRY_COUNT = 28;
+    private static final int AVG_ENTRY = 32;
+    private static final int STOP_LOSS = 40;
+    private static final int POSITION_SIZE = 48;
+    private static final int RISK = 56;
+    private static final int PROFIT = 64;
+    private static final int R = 72;
+    private static final int CLOSE_PRICE = 80;
+    private static final int FEES = 88;
+    private static final int ENTRY_STRATEGY = 96;
+
+    private static TradeJournal defaultJournal;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private int count;
+    private long lastTime = Long.MIN_VALUE;
+    private final Map<String, IntList> bySymbol = new HashMap<>();
+    private final Map<String, IntList> byStrategy = new HashMap<>();
+    private final byte[] symbolBytes = new byte[SYMBOL_BYTES];
+    private final byte[] strategyBytes = new byte[STRATEGY_BYTES];
+
+    private TradeJournal(Path file, FileChannel channel, FileLock lock, MappedByteBuffer header, int count) {
+        this.file = file;
+        this.channel = channel;
+        this.lock = lock;
+        this.header = header;
+        this.count = count;
+    }
+
+    // The journal in ~/.position-size-calculator/journal.bin, opened on first use.
+    public static synchronized TradeJournal getDefault() throws IOException {
+        if (defaultJournal == null) {
+            defaultJournal = open(Paths.get(System.getProperty("user.home"), ".position-size-calculator", FILE_NAME));
+        }
+        return defaultJournal;
+    }
+
+    // Opens the journal, creating it if it does not exist, and builds the indexes.
+    public static TradeJournal open(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            FileLock lock;
+            try {
+                lock = ch.tryLock();
+            } catch (OverlappingFileLockException ex) {
+                lock = null;
+            }
+            boolean writable = lock != null;
+            if (!writable) {
+                ch.close();
+                ch = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            MappedByteBuffer header;
+            if (ch.size() == 0 && writable) {
+                header = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                header.putInt(0, MAGIC).putShort(4, VERSION).putShort(6, (short) RECORD_SIZE).putLong(8, 0);
+            } else {
+                if (ch.size() < HEADER_SIZE) {
+                    throw new IOException(file.getFileName() + " is not a trade journal.");
+                }
+                if (isVersion1(ch)) {
+                    if (!writable) {
+                        throw new IOException("The trade journal is in use by an older version of the calculator.");
+                    }
+                    upgrade(file, ch);
+                    return open(file);
+                }
+                header = ch.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt(0) != MAGIC) {
+                    throw new IOException(file.getFileName() + " is not a trade journal.");
+                }
+                if (header.getShort(4) != VERSION || header.getShort(6) != RECORD_SIZE) {
+                    throw new IOException("Unsupported trade journal version " + header.getShort(4) + ".");
+                }
+            }
+            long stored = header.getLong(8);
+            if (stored < 0 || stored > Integer.MAX_VALUE - CHUNK_RECORDS
+                    || ch.size() < HEADER_SIZE + stored * RECORD_SIZE) {
+                throw new IOException(file.getFileName() + " is truncated.");
+            }
+            TradeJournal journal = new TradeJournal(file, ch, lock, header, (int) stored);
+            journal.index();
+            return journal;
+        } catch (IOException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    private static boolean isVersion1(FileChannel ch) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(8);
+        readFully(ch, head, 0);
+        return head.getInt(0) == MAGIC && head.getShort(4) == 1 && head.getShort(6) == V1_RECORD_SIZE;
+    }
+
+    // Rewrites a version 1 journal into a temporary file in this layout and moves it over the
+    // old one, so a crash leaves either. The old file is read, not mapped, because Windows will
+    // not replace a file that is still mapped. Closes old.
+    private static void upgrade(Path file, FileChannel old) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(old, head, 0);
+        long stored = head.getLong(8);
+        if (stored < 0 || stored > Integer.MAX_VALUE - CHUNK_RECORDS
+                || old.size() < HEADER_SIZE + stored * V1_RECORD_SIZE) {
+            throw new IOException(file.getFileName() + " is truncated.");
+        }
+        Path upgraded = file.resolveSibling(file.getFileName() + ".upgrade");
+        try (FileChannel out = FileChannel.open(upgraded, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            head.putShort(4, VERSION).putShort(6, (short) RECORD_SIZE);
+            head.clear();
+            writeFully(out, head, 0);
+            String[] labels = PositionSizingEngine.entryTypeLabels();
+            byte[] name = new byte[STRATEGY_BYTES];
+            ByteBuffer from = ByteBuffer.allocate(CHUNK_RECORDS / 16 * V1_RECORD_SIZE);
+            ByteBuffer to = ByteBuffer.allocate(CHUNK_RECORDS / 16 * RECORD_SIZE);
+            for (long i = 0; i < stored; ) {
+                int n = (int) Math.min(stored - i, CHUNK_RECORDS / 16);
+                from.clear().limit(n * V1_RECORD_SIZE);
+                readFully(old, from, HEADER_SIZE + i * V1_RECORD_SIZE);
+                to.clear().limit(n * RECORD_SIZE);
+                for (int r = 0; r < n; r++) {
+                    int type = from.get(r * V1_RECORD_SIZE + ENTRY_TYPE);
+                    encodeName(type >= 0 && type < labels.length ? labels[type] : "", name);
+                    to.position(r * RECORD_SIZE);
+                    to.put(from.array(), r * V1_RECORD_SIZE, V1_RECORD_SIZE).put(name);
+                }
+                to.position(0);
+                writeFully(out, to, HEADER_SIZE + i * RECORD_SIZE);
+                i += n;
+            }
+            out.force(true);
+        }
+        old.close();
+        Files.move(upgraded, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer dst, long position) throws IOException {
+        int start = dst.position();
+        while (dst.hasRemaining()) {
+            if (ch.read(dst, position + dst.position() - start) < 0) {
+                throw new IOException("Unexpected end of the trade journal.");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer src, long position) throws IOException {
+        int start = src.position();
+        while (src.hasRemaining()) {
+            ch.write(src, position + src.position() - start);
+        }
+    }
+
+    private void index() throws IOException {
+        if (count > 0) {
+            map(count - 1);
+        }
+        String symbol = "";
+        String strategy = "";
+        byte[] previousSymbol = new byte[SYMBOL_BYTES];
+        byte[] previousStrategy = new byte[STRATEGY_BYTES];
+        for (int i = 0; i < count; i++) {
+            MappedByteBuffer chunk = chunk(i);
+            int at = offset(i);
+            // Neighbouring trades are usually in the same symbol and strategy; only decode them
+            // when they change.
+            if (readChanged(chunk, at + SYMBOL, previousSymbol)) {
+                symbol = decodeSymbol(previousSymbol);
+            }
+            if (readChanged(chunk, at + ENTRY_STRATEGY, previousStrategy)) {
+                strategy = decodeName(previousStrategy);
+            }
+            addToIndexes(i, symbol, strategy);
+        }
+        if (count > 0) {
+            lastTime = chunk(count - 1).getLong(offset(count - 1) + TIME);
+        }
+    }
+
+    // Copies the field at offset into previous; true if it differed.
+    private static boolean readChanged(MappedByteBuffer chunk, int offset, byte[] previous) {
+        boolean changed = false;
+        for (int b = 0; b < previous.length; b++) {
+            byte c = chunk.get(offset + b);
+            changed |= c != previous[b];
+            previous[b] = c;
+        }
+        return changed;
+    }
+
+    private void addToIndexes(int record, String symbol, String strategy) {
+        if (!symbol.isEmpty()) {
+            bySymbol.computeIfAbsent(symbol, s -> new IntList()).add(record);
+        }
+        if (!strategy.isEmpty()) {
+            byStrategy.computeIfAbsent(strategy, s -> new IntList()).add(record);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean isWritable() {
+        return lock != null;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    // Symbols with at least one trade, sorted.
+    public synchronized String[] symbols() {
+        String[] symbols = bySymbol.keySet().toArray(new String[0]);
+        Arrays.sort(symbols);
+        return symbols;
+    }
+
+    // Entry strategy names with at least one trade, sorted.
+    public synchronized String[] strategies() {
+        String[] strategies = byStrategy.keySet().toArray(new String[0]);
+        Arrays.sort(strategies);
+        return strategies;
+    }
+
+    // Records a profit calculation. symbol may be blank; it is stored upper-case and cut to
+    // SYMBOL_BYTES characters.
+    public synchronized void append(String symbol, PositionResult sizing, ProfitResult profit) throws IOException {
+        if (lock == null) {
+            throw new IOException("The trade journal is in use by another calculator.");
+        }
+        long time = Math.max(System.currentTimeMillis(), lastTime);
+        int i = count;
+        map(i);
+        MappedByteBuffer chunk = chunk(i);
+        int at = offset(i);
+        encodeSymbol(normalize(symbol));
+        encodeName(sizing.entryName(), strategyBytes);
+        int tpsHit = 0;
+        for (int t = 0; t < profit.tpCount; t++) {
+            if (profit.tpTriggered[t]) {
+                tpsHit++;
+            }
+        }
+        chunk.putLong(at + TIME, time);
+        for (int b = 0; b < SYMBOL_BYTES; b++) {
+            chunk.put(at + SYMBOL + b, symbolBytes[b]);
+        }
+        chunk.put(at + ENTRY_TYPE, (byte) sizing.entryType);
+        chunk.put(at + LONG, (byte) (sizing.isLong ? 1 : 0));
+        chunk.put(at + CLOSED, (byte) (profit.hasClosePrice ? 1 : 0));
+        chunk.put(at + TPS_HIT, (byte) tpsHit);
+        chunk.putInt(at + ENTRY_COUNT, sizing.count);
+        chunk.putDouble(at + AVG_ENTRY, sizing.avgEntry);
+        chunk.putDouble(at + STOP_LOSS, sizing.stopLoss);
+        chunk.putDouble(at + POSITION_SIZE, sizing.positionSizeUSD);
+        chunk.putDouble(at + RISK, sizing.riskUSD);
+        chunk.putDouble(at + PROFIT, profit.totalProfit);
+        chunk.putDouble(at + R, profit.riskReward);
+        chunk.putDouble(at + CLOSE_PRICE, profit.hasClosePrice ? profit.closePrice : Double.NaN);
+        chunk.putDouble(at + FEES, profit.feesUSD);
+        for (int b = 0; b < STRATEGY_BYTES; b++) {
+            chunk.put(at + ENTRY_STRATEGY + b, strategyBytes[b]);
+        }
+        // Only now does the trade count.
+        header.putLong(8, i + 1);
+        count = i + 1;
+        lastTime = time;
+        addToIndexes(i, decodeSymbol(symbolBytes), decodeName(strategyBytes));
+    }
+
+    // Statistics over the trades from fromTime (inclusive) to toTime (exclusive), in epoch
+    // milliseconds, limited to one symbol and one entry strategy name (null for all). Trades are
+    // taken in time order, which is what the drawdown is measured along.
+    public synchronized void stats(String symbol, String strategy, long fromTime, long toTime, JournalStats out) {
+        out.reset();
+        int lo = firstAtOrAfter(fromTime);
+        int hi = firstAtOrAfter(toTime);
+        if (lo >= hi) {
+            return;
+        }
+        IntList symbolList = null;
+        if (symbol != null && !symbol.trim().isEmpty()) {
+            symbolList = bySymbol.get(normalize(symbol));
+            if (symbolList == null) {
+                return;
+            }
+            encodeSymbol(normalize(symbol));
+        }
+        IntList strategyList = null;
+        if (strategy != null) {
+            encodeName(strategy, strategyBytes);
+            strategyList = byStrategy.get(decodeName(strategyBytes));
+            if (strategyList == null) {
+                return;
+            }
+        }
+        if (symbolList == null && strategyList == null) {
+            for (int i = lo; i < hi; i++) {
+                add(i, out);
+            }
+            return;
+        }
+        // Walk the shorter list; the other filter, if any, is checked per record.
+        boolean walkSymbol = strategyList == null || (symbolList != null && symbolList.size <= strategyList.size);
+        IntList walk = walkSymbol ? symbolList : strategyList;
+        boolean checkOther = walkSymbol ? strategyList != null : symbolList != null;
+        for (int k = walk.firstAtOrAfter(lo); k < walk.size && walk.values[k] < hi; k++) {
+            int i = walk.values[k];
+            if (!checkOther || (walkSymbol ? matches(i, ENTRY_STRATEGY, strategyBytes) : matches(i, SYMBOL, symbolBytes))) {
+                add(i, out);
+            }
+        }
+    }
+
+    private void add(int i, JournalStats out) {
+        MappedByteBuffer chunk = chunk(i);
+        int at = offset(i);
+        out.add(chunk.getDouble(at + PROFIT), chunk.getDouble(at + R));
+    }
+
+    // Index of the first record at or after time; count if there is none.
+    private int firstAtOrAfter(long time) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (chunk(mid).getLong(offset(mid) + TIME) < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // True if record i's field at field holds exactly these bytes.
+    private boolean matches(int i, int field, byte[] bytes) {
+        MappedByteBuffer chunk = chunk(i);
+        int at = offset(i) + field;
+        for (int b = 0; b < bytes.length; b++) {
+            if (chunk.get(at + b) != bytes[b]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void encodeSymbol(String key) {
+        Arrays.fill(symbolBytes, (byte) 0);
+        for (int b = 0; b < key.length(); b++) {
+            char c = key.charAt(b);
+            symbolBytes[b] = c < 128 ? (byte) c : (byte) '?';
+        }
+    }
+
+    private static String decodeSymbol(byte[] bytes) {
+        int n = 0;
+        while (n < bytes.length && bytes[n] != 0) {
+            n++;
+        }
+        return new String(bytes, 0, n, StandardCharsets.US_ASCII);
+    }
+
+    // UTF-8, zero-padded, cut to the field at a character boundary.
+    private static void encodeName(String name, byte[] dst) {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int n = Math.min(utf8.length, dst.length);
+        if (n < utf8.length) {
+            while (n > 0 && (utf8[n] & 0xC0) == 0x80) {
+                n--;
+            }
+        }
+        Arrays.fill(dst, (byte) 0);
+        System.arraycopy(utf8, 0, dst, 0, n);
+    }
+
+    private static String decodeName(byte[] bytes) {
+        int n = 0;
+        while (n < bytes.length && bytes[n] != 0) {
+            n++;
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private static String normalize(String symbol) {
+        String key = symbol == null ? "" : symbol.trim().toUpperCase(Locale.ROOT);
+        return key.length() > SYMBOL_BYTES ? key.substring(0, SYMBOL_BYTES) : key;
+    }
+
+    // Maps every chunk up to the one holding record i; a writable journal grows the file.
+    private void map(int i) throws IOException {
+        int c = i >>> CHUNK_SHIFT;
+        while (chunks.size() <= c) {
+            long position = HEADER_SIZE + (long) chunks.size() * CHUNK_RECORDS * RECORD_SIZE;
+            long size = (long) CHUNK_RECORDS * RECORD_SIZE;
+            if (lock != null) {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, position, size));
+            } else {
+                // Read-only: the file may end inside the chunk; map what is there.
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size, channel.size() - position)));
+            }
+        }
+    }
+
+    // The chunk holding record i, which must already be mapped.
+    private MappedByteBuffer chunk(int i) {
+        return chunks.get(i >>> CHUNK_SHIFT);
+    }
+
+    private static int offset(int i) {
+        return (i & (CHUNK_RECORDS - 1)) * RECORD_SIZE;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        chunks.clear();
+        if (lock != null) {
+            header.force();
+        }
+        channel.close();
+    }
+
+    // A growable list of record numbers, in ascending order.
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+
+        int firstAtOrAfter(int v) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (values[mid] < v) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+
+// How a ladder's size is spread across its rungs. Weight tables are built once per rung count
+// and cached on the curve, so sizing an N-rung ladder is a plain O(N) pass with no allocation.
+// Rung 0 is the entry furthest from the stop.
+public final class WeightCurve {
+    public static final int EQUAL = 0;
+    public static final int LINEAR = 1;
+    public static final int GEOMETRIC = 2;
+    public static final int CUSTOM = 3;
+    public static final int FORMULA = 4;
+
+    // Equal-Sized DCA: every rung gets the same share.
+    public static final WeightCurve EQUAL_WEIGHTS = new WeightCurve(EQUAL, 1.0, null, null, null);
+    // The original Exponential Entries ratios 0.5, 1.0, 1.5, extended one step per rung.
+    public static final WeightCurve LINEAR_WEIGHTS = new WeightCurve(LINEAR, 0.5, null, null, null);
+
+    // Largest ratio allowed between a geometric ladder's biggest and smallest weight. Keeps the
+    // weights and their sum finite and every rung's share above zero for any rung count.
+    private static final double MAX_GEOMETRIC_SPREAD = 1e150;
+
+    private final int kind;
+    private final double param;
+    private final double[] custom;
+    private final String formulaText;
+    private final MethodHandle formula;
+    // Indexed by rung count; entries are filled lazily and the arrays are never mutated once
+    // published, so readers need no lock.
+    private volatile double[][] rawTables = new double[0][];
+    private volatile double[][] normalizedTables = new double[0][];
+
+    private WeightCurve(int kind, double param, double[] custom, String formulaText, MethodHandle formula) {
+        this.kind = kind;
+        this.param = param;
+        this.custom = custom;
+        this.formulaText = formulaText;
+        this.formula = formula;
+    }
+
+    // Each rung is factor times the one before it: 1, f, f^2, ... Not cached: the caller keeps
+    // the curve while the factor is unchanged. A factor too far from 1 for a ladder's length
+    // fails when that ladder's table is built (see checkGeometric).
+    public static WeightCurve geometric(double factor) {
+        if (!(factor > 0) || Double.isInfinite(factor)) {
+            throw new IllegalArgumentException("Geometric factor must be a positive number.");
+        }
+        return new WeightCurve(GEOMETRIC, factor, null, null, null);
+    }
+
+    // User-supplied relative weights; ladders longer than the list reuse the last weight.
+    public static WeightCurve custom(double[] weights) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("Custom weights need at least one value.");
+        }
+        for (double w : weights) {
+            if (!(w > 0) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("Custom weights must be positive numbers.");
+            }
+        }
+        return new WeightCurve(CUSTOM, 0.0, weights.clone(), null, null);
+    }
+
+    // Weights from a formula of the rung number i (from 1) and rung count n; see WeightFormula.
+    // Throws IllegalArgumentException when the text does not parse. A formula that gives a
+    // weight that is not a positive number only fails when a table with that rung is built.
+    // Compiles on every call; the caller keeps the curve while the text is unchanged.
+    public static WeightCurve formula(String text) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Please enter a weight formula, e.g. i ^ 1.5");
+        }
+        return new WeightCurve(FORMULA, 0.0, null, trimmed, WeightFormula.compile(trimmed));
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public double getParam() {
+        return param;
+    }
+
+    public double[] getCustomWeights() {
+        return custom == null ? null : custom.clone();
+    }
+
+    public String getFormula() {
+        return formulaText;
+    }
+
+    // Relative weight per rung as the user thinks of it (e.g. 0.5, 1.0, 1.5). Do not modify.
+    public double[] raw(int n) {
+        double[][] tables = rawTables;
+        if (n < tables.length && tables[n] != null) {
+            return tables[n];
+        }
+        build(n);
+        return rawTables[n];
+    }
+
+    // Weights scaled to sum to 1. Do not modify.
+    public double[] normalized(int n) {
+        double[][] tables = normalizedTables;
+        if (n < tables.length && tables[n] != null) {
+            return tables[n];
+        }
+        build(n);
+        return normalizedTables[n];
+    }
+
+    private synchronized void build(int n) {
+        if (n < normalizedTables.length && normalizedTables[n] != null) {
+            return;
+        }
+        if (kind == GEOMETRIC) {
+            checkGeometric(n);
+        }
+        double[] raw = new double[n];
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
+            raw[i] = weightAt(i, n);
+            if (!(raw[i] > 0) || Double.isInfinite(raw[i])) {
+                throw new IllegalArgumentException(String.format(
+                        "%s gives %s for rung %d of %d; weights must be positive numbers.",
+                        describe(), raw[i], i + 1, n));
+            }
+            sum += raw[i];
+        }
+        double[] normalized = new double[n];
+        for (int i = 0; i < n; i++) {
+            normalized[i] = raw[i] / sum;
+        }
+        rawTables = with(rawTables, n, raw);
+        normalizedTables = with(normalizedTables, n, normalized);
+    }
+
+    private void checkGeometric(int n) {
+        if (n < 2) {
+            return;
+        }
+        double limit = Math.exp(Math.log(MAX_GEOMETRIC_SPREAD) / (n - 1));
+        if (param > limit || param < 1.0 / limit) {
+            throw new IllegalArgumentException(String.format(
+                    "Geometric factor %s is too %s for %d rungs; use one between %.4g and %.4g.",
+                    param, param > 1.0 ? "large" : "small", n, 1.0 / limit, limit));
+        }
+    }
+
+    // The curve as the user chose it, for error messages.
+    private String describe() {
+        switch (kind) {
+            case LINEAR:
+                return "The linear curve";
+            case GEOMETRIC:
+                return "Geometric factor " + param;
+            case CUSTOM:
+                return "The custom weights";
+            case FORMULA:
+                return "The weight formula";
+            default:
+                return "The equal curve";
+        }
+    }
+
+    private double weightAt(int i, int n) {
+        switch (kind) {
+            case LINEAR:
+                return param * (i + 1);
+            case GEOMETRIC:
+                return Math.pow(param, i);
+            case CUSTOM:
+                return custom[Math.min(i, custom.length - 1)];
+            case FORMULA:
+                return WeightFormula.weight(formula, i + 1, n);
+            default:
+                return 1.0;
+        }
+    }
+
+    private static double[][] with(double[][] tables, int n, double[] table) {
+        double[][] copy = Arrays.copyOf(tables, Math.max(tables.length, n + 1));
+        copy[n] = table;
+        return copy;
+    }
+}
@@ -0,0 +1,314 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// Compiles a weight formula typed by the user, such as "i ^ 1.5" or "exp(-i / n)", into a
+// MethodHandle of type (double i, double n) double: i is the rung number (1 for Entry 1, the
+// rung furthest from the stop) and n the number of rungs. The text is parsed once and each
+// operator becomes a combinator around a static method, so evaluating a weight runs JIT-compiled
+// code rather than walking a tree; constant parts are folded while parsing.
+//
+//   + - * / ^ (power, right-associative), unary minus, parentheses
+//   numbers, i, n, pi, e
+//   sqrt(x) exp(x) log(x) abs(x) pow(x, y) min(x, y) max(x, y)
+public final class WeightFormula {
+    private static final MethodType WEIGHT = MethodType.methodType(double.class, double.class, double.class);
+    private static final MethodType UNARY = MethodType.methodType(double.class, double.class);
+    private static final MethodHandle RUNG;
+    private static final MethodHandle COUNT;
+    private static final MethodHandle ADD;
+    private static final MethodHandle SUB;
+    private static final MethodHandle MUL;
+    private static final MethodHandle DIV;
+    private static final MethodHandle NEG;
+    private static final MethodHandle POW;
+    private static final MethodHandle MIN;
+    private static final MethodHandle MAX;
+    private static final MethodHandle SQRT;
+    private static final MethodHandle EXP;
+    private static final MethodHandle LOG;
+    private static final MethodHandle ABS;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle identity = MethodHandles.identity(double.class);
+            RUNG = MethodHandles.dropArguments(identity, 1, double.class);
+            COUNT = MethodHandles.dropArguments(identity, 0, double.class);
+            ADD = lookup.findStatic(WeightFormula.class, "add", WEIGHT);
+            SUB = lookup.findStatic(WeightFormula.class, "sub", WEIGHT);
+            MUL = lookup.findStatic(WeightFormula.class, "mul", WEIGHT);
+            DIV = lookup.findStatic(WeightFormula.class, "div", WEIGHT);
+            NEG = lookup.findStatic(WeightFormula.class, "neg", UNARY);
+            POW = lookup.findStatic(Math.class, "pow", WEIGHT);
+            MIN = lookup.findStatic(Math.class, "min", WEIGHT);
+            MAX = lookup.findStatic(Math.class, "max", WEIGHT);
+            SQRT = lookup.findStatic(Math.class, "sqrt", UNARY);
+            EXP = lookup.findStatic(Math.class, "exp", UNARY);
+            LOG = lookup.findStatic(Math.class, "log", UNARY);
+            ABS = lookup.findStatic(Math.class, "abs", UNARY);
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    private final String text;
+    private int pos;
+
+    private WeightFormula(String text) {
+        this.text = text;
+    }
+
+    // Throws IllegalArgumentException with a user-facing message when the text does not parse.
+    public static MethodHandle compile(String text) {
+        WeightFormula parser = new WeightFormula(text);
+        Node node = parser.expression();
+        parser.skipSpaces();
+        if (parser.pos < text.length()) {
+            throw parser.error("Unexpected '" + text.charAt(parser.pos) + "'");
+        }
+        return node.handle();
+    }
+
+    // Evaluates a compiled formula; i counts rungs from 1.
+    public static double weight(MethodHandle formula, int i, int n) {
+        try {
+            return (double) formula.invokeExact((double) i, (double) n);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // A parsed subexpression: a folded constant, or a handle of type WEIGHT.
+    private static final class Node {
+        final MethodHandle handle;
+        final double value;
+
+        Node(MethodHandle handle) {
+            this.handle = handle;
+            this.value = Double.NaN;
+        }
+
+        Node(double value) {
+            this.handle = null;
+            this.value = value;
+        }
+
+        boolean isConstant() {
+            return handle == null;
+        }
+
+        MethodHandle handle() {
+            if (handle != null) {
+                return handle;
+            }
+            return MethodHandles.dropArguments(MethodHandles.constant(double.class, value), 0, double.class, double.class);
+        }
+    }
+
+    private Node expression() {
+        Node left = term();
+        while (true) {
+            if (accept('+')) {
+                left = binary(ADD, left, term());
+            } else if (accept('-')) {
+                left = binary(SUB, left, term());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node term() {
+        Node left = unary();
+        while (true) {
+            if (accept('*')) {
+                left = binary(MUL, left, unary());
+            } else if (accept('/')) {
+                left = binary(DIV, left, unary());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private Node unary() {
+        if (accept('-')) {
+            return apply(NEG, unary());
+        }
+        accept('+');
+        return power();
+    }
+
+    private Node power() {
+        Node base = atom();
+        if (accept('^')) {
+            return binary(POW, base, unary());
+        }
+        return base;
+    }
+
+    private Node atom() {
+        skipSpaces();
+        if (accept('(')) {
+            Node inner = expression();
+            expect(')');
+            return inner;
+        }
+        int start = pos;
+        if (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+                int mark = pos++;
+                if (pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+                    pos++;
+                }
+                if (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                    while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                        pos++;
+                    }
+                } else {
+                    // Not an exponent after all, e.g. "2e" is left for the next token.
+                    pos = mark;
+                }
+            }
+            try {
+                return new Node(Double.parseDouble(text.substring(start, pos)));
+            } catch (NumberFormatException ex) {
+                throw error("'" + text.substring(start, pos) + "' is not a number");
+            }
+        }
+        while (pos < text.length() && Character.isLetter(text.charAt(pos))) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error(pos < text.length() ? "Unexpected '" + text.charAt(pos) + "'" : "Unexpected end");
+        }
+        String name = text.substring(start, pos).toLowerCase();
+        switch (name) {
+            case "i":
+                return new Node(RUNG);
+            case "n":
+                return new Node(COUNT);
+            case "pi":
+                return new Node(Math.PI);
+            case "e":
+                return new Node(Math.E);
+            case "sqrt":
+                return apply(SQRT, arguments(name, 1)[0]);
+            case "exp":
+                return apply(EXP, arguments(name, 1)[0]);
+            case "log":
+                return apply(LOG, arguments(name, 1)[0]);
+            case "abs":
+                return apply(ABS, arguments(name, 1)[0]);
+            case "pow": {
+                Node[] args = arguments(name, 2);
+                return binary(POW, args[0], args[1]);
+            }
+            case "min": {
+                Node[] args = arguments(name, 2);
+                return binary(MIN, args[0], args[1]);
+            }
+            case "max": {
+                Node[] args = arguments(name, 2);
+                return binary(MAX, args[0], args[1]);
+            }
+            default:
+                pos = start;
+                throw error("Unknown name '" + name + "'");
+        }
+    }
+
+    private Node[] arguments(String name, int count) {
+        expect('(');
+        Node[] args = new Node[count];
+        for (int k = 0; k < count; k++) {
+            if (k > 0) {
+                expect(',');
+            }
+            args[k] = expression();
+        }
+        if (!accept(')')) {
+            throw error(name + " takes " + count + (count == 1 ? " argument" : " arguments"));
+        }
+        return args;
+    }
+
+    // f(x): folded when x is constant, otherwise f applied to x's result.
+    private static Node apply(MethodHandle f, Node x) {
+        if (x.isConstant()) {
+            return new Node(invoke(f, x.value));
+        }
+        return new Node(MethodHandles.filterReturnValue(x.handle, f));
+    }
+
+    // op(a, b): both sides take (i, n), so their four arguments are merged back into two.
+    private static Node binary(MethodHandle op, Node a, Node b) {
+        if (a.isConstant() && b.isConstant()) {
+            return new Node(invoke(op, a.value, b.value));
+        }
+        MethodHandle left = MethodHandles.collectArguments(op, 0, a.handle());
+        MethodHandle both = MethodHandles.collectArguments(left, 2, b.handle());
+        return new Node(MethodHandles.permuteArguments(both, WEIGHT, 0, 1, 0, 1));
+    }
+
+    private static double invoke(MethodHandle f, double... args) {
+        try {
+            return args.length == 1 ? (double) f.invokeExact(args[0]) : (double) f.invokeExact(args[0], args[1]);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private boolean accept(char c) {
+        skipSpaces();
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("Expected '" + c + "'");
+        }
+    }
+
+    private void skipSpaces() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Weight formula: " + message + " at position " + (pos + 1) + ".");
+    }
+
+    private static double add(double a, double b) {
+        return a + b;
+    }
+
+    private static double sub(double a, double b) {
+        return a - b;
+    }
+
+    private static double mul(double a, double b) {
+        return a * b;
+    }
+
+    private static double div(double a, double b) {
+        return a / b;
+    }
+
+    private static double neg(double a) {
+        return -a;
+    }
+}
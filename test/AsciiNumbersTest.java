@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsciiNumbersTest {
+    private static final String[] BOUNDARY = {
+            "0", "-0", "+0", "0.0", ".5", "5.", "-.5", "1", "-1", "0.1", "0.2", "0.3", "-0.3",
+            "1.0850", "100000.25", "12345.6789",
+            // 15 to 20 significant digits, around where the exact fast path ends.
+            "123456789012345", "1234567890123456", "12345678901234567", "123456789012345678",
+            "12345678901234567890", "0.1234567890123456", "0.12345678901234567", "9007199254740993",
+            "9007199254740992.5", "900719925474099.3", "-4503599627370497.5",
+            "1.0000000000000002", "1.00000000000000011102230246251565404", "0.30000000000000004",
+            "2.2250738585072011e-308", "2.2250738585072014e-308", "4.9e-324", "1.7976931348623157e308",
+            "1.7976931348623159e308",
+            // Exponents at and beyond the exactly representable powers of ten.
+            "1e22", "1e23", "9e22", "1.5e-22", "1.5e-23", "123e-25", "-7.25E+10", "3e-5", "3E5",
+            "1e400", "1e-400", "-1e400", "123456789e-30", "0.000000000000000000000001",
+            "000000000000000000001.5", "1.50000000000000000000000000", "8.41e21", "8.41e-21"
+    };
+
+    @Test
+    void boundaryInputsMatchDoubleParseDouble() {
+        for (String s : BOUNDARY) {
+            assertSame(s);
+        }
+    }
+
+    @Test
+    void randomInputsMatchDoubleParseDouble() {
+        Random random = new Random(18);
+        List<String> inputs = new ArrayList<>();
+        for (int n = 0; n < 20_000; n++) {
+            // Shortest round-trip form of arbitrary doubles, then plain digit strings of every length.
+            inputs.add(Double.toString(Double.longBitsToDouble(random.nextLong())));
+            inputs.add(randomDecimal(random));
+        }
+        for (String s : inputs) {
+            if (!s.contains("NaN") && !s.contains("Infinity")) {
+                assertSame(s);
+            }
+        }
+    }
+
+    @Test
+    void malformedInputIsNaN() {
+        for (String s : new String[]{"", "  ", "-", ".", "1e", "1e+", "1.2.3", "1x", "e5", "--1", "1 2"}) {
+            assertTrue(Double.isNaN(parseBytes(s)), s);
+            assertTrue(Double.isNaN(AsciiNumbers.parseDouble(s.toCharArray(), 0, s.length())), s);
+        }
+    }
+
+    @Test
+    void surroundingSpacesAreIgnored() {
+        assertEquals(1.25, parseBytes("  1.25 "));
+    }
+
+    private static String randomDecimal(Random random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextBoolean()) {
+            sb.append('-');
+        }
+        int intDigits = random.nextInt(12);
+        int fracDigits = random.nextInt(24);
+        for (int d = 0; d < intDigits; d++) {
+            sb.append((char) ('0' + random.nextInt(10)));
+        }
+        if (intDigits == 0 || fracDigits > 0) {
+            sb.append('.');
+            for (int d = 0; d < Math.max(1, fracDigits); d++) {
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        if (random.nextInt(4) == 0) {
+            sb.append('e').append(random.nextInt(80) - 40);
+        }
+        return sb.toString();
+    }
+
+    private static void assertSame(String s) {
+        double expected = Double.parseDouble(s);
+        assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(parseBytes(s)), s);
+        assertEquals(Double.doubleToLongBits(expected),
+                Double.doubleToLongBits(AsciiNumbers.parseDouble(s.toCharArray(), 0, s.length())), s);
+    }
+
+    // Parsed from the middle of a larger buffer, the way a CSV field is.
+    private static double parseBytes(String s) {
+        byte[] bytes = ("x," + s + ",y").getBytes(StandardCharsets.US_ASCII);
+        return AsciiNumbers.parseDouble(ByteBuffer.wrap(bytes), 2, 2 + s.length());
+    }
+}
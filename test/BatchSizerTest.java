@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchSizerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void sizesRowsAndReportsRejectedOnes() throws Exception {
+        List<String> rows = run("balance,risk,stop,type,entries\r\n"
+                + "# comment\r\n"
+                + "10000,1,90,single,100\r\n"
+                + "\r\n"
+                + "10000,1,110,dca,100,95\r\n"
+                + "10000,1,90,bogus,100\r\n"
+                + "10000,1,100,single,100\r\n"
+                + "10000,1,90,exp,100,x\r\n"
+                + "10000,1,90,dca,100,95");
+        assertEquals(List.of(
+                "line,status,side,avg_entry,position_usd,risk_usd,allocations",
+                "3,OK,Long,100.0000,1000.00,100.00,1000.00",
+                "5,OK,Short,97.5000,780.00,100.00,390.00,390.00",
+                "6,INVALID_INPUT",
+                "7,ENTRY_EQUALS_STOP",
+                "8,INVALID_INPUT",
+                "9,OK,Long,97.5000,1300.00,100.00,650.00,650.00"), rows);
+    }
+
+    @Test
+    void widestAmountsFitAcrossBufferFlushes() throws Exception {
+        // Each row prints hundreds of digits; enough of them fill the output buffer many times over.
+        int count = 5000;
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            csv.append("1e300,100,90,dca,100,95,99,98\n");
+        }
+        List<String> rows = run(csv.toString());
+        assertEquals(count + 1, rows.size());
+        String first = rows.get(1);
+        for (int i = 1; i <= count; i++) {
+            String row = rows.get(i);
+            assertTrue(row.startsWith(i + ",OK,Long,"), row);
+            assertEquals(first.length() - 1, row.length() - Integer.toString(i).length());
+            assertEquals(10, row.split(",").length, row);
+        }
+    }
+
+    private List<String> run(String csv) throws Exception {
+        Path in = dir.resolve("orders.csv");
+        Path out = dir.resolve("sized.csv");
+        Files.writeString(in, csv, StandardCharsets.US_ASCII);
+        new BatchSizer().process(in, out);
+        return Files.readAllLines(out, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,46 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutEngineTest {
+    @Test
+    void shortLadderMatchesTheEngineAndReconciles() {
+        AccountTable accounts = new AccountTable();
+        for (int k = 0; k < 50; k++) {
+            accounts.add("acct" + k, 1_000 + 997.3 * k, k % 5 == 0 ? Double.NaN : 0.5 + 0.1 * k);
+        }
+        InstrumentSpec spec = new InstrumentSpec(0.01, 0.0001, 5);
+        spec.feeRate = Fixed.of(0.0005);
+        TradeInputs in = new TradeInputs();
+        in.ensureEntries(2);
+        in.entryCount = 2;
+        in.entries[0] = 100;
+        in.entries[1] = 200;
+        in.stopLoss = 300;
+        in.riskPct = 1;
+        in.entryType = PositionSizingEngine.EQUAL_SIZED_DCA;
+        in.instrument = spec;
+
+        FanOutResult out = new FanOutResult();
+        assertEquals(PositionSizingEngine.OK, FanOutEngine.fanOut(in, accounts, out));
+        assertTrue(out.reconciled, out.overBudget + " accounts over budget");
+        assertEquals(accounts.count, out.sized + out.belowMinimum);
+
+        PositionResult alone = new PositionResult();
+        for (int k = 0; k < accounts.count; k++) {
+            double risk = Double.isNaN(accounts.riskPcts[k]) ? in.riskPct : accounts.riskPcts[k];
+            double[] ladder = {100, 200};
+            PositionSizingEngine.orderLadder(ladder, 2, in.stopLoss);
+            PositionSizingEngine.size(ladder, 2, in.entryType, WeightCurve.EQUAL_WEIGHTS, in.stopLoss,
+                    accounts.balances[k], risk, spec, alone);
+            assertEquals(alone.status, out.statuses[k]);
+            assertEquals(alone.positionSizeUSD, out.positionUSD[k]);
+            assertEquals(alone.riskUSD, out.riskUSD[k]);
+            for (int i = 0; i < 2; i++) {
+                assertEquals(alone.quantities[i], out.quantity(k, i));
+            }
+            assertTrue(out.riskUSD[k] <= out.budgets[k], "account " + k);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionSizingEngineTest {
+    private static final int DCA = PositionSizingEngine.EQUAL_SIZED_DCA;
+
+    private static InstrumentSpec lot(double lotSize, double feeRate) {
+        InstrumentSpec spec = new InstrumentSpec(0, lotSize, 0);
+        spec.feeRate = Fixed.of(feeRate);
+        return spec;
+    }
+
+    private static PositionResult size(double[] entries, double stop, InstrumentSpec spec) {
+        PositionResult out = new PositionResult();
+        int status = PositionSizingEngine.size(entries.clone(), entries.length, DCA, WeightCurve.EQUAL_WEIGHTS, stop,
+                10_000, 1, spec, out);
+        assertEquals(PositionSizingEngine.OK, status);
+        return out;
+    }
+
+    // What the rounded position really loses at the stop, fees included.
+    private static double lossAtStop(PositionResult r, InstrumentSpec spec) {
+        double loss = 0.0;
+        double feeRate = Fixed.toDouble(spec.feeRate);
+        for (int i = 0; i < r.count; i++) {
+            loss += r.quantities[i] * (Math.abs(r.entries[i] - r.stopLoss) + feeRate * (r.entries[i] + r.stopLoss));
+        }
+        return loss;
+    }
+
+    @Test
+    void shortLadderStaysWithinBudget() {
+        InstrumentSpec spec = lot(0.0001, 0);
+        PositionResult r = size(new double[] {100, 200}, 300, spec);
+        assertTrue(r.riskUSD <= 100.0, "risk " + r.riskUSD);
+        assertTrue(r.riskUSD > 99.9, "risk " + r.riskUSD);
+        assertEquals(lossAtStop(r, spec), r.riskUSD, 1e-6);
+    }
+
+    @Test
+    void longLadderUsesTheWholeBudget() {
+        InstrumentSpec spec = lot(0.0001, 0);
+        PositionResult r = size(new double[] {200, 100}, 50, spec);
+        assertTrue(r.riskUSD <= 100.0, "risk " + r.riskUSD);
+        assertTrue(r.riskUSD > 99.9, "risk " + r.riskUSD);
+        assertEquals(lossAtStop(r, spec), r.riskUSD, 1e-6);
+    }
+
+    @Test
+    void feesComeOutOfTheBudgetOnBothSides() {
+        InstrumentSpec spec = lot(0.0001, 0.001);
+        PositionResult shortSide = size(new double[] {100, 200}, 300, spec);
+        PositionResult longSide = size(new double[] {200, 100}, 50, spec);
+        for (PositionResult r : new PositionResult[] {shortSide, longSide}) {
+            assertTrue(r.riskUSD <= 100.0, "risk " + r.riskUSD);
+            assertTrue(r.riskUSD > 99.9, "risk " + r.riskUSD);
+            assertTrue(r.feesUSD > 0);
+        }
+    }
+
+    @Test
+    void closingEverythingChargesTheExactCost() {
+        InstrumentSpec spec = lot(0.0001, 0);
+        PositionResult r = size(new double[] {100, 200}, 300, spec);
+        ProfitResult profit = new ProfitResult();
+        ProfitEngine.calculate(r, new double[] {90}, new double[] {30}, new boolean[] {true}, 1, 80, profit);
+        long tpFx = Fixed.of(profit.tpUnits[0]);
+        long restFx = Fixed.of(profit.remainingUnits);
+        assertEquals(r.totalUnitsFx, tpFx + restFx);
+        // Short: the closes' costs add up to what the entries took in, to the last Fixed unit.
+        long valueFx = spec.notional(Fixed.of(90), tpFx) + spec.notional(Fixed.of(80), restFx);
+        assertEquals(r.notionalFx - valueFx, Fixed.of(profit.totalProfit));
+    }
+}
@@ -0,0 +1,227 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionStoreTest {
+    private static final int MAGIC = 0x50534353;
+
+    @Test
+    void fullyPopulatedTabRoundTrips() throws Exception {
+        TabState position = populated("Position 1");
+        TabState profit = populated("Profit 2");
+        profit.live = false;
+        profit.entryType = 1;
+        byte[] data = session(12, 0, List.of(SessionStore.encodeTab(position)),
+                0, List.of(SessionStore.encodeTab(profit)), 2.5);
+
+        SessionStore.Session session = SessionStore.decode(data);
+        assertEquals(1, session.positionTabs.size());
+        assertEquals(1, session.profitTabs.size());
+        assertSameTab(position, session.positionTabs.get(0));
+        assertSameTab(profit, session.profitTabs.get(0));
+        assertEquals(2.5, session.riskCap);
+    }
+
+    @Test
+    void version4TabLoadsWithLaterFieldsAtTheirDefaults() throws Exception {
+        // A tab as version 4 wrote it: the trade, simulation inputs, sweep, then the replay.
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF("Old");
+        out.writeUTF("10000");
+        out.writeUTF("1");
+        out.writeUTF("90");
+        out.writeByte(2);
+        out.writeByte(1);
+        out.writeUTF("1.5");
+        out.writeShort(2);
+        out.writeUTF("100");
+        out.writeBoolean(true);
+        out.writeUTF("95");
+        out.writeBoolean(false);
+        out.writeByte(1);
+        out.writeUTF("120");
+        out.writeUTF("50");
+        out.writeBoolean(true);
+        out.writeUTF("60");
+        out.writeUTF("115");
+        out.writeByte(3);
+        out.writeUTF("25");
+        out.writeInt(1_000_000);
+        out.writeByte(2);
+        out.writeUTF("80");
+        out.writeUTF("95");
+        out.writeUTF("bars.csv");
+        out.writeUTF("1000");
+        out.close();
+        byte[] data = session(4, 0, List.of(), 0, List.of(bytes.toByteArray()), Double.NaN);
+
+        SessionStore.Session session = SessionStore.decode(data);
+        TabState s = session.profitTabs.get(0);
+        assertEquals("Old", s.title);
+        assertEquals("90", s.stopLoss);
+        assertEquals(2, s.entryType);
+        assertArrayEquals(new String[]{"100", "95"}, s.entryPrices);
+        assertArrayEquals(new boolean[]{true, false}, s.entryTriggered);
+        assertArrayEquals(new String[]{"60"}, s.tpHitPcts);
+        assertEquals("115", s.closePrice);
+        assertTrue(s.live && s.calculated);
+        assertEquals("25", s.simulation.stopHitPct);
+        assertEquals(1_000_000, s.simulation.paths);
+        assertArrayEquals(new String[]{"80", "95"}, s.sweep);
+        assertEquals("bars.csv", s.replay.file);
+        assertEquals("1000", s.replay.from);
+        TabState defaults = new TabState("Old");
+        assertEquals(defaults.instrument.tickSize, s.instrument.tickSize);
+        assertEquals(defaults.suggestion.kellyShare, s.suggestion.kellyShare);
+        assertEquals(defaults.feed.source, s.feed.source);
+        assertEquals(defaults.entryStrategy, s.entryStrategy);
+        assertTrue(Double.isNaN(session.riskCap));
+    }
+
+    @Test
+    void newerVersionFieldsAreSkipped() throws Exception {
+        TabState first = populated("First");
+        TabState second = populated("Second");
+        second.balance = "777";
+        byte[] firstRecord = withExtraFields(SessionStore.encodeTab(first));
+        byte[] secondRecord = withExtraFields(SessionStore.encodeTab(second));
+        byte[] data = session(99, 1, List.of(firstRecord, secondRecord), 0, List.of(), 3.0);
+
+        SessionStore.Session session = SessionStore.decode(data);
+        assertEquals(1, session.positionSelected);
+        assertEquals(2, session.positionTabs.size());
+        assertSameTab(first, session.positionTabs.get(0));
+        assertSameTab(second, session.positionTabs.get(1));
+        assertEquals(0, session.profitTabs.size());
+        assertEquals(3.0, session.riskCap);
+    }
+
+    private static TabState populated(String title) {
+        TabState s = new TabState(title);
+        s.balance = "25000";
+        s.risk = "0.75";
+        s.stopLoss = "1.0850";
+        s.entryType = 2;
+        s.entryStrategy = "Fibonacci Entries";
+        s.curve = 3;
+        s.curveParam = "i ^ 1.5";
+        s.entryPrices = new String[]{"1.0900", "1.0880", ""};
+        s.entryTriggered = new boolean[]{true, false, true};
+        s.tpPrices = new String[]{"1.0950", "1.1000"};
+        s.tpPcts = new String[]{"50", "50"};
+        s.tpTriggered = new boolean[]{true, false};
+        s.tpHitPcts = new String[]{"70", "40"};
+        s.closePrice = "1.0990";
+        s.live = true;
+        s.calculated = true;
+        s.instrument.symbol = "EURUSD";
+        s.instrument.tickSize = "0.00001";
+        s.instrument.lotSize = "1000";
+        s.instrument.minNotional = "10";
+        s.instrument.multiplier = "1";
+        s.instrument.feePct = "0.002";
+        s.exposure.riskUSD = 187.5;
+        s.exposure.notionalUSD = 40_000.25;
+        s.exposure.isLong = true;
+        s.sweep = new String[]{"1.08", "1.085", "20", "0.5", "2", "10", "50000"};
+        s.solve = new String[]{"30000", "3", "1.0885"};
+        s.suggestion.historyFile = "history.csv";
+        s.suggestion.kellyShare = "0.25";
+        s.suggestion.maxDrawdownPct = "15";
+        s.accountsFile = "accounts.csv";
+        s.simulation.stopHitPct = "35";
+        s.simulation.paths = 10_000_000;
+        s.replay.file = "eurusd.bars";
+        s.replay.from = "1700000000";
+        s.feed.source = "localhost:9000";
+        s.feed.rate = "200";
+        return s;
+    }
+
+    private static void assertSameTab(TabState expected, TabState actual) {
+        assertEquals(expected.title, actual.title);
+        assertEquals(expected.balance, actual.balance);
+        assertEquals(expected.risk, actual.risk);
+        assertEquals(expected.stopLoss, actual.stopLoss);
+        assertEquals(expected.entryType, actual.entryType);
+        assertEquals(expected.entryStrategy, actual.entryStrategy);
+        assertEquals(expected.curve, actual.curve);
+        assertEquals(expected.curveParam, actual.curveParam);
+        assertArrayEquals(expected.entryPrices, actual.entryPrices);
+        assertArrayEquals(expected.entryTriggered, actual.entryTriggered);
+        assertArrayEquals(expected.tpPrices, actual.tpPrices);
+        assertArrayEquals(expected.tpPcts, actual.tpPcts);
+        assertArrayEquals(expected.tpTriggered, actual.tpTriggered);
+        assertArrayEquals(expected.tpHitPcts, actual.tpHitPcts);
+        assertEquals(expected.closePrice, actual.closePrice);
+        assertEquals(expected.live, actual.live);
+        assertEquals(expected.calculated, actual.calculated);
+        assertEquals(expected.instrument.symbol, actual.instrument.symbol);
+        assertEquals(expected.instrument.tickSize, actual.instrument.tickSize);
+        assertEquals(expected.instrument.lotSize, actual.instrument.lotSize);
+        assertEquals(expected.instrument.minNotional, actual.instrument.minNotional);
+        assertEquals(expected.instrument.multiplier, actual.instrument.multiplier);
+        assertEquals(expected.instrument.feePct, actual.instrument.feePct);
+        assertEquals(expected.exposure.riskUSD, actual.exposure.riskUSD);
+        assertEquals(expected.exposure.notionalUSD, actual.exposure.notionalUSD);
+        assertEquals(expected.exposure.isLong, actual.exposure.isLong);
+        assertArrayEquals(expected.sweep, actual.sweep);
+        assertArrayEquals(expected.solve, actual.solve);
+        assertEquals(expected.suggestion.historyFile, actual.suggestion.historyFile);
+        assertEquals(expected.suggestion.kellyShare, actual.suggestion.kellyShare);
+        assertEquals(expected.suggestion.maxDrawdownPct, actual.suggestion.maxDrawdownPct);
+        assertEquals(expected.accountsFile, actual.accountsFile);
+        assertEquals(expected.simulation.stopHitPct, actual.simulation.stopHitPct);
+        assertEquals(expected.simulation.paths, actual.simulation.paths);
+        assertEquals(expected.replay.file, actual.replay.file);
+        assertEquals(expected.replay.from, actual.replay.from);
+        assertEquals(expected.feed.source, actual.feed.source);
+        assertEquals(expected.feed.rate, actual.feed.rate);
+    }
+
+    // What a later version might append to a tab record.
+    private static byte[] withExtraFields(byte[] record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(record);
+        out.writeUTF("added later");
+        out.writeDouble(42.0);
+        out.writeInt(-1);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    // A session file in SessionStore's layout around already encoded tab records.
+    private static byte[] session(int version, int positionSelected, List<byte[]> positionTabs,
+                                  int profitSelected, List<byte[]> profitTabs, double riskCap) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(version);
+        out.writeInt(positionSelected);
+        out.writeInt(positionTabs.size());
+        for (byte[] tab : positionTabs) {
+            out.writeInt(tab.length);
+            out.write(tab);
+        }
+        out.writeInt(profitSelected);
+        out.writeInt(profitTabs.size());
+        for (byte[] tab : profitTabs) {
+            out.writeInt(tab.length);
+            out.write(tab);
+        }
+        if (version >= 5) {
+            out.writeDouble(riskCap);
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,29 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TradeHistoryTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void unfinishedLastLineWaitsForItsNewline() throws Exception {
+        Path file = dir.resolve("trades.csv");
+        Files.writeString(file, "2.0\n-1.0\n1.");
+        TradeHistory history = TradeHistory.forFile(file);
+        assertEquals(2, history.update());
+
+        Files.write(file, "5\n".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+        assertEquals(1, history.update());
+        RiskSuggestion out = new RiskSuggestion();
+        history.suggest(0.5, 0.2, out);
+        assertEquals(3, out.trades);
+        assertEquals(2.5 / 3, out.meanR, 1e-12);
+    }
+}